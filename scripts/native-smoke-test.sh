@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Smoke test of the native image: runs the binary as the local server against DynamoDB Local and calls the read / pool
+# routes which don't need SQS or KMS. Reports the time until the server answered its first request and its resident
+# memory.
+#
+# Usage: scripts/native-smoke-test.sh <binary> (or ./gradlew nativeSmokeTest)
+# DYNAMODB_ENDPOINT - DynamoDB Local to use, otherwise one is started with docker
+# PORT - port of the server, defaults to 18080
+set -euo pipefail
+
+BINARY=${1:?usage: $0 <native binary>}
+PORT=${PORT:-18080}
+POOL_NAME=Apples-Bananas
+TABLE_NAME=AutomatedMarketMaker-dev-LiquidityPools
+BASE_URL="http://localhost:$PORT"
+
+export AWS_REGION=us-east-1
+export AWS_ACCESS_KEY_ID=local
+export AWS_SECRET_ACCESS_KEY=local
+
+DYNAMODB_CONTAINER=""
+SERVER_PID=""
+cleanup() {
+    if [ -n "$SERVER_PID" ]; then
+        kill "$SERVER_PID" 2>/dev/null || true
+    fi
+    if [ -n "$DYNAMODB_CONTAINER" ]; then
+        docker rm -f "$DYNAMODB_CONTAINER" >/dev/null 2>&1 || true
+    fi
+}
+trap cleanup EXIT
+
+if [ -z "${DYNAMODB_ENDPOINT:-}" ]; then
+    DYNAMODB_CONTAINER=$(docker run -d --rm -p 18000:8000 amazon/dynamodb-local -jar DynamoDBLocal.jar -inMemory)
+    export DYNAMODB_ENDPOINT=http://localhost:18000
+    until aws dynamodb list-tables --endpoint-url "$DYNAMODB_ENDPOINT" >/dev/null 2>&1; do
+        sleep 0.5
+    done
+fi
+
+aws dynamodb create-table --endpoint-url "$DYNAMODB_ENDPOINT" --table-name "$TABLE_NAME" \
+    --attribute-definitions AttributeName=poolName,AttributeType=S \
+    --key-schema AttributeName=poolName,KeyType=HASH \
+    --billing-mode PAY_PER_REQUEST >/dev/null
+
+# expects a status code, and fails with the response body otherwise
+call() {
+    local expected=$1 method=$2 path=$3 body=${4:-}
+    local response status
+    response=$(curl -s -w '\n%{http_code}' -X "$method" -H 'Content-Type: application/json' \
+        ${body:+--data "$body"} "$BASE_URL$path")
+    status=${response##*$'\n'}
+    if [ "$status" != "$expected" ]; then
+        echo "FAIL $method $path: expected $expected, got $status: ${response%$'\n'*}" >&2
+        exit 1
+    fi
+    echo "ok   $method $path"
+}
+
+START_MILLIS=$(date +%s%3N)
+PORT=$PORT SWAP_LISTENER_ENABLED=false METRICS_EXPORTER=none "$BINARY" server &
+SERVER_PID=$!
+until curl -s -o /dev/null "$BASE_URL/pool/$POOL_NAME"; do
+    if ! kill -0 "$SERVER_PID" 2>/dev/null; then
+        echo "FAIL server exited before serving a request" >&2
+        exit 1
+    fi
+    sleep 0.01
+done
+echo "first response after $(($(date +%s%3N) - START_MILLIS)) ms"
+
+call 201 POST "/pool/$POOL_NAME" \
+    '{"assetOne":{"price":100,"amount":50000},"assetTwo":{"price":100,"amount":50000}}'
+call 200 GET "/pool/$POOL_NAME"
+call 200 POST "/pool/$POOL_NAME/quotes" '{"inName":"Apples","inAmounts":[100,1000,10000]}'
+call 200 POST /swap/estimate/batch \
+    '{"swapRequests":[{"inName":"Apples","inAmount":7000,"outName":"Bananas"}],"issueClaimTokens":false}'
+call 400 POST /swap/estimate/batch '{"swapRequests":'
+
+echo "resident memory $(grep VmRSS /proc/$SERVER_PID/status | awk '{print $2, $3}')"
+echo "PASSED"
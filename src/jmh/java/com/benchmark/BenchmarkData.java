@@ -0,0 +1,82 @@
+package com.benchmark;
+
+import com.client.kms.token.SwapClaimToken;
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+import com.model.types.Asset;
+import com.util.LiquidityPoolUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shared inputs for benchmarks, matching the examples in apiTestData.
+ */
+public final class BenchmarkData {
+
+    public static final String ASSET_ONE = "Apples";
+    public static final String ASSET_TWO = "Bananas";
+    public static final String POOL_NAME = "Apples-Bananas";
+    public static final byte[] HMAC_KEY = "benchmark-hmac-key-of-32-bytes!!".getBytes(StandardCharsets.UTF_8);
+
+    private BenchmarkData() {
+    }
+
+    public static LiquidityPool liquidityPool() {
+        final Date now = new Date();
+        return LiquidityPool.builder()
+                .poolName(POOL_NAME)
+                .assetOne(new PriceAmount(100d, 50000d))
+                .assetTwo(new PriceAmount(100d, 50000d))
+                .createdTime(now)
+                .updatedTime(now)
+                .build();
+    }
+
+    /**
+     * A pool between every pair of assets, with slightly different prices, so that every route is a candidate.
+     */
+    public static List<LiquidityPool> allLiquidityPools() {
+        final Date now = new Date();
+        final Asset[] assets = Asset.values();
+        final List<LiquidityPool> liquidityPools = new ArrayList<>();
+        for (int i = 0; i < assets.length; i++) {
+            for (int j = i + 1; j < assets.length; j++) {
+                final double price = 100d + i - j;
+                liquidityPools.add(LiquidityPool.builder()
+                        .poolName(LiquidityPoolUtil.getPoolName(assets[i].getName(), assets[j].getName()))
+                        .assetOne(new PriceAmount(price, 50000d))
+                        .assetTwo(new PriceAmount(price, 50000d))
+                        .createdTime(now)
+                        .updatedTime(now)
+                        .build());
+            }
+        }
+        return liquidityPools;
+    }
+
+    public static SwapRequest swapRequest() {
+        final SwapRequest swapRequest = new SwapRequest();
+        swapRequest.setInName(ASSET_ONE);
+        swapRequest.setOutName(ASSET_TWO);
+        swapRequest.setInAmount(7000d);
+        return swapRequest;
+    }
+
+    public static SwapEstimate swapEstimate() {
+        return new SwapEstimate(ASSET_ONE, new PriceAmount(100d, 7000d),
+                ASSET_TWO, new PriceAmount(100d, 6140.350877192983d));
+    }
+
+    public static SwapClaimToken swapClaimToken() {
+        final SwapClaimToken swapClaimToken = new SwapClaimToken();
+        swapClaimToken.setSwapContractId("81e3520f-bc19-4bbb-9ed4-fefedf9bc9cf");
+        swapClaimToken.setExpiresAt(new Date());
+        swapClaimToken.setSwapRequest(swapRequest());
+        return swapClaimToken;
+    }
+}
@@ -0,0 +1,70 @@
+package com.benchmark;
+
+import com.amazonaws.encryptionsdk.AwsCrypto;
+import com.amazonaws.encryptionsdk.CommitmentPolicy;
+import com.amazonaws.encryptionsdk.caching.LocalCryptoMaterialsCache;
+import com.amazonaws.encryptionsdk.jce.JceMasterKey;
+import com.client.AwsCallExecutor;
+import com.client.kms.KMSClient;
+import com.client.kms.KMSModule;
+import com.client.kms.token.ClaimTokenCodec;
+import com.client.kms.token.EncryptedClaimTokenCodec;
+import com.client.kms.token.HmacClaimTokenCodec;
+import com.client.kms.token.SwapClaimToken;
+import com.model.exception.InvalidInputException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks encoding / decoding a SwapClaimToken with each ClaimTokenCodec. The encrypted codec uses a local AES
+ * master key with the data key cache, so it measures the AWS Encryption SDK work without the KMS round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClaimTokenCodecBenchmark {
+
+    @Param({"hmac", "encrypted"})
+    public String mode;
+
+    private ClaimTokenCodec claimTokenCodec;
+    private SwapClaimToken swapClaimToken;
+    private String token;
+
+    @Setup
+    public void setup() {
+        if ("hmac".equals(mode)) {
+            claimTokenCodec = new HmacClaimTokenCodec(BenchmarkData.HMAC_KEY);
+        } else {
+            final JceMasterKey masterKey = JceMasterKey.getInstance(new SecretKeySpec(BenchmarkData.HMAC_KEY, "AES"),
+                    "local", "benchmark", "AES/GCM/NoPadding");
+            final AwsCrypto awsCrypto = AwsCrypto.builder()
+                    .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
+                    .build();
+            claimTokenCodec = new EncryptedClaimTokenCodec(new KMSClient(awsCrypto,
+                    KMSModule.cachingCryptoMaterialsManager(masterKey, new LocalCryptoMaterialsCache(10), 300, 1000),
+                    new AwsCallExecutor(Runnable::run)));
+        }
+        swapClaimToken = BenchmarkData.swapClaimToken();
+        token = claimTokenCodec.encode(swapClaimToken);
+    }
+
+    @Benchmark
+    public String encode() {
+        return claimTokenCodec.encode(swapClaimToken);
+    }
+
+    @Benchmark
+    public SwapClaimToken decode() throws InvalidInputException {
+        return claimTokenCodec.decode(token);
+    }
+}
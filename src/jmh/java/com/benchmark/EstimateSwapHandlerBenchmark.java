@@ -0,0 +1,52 @@
+package com.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.api.handler.swap.EstimateSwapHandler;
+import com.api.server.LocalContext;
+import com.benchmark.fake.InMemoryDynamoDBClient;
+import com.client.AwsCallExecutor;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.token.HmacClaimTokenCodec;
+import com.logic.MarketMakerLogic;
+import com.util.ObjectMapperUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full EstimateSwap request, with DynamoDB replaced by an in-memory fake and HMAC signed claim tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EstimateSwapHandlerBenchmark {
+
+    private EstimateSwapHandler estimateSwapHandler;
+    private APIGatewayProxyRequestEvent requestEvent;
+    private LocalContext context;
+
+    @Setup
+    public void setup() {
+        final InMemoryDynamoDBClient dynamoDBClient = new InMemoryDynamoDBClient();
+        dynamoDBClient.createLiquidityPool(BenchmarkData.liquidityPool());
+        // no caching, so every request reads the pool from the fake
+        estimateSwapHandler = new EstimateSwapHandler(new LiquidityPoolCache(dynamoDBClient, 0, 0),
+                new HmacClaimTokenCodec(BenchmarkData.HMAC_KEY), new MarketMakerLogic(),
+                new AwsCallExecutor(Runnable::run));
+        requestEvent = new APIGatewayProxyRequestEvent()
+                .withBody(ObjectMapperUtil.toString(BenchmarkData.swapRequest()));
+        context = new LocalContext("someAwsRequestId");
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent handleRequest() {
+        return estimateSwapHandler.handleRequest(requestEvent, context);
+    }
+}
@@ -0,0 +1,43 @@
+package com.benchmark;
+
+import com.model.SwapRequest;
+import com.util.LiquidityPoolUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building pool names from asset names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LiquidityPoolUtilBenchmark {
+
+    private String assetNameOne;
+    private String assetNameTwo;
+    private SwapRequest swapRequest;
+
+    @Setup
+    public void setup() {
+        assetNameOne = BenchmarkData.ASSET_TWO;
+        assetNameTwo = BenchmarkData.ASSET_ONE;
+        swapRequest = BenchmarkData.swapRequest();
+    }
+
+    @Benchmark
+    public String getPoolName() {
+        return LiquidityPoolUtil.getPoolName(assetNameOne, assetNameTwo);
+    }
+
+    @Benchmark
+    public String inferPoolNameFromSwapRequest() {
+        return LiquidityPoolUtil.inferPoolNameFromSwapRequest(swapRequest);
+    }
+}
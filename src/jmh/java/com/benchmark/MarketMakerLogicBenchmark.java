@@ -0,0 +1,113 @@
+package com.benchmark;
+
+import com.logic.ArithmeticMode;
+import com.logic.MarketMakerLogic;
+import com.logic.PoolGraph;
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.QuoteLadder;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+import com.model.types.Asset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the estimate and settle pricing paths of MarketMakerLogic, in doubles and in fixed point, and the route
+ * search over a graph with a pool between every pair of assets. Benchmarks ending in FixedPoint run in the FIXED_POINT
+ * ArithmeticMode, and the others in DOUBLE.
+ * <p>
+ * The FixedPoint benchmarks price a pool as LiquidityPoolCache serves it (see MarketMakerLogic.preparePool) and settle
+ * an estimate priced in fixed point, so the values are already scaled. The LoadedPool ones price and settle the pool
+ * and estimate as they are read from DynamoDB / SQS, which are scaled on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MarketMakerLogicBenchmark {
+
+    private MarketMakerLogic marketMakerLogic;
+    private MarketMakerLogic fixedPointMarketMakerLogic;
+    private LiquidityPool liquidityPool;
+    private SwapRequest swapRequest;
+    private SwapEstimate swapEstimate;
+    private LiquidityPool fixedPointLiquidityPool;
+    private SwapEstimate fixedPointSwapEstimate;
+    private SwapEstimate loadedSwapEstimate;
+    private PoolGraph poolGraph;
+    private double[] ladderInAmounts;
+
+    @Setup
+    public void setup() {
+        marketMakerLogic = new MarketMakerLogic(ArithmeticMode.DOUBLE, 1e-9);
+        fixedPointMarketMakerLogic = new MarketMakerLogic(ArithmeticMode.FIXED_POINT, 1e-9);
+        liquidityPool = BenchmarkData.liquidityPool();
+        swapRequest = BenchmarkData.swapRequest();
+        swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+        fixedPointLiquidityPool = fixedPointMarketMakerLogic.preparePool(liquidityPool);
+        fixedPointSwapEstimate = fixedPointMarketMakerLogic.createSwapEstimate(fixedPointLiquidityPool, swapRequest);
+        loadedSwapEstimate = new SwapEstimate(fixedPointSwapEstimate.getInName(),
+                new PriceAmount(fixedPointSwapEstimate.getInPriceAmount().getPrice(),
+                        fixedPointSwapEstimate.getInPriceAmount().getAmount()),
+                fixedPointSwapEstimate.getOutName(),
+                new PriceAmount(fixedPointSwapEstimate.getOutPriceAmount().getPrice(),
+                        fixedPointSwapEstimate.getOutPriceAmount().getAmount()));
+        poolGraph = new PoolGraph(BenchmarkData.allLiquidityPools());
+        ladderInAmounts = new double[100];
+        for (int i = 0; i < ladderInAmounts.length; i++) {
+            ladderInAmounts[i] = (i + 1) * 100d;
+        }
+    }
+
+    @Benchmark
+    public SwapEstimate createSwapEstimate() {
+        return marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+    }
+
+    @Benchmark
+    public LiquidityPool applySwapEstimateToPool() {
+        return marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool);
+    }
+
+    @Benchmark
+    public SwapEstimate createSwapEstimateFixedPoint() {
+        return fixedPointMarketMakerLogic.createSwapEstimate(fixedPointLiquidityPool, swapRequest);
+    }
+
+    @Benchmark
+    public LiquidityPool applySwapEstimateToPoolFixedPoint() {
+        return fixedPointMarketMakerLogic.applySwapEstimateToPool(fixedPointSwapEstimate, fixedPointLiquidityPool);
+    }
+
+    @Benchmark
+    public SwapEstimate createSwapEstimateFixedPointLoadedPool() {
+        return fixedPointMarketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+    }
+
+    @Benchmark
+    public LiquidityPool applySwapEstimateToPoolFixedPointLoadedPool() {
+        return fixedPointMarketMakerLogic.applySwapEstimateToPool(loadedSwapEstimate, liquidityPool);
+    }
+
+    /**
+     * 100 quotes in one call, to compare with 100 calls of createSwapEstimate.
+     */
+    @Benchmark
+    public QuoteLadder createQuoteLadder() {
+        return marketMakerLogic.createQuoteLadder(liquidityPool, BenchmarkData.ASSET_ONE, BenchmarkData.ASSET_TWO,
+                ladderInAmounts);
+    }
+
+    @Benchmark
+    public int[] findBestRoute() {
+        return poolGraph.findBestRoute(Asset.APPLES.ordinal(), Asset.BANANAS.ordinal(),
+                swapRequest.getInAmount(), 3);
+    }
+}
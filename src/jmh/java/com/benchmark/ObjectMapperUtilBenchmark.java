@@ -0,0 +1,99 @@
+package com.benchmark;
+
+import com.client.kms.token.SwapClaimToken;
+import com.model.LiquidityPool;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+import com.model.exception.InvalidInputException;
+import com.util.ObjectMapperUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JSON serialization / deserialization of the models on the request hot paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ObjectMapperUtilBenchmark {
+
+    private SwapRequest swapRequest;
+    private SwapClaimToken swapClaimToken;
+    private LiquidityPool liquidityPool;
+    private String swapRequestAsString;
+    private String swapClaimTokenAsString;
+    private String liquidityPoolAsString;
+    private SwapEstimate swapEstimate;
+    private String swapEstimateAsString;
+    private byte[] swapRequestAsBytes;
+
+    @Setup
+    public void setup() {
+        swapRequest = BenchmarkData.swapRequest();
+        swapClaimToken = BenchmarkData.swapClaimToken();
+        liquidityPool = BenchmarkData.liquidityPool();
+        swapRequestAsString = ObjectMapperUtil.toString(swapRequest);
+        swapClaimTokenAsString = ObjectMapperUtil.toString(swapClaimToken);
+        liquidityPoolAsString = ObjectMapperUtil.toString(liquidityPool);
+        swapEstimate = BenchmarkData.swapEstimate();
+        swapEstimateAsString = ObjectMapperUtil.toString(swapEstimate);
+        swapRequestAsBytes = ObjectMapperUtil.toBytes(swapRequest);
+    }
+
+    @Benchmark
+    public String swapRequestToString() {
+        return ObjectMapperUtil.toString(swapRequest);
+    }
+
+    @Benchmark
+    public SwapRequest swapRequestToClass() throws InvalidInputException {
+        return ObjectMapperUtil.toClass(swapRequestAsString, SwapRequest.class);
+    }
+
+    @Benchmark
+    public byte[] swapRequestToBytes() {
+        return ObjectMapperUtil.toBytes(swapRequest);
+    }
+
+    @Benchmark
+    public SwapRequest swapRequestBytesToClass() throws InvalidInputException {
+        return ObjectMapperUtil.toClass(swapRequestAsBytes, SwapRequest.class);
+    }
+
+    @Benchmark
+    public String swapEstimateToString() {
+        return ObjectMapperUtil.toString(swapEstimate);
+    }
+
+    @Benchmark
+    public SwapEstimate swapEstimateToClass() throws InvalidInputException {
+        return ObjectMapperUtil.toClass(swapEstimateAsString, SwapEstimate.class);
+    }
+
+    @Benchmark
+    public String swapClaimTokenToString() {
+        return ObjectMapperUtil.toString(swapClaimToken);
+    }
+
+    @Benchmark
+    public SwapClaimToken swapClaimTokenToClass() throws InvalidInputException {
+        return ObjectMapperUtil.toClass(swapClaimTokenAsString, SwapClaimToken.class);
+    }
+
+    @Benchmark
+    public String liquidityPoolToString() {
+        return ObjectMapperUtil.toString(liquidityPool);
+    }
+
+    @Benchmark
+    public LiquidityPool liquidityPoolToClass() throws InvalidInputException {
+        return ObjectMapperUtil.toClass(liquidityPoolAsString, LiquidityPool.class);
+    }
+}
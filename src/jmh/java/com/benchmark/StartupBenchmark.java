@@ -0,0 +1,115 @@
+package com.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.api.handler.swap.EstimateSwapHandler;
+import com.api.server.LocalContext;
+import com.benchmark.fake.InMemoryDynamoDBClient;
+import com.client.AwsCallExecutor;
+import com.client.PrimingResource;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.token.HmacClaimTokenCodec;
+import com.logic.MarketMakerLogic;
+import com.util.ObjectMapperUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures how long a fresh JVM takes to serve its first EstimateSwap request, with DynamoDB replaced by an in-memory
+ * fake and HMAC signed claim tokens, so that only JVM startup, class loading and the cold code paths are measured.
+ * JMH keeps the JVM warm between iterations, so instead each run is a child JVM. Runs are done without priming (a cold
+ * start) and with PrimingResource.primeLogicAndCodecs first (as restored from a primed snapshot, where the priming is
+ * not on the request path). For each, the median / min / max over the runs are reported of:
+ * firstRequest - time to build the handler and serve the first request
+ * uptime - time from JVM start to the first response, not counting the priming
+ * <p>
+ * Run with: ./gradlew startupBenchmark -PstartupRuns=10
+ */
+public final class StartupBenchmark {
+
+    private static final String CHILD = "child";
+    private static final String RESULT_PREFIX = "RESULT ";
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length > 0 && CHILD.equals(args[0])) {
+            runChild(Boolean.parseBoolean(args[1]));
+            return;
+        }
+        final int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for (final boolean primed : new boolean[]{false, true}) {
+            final List<Long> firstRequestMillis = new ArrayList<>(runs);
+            final List<Long> uptimeMillis = new ArrayList<>(runs);
+            for (int i = 0; i < runs; i++) {
+                final long[] result = runInChildJvm(primed);
+                firstRequestMillis.add(result[0]);
+                uptimeMillis.add(result[1]);
+            }
+            System.out.println((primed ? "primed  " : "unprimed") + " firstRequest " + summarize(firstRequestMillis)
+                    + " uptime " + summarize(uptimeMillis));
+        }
+    }
+
+    private static void runChild(final boolean primed) throws Exception {
+        long primingMillis = 0;
+        if (primed) {
+            final long primingStart = System.currentTimeMillis();
+            PrimingResource.primeLogicAndCodecs();
+            primingMillis = System.currentTimeMillis() - primingStart;
+        }
+        final long start = System.nanoTime();
+        final InMemoryDynamoDBClient dynamoDBClient = new InMemoryDynamoDBClient();
+        dynamoDBClient.createLiquidityPool(BenchmarkData.liquidityPool());
+        final EstimateSwapHandler estimateSwapHandler = new EstimateSwapHandler(
+                new LiquidityPoolCache(dynamoDBClient, 0, 0), new HmacClaimTokenCodec(BenchmarkData.HMAC_KEY),
+                new MarketMakerLogic(), new AwsCallExecutor(Runnable::run));
+        final APIGatewayProxyResponseEvent response = estimateSwapHandler.handleRequest(
+                new APIGatewayProxyRequestEvent().withBody(ObjectMapperUtil.toString(BenchmarkData.swapRequest())),
+                new LocalContext("someAwsRequestId"));
+        final long firstRequestMillis = (System.nanoTime() - start) / 1_000_000;
+        if (response.getStatusCode() != 200) {
+            throw new IllegalStateException("First request failed: " + response);
+        }
+        final long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime() - primingMillis;
+        System.out.println(RESULT_PREFIX + firstRequestMillis + " " + uptimeMillis);
+    }
+
+    private static long[] runInChildJvm(final boolean primed) throws IOException, InterruptedException {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                StartupBenchmark.class.getName(), CHILD, Boolean.toString(primed))
+                .redirectErrorStream(true)
+                .start();
+        long[] result = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    final String[] values = line.substring(RESULT_PREFIX.length()).split(" ");
+                    result = new long[]{Long.parseLong(values[0]), Long.parseLong(values[1])};
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Child JVM failed with exit code " + process.exitValue());
+        }
+        return result;
+    }
+
+    private static String summarize(final List<Long> millis) {
+        Collections.sort(millis);
+        return millis.get(millis.size() / 2) + " ms (min " + millis.get(0) + ", max " + millis.get(millis.size() - 1)
+                + ")";
+    }
+}
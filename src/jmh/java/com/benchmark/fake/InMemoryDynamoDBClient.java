@@ -0,0 +1,76 @@
+package com.benchmark.fake;
+
+import com.client.dynamodb.DynamoDBClient;
+import com.config.ErrorMessages;
+import com.model.LiquidityPool;
+import com.model.Transaction;
+import com.model.exception.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DynamoDBClient backed by an in-memory map, so handlers can be benchmarked without DynamoDB.
+ */
+public class InMemoryDynamoDBClient extends DynamoDBClient {
+
+    private final Map<String, LiquidityPool> liquidityPools = new ConcurrentHashMap<>();
+
+    public InMemoryDynamoDBClient() {
+        super(null);
+    }
+
+    @Override
+    public void createLiquidityPool(final LiquidityPool liquidityPool) {
+        liquidityPools.put(liquidityPool.getPoolName(), liquidityPool);
+    }
+
+    @Override
+    public LiquidityPool loadLiquidityPool(final String liquidityPoolName, final boolean consistentRead)
+            throws InvalidInputException {
+        final LiquidityPool liquidityPool = liquidityPools.get(liquidityPoolName);
+        if (liquidityPool == null) {
+            throw new InvalidInputException(ErrorMessages.INVALID_LIQUIDITY_POOL_NAME + " - " + liquidityPoolName);
+        }
+        return liquidityPool;
+    }
+
+    @Override
+    public Map<String, LiquidityPool> batchLoadLiquidityPools(final Collection<String> poolNames) {
+        final Map<String, LiquidityPool> poolNameToLiquidityPool = new HashMap<>();
+        for (final String poolName : poolNames) {
+            final LiquidityPool liquidityPool = liquidityPools.get(poolName);
+            if (liquidityPool != null) {
+                poolNameToLiquidityPool.put(poolName, liquidityPool);
+            }
+        }
+        return poolNameToLiquidityPool;
+    }
+
+    @Override
+    public List<LiquidityPool> loadAllLiquidityPools() {
+        return new ArrayList<>(liquidityPools.values());
+    }
+
+    @Override
+    public void initializeTransaction(final Transaction transaction) {
+    }
+
+    @Override
+    public void writeTransactionsAndUpdateLiquidityPool(final List<Transaction> transactions,
+                                                        final LiquidityPool newLiquidityPool) {
+        liquidityPools.put(newLiquidityPool.getPoolName(), newLiquidityPool);
+    }
+
+    @Override
+    public void writeTransactionsAndUpdateLiquidityPools(final List<Transaction> transactions,
+                                                         final List<LiquidityPool> newLiquidityPools) {
+        for (final LiquidityPool newLiquidityPool : newLiquidityPools) {
+            liquidityPools.put(newLiquidityPool.getPoolName(), newLiquidityPool);
+        }
+    }
+}
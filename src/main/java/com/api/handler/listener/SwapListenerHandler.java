@@ -2,88 +2,478 @@ package com.api.handler.listener;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
-import com.client.DaggerAppDependencies;
+import com.client.AppDependenciesHolder;
+import com.client.AwsCallExecutor;
 import com.client.dynamodb.DynamoDBClient;
+import com.client.dynamodb.LiquidityPoolCache;
 import com.client.kms.token.SwapClaimToken;
+import com.client.sqs.SQSConstants;
+import com.config.ServiceConstants;
 import com.logic.MarketMakerLogic;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.LiquidityPool;
 import com.model.SwapEstimate;
 import com.model.SwapRequest;
 import com.model.Transaction;
+import com.model.exception.ConcurrentUpdateException;
+import com.model.exception.InvalidInputException;
+import com.model.exception.TransactionAlreadySettledException;
+import com.model.types.Asset;
 import com.model.types.TransactionStatus;
+import com.util.JitterUtil;
 import com.util.LiquidityPoolUtil;
 import com.util.ObjectMapperUtil;
+import com.util.PayloadLogSampler;
+import lombok.AllArgsConstructor;
 import lombok.Setter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Handler to listen to the SQS queue for swaps. The messages in this queue are of object SwapClaimToken, which contains
- * the original SwapRequest and transactionId. The logic is as follows:
- * 1. Deserialize the SQS message into the SwapClaimToken object and load the LiquidityPool details. If there are
- *    any issues with this step, the message is discarded, as that implies that the message in the queue was not put
- *    using the SubmitSwap API.
- * 2. Generate a **new** SwapEstimate and LiquidityPool after-state for the current time.
- * 3. Update both the associated Transaction to complete and LiquidityPool details in DynamoDB.
+ * the original SwapRequest and transactionId. Each invocation receives a batch of messages. The logic is as follows:
+ * 1. Deserialize each SQS message into the SwapClaimToken object and group the messages by message group if they came
+ *    from a FIFO queue, otherwise by liquidity pool name, keeping the order in which they arrived. If a message cannot
+ *    be deserialized, it is discarded, as that implies that the message in the queue was not put using the SubmitSwap
+ *    API.
+ * 2. For each run of swaps of the same pool in a group, load the LiquidityPool details and generate a **new**
+ *    SwapEstimate for every swap in order, applying each one to the in-memory LiquidityPool before pricing the next.
+ * 3. Update all the associated Transactions to complete and the final LiquidityPool details in DynamoDB, in a single
+ *    DynamoDB transaction per run. The pool write is conditional on the version that was loaded. If another
+ *    invocation updated the pool in the meantime, the pool is reloaded and the swaps are priced again, with a bounded
+ *    number of attempts and jittered backoff. Different groups are settled concurrently on the AwsCallExecutor, while
+ *    the swaps of one group are always settled in the order they arrived.
+ * 4. Swaps routed through several pools are settled one at a time. The pools along the route are loaded, the swap is
+ *    priced again along the same route, and the transaction and every pool are written in a single DynamoDB
+ *    transaction, so either all of the pools are updated or none are. Concurrent updates are retried the same way.
+ *    From a FIFO queue, a routed swap is settled in its place in its message group (the pool of its in / out assets),
+ *    between the swaps before and after it. It is not ordered with the swaps of the pools along its route. From a
+ *    standard queue, routed swaps are settled after the groups.
+ * Messages that fail to be processed are reported back as batch item failures, so only those are retried. A message
+ * delivered again after its swap was settled (ex - the write committed, but timed out for this handler) finds its
+ * transaction FINISHED, and is acknowledged without applying the swap again. When the messages come from a FIFO
+ * queue, a failure also fails the later messages of its group in the batch, so each group is retried in the order its
+ * swaps were submitted.
+ * Pools are always loaded from DynamoDB with consistent reads, never from the LiquidityPoolCache. The cache is only
+ * updated with the pools written, for readers in the same JVM.
  */
 @Slf4j
 @Setter
-public class SwapListenerHandler implements RequestHandler<SQSEvent, Void> {
+@AllArgsConstructor
+public class SwapListenerHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("SwapListenerHandler.handleRequest");
 
     private DynamoDBClient dynamoDBClient;
+    private LiquidityPoolCache liquidityPoolCache;
     private MarketMakerLogic marketMakerLogic;
+    private AwsCallExecutor awsCallExecutor;
 
     public SwapListenerHandler() {
-        this.dynamoDBClient = DaggerAppDependencies.builder().build().dynamoDBClient();
+        this.dynamoDBClient = AppDependenciesHolder.get().dynamoDBClient();
+        this.liquidityPoolCache = AppDependenciesHolder.get().liquidityPoolCache();
         this.marketMakerLogic = new MarketMakerLogic();
+        this.awsCallExecutor = AppDependenciesHolder.get().awsCallExecutor();
     }
 
     @Override
-    public Void handleRequest(SQSEvent sqsEvent, Context context) {
-        log.info("Received request: {}", sqsEvent);
+    public SQSBatchResponse handleRequest(SQSEvent sqsEvent, Context context) {
+        final long startNanos = System.nanoTime();
+        try {
+            return settleSwapRequests(sqsEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private SQSBatchResponse settleSwapRequests(final SQSEvent sqsEvent, final Context context) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request: {}", sqsEvent);
+        }
+        final List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        if (sqsEvent.getRecords() == null) {
+            return new SQSBatchResponse(batchItemFailures);
+        }
+
+        // parse swap claim details and group them, preserving arrival order within each group. messages from a FIFO
+        // queue are grouped by message group, otherwise swaps are grouped by pool and routed swaps are on their own
+        final Map<String, List<PendingSwap>> groupToPendingSwaps = new LinkedHashMap<>();
+        final List<PendingSwap> unorderedRoutedSwaps = new ArrayList<>();
+        final Set<String> swapContractIds = new HashSet<>();
+        for (final SQSEvent.SQSMessage sqsMessage : sqsEvent.getRecords()) {
+            try {
+                final String body = sqsMessage.getBody();
+                if (PayloadLogSampler.shouldLog(log)) {
+                    log.info("SQS message body: {}", body);
+                }
+                final SwapClaimToken swapClaimToken = ObjectMapperUtil.toClass(body, SwapClaimToken.class);
+                if (!swapContractIds.add(swapClaimToken.getSwapContractId())) {
+                    // SQS may deliver a message more than once. only settle it once per batch
+                    log.warn("Duplicate swapContractId in batch: {}", swapClaimToken.getSwapContractId());
+                    continue;
+                }
+                final SwapRequest swapRequest = swapClaimToken.getSwapRequest();
+                final List<String> poolNames;
+                if (swapClaimToken.getRoute() != null) {
+                    validateRoute(swapRequest, swapClaimToken.getRoute());
+                    poolNames = getPoolNamesAlongRoute(swapClaimToken.getRoute());
+                } else {
+                    poolNames = Collections.singletonList(LiquidityPoolUtil
+                            .getPoolName(swapRequest.getInName(), swapRequest.getOutName()));
+                }
+                final PendingSwap pendingSwap = new PendingSwap(sqsMessage.getMessageId(), swapClaimToken,
+                        getMessageGroupId(sqsMessage), poolNames);
+                if (pendingSwap.getMessageGroupId() != null) {
+                    groupToPendingSwaps.computeIfAbsent(pendingSwap.getMessageGroupId(), k -> new ArrayList<>())
+                            .add(pendingSwap);
+                } else if (pendingSwap.isRouted()) {
+                    unorderedRoutedSwaps.add(pendingSwap);
+                } else {
+                    groupToPendingSwaps.computeIfAbsent(poolNames.get(0), k -> new ArrayList<>()).add(pendingSwap);
+                }
+            } catch (Exception e) {
+                // something is wrong with message. ignore.
+                log.error("Message is invalid format. Ignoring message and processing / deleting.", e);
+            }
+        }
+
+        // settle the groups concurrently. a group only writes its own pool, unless it has routed swaps, whose writes
+        // are conditional on the version of every pool along the route like any other write
+        final Map<String, CompletableFuture<List<SQSBatchResponse.BatchItemFailure>>> groupToFailures =
+                new LinkedHashMap<>();
+        for (final Map.Entry<String, List<PendingSwap>> entry : groupToPendingSwaps.entrySet()) {
+            groupToFailures.put(entry.getKey(), awsCallExecutor.supplyAsync(() -> settleGroup(entry.getValue())));
+        }
+        for (final Map.Entry<String, CompletableFuture<List<SQSBatchResponse.BatchItemFailure>>> entry
+                : groupToFailures.entrySet()) {
+            try {
+                batchItemFailures.addAll(entry.getValue().join());
+            } catch (CompletionException e) {
+                log.error("Failed to settle swaps of group {}. Reporting its messages as failed.", entry.getKey(), e);
+                reportFailures(groupToPendingSwaps.get(entry.getKey()), batchItemFailures);
+            }
+        }
+
+        // settle each routed swap of a standard queue on its own, as its pools may overlap with those of other swaps
+        for (final PendingSwap pendingSwap : unorderedRoutedSwaps) {
+            batchItemFailures.addAll(settleGroup(Collections.singletonList(pendingSwap)));
+        }
+        return new SQSBatchResponse(batchItemFailures);
+    }
+
+    /**
+     * Settles a group of swaps in the order they arrived. Consecutive swaps of the same pool are settled together, in
+     * chunks of at most MAX_SWAPS_PER_POOL_WRITE swaps, and a routed swap is settled on its own, so it is a barrier
+     * between the swaps before and after it. If the messages came from a FIFO queue, the first failure also fails every
+     * later message of the group, so that they are retried in the order they were sent.
+     *
+     * @param pendingSwaps
+     * @return the messages which could not be persisted
+     */
+    private List<SQSBatchResponse.BatchItemFailure> settleGroup(final List<PendingSwap> pendingSwaps) {
+        final boolean ordered = pendingSwaps.get(0).getMessageGroupId() != null;
+        final List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        int start = 0;
+        while (start < pendingSwaps.size()) {
+            if (ordered && !batchItemFailures.isEmpty()) {
+                reportFailures(pendingSwaps.subList(start, pendingSwaps.size()), batchItemFailures);
+                break;
+            }
+            final PendingSwap firstSwap = pendingSwaps.get(start);
+            final List<String> poolNames = firstSwap.getPoolNames();
+            if (firstSwap.isRouted()) {
+                settleOrReportFailures(poolNames, Collections.singletonList(firstSwap),
+                        (unsettledSwaps, attemptFailures) -> settleRoutedSwap(poolNames, firstSwap, attemptFailures),
+                        batchItemFailures);
+                start++;
+                continue;
+            }
+            int end = start + 1;
+            while (end < pendingSwaps.size() && end - start < ServiceConstants.MAX_SWAPS_PER_POOL_WRITE
+                    && !pendingSwaps.get(end).isRouted() && pendingSwaps.get(end).getPoolNames().equals(poolNames)) {
+                end++;
+            }
+            final String poolName = poolNames.get(0);
+            settleOrReportFailures(poolNames, pendingSwaps.subList(start, end),
+                    (unsettledSwaps, attemptFailures) -> settleSwaps(poolName, unsettledSwaps, ordered,
+                            attemptFailures),
+                    batchItemFailures);
+            start = end;
+        }
+        return batchItemFailures;
+    }
+
+    private static List<String> getPoolNamesAlongRoute(final List<String> route) {
+        final List<String> poolNames = new ArrayList<>(route.size() - 1);
+        for (int i = 1; i < route.size(); i++) {
+            poolNames.add(LiquidityPoolUtil.getPoolName(route.get(i - 1), route.get(i)));
+        }
+        return poolNames;
+    }
 
-        // parse swap claim details and load liquidity pool details
-        final SwapClaimToken swapClaimToken;
-        final LiquidityPool liquidityPool;
-        final SwapRequest swapRequest;
+    private static void reportFailures(final List<PendingSwap> pendingSwaps,
+                                       final List<SQSBatchResponse.BatchItemFailure> batchItemFailures) {
+        for (final PendingSwap pendingSwap : pendingSwaps) {
+            batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(pendingSwap.getMessageId()));
+        }
+    }
+
+    private static String getMessageGroupId(final SQSEvent.SQSMessage sqsMessage) {
+        return sqsMessage.getAttributes() == null
+                ? null
+                : sqsMessage.getAttributes().get(SQSConstants.MESSAGE_GROUP_ID_ATTRIBUTE);
+    }
+
+    /**
+     * Settles swaps using the given attempt, retrying when any of the pools was updated concurrently. Swaps which were
+     * already settled by an earlier delivery of their message are acknowledged, and the others are settled again
+     * without them. If the swaps cannot be settled, all of their messages are reported as batch item failures.
+     *
+     * @param poolNames         pools written by the attempt
+     * @param pendingSwaps
+     * @param settleAttempt
+     * @param batchItemFailures
+     */
+    private void settleOrReportFailures(final List<String> poolNames,
+                                        final List<PendingSwap> pendingSwaps,
+                                        final SettleAttempt settleAttempt,
+                                        final List<SQSBatchResponse.BatchItemFailure> batchItemFailures) {
+        List<PendingSwap> unsettledSwaps = pendingSwaps;
         try {
-            // only one message at a time
-            final String body = sqsEvent.getRecords().get(0).getBody();
-            log.info("SQS message body: {}", body);
-            swapClaimToken = ObjectMapperUtil.toClass(body, SwapClaimToken.class);
-            swapRequest = swapClaimToken.getSwapRequest();
-            final String poolName = LiquidityPoolUtil
-                    .getPoolName(swapRequest.getInName(), swapRequest.getOutName());
-            liquidityPool = dynamoDBClient.loadLiquidityPool(poolName);
+            int attempt = 1;
+            while (true) {
+                final List<SQSBatchResponse.BatchItemFailure> attemptFailures = new ArrayList<>();
+                try {
+                    settleAttempt.settle(unsettledSwaps, attemptFailures);
+                    batchItemFailures.addAll(attemptFailures);
+                    return;
+                } catch (TransactionAlreadySettledException e) {
+                    // nothing was written, so the pool was not updated either
+                    final List<PendingSwap> remainingSwaps = withoutTransactions(unsettledSwaps,
+                            e.getTransactionIds());
+                    if (remainingSwaps.size() == unsettledSwaps.size()) {
+                        throw e;
+                    }
+                    log.info("Acknowledging {} already settled swap(s) of pool(s) {}.",
+                            unsettledSwaps.size() - remainingSwaps.size(), poolNames);
+                    unsettledSwaps = remainingSwaps;
+                    if (unsettledSwaps.isEmpty()) {
+                        return;
+                    }
+                } catch (ConcurrentUpdateException e) {
+                    for (final String poolName : poolNames) {
+                        liquidityPoolCache.invalidate(poolName);
+                    }
+                    if (attempt >= ServiceConstants.POOL_UPDATE_MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                    attempt++;
+                    log.info("Pool(s) {} updated concurrently. Retrying, attempt {}.", poolNames, attempt);
+                    backoff(attempt - 1);
+                }
+            }
+        } catch (InvalidInputException e) {
+            // not able to load liquidity pool details. ignore.
+            log.error("Liquidity pool(s) {} do not exist. Ignoring {} message(s).", poolNames, pendingSwaps.size(), e);
         } catch (Exception e) {
-            // something is wrong with message / not able to load liquidity pool details. ignore.
-            log.error("Message is invalid format. Ignoring message and processing / deleting.", e);
-            return null;
+            log.error("Failed to settle swaps for pool(s) {}. Reporting {} message(s) as failed.",
+                    poolNames, unsettledSwaps.size(), e);
+            reportFailures(unsettledSwaps, batchItemFailures);
         }
+    }
 
-        final String swapContractId = swapClaimToken.getSwapContractId();
-        log.info("Processing swapContractId: {}", swapContractId);
+    private static List<PendingSwap> withoutTransactions(final List<PendingSwap> pendingSwaps,
+                                                         final List<String> transactionIds) {
+        final List<PendingSwap> remainingSwaps = new ArrayList<>(pendingSwaps.size());
+        for (final PendingSwap pendingSwap : pendingSwaps) {
+            if (!transactionIds.contains(pendingSwap.getSwapClaimToken().getSwapContractId())) {
+                remainingSwaps.add(pendingSwap);
+            }
+        }
+        return remainingSwaps;
+    }
+
+    /**
+     * Sleeps for a random time up to an exponentially increasing bound ("full jitter"), so that invocations competing
+     * for the same pool spread out their retries.
+     *
+     * @param attempt
+     */
+    private static void backoff(final int attempt) {
+        final long maxBackoffMillis = Math.min(ServiceConstants.POOL_UPDATE_BACKOFF_MAX_MILLIS,
+                ServiceConstants.POOL_UPDATE_BACKOFF_BASE_MILLIS << attempt);
+        try {
+            Thread.sleep(JitterUtil.nextLong(maxBackoffMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies all swaps for a single pool in order, then writes the transactions and the final pool state. A swap which
+     * fails to be priced is reported as a batch item failure and is not applied to the pool. If ordered, every swap
+     * after it is reported as well and not applied.
+     *
+     * @param poolName
+     * @param pendingSwaps
+     * @param ordered
+     * @param batchItemFailures
+     * @throws InvalidInputException              if the liquidity pool does not exist
+     * @throws ConcurrentUpdateException          if the liquidity pool was updated since it was loaded
+     * @throws TransactionAlreadySettledException if any of the swaps was already settled
+     */
+    private void settleSwaps(final String poolName,
+                             final List<PendingSwap> pendingSwaps,
+                             final boolean ordered,
+                             final List<SQSBatchResponse.BatchItemFailure> batchItemFailures)
+            throws InvalidInputException, ConcurrentUpdateException, TransactionAlreadySettledException {
+        LiquidityPool liquidityPool = dynamoDBClient.loadLiquidityPool(poolName, true);
+        final List<Transaction> transactions = new ArrayList<>(pendingSwaps.size());
+        final Date now = new Date();
+        for (int i = 0; i < pendingSwaps.size(); i++) {
+            final PendingSwap pendingSwap = pendingSwaps.get(i);
+            final String swapContractId = pendingSwap.getSwapClaimToken().getSwapContractId();
+            log.debug("Processing swapContractId: {}", swapContractId);
+            try {
+                // calculate a new swap estimate, which may be different from what initially estimated
+                // note, the swap estimate is constructed again here to get the final actual estimate before writing
+                // eventually, a "slippage" parameter could be provided to execute or not execute
+                final SwapRequest swapRequest = pendingSwap.getSwapClaimToken().getSwapRequest();
+                final SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+                liquidityPool = marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool);
 
-        // calculate a new swap estimate, which may be different from what initially estimated
-        // note, the swap estimate is constructed again here to get the final actual estimate before writing
-        // eventually, a "slippage" parameter could be provided to execute or not execute
-        final SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
-        final LiquidityPool newLiquidityPool = marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool);
+                // construct the transaction, with transactionId as the swapContractId
+                final Transaction transaction = new Transaction();
+                transaction.setTransactionId(swapContractId);
+                transaction.setTransactionState(TransactionStatus.FINISHED.name());
+                transaction.setSwapApplied(swapEstimate);
+                transaction.setTimeCompleted(now);
+                transactions.add(transaction);
+            } catch (Exception e) {
+                log.error("Failed to apply swapContractId: {}", swapContractId, e);
+                if (ordered) {
+                    reportFailures(pendingSwaps.subList(i, pendingSwaps.size()), batchItemFailures);
+                    break;
+                }
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(pendingSwap.getMessageId()));
+            }
+        }
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        // save the transactions and liquidity pool update
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(transactions, liquidityPool);
+        liquidityPoolCache.put(liquidityPool);
+        log.info("Updated {} transaction(s) and pool {} in dynamoDB.", transactions.size(), poolName);
+    }
+
+    /**
+     * Prices a routed swap again along its route and writes its transaction and every pool along the route in a single
+     * DynamoDB transaction. A swap which fails to be priced is reported as a batch item failure.
+     *
+     * @param poolNames         pools along the route, in order
+     * @param pendingSwap
+     * @param batchItemFailures
+     * @throws InvalidInputException              if any liquidity pool along the route does not exist
+     * @throws ConcurrentUpdateException          if any liquidity pool was updated since it was loaded
+     * @throws TransactionAlreadySettledException if the swap was already settled
+     */
+    private void settleRoutedSwap(final List<String> poolNames,
+                                  final PendingSwap pendingSwap,
+                                  final List<SQSBatchResponse.BatchItemFailure> batchItemFailures)
+            throws InvalidInputException, ConcurrentUpdateException, TransactionAlreadySettledException {
+        final List<LiquidityPool> liquidityPools = new ArrayList<>(poolNames.size());
+        for (final String poolName : poolNames) {
+            liquidityPools.add(dynamoDBClient.loadLiquidityPool(poolName, true));
+        }
+        final SwapClaimToken swapClaimToken = pendingSwap.getSwapClaimToken();
+        final String swapContractId = swapClaimToken.getSwapContractId();
+        log.info("Processing routed swapContractId: {} through {}", swapContractId, poolNames);
+        final SwapEstimate swapEstimate;
+        final List<LiquidityPool> newLiquidityPools = new ArrayList<>(liquidityPools.size());
+        try {
+            swapEstimate = marketMakerLogic.createSwapEstimateAlongRoute(liquidityPools, swapClaimToken.getRoute(),
+                    swapClaimToken.getSwapRequest().getInAmount());
+            for (int i = 0; i < liquidityPools.size(); i++) {
+                newLiquidityPools.add(marketMakerLogic.applySwapEstimateToPool(
+                        swapEstimate.getLegs().get(i), liquidityPools.get(i)));
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply swapContractId: {}", swapContractId, e);
+            batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(pendingSwap.getMessageId()));
+            return;
+        }
 
-        // construct the transaction
         final Transaction transaction = new Transaction();
-        Date now = new Date();
-        // construct transactionId as the swapContractId
         transaction.setTransactionId(swapContractId);
         transaction.setTransactionState(TransactionStatus.FINISHED.name());
         transaction.setSwapApplied(swapEstimate);
-        transaction.setTimeCompleted(now);
+        transaction.setTimeCompleted(new Date());
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPools(Collections.singletonList(transaction),
+                newLiquidityPools);
+        for (final LiquidityPool newLiquidityPool : newLiquidityPools) {
+            liquidityPoolCache.put(newLiquidityPool);
+        }
+        log.info("Updated transaction {} and pools {} in dynamoDB.", swapContractId, poolNames);
+    }
 
-        // save the transaction and liquidity pool update
-        dynamoDBClient.writeTransactionAndUpdateLiquidityPool(transaction, newLiquidityPool);
-        log.info("Updated transaction and pool in dynamoDB.");
-        return null;
+    /**
+     * Validates that a route goes from the in asset to the out asset of the swap through at most MAX_ROUTE_HOPS pools,
+     * without visiting an asset twice.
+     */
+    private static void validateRoute(final SwapRequest swapRequest, final List<String> route) {
+        if (route.size() < 2 || route.size() > ServiceConstants.MAX_ROUTE_HOPS + 1
+                || new HashSet<>(route).size() != route.size()
+                || !route.get(0).equals(swapRequest.getInName())
+                || !route.get(route.size() - 1).equals(swapRequest.getOutName())) {
+            throw new IllegalArgumentException("Invalid route: " + route);
+        }
+        for (final String assetName : route) {
+            if (!Asset.isValidAssetName(assetName)) {
+                throw new IllegalArgumentException("Invalid route: " + route);
+            }
+        }
+    }
+
+    /**
+     * One attempt at settling the given swaps, which reports swaps that fail to be priced into the given list.
+     */
+    @FunctionalInterface
+    private interface SettleAttempt {
+        void settle(List<PendingSwap> pendingSwaps, List<SQSBatchResponse.BatchItemFailure> attemptFailures)
+                throws InvalidInputException, ConcurrentUpdateException, TransactionAlreadySettledException;
+    }
+
+    /**
+     * A parsed SQS message waiting to be settled.
+     */
+    @Value
+    private static class PendingSwap {
+        String messageId;
+        SwapClaimToken swapClaimToken;
+        // set if the message came from a FIFO queue
+        String messageGroupId;
+        // pools written by the swap, in order along its route
+        List<String> poolNames;
+
+        boolean isRouted() {
+            return swapClaimToken.getRoute() != null;
+        }
     }
 }
@@ -5,17 +5,21 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.api.handler.pool.model.CreateLiquidityPoolRequest;
-import com.client.DaggerAppDependencies;
+import com.client.AppDependenciesHolder;
 import com.client.dynamodb.DynamoDBClient;
 import com.config.ErrorMessages;
 import com.config.ServiceConstants;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.LiquidityPool;
 import com.model.PriceAmount;
 import com.model.exception.InvalidInputException;
 import com.util.LiquidityPoolUtil;
 import com.util.ObjectMapperUtil;
+import com.util.PayloadLogSampler;
 import com.util.RequestUtil;
 import com.util.ResponseUtil;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -31,17 +35,33 @@ import java.util.List;
  */
 @Slf4j
 @Setter
+@AllArgsConstructor
 public class CreateLiquidityPoolHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("CreateLiquidityPoolHandler.handleRequest");
+
     private DynamoDBClient dynamoDBClient;
 
     public CreateLiquidityPoolHandler() {
-        this.dynamoDBClient = DaggerAppDependencies.builder().build().dynamoDBClient();
+        this.dynamoDBClient = AppDependenciesHolder.get().dynamoDBClient();
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
-        log.info("Received request event: {}", requestEvent);
+        final long startNanos = System.nanoTime();
+        try {
+            return createLiquidityPool(requestEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent createLiquidityPool(final APIGatewayProxyRequestEvent requestEvent,
+                                                             final Context context) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request event: {}", requestEvent);
+        }
         final String poolName;
         // extract request / validations
         List<PriceAmount> priceAmountList;
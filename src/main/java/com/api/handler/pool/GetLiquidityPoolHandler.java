@@ -4,40 +4,60 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.client.DaggerAppDependencies;
-import com.client.dynamodb.DynamoDBClient;
+import com.client.AppDependenciesHolder;
+import com.client.dynamodb.LiquidityPoolCache;
 import com.config.ServiceConstants;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.LiquidityPool;
 import com.model.exception.InvalidInputException;
 import com.util.LiquidityPoolUtil;
+import com.util.PayloadLogSampler;
 import com.util.RequestUtil;
 import com.util.ResponseUtil;
+import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Handler for CreateLiquidityPool API.
  * Requires liquidity pool name from the path.
- * Gets the liquidity pool in DynamoDB.
+ * Gets the liquidity pool in DynamoDB, through the LiquidityPoolCache, so the result may be slightly stale.
  */
 @Slf4j
 @Setter
+@AllArgsConstructor
 public class GetLiquidityPoolHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private DynamoDBClient dynamoDBClient;
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("GetLiquidityPoolHandler.handleRequest");
+
+    private LiquidityPoolCache liquidityPoolCache;
 
     public GetLiquidityPoolHandler() {
-        this.dynamoDBClient = DaggerAppDependencies.builder().build().dynamoDBClient();
+        this.liquidityPoolCache = AppDependenciesHolder.get().liquidityPoolCache();
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
-        log.info("Received request event: {}", requestEvent);
+        final long startNanos = System.nanoTime();
+        try {
+            return getLiquidityPool(requestEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent getLiquidityPool(final APIGatewayProxyRequestEvent requestEvent,
+                                                          final Context context) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request event: {}", requestEvent);
+        }
         try {
             final String poolName = RequestUtil.extractPoolNameFromPathParams(requestEvent.getPathParameters(),
                     ServiceConstants.LIQUIDITY_POOL_PATH_PARAMETER_NAME);
             LiquidityPoolUtil.validateLiquidityPoolName(poolName);
-            final LiquidityPool liquidityPool = dynamoDBClient.loadLiquidityPool(poolName);
+            final LiquidityPool liquidityPool = liquidityPoolCache.getLiquidityPool(poolName);
             return ResponseUtil.createSuccessResponse(liquidityPool, context);
         } catch (InvalidInputException e) {
             return ResponseUtil.createBadRequest(e.getMessage(), context);
@@ -0,0 +1,109 @@
+package com.api.handler.pool;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.api.handler.pool.model.QuoteLadderRequest;
+import com.client.AppDependenciesHolder;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.config.ErrorMessages;
+import com.config.ServiceConstants;
+import com.logic.MarketMakerLogic;
+import com.metrics.Metrics;
+import com.metrics.Timer;
+import com.model.LiquidityPool;
+import com.model.QuoteLadder;
+import com.model.exception.InvalidInputException;
+import com.util.LiquidityPoolUtil;
+import com.util.ObjectMapperUtil;
+import com.util.PayloadLogSampler;
+import com.util.RequestUtil;
+import com.util.ResponseUtil;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Handler for GetQuoteLadder API.
+ * Requires liquidity pool name from the path, and a QuoteLadderRequest body with the in asset and the in amounts to
+ * quote. Returns a QuoteLadder with the amount out, effective price and price impact of swapping each in amount for the
+ * other asset of the pool, all against the same state of the pool. Reads the pool through the LiquidityPoolCache, and
+ * issues no claim tokens, so this is for building depth curves rather than swapping.
+ */
+@Slf4j
+@Setter
+@AllArgsConstructor
+public class GetQuoteLadderHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("GetQuoteLadderHandler.handleRequest");
+
+    private LiquidityPoolCache liquidityPoolCache;
+    private MarketMakerLogic marketMakerLogic;
+
+    public GetQuoteLadderHandler() {
+        this.liquidityPoolCache = AppDependenciesHolder.get().liquidityPoolCache();
+        this.marketMakerLogic = new MarketMakerLogic();
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
+        final long startNanos = System.nanoTime();
+        try {
+            return getQuoteLadder(requestEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent getQuoteLadder(final APIGatewayProxyRequestEvent requestEvent,
+                                                        final Context context) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request event: {}", requestEvent);
+        }
+        try {
+            final String poolName = RequestUtil.extractPoolNameFromPathParams(requestEvent.getPathParameters(),
+                    ServiceConstants.LIQUIDITY_POOL_PATH_PARAMETER_NAME);
+            LiquidityPoolUtil.validateLiquidityPoolName(poolName);
+            final QuoteLadderRequest request = ObjectMapperUtil.toClass(requestEvent.getBody(),
+                    QuoteLadderRequest.class);
+            final String outName = validateRequest(request, poolName);
+            final LiquidityPool liquidityPool = liquidityPoolCache.getLiquidityPool(poolName);
+            final QuoteLadder quoteLadder = marketMakerLogic.createQuoteLadder(liquidityPool, request.getInName(),
+                    outName, request.getInAmounts());
+            return ResponseUtil.createSuccessResponse(quoteLadder, context);
+        } catch (InvalidInputException e) {
+            return ResponseUtil.createBadRequest(e.getMessage(), context);
+        }
+    }
+
+    /**
+     * Validates the request against the pool, returning the name of the out asset.
+     */
+    private String validateRequest(final QuoteLadderRequest request, final String poolName)
+            throws InvalidInputException {
+        if (request == null || request.getInName() == null || request.getInAmounts() == null) {
+            throw new InvalidInputException(ErrorMessages.INVALID_REQUEST_MISSING_FIELDS);
+        }
+        final String[] assetNames = poolName.split("-");
+        final String outName;
+        if (request.getInName().equals(assetNames[0])) {
+            outName = assetNames[1];
+        } else if (request.getInName().equals(assetNames[1])) {
+            outName = assetNames[0];
+        } else {
+            throw new InvalidInputException(ErrorMessages.ASSET_NOT_IN_POOL);
+        }
+        final double[] inAmounts = request.getInAmounts();
+        if (inAmounts.length == 0 || inAmounts.length > ServiceConstants.MAX_QUOTE_LADDER_SIZE) {
+            throw new InvalidInputException(ErrorMessages.INVALID_QUOTE_LADDER_SIZE);
+        }
+        for (final double inAmount : inAmounts) {
+            if (!(inAmount >= 0) || Double.isInfinite(inAmount)) {
+                throw new InvalidInputException(ErrorMessages.NEGATIVE_AMOUNT_TO_SWAP);
+            }
+        }
+        return outName;
+    }
+}
@@ -0,0 +1,9 @@
+package com.api.handler.pool.model;
+
+import lombok.Data;
+
+@Data
+public class QuoteLadderRequest {
+    private String inName;
+    private double[] inAmounts;
+}
@@ -0,0 +1,190 @@
+package com.api.handler.swap;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.api.handler.swap.model.EstimateSwapBatchRequest;
+import com.api.handler.swap.model.EstimateSwapBatchResult;
+import com.client.AppDependenciesHolder;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.token.ClaimTokenCodec;
+import com.config.ErrorMessages;
+import com.config.ServiceConstants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.logic.MarketMakerLogic;
+import com.metrics.Metrics;
+import com.metrics.Timer;
+import com.model.LiquidityPool;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+import com.model.exception.InvalidInputException;
+import com.util.LiquidityPoolUtil;
+import com.util.ObjectMapperUtil;
+import com.util.PayloadLogSampler;
+import com.util.ResponseUtil;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Handler for EstimateSwapBatch API.
+ * Prices many SwapRequests in one call, for clients which quote several pairs / sizes at once. Requires an
+ * EstimateSwapBatchRequest body. The logic is as follows:
+ * 1. Validate every SwapRequest, as EstimateSwap does. An invalid request only fails its own result.
+ * 2. Load each distinct pool once through the LiquidityPoolCache, with a single batch load for the pools which are not
+ *    cached. If any request is routed (maxHops more than 1), all pools are used instead. Every request in the batch is
+ *    then priced against this same snapshot of pools.
+ * 3. Write one EstimateSwapBatchResult per SwapRequest, in the same order, as each is priced. If issueClaimTokens is
+ *    set, each estimate gets its own swapClaimToken, with the swapContractId being the requestId of this invocation
+ *    followed by the index of the request.
+ */
+@Slf4j
+@Setter
+@AllArgsConstructor
+public class EstimateSwapBatchHandler
+        implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("EstimateSwapBatchHandler.handleRequest");
+
+    // rough size of one result, to size the response buffer
+    private static final int ESTIMATED_RESULT_LENGTH = 256;
+
+    private LiquidityPoolCache liquidityPoolCache;
+    private ClaimTokenCodec claimTokenCodec;
+    private MarketMakerLogic marketMakerLogic;
+
+    public EstimateSwapBatchHandler() {
+        this.liquidityPoolCache = AppDependenciesHolder.get().liquidityPoolCache();
+        this.claimTokenCodec = AppDependenciesHolder.get().claimTokenCodec();
+        this.marketMakerLogic = new MarketMakerLogic();
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
+        final long startNanos = System.nanoTime();
+        try {
+            return estimateSwapBatch(requestEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent estimateSwapBatch(final APIGatewayProxyRequestEvent requestEvent,
+                                                           final Context context) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request event: {}", requestEvent);
+        }
+        final EstimateSwapBatchRequest batchRequest;
+        try {
+            batchRequest = ObjectMapperUtil.toClass(requestEvent.getBody(), EstimateSwapBatchRequest.class);
+            validateBatchRequest(batchRequest);
+        } catch (InvalidInputException e) {
+            return ResponseUtil.createBadRequest(e.getMessage(), context);
+        }
+        final List<SwapRequest> swapRequests = batchRequest.getSwapRequests();
+        final boolean issueClaimTokens = Boolean.TRUE.equals(batchRequest.getIssueClaimTokens());
+
+        // validate each request, and collect the distinct pools needed
+        final String[] errorMessages = new String[swapRequests.size()];
+        final Set<String> poolNames = new HashSet<>();
+        boolean anyRouted = false;
+        for (int i = 0; i < swapRequests.size(); i++) {
+            final SwapRequest swapRequest = swapRequests.get(i);
+            try {
+                EstimateSwapHandler.validateRequest(swapRequest);
+                if (isRouted(swapRequest)) {
+                    anyRouted = true;
+                } else {
+                    poolNames.add(LiquidityPoolUtil.inferPoolNameFromSwapRequest(swapRequest));
+                }
+            } catch (InvalidInputException e) {
+                errorMessages[i] = e.getMessage();
+            }
+        }
+
+        // load every pool once, so that all requests are priced against the same snapshot
+        final List<LiquidityPool> allLiquidityPools;
+        final Map<String, LiquidityPool> poolNameToLiquidityPool;
+        if (anyRouted) {
+            allLiquidityPools = liquidityPoolCache.getAllLiquidityPools();
+            poolNameToLiquidityPool = new HashMap<>();
+            for (final LiquidityPool liquidityPool : allLiquidityPools) {
+                poolNameToLiquidityPool.put(liquidityPool.getPoolName(), liquidityPool);
+            }
+        } else {
+            allLiquidityPools = null;
+            poolNameToLiquidityPool = liquidityPoolCache.getLiquidityPools(poolNames);
+        }
+
+        // write each result as it is priced, rather than building the whole response first
+        final StringWriter body = new StringWriter(ESTIMATED_RESULT_LENGTH * swapRequests.size());
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("results");
+            for (int i = 0; i < swapRequests.size(); i++) {
+                final EstimateSwapBatchResult result = errorMessages[i] != null
+                        ? new EstimateSwapBatchResult(null, null, errorMessages[i])
+                        : estimate(swapRequests.get(i), context.getAwsRequestId() + "-" + i, issueClaimTokens,
+                        poolNameToLiquidityPool, allLiquidityPools);
+                ObjectMapperUtil.writeValue(generator, result);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Estimated {} swap request(s) against {} pool(s).", swapRequests.size(),
+                poolNameToLiquidityPool.size());
+        return ResponseUtil.createSuccessResponseWithBody(body.toString(), context);
+    }
+
+    private EstimateSwapBatchResult estimate(final SwapRequest swapRequest,
+                                             final String swapContractId,
+                                             final boolean issueClaimToken,
+                                             final Map<String, LiquidityPool> poolNameToLiquidityPool,
+                                             final List<LiquidityPool> allLiquidityPools) {
+        try {
+            final SwapEstimate swapEstimate;
+            if (isRouted(swapRequest)) {
+                swapEstimate = marketMakerLogic.createBestSwapEstimate(allLiquidityPools, swapRequest,
+                        swapRequest.getMaxHops());
+            } else {
+                final LiquidityPool liquidityPool = poolNameToLiquidityPool.get(
+                        LiquidityPoolUtil.inferPoolNameFromSwapRequest(swapRequest));
+                if (liquidityPool == null) {
+                    throw new InvalidInputException(ErrorMessages.LIQUIDITY_POOL_DOES_NOT_EXIST);
+                }
+                swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+            }
+            final String swapClaimToken = issueClaimToken
+                    ? claimTokenCodec.encode(EstimateSwapHandler.createSwapClaimToken(
+                    swapContractId, swapRequest, swapEstimate))
+                    : null;
+            return new EstimateSwapBatchResult(swapClaimToken, swapEstimate, null);
+        } catch (InvalidInputException e) {
+            return new EstimateSwapBatchResult(null, null, e.getMessage());
+        }
+    }
+
+    private static boolean isRouted(final SwapRequest swapRequest) {
+        return swapRequest.getMaxHops() != null && swapRequest.getMaxHops() > 1;
+    }
+
+    private void validateBatchRequest(final EstimateSwapBatchRequest request) throws InvalidInputException {
+        if (request == null || request.getSwapRequests() == null || request.getSwapRequests().isEmpty()
+                || request.getSwapRequests().size() > ServiceConstants.MAX_SWAP_REQUESTS_PER_BATCH) {
+            throw new InvalidInputException(ErrorMessages.INVALID_BATCH_SIZE);
+        }
+    }
+}
@@ -5,13 +5,16 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.api.handler.swap.model.EstimateSwapResponse;
-import com.client.DaggerAppDependencies;
-import com.client.dynamodb.DynamoDBClient;
-import com.client.kms.KMSClient;
+import com.client.AppDependenciesHolder;
+import com.client.AwsCallExecutor;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.token.ClaimTokenCodec;
 import com.client.kms.token.SwapClaimToken;
 import com.config.ErrorMessages;
 import com.config.ServiceConstants;
 import com.logic.MarketMakerLogic;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.LiquidityPool;
 import com.model.SwapEstimate;
 import com.model.SwapRequest;
@@ -19,77 +22,163 @@ import com.model.exception.InvalidInputException;
 import com.model.types.Asset;
 import com.util.LiquidityPoolUtil;
 import com.util.ObjectMapperUtil;
+import com.util.PayloadLogSampler;
 import com.util.ResponseUtil;
+import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Handler for EstimateSwap API.
- * Requires an underlying LiquidityPool to exist already.
- * Requires a SwapRequest body containing request details. Returns an object containing:
- * 1. A calculated SwapEstimate, based on the LiquidityPool price / supply details.
+ * Requires an underlying LiquidityPool to exist already. The pool is read through the LiquidityPoolCache, as the swap is
+ * priced again against the latest pool when it is settled.
+ * Requires a SwapRequest body containing request details. If maxHops is more than 1, the swap may be routed through up
+ * to that many pools, choosing the route which returns the most (see MarketMakerLogic.createBestSwapEstimate), and
+ * the pool of the in / out pair does not need to exist. Returns an object containing:
+ * 1. A calculated SwapEstimate, based on the LiquidityPool price / supply details, with one leg per pool if routed.
  * 2. A swapClaimToken String, which is a one-time claim use token to execute the SwapRequest using the SubmitSwap API.
- *    The token is an encrypted version (using KMS key) of the swap details. Every token has a uniqueId associated with
- *    it, which is the uniqueAwsRequestId. This is used to prevent a single token from being consumed multiple times.
+ *    The token is an encrypted (using KMS key) or HMAC signed version of the swap details, see ClaimTokenCodec. Every
+ *    token has a uniqueId associated with it, which is the uniqueAwsRequestId. This is used to prevent a single token
+ *    from being consumed multiple times.
+ * For a swap in a single pool, a token encoded with KMS is encoded on the AwsCallExecutor while the pool is loaded and
+ * priced, as the token does not depend on the estimate.
  */
 @Slf4j
 @Setter
+@AllArgsConstructor
 public class EstimateSwapHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private DynamoDBClient dynamoDBClient;
-    private KMSClient kmsClient;
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("EstimateSwapHandler.handleRequest");
+
+    private LiquidityPoolCache liquidityPoolCache;
+    private ClaimTokenCodec claimTokenCodec;
     private MarketMakerLogic marketMakerLogic;
+    private AwsCallExecutor awsCallExecutor;
 
     public EstimateSwapHandler() {
-        this.dynamoDBClient = DaggerAppDependencies.builder().build().dynamoDBClient();
-        this.kmsClient = DaggerAppDependencies.builder().build().kmsClient();
+        this.liquidityPoolCache = AppDependenciesHolder.get().liquidityPoolCache();
+        this.claimTokenCodec = AppDependenciesHolder.get().claimTokenCodec();
         this.marketMakerLogic = new MarketMakerLogic();
+        this.awsCallExecutor = AppDependenciesHolder.get().awsCallExecutor();
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
+        final long startNanos = System.nanoTime();
+        try {
+            return estimateSwap(requestEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent estimateSwap(final APIGatewayProxyRequestEvent requestEvent,
+                                                      final Context context) {
         // validate request and load liquidity pool from swap request
-        log.info("Received request event: {}", requestEvent);
-        final LiquidityPool liquidityPool;
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request event: {}", requestEvent);
+        }
+        // the swapContractId of the claim is determined by the requestId of this estimate invocation
+        final String swapContractId = context.getAwsRequestId();
+        log.debug("swapContractId: {}", swapContractId);
         final SwapRequest swapRequest;
+        final SwapEstimate swapEstimate;
+        final SwapClaimToken swapClaimToken;
+        CompletableFuture<String> encodedSwapClaimTokenFuture = null;
         try {
             swapRequest = ObjectMapperUtil.toClass(requestEvent.getBody(), SwapRequest.class);
             validateRequest(swapRequest);
-            String poolName = LiquidityPoolUtil.inferPoolNameFromSwapRequest(swapRequest);
-            liquidityPool = dynamoDBClient.loadLiquidityPool(poolName);
+            // create an estimate based on the swap request
+            if (swapRequest.getMaxHops() == null || swapRequest.getMaxHops() == 1) {
+                // the claim of a swap in one pool has no route, so does not depend on the estimate. A blocking encode
+                // runs while the pool is loaded and priced
+                swapClaimToken = createSwapClaimToken(swapContractId, swapRequest, (List<String>) null);
+                if (claimTokenCodec.isEncodeBlocking()) {
+                    encodedSwapClaimTokenFuture = awsCallExecutor.supplyAsync(
+                            () -> claimTokenCodec.encode(swapClaimToken));
+                }
+                String poolName = LiquidityPoolUtil.inferPoolNameFromSwapRequest(swapRequest);
+                final LiquidityPool liquidityPool = liquidityPoolCache.getLiquidityPool(poolName);
+                swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+            } else {
+                swapEstimate = marketMakerLogic.createBestSwapEstimate(liquidityPoolCache.getAllLiquidityPools(),
+                        swapRequest, swapRequest.getMaxHops());
+                swapClaimToken = createSwapClaimToken(swapContractId, swapRequest, swapEstimate);
+            }
         } catch (InvalidInputException e) {
             return ResponseUtil.createBadRequest(e.getMessage(), context);
         }
 
-        // create an estimate based on the swap request
-        SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+        // issue claim token, to "claim" / "execute" this swap later
+        final String encodedSwapClaimToken = encodedSwapClaimTokenFuture == null
+                ? claimTokenCodec.encode(swapClaimToken)
+                : join(encodedSwapClaimTokenFuture);
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("swapClaimToken: {}", swapClaimToken);
+        }
 
-        // create a swap claim to "claim" / "execute" this swap later
-        SwapClaimToken swapClaimToken = new SwapClaimToken();
-        // set the swapContractId (determined by the requestId of this estimate invocation)
-        final String swapContractId = context.getAwsRequestId();
-        log.info("swapContractId: {}", swapContractId);
+        // return success response
+        EstimateSwapResponse estimateSwapResponse = new EstimateSwapResponse();
+        estimateSwapResponse.setSwapEstimate(swapEstimate);
+        estimateSwapResponse.setSwapClaimToken(encodedSwapClaimToken);
+        return ResponseUtil.createSuccessResponse(estimateSwapResponse, context);
+    }
+
+    /**
+     * Creates the claim for a swap, which expires after SWAP_ESTIMATE_EXPIRES_AFTER_IN_SECONDS.
+     *
+     * @param swapContractId
+     * @param swapRequest
+     * @param swapEstimate
+     * @return SwapClaimToken
+     */
+    static SwapClaimToken createSwapClaimToken(final String swapContractId,
+                                               final SwapRequest swapRequest,
+                                               final SwapEstimate swapEstimate) {
+        // the route is settled as estimated, only the amounts are priced again
+        return createSwapClaimToken(swapContractId, swapRequest, MarketMakerLogic.getRoute(swapEstimate));
+    }
+
+    private static SwapClaimToken createSwapClaimToken(final String swapContractId,
+                                                       final SwapRequest swapRequest,
+                                                       final List<String> route) {
+        final SwapClaimToken swapClaimToken = new SwapClaimToken();
         Date expiresAt = DateTime.now().plusSeconds(ServiceConstants.SWAP_ESTIMATE_EXPIRES_AFTER_IN_SECONDS).toDate();
         swapClaimToken.setExpiresAt(expiresAt);
         swapClaimToken.setSwapContractId(swapContractId);
         swapClaimToken.setSwapRequest(swapRequest);
+        swapClaimToken.setRoute(route);
+        return swapClaimToken;
+    }
 
-        // issue encrypted claim token, based on swapContractId
-        final String swapClaimTokenAsString = ObjectMapperUtil.toString(swapClaimToken);
-        final String encryptedSwapClaimToken = kmsClient.encrypt(swapClaimTokenAsString);
-        log.info("swapClaimToken: {}", swapClaimToken);
-
-        // return success response
-        EstimateSwapResponse estimateSwapResponse = new EstimateSwapResponse();
-        estimateSwapResponse.setSwapEstimate(swapEstimate);
-        estimateSwapResponse.setSwapClaimToken(encryptedSwapClaimToken);
-        return ResponseUtil.createSuccessResponse(estimateSwapResponse, context);
+    /**
+     * Waits for an encode started on the AwsCallExecutor, and throws what the encode threw.
+     *
+     * @param encodedSwapClaimTokenFuture
+     * @return token String
+     */
+    private static String join(final CompletableFuture<String> encodedSwapClaimTokenFuture) {
+        try {
+            return encodedSwapClaimTokenFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
     }
 
-    private void validateRequest(final SwapRequest request) throws InvalidInputException {
+    static void validateRequest(final SwapRequest request) throws InvalidInputException {
         if (request == null || request.getInName() == null
                 || request.getInAmount() == null || request.getOutName() == null) {
             throw new InvalidInputException(ErrorMessages.INVALID_REQUEST_MISSING_FIELDS);
@@ -103,5 +192,9 @@ public class EstimateSwapHandler implements RequestHandler<APIGatewayProxyReques
         if (request.getInAmount() < 0) {
             throw new InvalidInputException(ErrorMessages.NEGATIVE_AMOUNT_TO_SWAP);
         }
+        if (request.getMaxHops() != null
+                && (request.getMaxHops() < 1 || request.getMaxHops() > ServiceConstants.MAX_ROUTE_HOPS)) {
+            throw new InvalidInputException(ErrorMessages.INVALID_MAX_HOPS);
+        }
     }
 }
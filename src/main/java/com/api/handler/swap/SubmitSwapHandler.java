@@ -6,17 +6,23 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.api.handler.swap.model.SubmitSwapRequest;
 import com.api.handler.swap.model.SubmitSwapResponse;
-import com.client.DaggerAppDependencies;
+import com.client.AppDependenciesHolder;
 import com.client.dynamodb.DynamoDBClient;
-import com.client.kms.KMSClient;
+import com.client.kms.token.ClaimTokenCodec;
 import com.client.kms.token.SwapClaimToken;
-import com.client.sqs.SQSClient;
 import com.config.ErrorMessages;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.Transaction;
 import com.model.exception.InvalidInputException;
 import com.model.types.TransactionStatus;
+import com.settlement.QueueSwapSubmitter;
+import com.settlement.SwapSubmitter;
 import com.util.ObjectMapperUtil;
+import com.util.PayloadLogSampler;
 import com.util.ResponseUtil;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -26,47 +32,74 @@ import java.util.Date;
 /**
  * Handler for SubmitSwap API.
  * Requires a SwapRequest body containing a swapClaimToken. This then:
- * 1. Decrypts the token using KMS client, and deserializes the token contents into the SwapClaimToken object
+ * 1. Decodes the token using the ClaimTokenCodec (KMS decryption or HMAC verification) into the SwapClaimToken object
  * 2. Ensure that the token is not expired
  * 3. Create an entry in DynamoDB Transactions table, indicating that this transaction has "started" and that this
  *    claim has been "consumed". The transaction is keyed based off the id in the token. If the id already exists, this
  *    API will fail claiming the token has already been used.
- * 4. The SwapClaimToken details are submitted to an SQS queue to be processed.
+ * 4. The SwapClaimToken details are submitted to be settled, by default to an SQS queue (see SwapSubmitter).
  * 5. The transactionId is returned to the client.
  */
 @Slf4j
 @Setter
+@AllArgsConstructor
 public class SubmitSwapHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private SQSClient sqsClient;
-    private KMSClient kmsClient;
+    private static final Timer HANDLE_REQUEST_TIMER = Metrics.timer("SubmitSwapHandler.handleRequest");
+    private static final Counter TOKEN_REJECTED_COUNTER = Metrics.counter("SubmitSwapHandler.tokenRejected");
+    private static final Counter TOKEN_EXPIRED_COUNTER = Metrics.counter("SubmitSwapHandler.tokenExpired");
+
+    private SwapSubmitter swapSubmitter;
+    private ClaimTokenCodec claimTokenCodec;
     private DynamoDBClient dynamoDBClient;
 
     public SubmitSwapHandler() {
-        this.sqsClient = DaggerAppDependencies.builder().build().sqsClient();
-        this.kmsClient = DaggerAppDependencies.builder().build().kmsClient();
-        this.dynamoDBClient = DaggerAppDependencies.builder().build().dynamoDBClient();
+        this.swapSubmitter = new QueueSwapSubmitter(AppDependenciesHolder.get().sqsBatchProducer());
+        this.claimTokenCodec = AppDependenciesHolder.get().claimTokenCodec();
+        this.dynamoDBClient = AppDependenciesHolder.get().dynamoDBClient();
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
-        // get swap claim object from encrypted swap claim input
-        log.info("Received request event: {}", requestEvent);
+        final long startNanos = System.nanoTime();
+        try {
+            return submitSwap(requestEvent, context);
+        } finally {
+            HANDLE_REQUEST_TIMER.recordSince(startNanos);
+            Metrics.flushIfDue();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent submitSwap(final APIGatewayProxyRequestEvent requestEvent,
+                                                    final Context context) {
+        // get swap claim object from encoded swap claim input
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Received request event: {}", requestEvent);
+        }
         final SubmitSwapRequest submitSwapRequest;
         final SwapClaimToken swapClaimToken;
         try {
             submitSwapRequest = ObjectMapperUtil.toClass(requestEvent.getBody(), SubmitSwapRequest.class);
             validateRequest(submitSwapRequest);
-            swapClaimToken = kmsClient.decrypt(submitSwapRequest.getSwapClaimToken());
-            log.info("swapClaimToken: {}", swapClaimToken);
         } catch (InvalidInputException e) {
             log.error(e.getMessage(), e);
             return ResponseUtil.createBadRequest(e.getMessage(), context);
         }
+        try {
+            swapClaimToken = claimTokenCodec.decode(submitSwapRequest.getSwapClaimToken());
+        } catch (InvalidInputException e) {
+            TOKEN_REJECTED_COUNTER.increment();
+            log.error(e.getMessage(), e);
+            return ResponseUtil.createBadRequest(e.getMessage(), context);
+        }
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("swapClaimToken: {}", swapClaimToken);
+        }
 
         // validate expiry
         Date now = new Date();
         if (now.after(swapClaimToken.getExpiresAt())) {
+            TOKEN_EXPIRED_COUNTER.increment();
             log.error("Swap is expired. Current time: {}", now);
             return ResponseUtil.createBadRequest(ErrorMessages.CLAIM_EXPIRED, context);
         }
@@ -84,10 +117,9 @@ public class SubmitSwapHandler implements RequestHandler<APIGatewayProxyRequestE
             return ResponseUtil.createBadRequest(ErrorMessages.CLAIM_ALREADY_USED, context);
         }
 
-        // submit swap claim token to be processed by SQS
-        final String swapClaimTokenAsString = ObjectMapperUtil.toString(swapClaimToken);
-        sqsClient.submitMessage(swapClaimTokenAsString);
-        log.info("Submitted swap claim to SQS.");
+        // submit swap claim token to be settled
+        swapSubmitter.submit(swapClaimToken);
+        log.info("Submitted swap claim.");
 
         // return success response
         SubmitSwapResponse response = new SubmitSwapResponse();
@@ -0,0 +1,15 @@
+package com.api.handler.swap.model;
+
+import com.model.SwapRequest;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class EstimateSwapBatchRequest {
+    private List<SwapRequest> swapRequests;
+    /**
+     * Whether to issue a swapClaimToken for every estimate. Defaults to false, for callers which only need prices.
+     */
+    private Boolean issueClaimTokens;
+}
@@ -0,0 +1,21 @@
+package com.api.handler.swap.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.model.SwapEstimate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result for one SwapRequest of an EstimateSwapBatchRequest, at the same index. Either the estimate (and optionally its
+ * claim token) or the error message of that request is set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EstimateSwapBatchResult {
+    private String swapClaimToken;
+    private SwapEstimate swapEstimate;
+    private String errorMessage;
+}
@@ -0,0 +1,149 @@
+package com.api.server;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.model.error.ErrorResponse;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.util.ObjectMapperUtil;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HttpHandler which routes requests to the API Gateway handlers, converting the HttpExchange into the
+ * APIGatewayProxyRequestEvent the handler expects and writing back the APIGatewayProxyResponseEvent. Routes are
+ * registered with a path template like serverless.yml, where {name} segments become path parameters.
+ */
+@Slf4j
+public class ApiGatewayRouter implements HttpHandler {
+
+    private final List<Route> routes = new ArrayList<>();
+
+    /**
+     * Registers a handler for the given method and path template, e.g. GET /pool/{poolName}.
+     *
+     * @param httpMethod
+     * @param pathTemplate
+     * @param handler
+     * @return this router
+     */
+    public ApiGatewayRouter route(final String httpMethod,
+                                  final String pathTemplate,
+                                  final RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler) {
+        routes.add(new Route(httpMethod, pathTemplate.split("/"), handler));
+        return this;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        final Context context = new LocalContext();
+        try {
+            final String httpMethod = exchange.getRequestMethod();
+            final String path = exchange.getRequestURI().getPath();
+            for (final Route route : routes) {
+                final Map<String, String> pathParameters = route.match(httpMethod, path);
+                if (pathParameters != null) {
+                    final APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent()
+                            .withHttpMethod(httpMethod)
+                            .withPath(path)
+                            .withPathParameters(pathParameters)
+                            .withBody(readBody(exchange.getRequestBody()));
+                    writeResponse(exchange, route.handler.handleRequest(requestEvent, context));
+                    return;
+                }
+            }
+            writeError(exchange, 404, ErrorResponse.notFound("No route for " + httpMethod + " " + path));
+        } catch (Exception e) {
+            log.error("Failed to handle request {}", context.getAwsRequestId(), e);
+            writeError(exchange, 500, ErrorResponse.internalError("Internal error. RequestId: "
+                    + context.getAwsRequestId()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String readBody(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return body.size() == 0 ? null : new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void writeResponse(final HttpExchange exchange,
+                                      final APIGatewayProxyResponseEvent responseEvent) throws IOException {
+        final Headers responseHeaders = exchange.getResponseHeaders();
+        if (responseEvent.getHeaders() != null) {
+            for (final Map.Entry<String, String> header : responseEvent.getHeaders().entrySet()) {
+                responseHeaders.set(header.getKey(), header.getValue());
+            }
+        }
+        final int statusCode = responseEvent.getStatusCode() == null ? 200 : responseEvent.getStatusCode();
+        if (responseEvent.getBody() == null) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        responseHeaders.set("Content-Type", "application/json");
+        final byte[] body = responseEvent.getBody().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static void writeError(final HttpExchange exchange,
+                                   final int statusCode,
+                                   final ErrorResponse errorResponse) throws IOException {
+        writeResponse(exchange, new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withBody(ObjectMapperUtil.toString(errorResponse)));
+    }
+
+    @AllArgsConstructor
+    private static class Route {
+        private final String httpMethod;
+        private final String[] templateSegments;
+        private final RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler;
+
+        /**
+         * Returns the path parameters if the request matches this route, otherwise null.
+         */
+        private Map<String, String> match(final String requestMethod, final String path) {
+            if (!httpMethod.equalsIgnoreCase(requestMethod)) {
+                return null;
+            }
+            final String[] pathSegments = path.split("/");
+            if (pathSegments.length != templateSegments.length) {
+                return null;
+            }
+            final Map<String, String> pathParameters = new HashMap<>();
+            for (int i = 0; i < templateSegments.length; i++) {
+                final String templateSegment = templateSegments[i];
+                if (templateSegment.startsWith("{") && templateSegment.endsWith("}")) {
+                    if (pathSegments[i].isEmpty()) {
+                        return null;
+                    }
+                    pathParameters.put(templateSegment.substring(1, templateSegment.length() - 1), pathSegments[i]);
+                } else if (!templateSegment.equals(pathSegments[i])) {
+                    return null;
+                }
+            }
+            return pathParameters;
+        }
+    }
+}
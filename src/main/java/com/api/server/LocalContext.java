@@ -0,0 +1,90 @@
+package com.api.server;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.UUID;
+
+/**
+ * Minimal Lambda Context for invoking handlers outside of Lambda. Each request gets a unique awsRequestId, which the
+ * handlers use as the swapContractId.
+ */
+public class LocalContext implements Context {
+
+    private static final LambdaLogger NO_OP_LOGGER = new LambdaLogger() {
+        @Override
+        public void log(final String message) {
+        }
+
+        @Override
+        public void log(final byte[] message) {
+        }
+    };
+
+    private final String awsRequestId;
+
+    public LocalContext() {
+        this(UUID.randomUUID().toString());
+    }
+
+    public LocalContext(final String awsRequestId) {
+        this.awsRequestId = awsRequestId;
+    }
+
+    @Override
+    public String getAwsRequestId() {
+        return awsRequestId;
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return null;
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return null;
+    }
+
+    @Override
+    public String getFunctionName() {
+        return "local";
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return null;
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return null;
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return 0;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return NO_OP_LOGGER;
+    }
+}
@@ -0,0 +1,138 @@
+package com.api.server;
+
+import com.api.handler.listener.SwapListenerHandler;
+import com.api.handler.pool.CreateLiquidityPoolHandler;
+import com.api.handler.pool.GetLiquidityPoolHandler;
+import com.api.handler.pool.GetQuoteLadderHandler;
+import com.api.handler.swap.EstimateSwapBatchHandler;
+import com.api.handler.swap.EstimateSwapHandler;
+import com.api.handler.swap.SubmitSwapHandler;
+import com.client.AppDependencies;
+import com.client.AppDependenciesHolder;
+import com.client.dynamodb.DynamoDBClient;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.token.ClaimTokenCodec;
+import com.client.sqs.SQSBatchProducer;
+import com.client.sqs.SQSClient;
+import com.client.sqs.SQSConstants;
+import com.logic.MarketMakerLogic;
+import com.metrics.Metrics;
+import com.settlement.PoolSequencer;
+import com.settlement.QueueSwapSubmitter;
+import com.settlement.SequencerSwapSubmitter;
+import com.settlement.SwapSubmitter;
+import com.sun.net.httpserver.HttpServer;
+import com.util.EnvironmentUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs all of the handlers in one long-lived JVM instead of one Lambda per handler. Serves the same routes as
+ * serverless.yml and runs the swap listener as an in-process queue consumer. The clients come from the shared
+ * Dagger component in AppDependenciesHolder, so the listener keeps the pool cache of the read handlers up to date.
+ * <p>
+ * The JDK HttpServer accepts connections on a single NIO selector thread and dispatches requests to a fixed pool of
+ * worker threads, as the handlers block on DynamoDB / KMS / SQS calls.
+ * <p>
+ * Configuration (environment variables):
+ * PORT - port to listen on, defaults to 8080
+ * SERVER_THREADS - number of worker threads, defaults to 64
+ * SWAP_LISTENER_ENABLED - whether to consume the swap requests queue, defaults to true
+ * SETTLEMENT_MODE - queue to settle submitted swaps through the swap requests queue, or sequencer to settle them
+ * in-process with the PoolSequencer, defaults to queue. Routed swaps always go through the queue.
+ * SEQUENCER_SHARDS - number of PoolSequencer shard threads, defaults to the number of processors
+ * SEQUENCER_RING_CAPACITY - most swaps waiting per shard, a power of two, defaults to 4096
+ * SQS_BATCH_MAX_DELAY_MILLIS - how long submitted swaps wait to share a SendMessageBatch call, defaults to 5, as the
+ * server handles concurrent submits (Lambdas default to 0)
+ */
+@Slf4j
+public final class LocalServer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_SERVER_THREADS = 64;
+    private static final int DEFAULT_SEQUENCER_RING_CAPACITY = 4096;
+    private static final long DEFAULT_SQS_BATCH_MAX_DELAY_MILLIS = 5;
+
+    private LocalServer() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final int port = EnvironmentUtil.getInt("PORT", DEFAULT_PORT);
+        final int serverThreads = EnvironmentUtil.getInt("SERVER_THREADS", DEFAULT_SERVER_THREADS);
+        final boolean swapListenerEnabled = !"false".equalsIgnoreCase(System.getenv("SWAP_LISTENER_ENABLED"));
+        final boolean sequencerEnabled = "sequencer".equalsIgnoreCase(System.getenv("SETTLEMENT_MODE"));
+
+        final AppDependencies appDependencies = AppDependenciesHolder.get();
+        final DynamoDBClient dynamoDBClient = appDependencies.dynamoDBClient();
+        final LiquidityPoolCache liquidityPoolCache = appDependencies.liquidityPoolCache();
+        final ClaimTokenCodec claimTokenCodec = appDependencies.claimTokenCodec();
+        final SQSClient sqsClient = appDependencies.sqsClient();
+        final MarketMakerLogic marketMakerLogic = new MarketMakerLogic();
+
+        final SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, EnvironmentUtil.getLong(
+                SQSConstants.SQS_BATCH_MAX_DELAY_MILLIS, DEFAULT_SQS_BATCH_MAX_DELAY_MILLIS));
+        final SwapSubmitter queueSwapSubmitter = new QueueSwapSubmitter(sqsBatchProducer);
+        final PoolSequencer poolSequencer = sequencerEnabled
+                ? new PoolSequencer(dynamoDBClient, liquidityPoolCache, marketMakerLogic,
+                EnvironmentUtil.getInt("SEQUENCER_SHARDS", Runtime.getRuntime().availableProcessors()),
+                EnvironmentUtil.getInt("SEQUENCER_RING_CAPACITY", DEFAULT_SEQUENCER_RING_CAPACITY))
+                : null;
+        final SwapSubmitter swapSubmitter;
+        if (poolSequencer != null) {
+            poolSequencer.start();
+            swapSubmitter = new SequencerSwapSubmitter(poolSequencer, queueSwapSubmitter);
+            log.info("Started pool sequencer.");
+        } else {
+            swapSubmitter = queueSwapSubmitter;
+        }
+
+        final ApiGatewayRouter router = new ApiGatewayRouter()
+                .route("POST", "/pool/{poolName}", new CreateLiquidityPoolHandler(dynamoDBClient))
+                .route("GET", "/pool/{poolName}", new GetLiquidityPoolHandler(liquidityPoolCache))
+                .route("POST", "/pool/{poolName}/quotes", new GetQuoteLadderHandler(liquidityPoolCache,
+                        marketMakerLogic))
+                .route("POST", "/swap/estimate", new EstimateSwapHandler(liquidityPoolCache, claimTokenCodec,
+                        marketMakerLogic, appDependencies.awsCallExecutor()))
+                .route("POST", "/swap/estimate/batch", new EstimateSwapBatchHandler(liquidityPoolCache,
+                        claimTokenCodec, marketMakerLogic))
+                .route("POST", "/swap/submit", new SubmitSwapHandler(swapSubmitter, claimTokenCodec,
+                        dynamoDBClient));
+
+        final ExecutorService serverExecutor = Executors.newFixedThreadPool(serverThreads);
+        final HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/", router);
+        httpServer.setExecutor(serverExecutor);
+        httpServer.start();
+        log.info("Listening on port {} with {} worker threads.", port, serverThreads);
+
+        final SwapListenerHandler swapListenerHandler = new SwapListenerHandler(dynamoDBClient, liquidityPoolCache,
+                marketMakerLogic, appDependencies.awsCallExecutor());
+        final SwapQueueConsumer swapQueueConsumer = swapListenerEnabled
+                ? new SwapQueueConsumer(sqsClient, swapListenerHandler)
+                : null;
+        if (swapQueueConsumer != null) {
+            final Thread consumerThread = new Thread(swapQueueConsumer, "swap-queue-consumer");
+            consumerThread.setDaemon(true);
+            consumerThread.start();
+            log.info("Started swap queue consumer.");
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Shutting down.");
+            if (swapQueueConsumer != null) {
+                swapQueueConsumer.stop();
+            }
+            httpServer.stop(1);
+            serverExecutor.shutdown();
+            if (poolSequencer != null) {
+                poolSequencer.stop();
+            }
+            sqsBatchProducer.flush();
+            Metrics.flush();
+        }));
+    }
+}
@@ -0,0 +1,33 @@
+package com.api.server;
+
+import com.amazonaws.services.lambda.runtime.api.client.AWSLambda;
+
+/**
+ * Entry point of the native image, see the graalvmNative block of build.gradle. A native image has a single main
+ * class, so this picks what to run from the first argument:
+ * server - runs LocalServer, all of the handlers behind one HTTP server
+ * otherwise - runs the Lambda runtime interface client, which polls the Lambda runtime API of a custom runtime
+ * (provided.al2) and invokes the handler named by the argument, or by _HANDLER (the handler of the function in
+ * serverless.yml) if there is no argument
+ */
+public final class NativeMain {
+
+    private static final String SERVER = "server";
+    private static final String HANDLER_ENV = "_HANDLER";
+
+    private NativeMain() {
+    }
+
+    public static void main(final String[] args) throws Throwable {
+        if (args.length > 0 && SERVER.equals(args[0])) {
+            LocalServer.main(new String[0]);
+            return;
+        }
+        final String handler = args.length > 0 ? args[0] : System.getenv(HANDLER_ENV);
+        if (handler == null || handler.isEmpty()) {
+            throw new IllegalArgumentException("Expected a handler class or " + SERVER + " as the first argument, or "
+                    + HANDLER_ENV + " to be set.");
+        }
+        AWSLambda.main(new String[]{handler});
+    }
+}
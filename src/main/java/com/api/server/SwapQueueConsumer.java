@@ -0,0 +1,89 @@
+package com.api.server;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.sqs.model.Message;
+import com.api.handler.listener.SwapListenerHandler;
+import com.client.sqs.SQSClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Polls the swap requests queue and passes each batch to the SwapListenerHandler, in place of the Lambda SQS trigger.
+ * Like the Lambda trigger with ReportBatchItemFailures, only the messages which were not reported as failures are
+ * deleted, so the rest become visible again after the visibility timeout.
+ */
+@Slf4j
+public class SwapQueueConsumer implements Runnable {
+
+    private static final int MAX_NUMBER_OF_MESSAGES = 10;
+    private static final int WAIT_TIME_SECONDS = 20;
+    private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+    private final SQSClient sqsClient;
+    private final SwapListenerHandler swapListenerHandler;
+    private volatile boolean running = true;
+
+    public SwapQueueConsumer(final SQSClient sqsClient, final SwapListenerHandler swapListenerHandler) {
+        this.sqsClient = sqsClient;
+        this.swapListenerHandler = swapListenerHandler;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                final List<Message> messages = sqsClient.receiveMessages(MAX_NUMBER_OF_MESSAGES, WAIT_TIME_SECONDS);
+                if (!messages.isEmpty()) {
+                    processMessages(messages);
+                }
+            } catch (Exception e) {
+                log.error("Failed to process swap requests from queue.", e);
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops polling once the current receive returns.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    private void processMessages(final List<Message> messages) {
+        final List<SQSEvent.SQSMessage> records = new ArrayList<>(messages.size());
+        for (final Message message : messages) {
+            final SQSEvent.SQSMessage sqsMessage = new SQSEvent.SQSMessage();
+            sqsMessage.setMessageId(message.getMessageId());
+            sqsMessage.setReceiptHandle(message.getReceiptHandle());
+            sqsMessage.setBody(message.getBody());
+            sqsMessage.setAttributes(message.getAttributes());
+            records.add(sqsMessage);
+        }
+        final SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(records);
+        final SQSBatchResponse batchResponse = swapListenerHandler.handleRequest(sqsEvent, new LocalContext());
+
+        final Set<String> failedMessageIds = new HashSet<>();
+        for (final SQSBatchResponse.BatchItemFailure batchItemFailure : batchResponse.getBatchItemFailures()) {
+            failedMessageIds.add(batchItemFailure.getItemIdentifier());
+        }
+        final List<Message> processedMessages = new ArrayList<>(messages.size());
+        for (final Message message : messages) {
+            if (!failedMessageIds.contains(message.getMessageId())) {
+                processedMessages.add(message);
+            }
+        }
+        sqsClient.deleteMessages(processedMessages);
+    }
+}
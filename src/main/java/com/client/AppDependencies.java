@@ -2,17 +2,38 @@ package com.client;
 
 import com.client.dynamodb.DynamoDBClient;
 import com.client.dynamodb.DynamoDBModule;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.CountingCryptoMaterialsCache;
 import com.client.kms.KMSClient;
 import com.client.kms.KMSModule;
+import com.client.kms.token.ClaimTokenCodec;
+import com.client.sqs.SQSBatchProducer;
 import com.client.sqs.SQSClient;
 import com.client.sqs.SQSModule;
 import dagger.Component;
 
-@Component(modules = {DynamoDBModule.class, SQSModule.class, KMSModule.class})
+import javax.inject.Singleton;
+
+/**
+ * Component for the AWS clients. All bindings are singletons, so each client is created once per component. Handlers
+ * get the shared component from AppDependenciesHolder rather than building their own.
+ */
+@Singleton
+@Component(modules = {ClientModule.class, DynamoDBModule.class, SQSModule.class, KMSModule.class})
 public interface AppDependencies {
     DynamoDBClient dynamoDBClient();
 
+    LiquidityPoolCache liquidityPoolCache();
+
     KMSClient kmsClient();
 
+    CountingCryptoMaterialsCache cryptoMaterialsCache();
+
+    ClaimTokenCodec claimTokenCodec();
+
     SQSClient sqsClient();
+
+    SQSBatchProducer sqsBatchProducer();
+
+    AwsCallExecutor awsCallExecutor();
 }
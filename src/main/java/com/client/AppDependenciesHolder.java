@@ -0,0 +1,73 @@
+package com.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds the single AppDependencies component of the JVM, so every handler shares one set of AWS clients.
+ * <p>
+ * Clients do their expensive setup (ex - resolving the SQS queue url) on first use. Clients listed in the EAGER_CLIENTS
+ * environment variable (comma separated, any of dynamodb, kms, sqs) are instead created and warmed up when this class
+ * is initialized, which for Lambda is during the init phase, before the first invocation.
+ * <p>
+ * A PrimingResource is registered for checkpoint / restore (ex - Lambda SnapStart), which primes the JVM before the
+ * snapshot is taken and reconnects the EAGER_CLIENTS after it is restored.
+ */
+@Slf4j
+public final class AppDependenciesHolder {
+
+    static final String EAGER_CLIENTS_ENV = "EAGER_CLIENTS";
+    static final String DYNAMODB = "dynamodb";
+    static final String KMS = "kms";
+    static final String SQS = "sqs";
+
+    private static final AppDependencies APP_DEPENDENCIES = DaggerAppDependencies.create();
+    private static final Set<String> EAGER_CLIENT_NAMES = parseClientNames(System.getenv(EAGER_CLIENTS_ENV));
+    // the global context only keeps weak references to its resources
+    private static final PrimingResource PRIMING_RESOURCE = new PrimingResource(APP_DEPENDENCIES, EAGER_CLIENT_NAMES);
+
+    static {
+        warmUp(APP_DEPENDENCIES, EAGER_CLIENT_NAMES);
+        Core.getGlobalContext().register(PRIMING_RESOURCE);
+    }
+
+    private AppDependenciesHolder() {
+    }
+
+    public static AppDependencies get() {
+        return APP_DEPENDENCIES;
+    }
+
+    static Set<String> parseClientNames(final String clientNames) {
+        final Set<String> names = new HashSet<>();
+        if (clientNames == null) {
+            return names;
+        }
+        for (final String name : Arrays.asList(clientNames.split(","))) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim().toLowerCase());
+            }
+        }
+        return names;
+    }
+
+    static void warmUp(final AppDependencies appDependencies, final Set<String> clientNames) {
+        final long start = System.currentTimeMillis();
+        if (clientNames.contains(DYNAMODB)) {
+            appDependencies.dynamoDBClient().warmUp();
+        }
+        if (clientNames.contains(KMS)) {
+            appDependencies.claimTokenCodec();
+        }
+        if (clientNames.contains(SQS)) {
+            appDependencies.sqsClient().warmUp();
+        }
+        if (!clientNames.isEmpty()) {
+            log.info("Warmed up clients {} in {} ms.", clientNames, System.currentTimeMillis() - start);
+        }
+    }
+}
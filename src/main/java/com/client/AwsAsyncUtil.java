@@ -0,0 +1,94 @@
+package com.client;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.ExecutorFactory;
+import com.amazonaws.handlers.AsyncHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adapts the async methods of the v1 SDK clients, which take an AsyncHandler and return a plain Future, to
+ * CompletableFuture. The async clients make each call on a pool of their own, which completes the future, so
+ * callbacks chained to it without an executor run on that pool.
+ */
+public final class AwsAsyncUtil {
+
+    /**
+     * Threads of the pool of an async client, by default one per connection the client may open.
+     */
+    public static final int DEFAULT_ASYNC_CLIENT_THREADS = ClientConfiguration.DEFAULT_MAX_CONNECTIONS;
+
+    private AwsAsyncUtil() {
+    }
+
+    /**
+     * Makes the call with the async method of a client. The type of the result can't be inferred from a method
+     * reference to an overloaded method, so assign the future returned to a variable of its type.
+     *
+     * @param asyncMethod ex - amazonDynamoDB::putItemAsync
+     * @param request
+     * @return CompletableFuture of the result, completed exceptionally with the exception of the call, or if the pool
+     * of the client rejected it
+     */
+    public static <Q extends AmazonWebServiceRequest, R> CompletableFuture<R> call(
+            final AsyncMethod<Q, R> asyncMethod, final Q request) {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            asyncMethod.call(request, new AsyncHandler<Q, R>() {
+                @Override
+                public void onError(final Exception exception) {
+                    future.completeExceptionally(exception);
+                }
+
+                @Override
+                public void onSuccess(final Q request, final R result) {
+                    future.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * ExecutorFactory for the builder of an async client, whose threads don't keep the JVM alive. The default pool of
+     * an async client is of non-daemon threads.
+     *
+     * @param threadNamePrefix
+     * @param threads
+     * @return ExecutorFactory
+     */
+    public static ExecutorFactory daemonExecutorFactory(final String threadNamePrefix, final int threads) {
+        return () -> newDaemonThreadPool(threadNamePrefix, threads);
+    }
+
+    /**
+     * Creates a fixed pool of daemon threads, named threadNamePrefix followed by their number.
+     *
+     * @param threadNamePrefix
+     * @param threads
+     * @return ExecutorService
+     */
+    static ExecutorService newDaemonThreadPool(final String threadNamePrefix, final int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * An async method of a v1 SDK client taking an AsyncHandler, ex - AmazonDynamoDBAsync.putItemAsync.
+     */
+    @FunctionalInterface
+    public interface AsyncMethod<Q extends AmazonWebServiceRequest, R> {
+        Future<R> call(Q request, AsyncHandler<Q, R> asyncHandler);
+    }
+}
@@ -0,0 +1,63 @@
+package com.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs blocking AWS client calls (DynamoDB, SQS, KMS) on a shared pool of threads and returns a CompletableFuture of
+ * the result, so that independent calls made for one request run at the same time instead of one after the other.
+ * Each call in flight takes a thread; the pool size bounds how many calls are in flight at once. Used for calls which
+ * do several requests in a row (ex - settling a group of swaps) and for the AWS Encryption SDK, which has no async
+ * API. Single requests use the async methods of the clients instead (ex - DynamoDBClient.loadLiquidityPoolAsync).
+ * <p>
+ * Exceptions thrown by a call, and calls rejected by the pool, complete the future exceptionally.
+ */
+public class AwsCallExecutor {
+
+    private final Executor executor;
+
+    public AwsCallExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor backed by a fixed pool of daemon threads, so it does not keep the JVM alive.
+     *
+     * @param threads
+     * @return AwsCallExecutor
+     */
+    public static AwsCallExecutor withThreads(final int threads) {
+        return new AwsCallExecutor(AwsAsyncUtil.newDaemonThreadPool("aws-call-", threads));
+    }
+
+    /**
+     * Runs the call on the pool.
+     *
+     * @param call
+     * @return CompletableFuture of the result of the call
+     */
+    public <T> CompletableFuture<T> supplyAsync(final AwsCall<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * A blocking call, which may throw checked exceptions.
+     */
+    @FunctionalInterface
+    public interface AwsCall<T> {
+        T call() throws Exception;
+    }
+}
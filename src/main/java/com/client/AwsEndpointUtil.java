@@ -0,0 +1,36 @@
+package com.client;
+
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.regions.DefaultAwsRegionProviderChain;
+
+/**
+ * Points AWS clients at another endpoint than the AWS one when an environment variable is set, so the service can run
+ * against local stand-ins (ex - DynamoDB Local, ElasticMQ for SQS, local-kms). The signing region is still resolved
+ * the default way (ex - AWS_REGION).
+ */
+public final class AwsEndpointUtil {
+
+    public static final String DYNAMODB_ENDPOINT = "DYNAMODB_ENDPOINT";
+    public static final String SQS_ENDPOINT = "SQS_ENDPOINT";
+    public static final String KMS_ENDPOINT = "KMS_ENDPOINT";
+
+    private AwsEndpointUtil() {
+    }
+
+    /**
+     * Sets the endpoint of the builder to the value of the environment variable, if it is set.
+     *
+     * @param builder
+     * @param endpointEnv name of the environment variable holding the endpoint url
+     * @return the builder
+     */
+    public static <B extends AwsClientBuilder<B, ?>> B withEndpointFromEnv(final B builder,
+                                                                           final String endpointEnv) {
+        final String endpoint = System.getenv(endpointEnv);
+        if (endpoint == null || endpoint.isEmpty()) {
+            return builder;
+        }
+        return builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint,
+                new DefaultAwsRegionProviderChain().getRegion()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.client;
+
+import com.util.EnvironmentUtil;
+import dagger.Module;
+import dagger.Provides;
+
+import javax.inject.Singleton;
+
+@Module
+public class ClientModule {
+
+    static final String AWS_CALL_THREADS = "AWS_CALL_THREADS";
+    // enough for one call per pool of a full SQS batch
+    static final int DEFAULT_AWS_CALL_THREADS = 10;
+
+    @Provides
+    @Singleton
+    AwsCallExecutor awsCallExecutor() {
+        return AwsCallExecutor.withThreads(EnvironmentUtil.getInt(AWS_CALL_THREADS, DEFAULT_AWS_CALL_THREADS));
+    }
+}
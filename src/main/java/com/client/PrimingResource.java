@@ -0,0 +1,124 @@
+package com.client;
+
+import com.client.kms.token.SwapClaimToken;
+import com.logic.MarketMakerLogic;
+import com.metrics.Metrics;
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+import com.model.exception.InvalidInputException;
+import com.util.JitterUtil;
+import com.util.ObjectMapperUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Resource;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * CRaC Resource which primes the JVM before a checkpoint is taken, ex - the snapshot of a Lambda function with
+ * SnapStart, so that restored execution environments serve their first request with warm code rather than paying for
+ * class loading, Jackson introspection and interpretation on it. Registered with the global context by
+ * AppDependenciesHolder, and a no-op on JVMs without checkpoint / restore.
+ * <p>
+ * Before the checkpoint, the pricing kernel and the JSON (de)serialization of the swap models are run on a synthetic
+ * pool for PRIMING_ITERATIONS iterations, and the DynamoDB item codecs are run. None of this makes network calls.
+ * The metrics recorded while priming are discarded.
+ * <p>
+ * After a restore, the connections in the snapshot are gone (pooled connections are validated before reuse, so they
+ * are replaced rather than failing), and the credentials may have changed. So a connection is opened to each of the
+ * EAGER_CLIENTS which has a cheap call for it (DynamoDB and SQS), ahead of the first request. Failing to connect is
+ * logged and left to the first request. The jitter of retry backoff is reseeded (see JitterUtil), as its generator in
+ * the snapshot is shared by every restored environment.
+ */
+@Slf4j
+public final class PrimingResource implements Resource {
+
+    // enough calls for the JIT to compile the hot paths
+    static final int PRIMING_ITERATIONS = 10000;
+
+    private final AppDependencies appDependencies;
+    private final Set<String> clientNames;
+
+    /**
+     * @param appDependencies
+     * @param clientNames     EAGER_CLIENTS, see AppDependenciesHolder
+     */
+    PrimingResource(final AppDependencies appDependencies, final Set<String> clientNames) {
+        this.appDependencies = appDependencies;
+        this.clientNames = clientNames;
+    }
+
+    @Override
+    public void beforeCheckpoint(final Context<? extends Resource> context) {
+        final long start = System.currentTimeMillis();
+        primeLogicAndCodecs();
+        if (clientNames.contains(AppDependenciesHolder.DYNAMODB)) {
+            appDependencies.dynamoDBClient().warmUp();
+        }
+        Metrics.discard();
+        log.info("Primed in {} ms before checkpoint.", System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void afterRestore(final Context<? extends Resource> context) {
+        final long start = System.currentTimeMillis();
+        // don't report the time between the checkpoint and the restore as part of the first interval
+        Metrics.discard();
+        // the generator in the snapshot is the same in every restored environment
+        JitterUtil.reseed();
+        if (clientNames.contains(AppDependenciesHolder.DYNAMODB)) {
+            connect(AppDependenciesHolder.DYNAMODB, () -> appDependencies.dynamoDBClient().connect());
+        }
+        if (clientNames.contains(AppDependenciesHolder.SQS)) {
+            connect(AppDependenciesHolder.SQS, () -> appDependencies.sqsClient().connect());
+        }
+        log.info("Restored in {} ms.", System.currentTimeMillis() - start);
+    }
+
+    private static void connect(final String clientName, final Runnable connect) {
+        try {
+            connect.run();
+        } catch (Exception e) {
+            log.warn("Failed to connect {} client after restore.", clientName, e);
+        }
+    }
+
+    /**
+     * Runs the pricing kernel and the JSON (de)serialization of the swap models on a synthetic pool.
+     */
+    public static void primeLogicAndCodecs() {
+        final MarketMakerLogic marketMakerLogic = new MarketMakerLogic();
+        final Date now = new Date();
+        final LiquidityPool liquidityPool = LiquidityPool.builder()
+                .poolName("Apples-Bananas")
+                .assetOne(new PriceAmount(100d, 50000d))
+                .assetTwo(new PriceAmount(100d, 50000d))
+                .createdTime(now)
+                .updatedTime(now)
+                .build();
+        final SwapRequest swapRequest = new SwapRequest();
+        swapRequest.setInName("Apples");
+        swapRequest.setOutName("Bananas");
+        final SwapClaimToken swapClaimToken = new SwapClaimToken();
+        swapClaimToken.setSwapContractId("priming");
+        swapClaimToken.setExpiresAt(now);
+        swapClaimToken.setSwapRequest(swapRequest);
+        try {
+            for (int i = 0; i < PRIMING_ITERATIONS; i++) {
+                swapRequest.setInAmount(1d + i % 1000);
+                final SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool,
+                        ObjectMapperUtil.toClass(ObjectMapperUtil.toString(swapRequest), SwapRequest.class));
+                marketMakerLogic.applySwapEstimateToPool(
+                        ObjectMapperUtil.toClass(ObjectMapperUtil.toString(swapEstimate), SwapEstimate.class),
+                        liquidityPool);
+                ObjectMapperUtil.toClass(ObjectMapperUtil.toString(swapClaimToken), SwapClaimToken.class);
+                ObjectMapperUtil.toClass(ObjectMapperUtil.toString(liquidityPool), LiquidityPool.class);
+            }
+        } catch (InvalidInputException e) {
+            throw new IllegalStateException("Failed to prime with synthetic swaps.", e);
+        }
+    }
+}
@@ -3,7 +3,32 @@ package com.client.dynamodb;
 public class DBConstants {
     public static final String LIQUIDITY_POOLS_TABLE_NAME = "AutomatedMarketMaker-dev-LiquidityPools";
     public static final String LIQUIDITY_POOL_NAME_KEY = "poolName";
+    public static final String LIQUIDITY_POOL_VERSION_KEY = "version";
 
     public static final String TRANSACTIONS_TABLE_NAME = "AutomatedMarketMaker-dev-Transactions";
     public static final String TRANSACTION_ID_KEY = "transactionId";
+    public static final String TRANSACTION_STATE_KEY = "transactionState";
+
+    public static final String POOL_EVENTS_TABLE_NAME = "AutomatedMarketMaker-dev-PoolEvents";
+    public static final String POOL_EVENTS_POOL_NAME_KEY = "poolName";
+    public static final String POOL_EVENTS_SEQUENCE_NUMBER_KEY = "sequenceNumber";
+    public static final String LIQUIDITY_POOL_EVENT_SEQUENCE_NUMBER_KEY = "eventSequenceNumber";
+
+    /**
+     * How pool state is persisted, state (the pool item is updated in place, the default) or events (swaps are
+     * appended to the PoolEvents table and the pool item is a snapshot taken every POOL_SNAPSHOT_INTERVAL events).
+     */
+    public static final String POOL_PERSISTENCE_MODE = "POOL_PERSISTENCE_MODE";
+    public static final String POOL_PERSISTENCE_MODE_EVENTS = "events";
+    public static final String POOL_SNAPSHOT_INTERVAL = "POOL_SNAPSHOT_INTERVAL";
+    public static final int DEFAULT_POOL_SNAPSHOT_INTERVAL = 100;
+
+    /**
+     * Staleness bound and refresh-ahead age of LiquidityPoolCache snapshots, overridable by the environment variable
+     * of the same name.
+     */
+    public static final String POOL_CACHE_MAX_STALENESS_MILLIS = "POOL_CACHE_MAX_STALENESS_MILLIS";
+    public static final String POOL_CACHE_REFRESH_AFTER_MILLIS = "POOL_CACHE_REFRESH_AFTER_MILLIS";
+    public static final long DEFAULT_POOL_CACHE_MAX_STALENESS_MILLIS = 2000;
+    public static final long DEFAULT_POOL_CACHE_REFRESH_AFTER_MILLIS = 1000;
 }
@@ -1,88 +1,367 @@
 package com.client.dynamodb;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
-import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DescribeEndpointsRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import com.client.AwsAsyncUtil;
 import com.config.ErrorMessages;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
 import com.model.Transaction;
+import com.model.exception.ConcurrentUpdateException;
 import com.model.exception.InvalidInputException;
+import com.model.exception.TransactionAlreadySettledException;
+import com.model.types.TransactionStatus;
 import com.util.LiquidityPoolUtil;
+import com.util.PayloadLogSampler;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Reads and writes pools and transactions with the low-level DynamoDB client. Items are converted by the hand written
+ * codecs in this package (ex - LiquidityPoolItemCodec) rather than by DynamoDBMapper, which reflects over the models
+ * to build them, and reads only fetch the attributes the codecs use.
+ * <p>
+ * The methods ending in Async make the same call as their blocking counterpart without taking a thread while it is in
+ * flight, and return a future completed on the pool of the async client. The exceptions their counterpart throws
+ * complete the future exceptionally instead.
+ */
 @AllArgsConstructor
 @Slf4j
 @Singleton
 public class DynamoDBClient {
 
-    private DynamoDBMapper dynamoDBMapper;
+    private static final Timer CREATE_LIQUIDITY_POOL_TIMER = Metrics.timer("DynamoDBClient.createLiquidityPool");
+    private static final Timer LOAD_LIQUIDITY_POOL_TIMER = Metrics.timer("DynamoDBClient.loadLiquidityPool");
+    private static final Timer BATCH_LOAD_LIQUIDITY_POOLS_TIMER =
+            Metrics.timer("DynamoDBClient.batchLoadLiquidityPools");
+    private static final Timer LOAD_ALL_LIQUIDITY_POOLS_TIMER = Metrics.timer("DynamoDBClient.loadAllLiquidityPools");
+    private static final Timer INITIALIZE_TRANSACTION_TIMER = Metrics.timer("DynamoDBClient.initializeTransaction");
+    private static final Timer TRANSACT_WRITE_ITEMS_TIMER =
+            Metrics.timer("DynamoDBClient.writeTransactionsAndUpdateLiquidityPools");
+    private static final Counter POOL_CONFLICT_COUNTER = Metrics.counter("DynamoDBClient.poolConflict");
+    private static final Counter ALREADY_SETTLED_COUNTER = Metrics.counter("DynamoDBClient.alreadySettled");
+
+    private AmazonDynamoDBAsync amazonDynamoDB;
+
+    /**
+     * Cancellation reason codes of a TransactWriteItems call that mean another writer updated the pool first. A failed
+     * condition on a transaction rather than a pool means the transaction was already settled.
+     */
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final String TRANSACTION_CONFLICT = "TransactionConflict";
 
     /**
-     * Configures the ability to skip null attributes when making an update. Ex - when an item is updated
-     * a second time, and only some fields need to be updated (ignoring existing fields, such as created time).
+     * Limits of BatchGetItem. Unprocessed keys are retried after a backoff doubling from BATCH_GET_BACKOFF_MILLIS.
      */
-    private static DynamoDBMapperConfig SKIP_NULL_ATTRS_WRITE_CONFIG = DynamoDBMapperConfig.builder()
-            .withSaveBehavior(DynamoDBMapperConfig.SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES).build();
+    static final int MAX_BATCH_GET_KEYS = 100;
+    static final int MAX_BATCH_GET_ATTEMPTS = 5;
+    private static final long BATCH_GET_BACKOFF_MILLIS = 20;
 
     /**
-     * Configures the ability to fail when saving if an existing liquidityPool name already exists.
+     * Runs the item codecs once ahead of the first request, so that their classes are loaded. Makes no calls.
      */
-    private static DynamoDBSaveExpression FAIL_ON_EXISTING_LIQUIDITY_POOL = new DynamoDBSaveExpression()
-            .withExpected(new HashMap<String, ExpectedAttributeValue>() {{
-                              put(DBConstants.LIQUIDITY_POOL_NAME_KEY, new ExpectedAttributeValue(false));
-                          }}
-            );
+    public void warmUp() {
+        final Date now = new Date();
+        final LiquidityPool liquidityPool = LiquidityPool.builder()
+                .poolName("Apples-Bananas")
+                .assetOne(new PriceAmount(100d, 50000d))
+                .assetTwo(new PriceAmount(100d, 50000d))
+                .createdTime(now)
+                .updatedTime(now)
+                .build();
+        LiquidityPoolItemCodec.fromItem(LiquidityPoolItemCodec.toItem(liquidityPool));
+        final Transaction transaction = Transaction.builder()
+                .transactionId("warmUp")
+                .swapApplied(new SwapEstimate("Apples", new PriceAmount(100d, 1d),
+                        "Bananas", new PriceAmount(100d, 1d)))
+                .timeStarted(now)
+                .build();
+        TransactionItemCodec.fromItem(TransactionItemCodec.toItem(transaction));
+    }
 
     /**
-     * Configures the ability to fail when saving if an existing transactionId already exists.
+     * Opens a connection to DynamoDB ahead of the first request, ex - after a snapshot restore. Uses DescribeEndpoints,
+     * which reads no table.
      */
-    private static DynamoDBSaveExpression FAIL_ON_EXISTING_TRANSACTION = new DynamoDBSaveExpression()
-            .withExpected(new HashMap<String, ExpectedAttributeValue>() {{
-                              put(DBConstants.TRANSACTION_ID_KEY, new ExpectedAttributeValue(false));
-                          }}
-            );
+    public void connect() {
+        amazonDynamoDB.describeEndpoints(new DescribeEndpointsRequest());
+    }
 
     /**
-     * Creates a liquidity pool.
+     * Creates a liquidity pool, at version 1.
      *
      * @param liquidityPool
      * @throws InvalidInputException when poolName (hashKey) already exists
      */
     public void createLiquidityPool(final LiquidityPool liquidityPool) throws InvalidInputException {
+        final long startNanos = System.nanoTime();
         try {
             log.info("Creating liquidity pool: {}", liquidityPool);
-            dynamoDBMapper.save(liquidityPool, FAIL_ON_EXISTING_LIQUIDITY_POOL);
+            amazonDynamoDB.putItem(toCreateLiquidityPoolRequest(liquidityPool));
+            liquidityPool.setVersion(1L);
         } catch (ConditionalCheckFailedException e) {
             log.error("Liquidity pool already exists", e);
             throw new InvalidInputException(e);
+        } finally {
+            CREATE_LIQUIDITY_POOL_TIMER.recordSince(startNanos);
         }
     }
 
     /**
-     * Loads an existing liquidity pool by hash key liquidityPoolName.
+     * Creates a liquidity pool, at version 1, as createLiquidityPool.
+     *
+     * @param liquidityPool
+     * @return future completed once the pool is created, or completed exceptionally with an InvalidInputException
+     * when poolName (hashKey) already exists
+     */
+    public CompletableFuture<Void> createLiquidityPoolAsync(final LiquidityPool liquidityPool) {
+        final long startNanos = System.nanoTime();
+        log.info("Creating liquidity pool: {}", liquidityPool);
+        final CompletableFuture<PutItemResult> putItemFuture = AwsAsyncUtil.call(amazonDynamoDB::putItemAsync,
+                toCreateLiquidityPoolRequest(liquidityPool));
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        putItemFuture.whenComplete((result, t) -> {
+            CREATE_LIQUIDITY_POOL_TIMER.recordSince(startNanos);
+            if (t == null) {
+                liquidityPool.setVersion(1L);
+                future.complete(null);
+            } else if (t instanceof ConditionalCheckFailedException) {
+                log.error("Liquidity pool already exists", t);
+                future.completeExceptionally(new InvalidInputException(t));
+            } else {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private static PutItemRequest toCreateLiquidityPoolRequest(final LiquidityPool liquidityPool) {
+        final Map<String, AttributeValue> liquidityPoolItem = LiquidityPoolItemCodec.toItem(liquidityPool);
+        liquidityPoolItem.put(DBConstants.LIQUIDITY_POOL_VERSION_KEY, new AttributeValue().withN("1"));
+        return new PutItemRequest()
+                .withTableName(DBConstants.LIQUIDITY_POOLS_TABLE_NAME)
+                .withItem(liquidityPoolItem)
+                .withConditionExpression("attribute_not_exists(#poolName)")
+                .withExpressionAttributeNames(Collections.singletonMap("#poolName",
+                        DBConstants.LIQUIDITY_POOL_NAME_KEY));
+    }
+
+    /**
+     * Loads an existing liquidity pool by hash key liquidityPoolName, with an eventually consistent read.
      *
      * @param liquidityPoolName
      * @return LiquidityPool
      * @throws InvalidInputException if poolName (hashKey) does not exist
      */
     public LiquidityPool loadLiquidityPool(final String liquidityPoolName) throws InvalidInputException {
-        log.info("Getting liquidity pool with name: {}", liquidityPoolName);
-        LiquidityPool liquidityPool = dynamoDBMapper.load(LiquidityPool.class, liquidityPoolName);
-        log.info("Returned: {}", liquidityPool);
-        LiquidityPoolUtil.logStats(liquidityPool);
-        if (liquidityPool == null) {
+        return loadLiquidityPool(liquidityPoolName, false);
+    }
+
+    /**
+     * Loads an existing liquidity pool by hash key liquidityPoolName. Settlement reads consistently, as a pool written
+     * on the condition of its version must be read at its latest version, in particular when reloading it after a
+     * conflict.
+     *
+     * @param liquidityPoolName
+     * @param consistentRead    whether to read the latest version of the pool, rather than an eventually consistent one
+     * @return LiquidityPool
+     * @throws InvalidInputException if poolName (hashKey) does not exist
+     */
+    public LiquidityPool loadLiquidityPool(final String liquidityPoolName, final boolean consistentRead)
+            throws InvalidInputException {
+        log.debug("Getting liquidity pool with name: {}", liquidityPoolName);
+        final long startNanos = System.nanoTime();
+        final GetItemResult result;
+        try {
+            result = amazonDynamoDB.getItem(toLoadLiquidityPoolRequest(liquidityPoolName, consistentRead));
+        } finally {
+            LOAD_LIQUIDITY_POOL_TIMER.recordSince(startNanos);
+        }
+        return toLiquidityPool(liquidityPoolName, result);
+    }
+
+    /**
+     * Loads an existing liquidity pool by hash key liquidityPoolName, as loadLiquidityPool.
+     *
+     * @param liquidityPoolName
+     * @param consistentRead    whether to read the latest version of the pool, rather than an eventually consistent one
+     * @return future of the LiquidityPool, completed exceptionally with an InvalidInputException if poolName
+     * (hashKey) does not exist
+     */
+    public CompletableFuture<LiquidityPool> loadLiquidityPoolAsync(final String liquidityPoolName,
+                                                                   final boolean consistentRead) {
+        log.debug("Getting liquidity pool with name: {}", liquidityPoolName);
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<GetItemResult> getItemFuture = AwsAsyncUtil.call(amazonDynamoDB::getItemAsync,
+                toLoadLiquidityPoolRequest(liquidityPoolName, consistentRead));
+        final CompletableFuture<LiquidityPool> future = new CompletableFuture<>();
+        getItemFuture.whenComplete((result, t) -> {
+            LOAD_LIQUIDITY_POOL_TIMER.recordSince(startNanos);
+            if (t != null) {
+                future.completeExceptionally(t);
+                return;
+            }
+            try {
+                future.complete(toLiquidityPool(liquidityPoolName, result));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private static GetItemRequest toLoadLiquidityPoolRequest(final String liquidityPoolName,
+                                                             final boolean consistentRead) {
+        return new GetItemRequest()
+                .withTableName(DBConstants.LIQUIDITY_POOLS_TABLE_NAME)
+                .withKey(LiquidityPoolItemCodec.toKey(liquidityPoolName))
+                .withProjectionExpression(LiquidityPoolItemCodec.PROJECTION_EXPRESSION)
+                .withExpressionAttributeNames(LiquidityPoolItemCodec.PROJECTION_NAMES)
+                .withConsistentRead(consistentRead);
+    }
+
+    private static LiquidityPool toLiquidityPool(final String liquidityPoolName, final GetItemResult result)
+            throws InvalidInputException {
+        if (result == null || result.getItem() == null) {
             throw new InvalidInputException(ErrorMessages.INVALID_LIQUIDITY_POOL_NAME + " - " + liquidityPoolName);
         }
+        final LiquidityPool liquidityPool = LiquidityPoolItemCodec.fromItem(result.getItem());
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Returned: {}", liquidityPool);
+        }
+        LiquidityPoolUtil.logStats(liquidityPool);
         return liquidityPool;
     }
 
+    /**
+     * Loads the existing liquidity pools among poolNames with BatchGetItem, rather than one GetItem per pool, in
+     * requests of up to MAX_BATCH_GET_KEYS keys. Pools which don't exist are absent from the result.
+     *
+     * @param poolNames
+     * @return Map of poolName to LiquidityPool
+     */
+    public Map<String, LiquidityPool> batchLoadLiquidityPools(final Collection<String> poolNames) {
+        final Map<String, LiquidityPool> poolNameToLiquidityPool = new HashMap<>();
+        if (poolNames.isEmpty()) {
+            return poolNameToLiquidityPool;
+        }
+        final long startNanos = System.nanoTime();
+        try {
+            final Iterator<String> poolNameIterator = poolNames.iterator();
+            while (poolNameIterator.hasNext()) {
+                final List<Map<String, AttributeValue>> keys = new ArrayList<>(
+                        Math.min(poolNames.size(), MAX_BATCH_GET_KEYS));
+                while (poolNameIterator.hasNext() && keys.size() < MAX_BATCH_GET_KEYS) {
+                    keys.add(LiquidityPoolItemCodec.toKey(poolNameIterator.next()));
+                }
+                batchGetLiquidityPools(keys, poolNameToLiquidityPool);
+            }
+        } finally {
+            BATCH_LOAD_LIQUIDITY_POOLS_TIMER.recordSince(startNanos);
+        }
+        log.info("Batch loaded {} of {} liquidity pools.", poolNameToLiquidityPool.size(), poolNames.size());
+        return poolNameToLiquidityPool;
+    }
+
+    /**
+     * Gets the pools of up to MAX_BATCH_GET_KEYS keys, retrying the keys left unprocessed (ex - when throttled).
+     *
+     * @throws IllegalStateException if keys are still unprocessed after MAX_BATCH_GET_ATTEMPTS
+     */
+    private void batchGetLiquidityPools(final List<Map<String, AttributeValue>> keys,
+                                        final Map<String, LiquidityPool> poolNameToLiquidityPool) {
+        Map<String, KeysAndAttributes> requestItems = Collections.singletonMap(
+                DBConstants.LIQUIDITY_POOLS_TABLE_NAME, new KeysAndAttributes()
+                        .withKeys(keys)
+                        .withProjectionExpression(LiquidityPoolItemCodec.PROJECTION_EXPRESSION)
+                        .withExpressionAttributeNames(LiquidityPoolItemCodec.PROJECTION_NAMES));
+        for (int attempt = 1; ; attempt++) {
+            final BatchGetItemResult result = amazonDynamoDB.batchGetItem(
+                    new BatchGetItemRequest().withRequestItems(requestItems));
+            final List<Map<String, AttributeValue>> items =
+                    result.getResponses().get(DBConstants.LIQUIDITY_POOLS_TABLE_NAME);
+            if (items != null) {
+                for (final Map<String, AttributeValue> item : items) {
+                    final LiquidityPool liquidityPool = LiquidityPoolItemCodec.fromItem(item);
+                    poolNameToLiquidityPool.put(liquidityPool.getPoolName(), liquidityPool);
+                }
+            }
+            requestItems = result.getUnprocessedKeys();
+            if (requestItems == null || requestItems.isEmpty()) {
+                return;
+            }
+            if (attempt >= MAX_BATCH_GET_ATTEMPTS) {
+                throw new IllegalStateException("Liquidity pools left unprocessed after " + attempt + " attempts.");
+            }
+            try {
+                Thread.sleep(BATCH_GET_BACKOFF_MILLIS << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while batch loading liquidity pools.", e);
+            }
+        }
+    }
+
+    /**
+     * Loads all liquidity pools. There is at most one pool per pair of assets, so this is a small scan.
+     *
+     * @return List<LiquidityPool>
+     */
+    public List<LiquidityPool> loadAllLiquidityPools() {
+        final long startNanos = System.nanoTime();
+        final List<LiquidityPool> liquidityPools = new ArrayList<>();
+        try {
+            Map<String, AttributeValue> exclusiveStartKey = null;
+            do {
+                final ScanResult result = amazonDynamoDB.scan(new ScanRequest()
+                        .withTableName(DBConstants.LIQUIDITY_POOLS_TABLE_NAME)
+                        .withProjectionExpression(LiquidityPoolItemCodec.PROJECTION_EXPRESSION)
+                        .withExpressionAttributeNames(LiquidityPoolItemCodec.PROJECTION_NAMES)
+                        .withExclusiveStartKey(exclusiveStartKey));
+                for (final Map<String, AttributeValue> item : result.getItems()) {
+                    liquidityPools.add(LiquidityPoolItemCodec.fromItem(item));
+                }
+                exclusiveStartKey = result.getLastEvaluatedKey();
+            } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+        } finally {
+            LOAD_ALL_LIQUIDITY_POOLS_TIMER.recordSince(startNanos);
+        }
+        log.info("Loaded {} liquidity pools.", liquidityPools.size());
+        return liquidityPools;
+    }
+
     /**
      * Creates a Transaction entry. Fails if transactionId already exists.
      *
@@ -90,26 +369,310 @@ public class DynamoDBClient {
      * @throws InvalidInputException if the transactionId already exists.
      */
     public void initializeTransaction(final Transaction transaction) throws InvalidInputException {
+        final long startNanos = System.nanoTime();
         try {
-            log.info("Initializing transaction: {}", transaction);
-            dynamoDBMapper.save(transaction, FAIL_ON_EXISTING_TRANSACTION);
+            if (PayloadLogSampler.shouldLog(log)) {
+                log.info("Initializing transaction: {}", transaction);
+            }
+            amazonDynamoDB.putItem(toInitializeTransactionRequest(transaction));
         } catch (ConditionalCheckFailedException e) {
             log.error("TransactionId already exists", e);
             throw new InvalidInputException(e);
+        } finally {
+            INITIALIZE_TRANSACTION_TIMER.recordSince(startNanos);
         }
     }
 
     /**
-     * Saves both the Transaction and LiquidityPool objects. Skips overwriting null attributes.
+     * Creates a Transaction entry, as initializeTransaction.
      *
      * @param transaction
+     * @return future completed once the entry is created, or completed exceptionally with an InvalidInputException if
+     * the transactionId already exists
+     */
+    public CompletableFuture<Void> initializeTransactionAsync(final Transaction transaction) {
+        final long startNanos = System.nanoTime();
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Initializing transaction: {}", transaction);
+        }
+        final CompletableFuture<PutItemResult> putItemFuture = AwsAsyncUtil.call(amazonDynamoDB::putItemAsync,
+                toInitializeTransactionRequest(transaction));
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        putItemFuture.whenComplete((result, t) -> {
+            INITIALIZE_TRANSACTION_TIMER.recordSince(startNanos);
+            if (t == null) {
+                future.complete(null);
+            } else if (t instanceof ConditionalCheckFailedException) {
+                log.error("TransactionId already exists", t);
+                future.completeExceptionally(new InvalidInputException(t));
+            } else {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private static PutItemRequest toInitializeTransactionRequest(final Transaction transaction) {
+        return new PutItemRequest()
+                .withTableName(DBConstants.TRANSACTIONS_TABLE_NAME)
+                .withItem(TransactionItemCodec.toItem(transaction))
+                .withConditionExpression("attribute_not_exists(#transactionId)")
+                .withExpressionAttributeNames(Collections.singletonMap("#transactionId",
+                        DBConstants.TRANSACTION_ID_KEY));
+    }
+
+    /**
+     * Updates all the Transactions and the LiquidityPool in a single DynamoDB transaction. Skips overwriting null
+     * attributes (ex - the time the transaction was started). The pool update is conditional on the pool still being
+     * at the version it was read at, and increments the version. Each transaction update is conditional on the
+     * transaction not being FINISHED yet, so a swap whose message is delivered again after it was settled (ex - the
+     * write committed, but its caller saw a timeout) is never applied to the pool twice.
+     *
+     * @param transactions
      * @param newLiquidityPool
+     * @throws ConcurrentUpdateException          if the pool was updated since it was read
+     * @throws TransactionAlreadySettledException if any of the transactions was already settled
+     */
+    public void writeTransactionsAndUpdateLiquidityPool(final List<Transaction> transactions,
+                                                        final LiquidityPool newLiquidityPool)
+            throws ConcurrentUpdateException, TransactionAlreadySettledException {
+        writeTransactionsAndUpdateLiquidityPools(transactions, Collections.singletonList(newLiquidityPool));
+    }
+
+    /**
+     * Updates all the Transactions and LiquidityPools in a single DynamoDB transaction, as
+     * writeTransactionsAndUpdateLiquidityPool. Used for swaps routed through several pools, so that either all of the
+     * pools are updated or none are.
+     *
+     * @param transactions
+     * @param newLiquidityPools
+     * @throws ConcurrentUpdateException          if any of the pools was updated since it was read
+     * @throws TransactionAlreadySettledException if any of the transactions was already settled
+     */
+    public void writeTransactionsAndUpdateLiquidityPools(final List<Transaction> transactions,
+                                                         final List<LiquidityPool> newLiquidityPools)
+            throws ConcurrentUpdateException, TransactionAlreadySettledException {
+        final long[] newVersions = new long[newLiquidityPools.size()];
+        final TransactWriteItemsRequest request = toWriteRequest(transactions, newLiquidityPools, newVersions);
+        final long startNanos = System.nanoTime();
+        try {
+            amazonDynamoDB.transactWriteItems(request);
+        } catch (TransactionCanceledException e) {
+            throwIfAlreadySettled(e, transactions);
+            if (isConflict(e)) {
+                POOL_CONFLICT_COUNTER.increment();
+                log.warn("Liquidity pool(s) {} updated concurrently", getPoolNames(newLiquidityPools));
+                throw new ConcurrentUpdateException(e);
+            }
+            throw e;
+        } finally {
+            TRANSACT_WRITE_ITEMS_TIMER.recordSince(startNanos);
+        }
+        for (int i = 0; i < newLiquidityPools.size(); i++) {
+            newLiquidityPools.get(i).setVersion(newVersions[i]);
+        }
+    }
+
+    /**
+     * Updates all the Transactions and LiquidityPools in a single DynamoDB transaction, as
+     * writeTransactionsAndUpdateLiquidityPools.
+     *
+     * @param transactions
+     * @param newLiquidityPools
+     * @return future completed once written, or completed exceptionally with a ConcurrentUpdateException if any of the
+     * pools was updated since it was read, or a TransactionAlreadySettledException if any of the transactions was
+     * already settled
+     */
+    public CompletableFuture<Void> writeTransactionsAndUpdateLiquidityPoolsAsync(
+            final List<Transaction> transactions, final List<LiquidityPool> newLiquidityPools) {
+        final long[] newVersions = new long[newLiquidityPools.size()];
+        final TransactWriteItemsRequest request = toWriteRequest(transactions, newLiquidityPools, newVersions);
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<TransactWriteItemsResult> writeFuture =
+                AwsAsyncUtil.call(amazonDynamoDB::transactWriteItemsAsync, request);
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        writeFuture.whenComplete((result, t) -> {
+            TRANSACT_WRITE_ITEMS_TIMER.recordSince(startNanos);
+            if (t == null) {
+                for (int i = 0; i < newLiquidityPools.size(); i++) {
+                    newLiquidityPools.get(i).setVersion(newVersions[i]);
+                }
+                future.complete(null);
+            } else if (t instanceof TransactionCanceledException) {
+                final Exception failure = toWriteFailure((TransactionCanceledException) t, transactions);
+                if (failure instanceof ConcurrentUpdateException) {
+                    POOL_CONFLICT_COUNTER.increment();
+                    log.warn("Liquidity pool(s) {} updated concurrently", getPoolNames(newLiquidityPools));
+                }
+                future.completeExceptionally(failure);
+            } else {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Builds the write of writeTransactionsAndUpdateLiquidityPools, and sets the updated time of the pools.
+     *
+     * @param transactions
+     * @param newLiquidityPools
+     * @param newVersions       set to the version each pool is written at
+     * @return TransactWriteItemsRequest
      */
-    public void writeTransactionAndUpdateLiquidityPool(final Transaction transaction,
-                                                       final LiquidityPool newLiquidityPool) {
-        // use skip null attrs setting to prevent overwriting of fields that are left blank
-        newLiquidityPool.setUpdatedTime(new Date());
-        dynamoDBMapper.save(transaction, SKIP_NULL_ATTRS_WRITE_CONFIG);
-        dynamoDBMapper.save(newLiquidityPool, SKIP_NULL_ATTRS_WRITE_CONFIG);
+    private static TransactWriteItemsRequest toWriteRequest(final List<Transaction> transactions,
+                                                            final List<LiquidityPool> newLiquidityPools,
+                                                            final long[] newVersions) {
+        final Date now = new Date();
+
+        final List<TransactWriteItem> transactWriteItems = new ArrayList<>(
+                transactions.size() + newLiquidityPools.size());
+        for (final Transaction transaction : transactions) {
+            transactWriteItems.add(new TransactWriteItem().withUpdate(toTransactionUpdate(transaction)));
+        }
+
+        for (int i = 0; i < newLiquidityPools.size(); i++) {
+            final LiquidityPool newLiquidityPool = newLiquidityPools.get(i);
+            newLiquidityPool.setUpdatedTime(now);
+            final Long expectedVersion = newLiquidityPool.getVersion();
+
+            // condition the pool update on the version read. pools written before versioning have no version yet
+            final Map<String, AttributeValue> liquidityPoolItem = LiquidityPoolItemCodec.toItem(newLiquidityPool);
+            newVersions[i] = expectedVersion == null ? 1 : expectedVersion + 1;
+            liquidityPoolItem.put(DBConstants.LIQUIDITY_POOL_VERSION_KEY,
+                    new AttributeValue().withN(Long.toString(newVersions[i])));
+            final Update liquidityPoolUpdate = toSkipNullUpdate(DBConstants.LIQUIDITY_POOLS_TABLE_NAME,
+                    DBConstants.LIQUIDITY_POOL_NAME_KEY, liquidityPoolItem,
+                    LiquidityPoolItemCodec.LEGACY_ATTRIBUTE_NAMES);
+            liquidityPoolUpdate.addExpressionAttributeNamesEntry("#expectedVersion",
+                    DBConstants.LIQUIDITY_POOL_VERSION_KEY);
+            if (expectedVersion == null) {
+                liquidityPoolUpdate.setConditionExpression("attribute_not_exists(#expectedVersion)");
+            } else {
+                liquidityPoolUpdate.setConditionExpression("#expectedVersion = :expectedVersion");
+                liquidityPoolUpdate.addExpressionAttributeValuesEntry(":expectedVersion",
+                        new AttributeValue().withN(Long.toString(expectedVersion)));
+            }
+            transactWriteItems.add(new TransactWriteItem().withUpdate(liquidityPoolUpdate));
+        }
+        return new TransactWriteItemsRequest().withTransactItems(transactWriteItems);
+    }
+
+    static List<String> getPoolNames(final List<LiquidityPool> liquidityPools) {
+        final List<String> poolNames = new ArrayList<>(liquidityPools.size());
+        for (final LiquidityPool liquidityPool : liquidityPools) {
+            poolNames.add(liquidityPool.getPoolName());
+        }
+        return poolNames;
+    }
+
+    /**
+     * Builds the update of a settled Transaction, on the condition that it is not FINISHED yet.
+     *
+     * @param transaction
+     * @return Update
+     */
+    static Update toTransactionUpdate(final Transaction transaction) {
+        final Update update = toSkipNullUpdate(DBConstants.TRANSACTIONS_TABLE_NAME, DBConstants.TRANSACTION_ID_KEY,
+                TransactionItemCodec.toItem(transaction),
+                TransactionItemCodec.replacedLegacyAttributeNames(transaction));
+        update.addExpressionAttributeNamesEntry("#transactionState", DBConstants.TRANSACTION_STATE_KEY);
+        update.addExpressionAttributeValuesEntry(":finished",
+                new AttributeValue().withS(TransactionStatus.FINISHED.name()));
+        return update.withConditionExpression(
+                "attribute_not_exists(#transactionState) OR #transactionState <> :finished");
+    }
+
+    /**
+     * Throws if the write was cancelled because the condition of any of its transactions failed, which means that it
+     * was already settled. The cancellation reasons are in the order of the items written, the transactions first.
+     *
+     * @param e
+     * @param transactions the transactions written, in order
+     * @throws TransactionAlreadySettledException with the ids of the transactions already settled
+     */
+    static void throwIfAlreadySettled(final TransactionCanceledException e, final List<Transaction> transactions)
+            throws TransactionAlreadySettledException {
+        if (e.getCancellationReasons() == null) {
+            return;
+        }
+        final List<String> settledTransactionIds = new ArrayList<>();
+        for (int i = 0; i < transactions.size() && i < e.getCancellationReasons().size(); i++) {
+            if (CONDITIONAL_CHECK_FAILED.equals(e.getCancellationReasons().get(i).getCode())) {
+                settledTransactionIds.add(transactions.get(i).getTransactionId());
+            }
+        }
+        if (!settledTransactionIds.isEmpty()) {
+            ALREADY_SETTLED_COUNTER.add(settledTransactionIds.size());
+            log.warn("Transaction(s) {} already settled", settledTransactionIds);
+            throw new TransactionAlreadySettledException(settledTransactionIds, e);
+        }
+    }
+
+    /**
+     * Returns what a cancelled write of the Transactions fails with, as throwIfAlreadySettled and isConflict: a
+     * TransactionAlreadySettledException, a ConcurrentUpdateException, or else the cancellation itself.
+     *
+     * @param e
+     * @param transactions the transactions written, in order
+     * @return Exception
+     */
+    static Exception toWriteFailure(final TransactionCanceledException e, final List<Transaction> transactions) {
+        try {
+            throwIfAlreadySettled(e, transactions);
+        } catch (TransactionAlreadySettledException alreadySettled) {
+            return alreadySettled;
+        }
+        return isConflict(e) ? new ConcurrentUpdateException(e) : e;
+    }
+
+    /**
+     * Builds an update which sets every attribute of the item other than the key, and removes the attributes of the
+     * layout DynamoDBMapper wrote. Attributes which are null are not present in the converted item, so they are left
+     * untouched.
+     *
+     * @param tableName
+     * @param keyName
+     * @param item
+     * @param legacyAttributeNames attributes to remove
+     * @return Update
+     */
+    static Update toSkipNullUpdate(final String tableName, final String keyName,
+                                   final Map<String, AttributeValue> item,
+                                   final List<String> legacyAttributeNames) {
+        final Update update = new Update().withTableName(tableName);
+        update.addKeyEntry(keyName, item.get(keyName));
+        final StringBuilder updateExpression = new StringBuilder("SET ");
+        int index = 0;
+        for (final Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            if (entry.getKey().equals(keyName)) {
+                continue;
+            }
+            if (index > 0) {
+                updateExpression.append(", ");
+            }
+            updateExpression.append("#a").append(index).append(" = :a").append(index);
+            update.addExpressionAttributeNamesEntry("#a" + index, entry.getKey());
+            update.addExpressionAttributeValuesEntry(":a" + index, entry.getValue());
+            index++;
+        }
+        for (int i = 0; i < legacyAttributeNames.size(); i++) {
+            updateExpression.append(i == 0 ? " REMOVE " : ", ").append("#r").append(i);
+            update.addExpressionAttributeNamesEntry("#r" + i, legacyAttributeNames.get(i));
+        }
+        return update.withUpdateExpression(updateExpression.toString());
+    }
+
+    static boolean isConflict(final TransactionCanceledException e) {
+        if (e.getCancellationReasons() == null) {
+            return false;
+        }
+        for (final CancellationReason cancellationReason : e.getCancellationReasons()) {
+            if (CONDITIONAL_CHECK_FAILED.equals(cancellationReason.getCode())
+                    || TRANSACTION_CONFLICT.equals(cancellationReason.getCode())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -1,22 +1,49 @@
 package com.client.dynamodb;
 
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClientBuilder;
+import com.client.AwsAsyncUtil;
+import com.client.AwsEndpointUtil;
+import com.logic.MarketMakerLogic;
+import com.util.EnvironmentUtil;
 import dagger.Module;
 import dagger.Provides;
 
+import javax.inject.Singleton;
+
 @Module
 public class DynamoDBModule {
 
     @Provides
-    DynamoDBMapper dynamoDBMapper() {
-        AmazonDynamoDB dynamoDBClient = AmazonDynamoDBClient.builder().build();
-        return new DynamoDBMapper(dynamoDBClient);
+    @Singleton
+    AmazonDynamoDBAsync amazonDynamoDB() {
+        // the async client also makes the blocking calls, on the calling thread
+        return AwsEndpointUtil.withEndpointFromEnv(AmazonDynamoDBAsyncClientBuilder.standard(),
+                        AwsEndpointUtil.DYNAMODB_ENDPOINT)
+                .withExecutorFactory(AwsAsyncUtil.daemonExecutorFactory("dynamodb-async-",
+                        AwsAsyncUtil.DEFAULT_ASYNC_CLIENT_THREADS))
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    DynamoDBClient dynamoDBClient(final AmazonDynamoDBAsync amazonDynamoDB) {
+        if (DBConstants.POOL_PERSISTENCE_MODE_EVENTS.equalsIgnoreCase(
+                EnvironmentUtil.getString(DBConstants.POOL_PERSISTENCE_MODE, null))) {
+            return new EventSourcedDynamoDBClient(amazonDynamoDB, new MarketMakerLogic(),
+                    EnvironmentUtil.getInt(DBConstants.POOL_SNAPSHOT_INTERVAL,
+                            DBConstants.DEFAULT_POOL_SNAPSHOT_INTERVAL));
+        }
+        return new DynamoDBClient(amazonDynamoDB);
     }
 
     @Provides
-    DynamoDBClient dynamoDBClient() {
-        return new DynamoDBClient(dynamoDBMapper());
+    @Singleton
+    LiquidityPoolCache liquidityPoolCache(final DynamoDBClient dynamoDBClient) {
+        return new LiquidityPoolCache(dynamoDBClient,
+                EnvironmentUtil.getLong(DBConstants.POOL_CACHE_MAX_STALENESS_MILLIS,
+                        DBConstants.DEFAULT_POOL_CACHE_MAX_STALENESS_MILLIS),
+                EnvironmentUtil.getLong(DBConstants.POOL_CACHE_REFRESH_AFTER_MILLIS,
+                        DBConstants.DEFAULT_POOL_CACHE_REFRESH_AFTER_MILLIS));
     }
 }
@@ -0,0 +1,381 @@
+package com.client.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.client.AwsAsyncUtil;
+import com.logic.MarketMakerLogic;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import com.metrics.Timer;
+import com.model.LiquidityPool;
+import com.model.PoolEvent;
+import com.model.PoolEventBatch;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
+import com.model.Transaction;
+import com.model.exception.ConcurrentUpdateException;
+import com.model.exception.InvalidInputException;
+import com.model.exception.TransactionAlreadySettledException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DynamoDBClient which persists pools as an append-only log of swaps instead of updating the pool item in place. The
+ * logic is as follows:
+ * 1. Settling swaps appends one PoolEventBatch per pool, holding one PoolEvent per swap, numbered after the last event
+ *    of the pool that was read. The batches are put in the same DynamoDB transaction as the Transactions, on the
+ *    condition that their key does not exist yet, so a writer which read an older state of the pool fails with a
+ *    ConcurrentUpdateException and retries as it would against a versioned pool item.
+ * 2. Every snapshotInterval events, the pool state is also written to the pool item as a snapshot, along with the
+ *    sequence number of the last event it includes. Snapshots are written after the append and never replace a newer
+ *    snapshot. A snapshot that fails to be written is only logged, as the events are already persisted.
+ * 3. Loading a pool loads its snapshot and replays the batches after it, in order. Each batch records the state the
+ *    pool was settled to, and replaying sets the pool to it, so a pool loads the same after a change to the pricing
+ *    code or the arithmetic mode. Batches appended before the state was recorded have their events applied with
+ *    MarketMakerLogic.applySwapEstimateToPool, which only rebuilds the settled state under the same code and mode, so
+ *    pools with such batches must be snapshotted at their last event before changing either. The events of every
+ *    batch can still be applied again to audit or backtest a pool.
+ * Pools are created as before, and a pool created (or settled) without events is simply a snapshot at sequence 0.
+ * <p>
+ * The async loads and appends replay the events and write the snapshots on the pool of the async client, once the
+ * snapshot is loaded or the events are appended.
+ */
+@Slf4j
+public class EventSourcedDynamoDBClient extends DynamoDBClient {
+
+    private static final Timer APPEND_POOL_EVENTS_TIMER = Metrics.timer("EventSourcedDynamoDBClient.appendPoolEvents");
+    private static final Timer REPLAY_POOL_EVENTS_TIMER = Metrics.timer("EventSourcedDynamoDBClient.replayPoolEvents");
+    private static final Counter REPLAYED_EVENTS_COUNTER = Metrics.counter("EventSourcedDynamoDBClient.replayedEvents");
+    private static final Counter SNAPSHOT_COUNTER = Metrics.counter("EventSourcedDynamoDBClient.snapshot");
+    private static final Counter POOL_CONFLICT_COUNTER = Metrics.counter("EventSourcedDynamoDBClient.poolConflict");
+
+    private final AmazonDynamoDBAsync amazonDynamoDB;
+    private final MarketMakerLogic marketMakerLogic;
+    private final int snapshotInterval;
+
+    /**
+     * @param amazonDynamoDB
+     * @param marketMakerLogic to replay events with
+     * @param snapshotInterval number of events between snapshots of a pool
+     */
+    public EventSourcedDynamoDBClient(final AmazonDynamoDBAsync amazonDynamoDB,
+                                      final MarketMakerLogic marketMakerLogic,
+                                      final int snapshotInterval) {
+        super(amazonDynamoDB);
+        this.amazonDynamoDB = amazonDynamoDB;
+        this.marketMakerLogic = marketMakerLogic;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Loads the snapshot of a pool and replays the events after it. Events are always read consistently.
+     *
+     * @param liquidityPoolName
+     * @param consistentRead    whether to read the latest snapshot
+     * @return LiquidityPool
+     * @throws InvalidInputException if poolName (hashKey) does not exist
+     */
+    @Override
+    public LiquidityPool loadLiquidityPool(final String liquidityPoolName, final boolean consistentRead)
+            throws InvalidInputException {
+        return replayPoolEvents(super.loadLiquidityPool(liquidityPoolName, consistentRead));
+    }
+
+    @Override
+    public CompletableFuture<LiquidityPool> loadLiquidityPoolAsync(final String liquidityPoolName,
+                                                                   final boolean consistentRead) {
+        return super.loadLiquidityPoolAsync(liquidityPoolName, consistentRead).thenApply(this::replayPoolEvents);
+    }
+
+    @Override
+    public Map<String, LiquidityPool> batchLoadLiquidityPools(final Collection<String> poolNames) {
+        final Map<String, LiquidityPool> poolNameToLiquidityPool = super.batchLoadLiquidityPools(poolNames);
+        for (final Map.Entry<String, LiquidityPool> entry : poolNameToLiquidityPool.entrySet()) {
+            entry.setValue(replayPoolEvents(entry.getValue()));
+        }
+        return poolNameToLiquidityPool;
+    }
+
+    @Override
+    public List<LiquidityPool> loadAllLiquidityPools() {
+        final List<LiquidityPool> liquidityPools = super.loadAllLiquidityPools();
+        for (int i = 0; i < liquidityPools.size(); i++) {
+            liquidityPools.set(i, replayPoolEvents(liquidityPools.get(i)));
+        }
+        return liquidityPools;
+    }
+
+    /**
+     * Appends the swaps of the Transactions to the event log of each pool, and updates the Transactions, in a single
+     * DynamoDB transaction. For a swap routed through several pools, each pool gets the leg of the swap applied to it.
+     * The new pool states are not written, other than as a snapshot every snapshotInterval events. On success, each
+     * pool is updated with the sequence number of its last event.
+     *
+     * @param transactions
+     * @param newLiquidityPools
+     * @throws ConcurrentUpdateException          if any of the pools had events appended since it was read
+     * @throws TransactionAlreadySettledException if any of the transactions was already settled
+     */
+    @Override
+    public void writeTransactionsAndUpdateLiquidityPools(final List<Transaction> transactions,
+                                                         final List<LiquidityPool> newLiquidityPools)
+            throws ConcurrentUpdateException, TransactionAlreadySettledException {
+        final Date now = new Date();
+        final long[] firstSequenceNumbers = new long[newLiquidityPools.size()];
+        final TransactWriteItemsRequest request = toAppendRequest(transactions, newLiquidityPools,
+                firstSequenceNumbers, now);
+        final long startNanos = System.nanoTime();
+        try {
+            amazonDynamoDB.transactWriteItems(request);
+        } catch (TransactionCanceledException e) {
+            throwIfAlreadySettled(e, transactions);
+            if (isConflict(e)) {
+                POOL_CONFLICT_COUNTER.increment();
+                log.warn("Events appended concurrently to liquidity pool(s) {}", getPoolNames(newLiquidityPools));
+                throw new ConcurrentUpdateException(e);
+            }
+            throw e;
+        } finally {
+            APPEND_POOL_EVENTS_TIMER.recordSince(startNanos);
+        }
+        onAppended(transactions, newLiquidityPools, firstSequenceNumbers, now);
+    }
+
+    /**
+     * Appends the swaps of the Transactions to the event log of each pool, and updates the Transactions, as
+     * writeTransactionsAndUpdateLiquidityPools.
+     *
+     * @param transactions
+     * @param newLiquidityPools
+     * @return future completed once appended, or completed exceptionally with a ConcurrentUpdateException if any of
+     * the pools had events appended since it was read, or a TransactionAlreadySettledException if any of the
+     * transactions was already settled
+     */
+    @Override
+    public CompletableFuture<Void> writeTransactionsAndUpdateLiquidityPoolsAsync(
+            final List<Transaction> transactions, final List<LiquidityPool> newLiquidityPools) {
+        final Date now = new Date();
+        final long[] firstSequenceNumbers = new long[newLiquidityPools.size()];
+        final TransactWriteItemsRequest request = toAppendRequest(transactions, newLiquidityPools,
+                firstSequenceNumbers, now);
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<TransactWriteItemsResult> appendFuture =
+                AwsAsyncUtil.call(amazonDynamoDB::transactWriteItemsAsync, request);
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        appendFuture.whenComplete((result, t) -> {
+            APPEND_POOL_EVENTS_TIMER.recordSince(startNanos);
+            if (t == null) {
+                onAppended(transactions, newLiquidityPools, firstSequenceNumbers, now);
+                future.complete(null);
+            } else if (t instanceof TransactionCanceledException) {
+                final Exception failure = toWriteFailure((TransactionCanceledException) t, transactions);
+                if (failure instanceof ConcurrentUpdateException) {
+                    POOL_CONFLICT_COUNTER.increment();
+                    log.warn("Events appended concurrently to liquidity pool(s) {}", getPoolNames(newLiquidityPools));
+                }
+                future.completeExceptionally(failure);
+            } else {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Builds the append of writeTransactionsAndUpdateLiquidityPools.
+     *
+     * @param transactions
+     * @param newLiquidityPools
+     * @param firstSequenceNumbers set to the sequence number of the first event appended to each pool
+     * @param now                  time the events are appended at
+     * @return TransactWriteItemsRequest
+     */
+    private static TransactWriteItemsRequest toAppendRequest(final List<Transaction> transactions,
+                                                             final List<LiquidityPool> newLiquidityPools,
+                                                             final long[] firstSequenceNumbers,
+                                                             final Date now) {
+        final List<TransactWriteItem> transactWriteItems = new ArrayList<>(
+                transactions.size() + newLiquidityPools.size());
+        for (final Transaction transaction : transactions) {
+            transactWriteItems.add(new TransactWriteItem().withUpdate(toTransactionUpdate(transaction)));
+        }
+
+        for (int i = 0; i < newLiquidityPools.size(); i++) {
+            final LiquidityPool newLiquidityPool = newLiquidityPools.get(i);
+            final Long lastSequenceNumber = newLiquidityPool.getEventSequenceNumber();
+            firstSequenceNumbers[i] = lastSequenceNumber == null ? 1 : lastSequenceNumber + 1;
+            final List<PoolEvent> poolEvents = new ArrayList<>(transactions.size());
+            for (final Transaction transaction : transactions) {
+                final SwapEstimate swapApplied = transaction.getSwapApplied();
+                poolEvents.add(toPoolEvent(firstSequenceNumbers[i] + poolEvents.size(), transaction.getTransactionId(),
+                        swapApplied.getLegs() == null ? swapApplied : swapApplied.getLegs().get(i)));
+            }
+            final PoolEventBatch poolEventBatch = new PoolEventBatch(newLiquidityPool.getPoolName(),
+                    firstSequenceNumbers[i], poolEvents, now, newLiquidityPool.getAssetOne(),
+                    newLiquidityPool.getAssetTwo());
+            transactWriteItems.add(new TransactWriteItem().withPut(new Put()
+                    .withTableName(DBConstants.POOL_EVENTS_TABLE_NAME)
+                    .withItem(PoolEventBatchItemCodec.toItem(poolEventBatch))
+                    .withConditionExpression("attribute_not_exists(#sequenceNumber)")
+                    .withExpressionAttributeNames(Collections.singletonMap("#sequenceNumber",
+                            DBConstants.POOL_EVENTS_SEQUENCE_NUMBER_KEY))));
+        }
+        return new TransactWriteItemsRequest().withTransactItems(transactWriteItems);
+    }
+
+    /**
+     * Updates each pool with the sequence number of its last event appended, and writes the snapshots due.
+     */
+    private void onAppended(final List<Transaction> transactions,
+                            final List<LiquidityPool> newLiquidityPools,
+                            final long[] firstSequenceNumbers,
+                            final Date now) {
+        for (int i = 0; i < newLiquidityPools.size(); i++) {
+            final LiquidityPool newLiquidityPool = newLiquidityPools.get(i);
+            final long lastSequenceNumber = firstSequenceNumbers[i] + transactions.size() - 1;
+            newLiquidityPool.setEventSequenceNumber(lastSequenceNumber);
+            newLiquidityPool.setUpdatedTime(now);
+            // snapshot whenever the events appended cross a multiple of the interval
+            if (lastSequenceNumber / snapshotInterval > (firstSequenceNumbers[i] - 1) / snapshotInterval) {
+                writeSnapshot(newLiquidityPool);
+            }
+        }
+    }
+
+    /**
+     * Applies the events of a pool after its snapshot, in the order they were appended. A batch which records the state
+     * of the pool after it sets the pool to that state.
+     *
+     * @param snapshot
+     * @return LiquidityPool as of its last event
+     */
+    LiquidityPool replayPoolEvents(final LiquidityPool snapshot) {
+        final long startNanos = System.nanoTime();
+        final long snapshotSequenceNumber = snapshot.getEventSequenceNumber() == null
+                ? 0
+                : snapshot.getEventSequenceNumber();
+        final Map<String, String> expressionAttributeNames = new HashMap<>(PoolEventBatchItemCodec.PROJECTION_NAMES);
+        expressionAttributeNames.put("#poolName", DBConstants.POOL_EVENTS_POOL_NAME_KEY);
+        expressionAttributeNames.put("#sequenceNumber", DBConstants.POOL_EVENTS_SEQUENCE_NUMBER_KEY);
+        final Map<String, AttributeValue> expressionAttributeValues = new HashMap<>(4);
+        expressionAttributeValues.put(":poolName", new AttributeValue().withS(snapshot.getPoolName()));
+        expressionAttributeValues.put(":sequenceNumber",
+                new AttributeValue().withN(Long.toString(snapshotSequenceNumber)));
+        final QueryRequest queryRequest = new QueryRequest()
+                .withTableName(DBConstants.POOL_EVENTS_TABLE_NAME)
+                .withKeyConditionExpression("#poolName = :poolName AND #sequenceNumber > :sequenceNumber")
+                .withProjectionExpression(PoolEventBatchItemCodec.PROJECTION_EXPRESSION)
+                .withExpressionAttributeNames(expressionAttributeNames)
+                .withExpressionAttributeValues(expressionAttributeValues)
+                .withConsistentRead(true);
+        LiquidityPool liquidityPool = snapshot;
+        int replayedEvents = 0;
+        try {
+            // in ascending order of sequence number, a page at a time
+            Map<String, AttributeValue> exclusiveStartKey = null;
+            do {
+                final QueryResult result = amazonDynamoDB.query(queryRequest.withExclusiveStartKey(exclusiveStartKey));
+                for (final Map<String, AttributeValue> item : result.getItems()) {
+                    final PoolEventBatch poolEventBatch = PoolEventBatchItemCodec.fromItem(item);
+                    if (poolEventBatch.getAssetOne() != null && poolEventBatch.getAssetTwo() != null) {
+                        // the state the batch was settled to, whatever the pricing code or arithmetic mode now
+                        final List<PoolEvent> poolEvents = poolEventBatch.getEvents();
+                        final LiquidityPool newLiquidityPool = new LiquidityPool();
+                        newLiquidityPool.setPoolName(liquidityPool.getPoolName());
+                        newLiquidityPool.setAssetOne(poolEventBatch.getAssetOne());
+                        newLiquidityPool.setAssetTwo(poolEventBatch.getAssetTwo());
+                        newLiquidityPool.setVersion(liquidityPool.getVersion());
+                        newLiquidityPool.setEventSequenceNumber(
+                                poolEvents.get(poolEvents.size() - 1).getSequenceNumber());
+                        newLiquidityPool.setCreatedTime(snapshot.getCreatedTime());
+                        newLiquidityPool.setUpdatedTime(poolEventBatch.getAppendedTime());
+                        liquidityPool = newLiquidityPool;
+                        replayedEvents += poolEvents.size();
+                        continue;
+                    }
+                    for (final PoolEvent poolEvent : poolEventBatch.getEvents()) {
+                        final LiquidityPool newLiquidityPool = marketMakerLogic.applySwapEstimateToPool(
+                                toSwapEstimate(poolEvent), liquidityPool);
+                        newLiquidityPool.setEventSequenceNumber(poolEvent.getSequenceNumber());
+                        newLiquidityPool.setCreatedTime(snapshot.getCreatedTime());
+                        newLiquidityPool.setUpdatedTime(poolEventBatch.getAppendedTime());
+                        liquidityPool = newLiquidityPool;
+                        replayedEvents++;
+                    }
+                }
+                exclusiveStartKey = result.getLastEvaluatedKey();
+            } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+        } finally {
+            REPLAY_POOL_EVENTS_TIMER.recordSince(startNanos);
+        }
+        REPLAYED_EVENTS_COUNTER.add(replayedEvents);
+        log.debug("Replayed {} event(s) of pool {} after sequence number {}.", replayedEvents,
+                snapshot.getPoolName(), snapshotSequenceNumber);
+        return liquidityPool;
+    }
+
+    /**
+     * Writes the state of a pool to its item, unless the item already holds a snapshot at or after its last event.
+     *
+     * @param liquidityPool
+     */
+    private void writeSnapshot(final LiquidityPool liquidityPool) {
+        final Update update = toSkipNullUpdate(DBConstants.LIQUIDITY_POOLS_TABLE_NAME,
+                DBConstants.LIQUIDITY_POOL_NAME_KEY, LiquidityPoolItemCodec.toItem(liquidityPool),
+                LiquidityPoolItemCodec.LEGACY_ATTRIBUTE_NAMES);
+        update.addExpressionAttributeNamesEntry("#snapshotSequenceNumber",
+                DBConstants.LIQUIDITY_POOL_EVENT_SEQUENCE_NUMBER_KEY);
+        update.addExpressionAttributeValuesEntry(":snapshotSequenceNumber",
+                new AttributeValue().withN(Long.toString(liquidityPool.getEventSequenceNumber())));
+        try {
+            amazonDynamoDB.updateItem(new UpdateItemRequest()
+                    .withTableName(update.getTableName())
+                    .withKey(update.getKey())
+                    .withUpdateExpression(update.getUpdateExpression())
+                    .withConditionExpression("attribute_not_exists(#snapshotSequenceNumber)"
+                            + " OR #snapshotSequenceNumber < :snapshotSequenceNumber")
+                    .withExpressionAttributeNames(update.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(update.getExpressionAttributeValues()));
+            SNAPSHOT_COUNTER.increment();
+            log.info("Wrote snapshot of pool {} at sequence number {}.", liquidityPool.getPoolName(),
+                    liquidityPool.getEventSequenceNumber());
+        } catch (ConditionalCheckFailedException e) {
+            log.info("Newer snapshot of pool {} already written.", liquidityPool.getPoolName());
+        } catch (Exception e) {
+            log.warn("Failed to write snapshot of pool {}.", liquidityPool.getPoolName(), e);
+        }
+    }
+
+    private static PoolEvent toPoolEvent(final long sequenceNumber,
+                                         final String transactionId,
+                                         final SwapEstimate swapEstimate) {
+        return new PoolEvent(sequenceNumber, transactionId,
+                swapEstimate.getInName(), swapEstimate.getInPriceAmount().getAmount(),
+                swapEstimate.getInPriceAmount().getPrice(),
+                swapEstimate.getOutName(), swapEstimate.getOutPriceAmount().getAmount(),
+                swapEstimate.getOutPriceAmount().getPrice());
+    }
+
+    private static SwapEstimate toSwapEstimate(final PoolEvent poolEvent) {
+        return new SwapEstimate(poolEvent.getInName(), new PriceAmount(poolEvent.getInPrice(), poolEvent.getInAmount()),
+                poolEvent.getOutName(), new PriceAmount(poolEvent.getOutPrice(), poolEvent.getOutAmount()));
+    }
+}
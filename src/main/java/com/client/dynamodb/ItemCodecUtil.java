@@ -0,0 +1,109 @@
+package com.client.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Helpers for the hand written DynamoDB item codecs in this package. Attributes which are null are left out of the
+ * item, and attributes missing from the item are read as null, as DynamoDBMapper did.
+ * <p>
+ * Dates are written as epoch millis. Items written by DynamoDBMapper hold them as ISO-8601 strings in UTC
+ * (ex - 2021-12-01T01:48:00.000Z), which are still read.
+ */
+final class ItemCodecUtil {
+
+    private ItemCodecUtil() {
+    }
+
+    static void putString(final Map<String, AttributeValue> item, final String name, final String value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withS(value));
+        }
+    }
+
+    static void putNumber(final Map<String, AttributeValue> item, final String name, final Double value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withN(Double.toString(value)));
+        }
+    }
+
+    static void putNumber(final Map<String, AttributeValue> item, final String name, final Long value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withN(Long.toString(value)));
+        }
+    }
+
+    static void putDate(final Map<String, AttributeValue> item, final String name, final Date value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withN(Long.toString(value.getTime())));
+        }
+    }
+
+    static String getString(final Map<String, AttributeValue> item, final String name) {
+        final AttributeValue attributeValue = item.get(name);
+        return attributeValue == null ? null : attributeValue.getS();
+    }
+
+    static Double getDouble(final Map<String, AttributeValue> item, final String name) {
+        final AttributeValue attributeValue = item.get(name);
+        return attributeValue == null || attributeValue.getN() == null
+                ? null
+                : Double.valueOf(attributeValue.getN());
+    }
+
+    static Long getLong(final Map<String, AttributeValue> item, final String name) {
+        final AttributeValue attributeValue = item.get(name);
+        return attributeValue == null || attributeValue.getN() == null
+                ? null
+                : Long.valueOf(attributeValue.getN());
+    }
+
+    static Date getDate(final Map<String, AttributeValue> item, final String name) {
+        final AttributeValue attributeValue = item.get(name);
+        if (attributeValue == null) {
+            return null;
+        }
+        if (attributeValue.getN() != null) {
+            return new Date(Long.parseLong(attributeValue.getN()));
+        }
+        // written by DynamoDBMapper
+        return attributeValue.getS() == null ? null : Date.from(Instant.parse(attributeValue.getS()));
+    }
+
+    static Map<String, AttributeValue> getMap(final Map<String, AttributeValue> item, final String name) {
+        final AttributeValue attributeValue = item.get(name);
+        return attributeValue == null ? null : attributeValue.getM();
+    }
+
+    /**
+     * @param attributeNames
+     * @return projection expression of the attributes, with a placeholder per name (ex - #p0, #p1), as many attribute
+     * names are reserved words
+     */
+    static String projectionExpression(final String... attributeNames) {
+        final StringBuilder projectionExpression = new StringBuilder();
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (i > 0) {
+                projectionExpression.append(", ");
+            }
+            projectionExpression.append("#p").append(i);
+        }
+        return projectionExpression.toString();
+    }
+
+    /**
+     * @param attributeNames
+     * @return expression attribute names of the placeholders of projectionExpression
+     */
+    static Map<String, String> projectionNames(final String... attributeNames) {
+        final Map<String, String> projectionNames = new HashMap<>();
+        for (int i = 0; i < attributeNames.length; i++) {
+            projectionNames.put("#p" + i, attributeNames[i]);
+        }
+        return projectionNames;
+    }
+}
@@ -0,0 +1,249 @@
+package com.client.dynamodb;
+
+import com.logic.MarketMakerLogic;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import com.model.LiquidityPool;
+import com.model.exception.InvalidInputException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of LiquidityPool snapshots, for reads which can tolerate bounded staleness (EstimateSwap,
+ * GetLiquidityPool). A snapshot is served for up to maxStalenessMillis after it was loaded. Once it is older than
+ * refreshAfterMillis, the next read triggers a reload in the background while the current snapshot is still served,
+ * so hot pools are reloaded before they expire and reads rarely wait on DynamoDB.
+ * <p>
+ * There are at most as many pools as pairs of assets, so the cache is unbounded. Pools which don't exist are not
+ * cached. The list of all pools (for routing) is cached as one more snapshot with the same bounds, and is not affected
+ * by put / invalidate of single pools. Swap settlement must not read from this cache, and callers must not modify the
+ * returned LiquidityPools.
+ * <p>
+ * Single pools are cached as MarketMakerLogic.preparePool returns them, so in the FIXED_POINT ArithmeticMode they are
+ * scaled once per load rather than on every estimate.
+ * <p>
+ * Every read counts a hit or a miss (a load on the request thread) per pool, or one for the list of all pools.
+ */
+@Slf4j
+public class LiquidityPoolCache {
+
+    private static final Counter HIT_COUNTER = Metrics.counter("LiquidityPoolCache.hit");
+    private static final Counter MISS_COUNTER = Metrics.counter("LiquidityPoolCache.miss");
+
+    private final DynamoDBClient dynamoDBClient;
+    private final MarketMakerLogic marketMakerLogic;
+    private final long maxStalenessMillis;
+    private final long refreshAfterMillis;
+    private final LongSupplier currentTimeMillis;
+    private final Map<String, Snapshot<LiquidityPool>> poolNameToSnapshot = new ConcurrentHashMap<>();
+    private volatile Snapshot<List<LiquidityPool>> allLiquidityPoolsSnapshot;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "liquidity-pool-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LiquidityPoolCache(final DynamoDBClient dynamoDBClient,
+                              final long maxStalenessMillis,
+                              final long refreshAfterMillis) {
+        this(dynamoDBClient, new MarketMakerLogic(), maxStalenessMillis, refreshAfterMillis);
+    }
+
+    public LiquidityPoolCache(final DynamoDBClient dynamoDBClient,
+                              final MarketMakerLogic marketMakerLogic,
+                              final long maxStalenessMillis,
+                              final long refreshAfterMillis) {
+        this(dynamoDBClient, marketMakerLogic, maxStalenessMillis, refreshAfterMillis, System::currentTimeMillis);
+    }
+
+    LiquidityPoolCache(final DynamoDBClient dynamoDBClient,
+                       final MarketMakerLogic marketMakerLogic,
+                       final long maxStalenessMillis,
+                       final long refreshAfterMillis,
+                       final LongSupplier currentTimeMillis) {
+        this.dynamoDBClient = dynamoDBClient;
+        this.marketMakerLogic = marketMakerLogic;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.refreshAfterMillis = refreshAfterMillis;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * Returns the cached snapshot of the pool if it is within the staleness bound, otherwise loads it.
+     *
+     * @param poolName
+     * @return LiquidityPool
+     * @throws InvalidInputException if poolName does not exist
+     */
+    public LiquidityPool getLiquidityPool(final String poolName) throws InvalidInputException {
+        final long now = currentTimeMillis.getAsLong();
+        final Snapshot<LiquidityPool> snapshot = poolNameToSnapshot.get(poolName);
+        if (isServable(snapshot, now)) {
+            HIT_COUNTER.increment();
+            if (shouldRefresh(snapshot, now)) {
+                refreshInBackground(poolName, snapshot);
+            }
+            return snapshot.value;
+        }
+        MISS_COUNTER.increment();
+        return load(poolName, now);
+    }
+
+    /**
+     * Returns the snapshots of several pools, loading every pool which is missing or past the staleness bound with one
+     * batch load. Pools which don't exist are absent from the result.
+     *
+     * @param poolNames
+     * @return Map of poolName to LiquidityPool
+     */
+    public Map<String, LiquidityPool> getLiquidityPools(final Collection<String> poolNames) {
+        final long now = currentTimeMillis.getAsLong();
+        final Map<String, LiquidityPool> poolNameToLiquidityPool = new HashMap<>();
+        final List<String> poolNamesToLoad = new ArrayList<>();
+        for (final String poolName : poolNames) {
+            final Snapshot<LiquidityPool> snapshot = poolNameToSnapshot.get(poolName);
+            if (isServable(snapshot, now)) {
+                if (shouldRefresh(snapshot, now)) {
+                    refreshInBackground(poolName, snapshot);
+                }
+                poolNameToLiquidityPool.put(poolName, snapshot.value);
+            } else {
+                poolNamesToLoad.add(poolName);
+            }
+        }
+        HIT_COUNTER.add(poolNameToLiquidityPool.size());
+        MISS_COUNTER.add(poolNamesToLoad.size());
+        if (!poolNamesToLoad.isEmpty()) {
+            for (final LiquidityPool loadedPool : dynamoDBClient.batchLoadLiquidityPools(poolNamesToLoad).values()) {
+                final LiquidityPool liquidityPool = marketMakerLogic.preparePool(loadedPool);
+                poolNameToSnapshot.put(liquidityPool.getPoolName(), new Snapshot<>(liquidityPool, now));
+                poolNameToLiquidityPool.put(liquidityPool.getPoolName(), liquidityPool);
+            }
+        }
+        return poolNameToLiquidityPool;
+    }
+
+    /**
+     * Returns the cached snapshot of all pools if it is within the staleness bound, otherwise loads it. The same List
+     * instance is returned until the snapshot is reloaded, so callers can derive and reuse structures from it.
+     *
+     * @return List<LiquidityPool>
+     */
+    public List<LiquidityPool> getAllLiquidityPools() {
+        final long now = currentTimeMillis.getAsLong();
+        final Snapshot<List<LiquidityPool>> snapshot = allLiquidityPoolsSnapshot;
+        if (isServable(snapshot, now)) {
+            HIT_COUNTER.increment();
+            if (shouldRefresh(snapshot, now)) {
+                refreshAllInBackground(snapshot);
+            }
+            return snapshot.value;
+        }
+        MISS_COUNTER.increment();
+        final List<LiquidityPool> liquidityPools = Collections.unmodifiableList(dynamoDBClient.loadAllLiquidityPools());
+        allLiquidityPoolsSnapshot = new Snapshot<>(liquidityPools, now);
+        return liquidityPools;
+    }
+
+    /**
+     * Replaces the snapshot of a pool with a state which was just written.
+     *
+     * @param liquidityPool
+     */
+    public void put(final LiquidityPool liquidityPool) {
+        poolNameToSnapshot.put(liquidityPool.getPoolName(),
+                new Snapshot<>(marketMakerLogic.preparePool(liquidityPool), currentTimeMillis.getAsLong()));
+    }
+
+    /**
+     * Drops the snapshot of a pool, so the next read loads it.
+     *
+     * @param poolName
+     */
+    public void invalidate(final String poolName) {
+        poolNameToSnapshot.remove(poolName);
+    }
+
+    private LiquidityPool load(final String poolName, final long now) throws InvalidInputException {
+        final LiquidityPool liquidityPool = marketMakerLogic.preparePool(dynamoDBClient.loadLiquidityPool(poolName));
+        poolNameToSnapshot.put(poolName, new Snapshot<>(liquidityPool, now));
+        return liquidityPool;
+    }
+
+    private boolean isServable(final Snapshot<?> snapshot, final long now) {
+        return snapshot != null && now - snapshot.loadedAtMillis < maxStalenessMillis;
+    }
+
+    /**
+     * Returns whether the snapshot is old enough to refresh, claiming the refresh if so.
+     */
+    private boolean shouldRefresh(final Snapshot<?> snapshot, final long now) {
+        return now - snapshot.loadedAtMillis >= refreshAfterMillis && snapshot.refreshing.compareAndSet(false, true);
+    }
+
+    private void refreshInBackground(final String poolName, final Snapshot<LiquidityPool> snapshot) {
+        submitRefresh(snapshot, () -> {
+            final long now = currentTimeMillis.getAsLong();
+            try {
+                final LiquidityPool liquidityPool =
+                        marketMakerLogic.preparePool(dynamoDBClient.loadLiquidityPool(poolName));
+                // don't replace a newer snapshot put / loaded while this one was refreshing
+                poolNameToSnapshot.replace(poolName, snapshot, new Snapshot<>(liquidityPool, now));
+            } catch (InvalidInputException e) {
+                poolNameToSnapshot.remove(poolName, snapshot);
+            }
+        });
+    }
+
+    private void refreshAllInBackground(final Snapshot<List<LiquidityPool>> snapshot) {
+        submitRefresh(snapshot, () -> {
+            final long now = currentTimeMillis.getAsLong();
+            final List<LiquidityPool> liquidityPools = dynamoDBClient.loadAllLiquidityPools();
+            if (allLiquidityPoolsSnapshot == snapshot) {
+                allLiquidityPoolsSnapshot = new Snapshot<>(Collections.unmodifiableList(liquidityPools), now);
+            }
+        });
+    }
+
+    private void submitRefresh(final Snapshot<?> snapshot, final Runnable refresh) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (Exception e) {
+                    log.warn("Failed to refresh liquidity pool snapshot.", e);
+                } finally {
+                    snapshot.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            snapshot.refreshing.set(false);
+        }
+    }
+
+    /**
+     * A loaded value and when it was loaded.
+     */
+    private static final class Snapshot<T> {
+        private final T value;
+        private final long loadedAtMillis;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Snapshot(final T value, final long loadedAtMillis) {
+            this.value = value;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.client.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec for LiquidityPool items, in place of DynamoDBMapper reflecting over the model. The price and amount of each
+ * asset are stored as flat number attributes (ex - assetOnePrice) instead of a nested map per asset.
+ * <p>
+ * Items written by DynamoDBMapper hold each asset as a map of price and amount (ex - assetOne), which is still read.
+ * Updates remove the LEGACY_ATTRIBUTE_NAMES, so such items move to the flat layout on their next write.
+ */
+final class LiquidityPoolItemCodec {
+
+    private static final String ASSET_ONE_PRICE = "assetOnePrice";
+    private static final String ASSET_ONE_AMOUNT = "assetOneAmount";
+    private static final String ASSET_TWO_PRICE = "assetTwoPrice";
+    private static final String ASSET_TWO_AMOUNT = "assetTwoAmount";
+    private static final String CREATED_TIME = "createdTime";
+    private static final String UPDATED_TIME = "updatedTime";
+    // written by DynamoDBMapper
+    private static final String ASSET_ONE = "assetOne";
+    private static final String ASSET_TWO = "assetTwo";
+    private static final String PRICE = "price";
+    private static final String AMOUNT = "amount";
+
+    private static final int ATTRIBUTE_COUNT = 9;
+
+    static final List<String> LEGACY_ATTRIBUTE_NAMES =
+            Collections.unmodifiableList(Arrays.asList(ASSET_ONE, ASSET_TWO));
+
+    private static final String[] PROJECTED_ATTRIBUTE_NAMES = {
+            DBConstants.LIQUIDITY_POOL_NAME_KEY, ASSET_ONE_PRICE, ASSET_ONE_AMOUNT, ASSET_TWO_PRICE, ASSET_TWO_AMOUNT,
+            CREATED_TIME, UPDATED_TIME, DBConstants.LIQUIDITY_POOL_VERSION_KEY,
+            DBConstants.LIQUIDITY_POOL_EVENT_SEQUENCE_NUMBER_KEY, ASSET_ONE, ASSET_TWO
+    };
+    static final String PROJECTION_EXPRESSION = ItemCodecUtil.projectionExpression(PROJECTED_ATTRIBUTE_NAMES);
+    static final Map<String, String> PROJECTION_NAMES =
+            Collections.unmodifiableMap(ItemCodecUtil.projectionNames(PROJECTED_ATTRIBUTE_NAMES));
+
+    private LiquidityPoolItemCodec() {
+    }
+
+    static Map<String, AttributeValue> toKey(final String poolName) {
+        return Collections.singletonMap(DBConstants.LIQUIDITY_POOL_NAME_KEY, new AttributeValue().withS(poolName));
+    }
+
+    static Map<String, AttributeValue> toItem(final LiquidityPool liquidityPool) {
+        final Map<String, AttributeValue> item = new HashMap<>(ATTRIBUTE_COUNT * 2);
+        ItemCodecUtil.putString(item, DBConstants.LIQUIDITY_POOL_NAME_KEY, liquidityPool.getPoolName());
+        final PriceAmount assetOne = liquidityPool.getAssetOne();
+        if (assetOne != null) {
+            ItemCodecUtil.putNumber(item, ASSET_ONE_PRICE, assetOne.getPrice());
+            ItemCodecUtil.putNumber(item, ASSET_ONE_AMOUNT, assetOne.getAmount());
+        }
+        final PriceAmount assetTwo = liquidityPool.getAssetTwo();
+        if (assetTwo != null) {
+            ItemCodecUtil.putNumber(item, ASSET_TWO_PRICE, assetTwo.getPrice());
+            ItemCodecUtil.putNumber(item, ASSET_TWO_AMOUNT, assetTwo.getAmount());
+        }
+        ItemCodecUtil.putDate(item, CREATED_TIME, liquidityPool.getCreatedTime());
+        ItemCodecUtil.putDate(item, UPDATED_TIME, liquidityPool.getUpdatedTime());
+        ItemCodecUtil.putNumber(item, DBConstants.LIQUIDITY_POOL_VERSION_KEY, liquidityPool.getVersion());
+        ItemCodecUtil.putNumber(item, DBConstants.LIQUIDITY_POOL_EVENT_SEQUENCE_NUMBER_KEY,
+                liquidityPool.getEventSequenceNumber());
+        return item;
+    }
+
+    static LiquidityPool fromItem(final Map<String, AttributeValue> item) {
+        final LiquidityPool liquidityPool = new LiquidityPool();
+        liquidityPool.setPoolName(ItemCodecUtil.getString(item, DBConstants.LIQUIDITY_POOL_NAME_KEY));
+        liquidityPool.setAssetOne(readPriceAmount(item, ASSET_ONE_PRICE, ASSET_ONE_AMOUNT, ASSET_ONE));
+        liquidityPool.setAssetTwo(readPriceAmount(item, ASSET_TWO_PRICE, ASSET_TWO_AMOUNT, ASSET_TWO));
+        liquidityPool.setCreatedTime(ItemCodecUtil.getDate(item, CREATED_TIME));
+        liquidityPool.setUpdatedTime(ItemCodecUtil.getDate(item, UPDATED_TIME));
+        liquidityPool.setVersion(ItemCodecUtil.getLong(item, DBConstants.LIQUIDITY_POOL_VERSION_KEY));
+        liquidityPool.setEventSequenceNumber(
+                ItemCodecUtil.getLong(item, DBConstants.LIQUIDITY_POOL_EVENT_SEQUENCE_NUMBER_KEY));
+        return liquidityPool;
+    }
+
+    private static PriceAmount readPriceAmount(final Map<String, AttributeValue> item,
+                                               final String priceName,
+                                               final String amountName,
+                                               final String legacyName) {
+        final Double price = ItemCodecUtil.getDouble(item, priceName);
+        final Double amount = ItemCodecUtil.getDouble(item, amountName);
+        if (price != null && amount != null) {
+            return new PriceAmount(price, amount);
+        }
+        final Map<String, AttributeValue> legacyPriceAmount = ItemCodecUtil.getMap(item, legacyName);
+        if (legacyPriceAmount == null) {
+            return null;
+        }
+        return new PriceAmount(ItemCodecUtil.getDouble(legacyPriceAmount, PRICE),
+                ItemCodecUtil.getDouble(legacyPriceAmount, AMOUNT));
+    }
+}
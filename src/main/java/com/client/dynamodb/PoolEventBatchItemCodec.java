@@ -0,0 +1,125 @@
+package com.client.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.model.PoolEvent;
+import com.model.PoolEventBatch;
+import com.model.PriceAmount;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec for PoolEventBatch items, in place of DynamoDBMapper reflecting over the model. The events are a list of maps
+ * with one attribute per field of PoolEvent, and the pool state after the batch is stored as flat number attributes
+ * like the LiquidityPool item.
+ */
+final class PoolEventBatchItemCodec {
+
+    private static final String EVENTS = "events";
+    private static final String APPENDED_TIME = "appendedTime";
+    private static final String ASSET_ONE_PRICE = "assetOnePrice";
+    private static final String ASSET_ONE_AMOUNT = "assetOneAmount";
+    private static final String ASSET_TWO_PRICE = "assetTwoPrice";
+    private static final String ASSET_TWO_AMOUNT = "assetTwoAmount";
+    private static final String SEQUENCE_NUMBER = "sequenceNumber";
+    private static final String TRANSACTION_ID = "transactionId";
+    private static final String IN_NAME = "inName";
+    private static final String IN_AMOUNT = "inAmount";
+    private static final String IN_PRICE = "inPrice";
+    private static final String OUT_NAME = "outName";
+    private static final String OUT_AMOUNT = "outAmount";
+    private static final String OUT_PRICE = "outPrice";
+
+    private static final int ATTRIBUTE_COUNT = 8;
+    private static final int EVENT_ATTRIBUTE_COUNT = 8;
+
+    // the pool name is known from the query
+    private static final String[] PROJECTED_ATTRIBUTE_NAMES = {
+            DBConstants.POOL_EVENTS_SEQUENCE_NUMBER_KEY, EVENTS, APPENDED_TIME, ASSET_ONE_PRICE, ASSET_ONE_AMOUNT,
+            ASSET_TWO_PRICE, ASSET_TWO_AMOUNT
+    };
+    static final String PROJECTION_EXPRESSION = ItemCodecUtil.projectionExpression(PROJECTED_ATTRIBUTE_NAMES);
+    static final Map<String, String> PROJECTION_NAMES =
+            Collections.unmodifiableMap(ItemCodecUtil.projectionNames(PROJECTED_ATTRIBUTE_NAMES));
+
+    private PoolEventBatchItemCodec() {
+    }
+
+    static Map<String, AttributeValue> toItem(final PoolEventBatch poolEventBatch) {
+        final Map<String, AttributeValue> item = new HashMap<>(ATTRIBUTE_COUNT * 2);
+        ItemCodecUtil.putString(item, DBConstants.POOL_EVENTS_POOL_NAME_KEY, poolEventBatch.getPoolName());
+        ItemCodecUtil.putNumber(item, DBConstants.POOL_EVENTS_SEQUENCE_NUMBER_KEY, poolEventBatch.getSequenceNumber());
+        if (poolEventBatch.getEvents() != null) {
+            final List<AttributeValue> events = new ArrayList<>(poolEventBatch.getEvents().size());
+            for (final PoolEvent poolEvent : poolEventBatch.getEvents()) {
+                events.add(new AttributeValue().withM(toEventItem(poolEvent)));
+            }
+            item.put(EVENTS, new AttributeValue().withL(events));
+        }
+        ItemCodecUtil.putDate(item, APPENDED_TIME, poolEventBatch.getAppendedTime());
+        final PriceAmount assetOne = poolEventBatch.getAssetOne();
+        if (assetOne != null) {
+            ItemCodecUtil.putNumber(item, ASSET_ONE_PRICE, assetOne.getPrice());
+            ItemCodecUtil.putNumber(item, ASSET_ONE_AMOUNT, assetOne.getAmount());
+        }
+        final PriceAmount assetTwo = poolEventBatch.getAssetTwo();
+        if (assetTwo != null) {
+            ItemCodecUtil.putNumber(item, ASSET_TWO_PRICE, assetTwo.getPrice());
+            ItemCodecUtil.putNumber(item, ASSET_TWO_AMOUNT, assetTwo.getAmount());
+        }
+        return item;
+    }
+
+    static PoolEventBatch fromItem(final Map<String, AttributeValue> item) {
+        final PoolEventBatch poolEventBatch = new PoolEventBatch();
+        poolEventBatch.setPoolName(ItemCodecUtil.getString(item, DBConstants.POOL_EVENTS_POOL_NAME_KEY));
+        poolEventBatch.setSequenceNumber(ItemCodecUtil.getLong(item, DBConstants.POOL_EVENTS_SEQUENCE_NUMBER_KEY));
+        final AttributeValue events = item.get(EVENTS);
+        if (events != null && events.getL() != null) {
+            final List<PoolEvent> poolEvents = new ArrayList<>(events.getL().size());
+            for (final AttributeValue event : events.getL()) {
+                poolEvents.add(fromEventItem(event.getM()));
+            }
+            poolEventBatch.setEvents(poolEvents);
+        }
+        poolEventBatch.setAppendedTime(ItemCodecUtil.getDate(item, APPENDED_TIME));
+        poolEventBatch.setAssetOne(readPriceAmount(item, ASSET_ONE_PRICE, ASSET_ONE_AMOUNT));
+        poolEventBatch.setAssetTwo(readPriceAmount(item, ASSET_TWO_PRICE, ASSET_TWO_AMOUNT));
+        return poolEventBatch;
+    }
+
+    private static PriceAmount readPriceAmount(final Map<String, AttributeValue> item,
+                                               final String priceName,
+                                               final String amountName) {
+        final Double price = ItemCodecUtil.getDouble(item, priceName);
+        final Double amount = ItemCodecUtil.getDouble(item, amountName);
+        return price == null || amount == null ? null : new PriceAmount(price, amount);
+    }
+
+    private static Map<String, AttributeValue> toEventItem(final PoolEvent poolEvent) {
+        final Map<String, AttributeValue> item = new HashMap<>(EVENT_ATTRIBUTE_COUNT * 2);
+        ItemCodecUtil.putNumber(item, SEQUENCE_NUMBER, poolEvent.getSequenceNumber());
+        ItemCodecUtil.putString(item, TRANSACTION_ID, poolEvent.getTransactionId());
+        ItemCodecUtil.putString(item, IN_NAME, poolEvent.getInName());
+        ItemCodecUtil.putNumber(item, IN_AMOUNT, poolEvent.getInAmount());
+        ItemCodecUtil.putNumber(item, IN_PRICE, poolEvent.getInPrice());
+        ItemCodecUtil.putString(item, OUT_NAME, poolEvent.getOutName());
+        ItemCodecUtil.putNumber(item, OUT_AMOUNT, poolEvent.getOutAmount());
+        ItemCodecUtil.putNumber(item, OUT_PRICE, poolEvent.getOutPrice());
+        return item;
+    }
+
+    private static PoolEvent fromEventItem(final Map<String, AttributeValue> item) {
+        return new PoolEvent(ItemCodecUtil.getLong(item, SEQUENCE_NUMBER),
+                ItemCodecUtil.getString(item, TRANSACTION_ID),
+                ItemCodecUtil.getString(item, IN_NAME),
+                ItemCodecUtil.getDouble(item, IN_AMOUNT),
+                ItemCodecUtil.getDouble(item, IN_PRICE),
+                ItemCodecUtil.getString(item, OUT_NAME),
+                ItemCodecUtil.getDouble(item, OUT_AMOUNT),
+                ItemCodecUtil.getDouble(item, OUT_PRICE));
+    }
+}
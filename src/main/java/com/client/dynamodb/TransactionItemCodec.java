@@ -0,0 +1,164 @@
+package com.client.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
+import com.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec for Transaction items, in place of DynamoDBMapper reflecting over the model. The swap applied is stored as
+ * flat attributes (ex - swapInName, swapInAmount) instead of a nested map. The legs of a routed swap are a list
+ * (swapLegs) of maps with the same flat attributes (ex - inName, inAmount).
+ * <p>
+ * Items written by DynamoDBMapper hold the swap as a map of the SwapEstimate (swapApplied), which is still read.
+ * Updates which set the swap remove swapApplied, so such items move to the flat layout on their next write.
+ */
+final class TransactionItemCodec {
+
+    private static final String SWAP_LEGS = "swapLegs";
+    private static final String TIME_STARTED = "timeStarted";
+    private static final String TIME_COMPLETED = "timeCompleted";
+    // names within a leg
+    private static final String IN_NAME = "inName";
+    private static final String IN_PRICE = "inPrice";
+    private static final String IN_AMOUNT = "inAmount";
+    private static final String OUT_NAME = "outName";
+    private static final String OUT_PRICE = "outPrice";
+    private static final String OUT_AMOUNT = "outAmount";
+    // names of the swap itself
+    private static final String SWAP_IN_NAME = "swapInName";
+    private static final String SWAP_IN_PRICE = "swapInPrice";
+    private static final String SWAP_IN_AMOUNT = "swapInAmount";
+    private static final String SWAP_OUT_NAME = "swapOutName";
+    private static final String SWAP_OUT_PRICE = "swapOutPrice";
+    private static final String SWAP_OUT_AMOUNT = "swapOutAmount";
+    // written by DynamoDBMapper
+    private static final String SWAP_APPLIED = "swapApplied";
+    private static final String IN_PRICE_AMOUNT = "inPriceAmount";
+    private static final String OUT_PRICE_AMOUNT = "outPriceAmount";
+    private static final String LEGS = "legs";
+    private static final String PRICE = "price";
+    private static final String AMOUNT = "amount";
+
+    private static final int ATTRIBUTE_COUNT = 11;
+    private static final int LEG_ATTRIBUTE_COUNT = 6;
+
+    private static final List<String> LEGACY_ATTRIBUTE_NAMES = Collections.singletonList(SWAP_APPLIED);
+
+    private TransactionItemCodec() {
+    }
+
+    static Map<String, AttributeValue> toItem(final Transaction transaction) {
+        final Map<String, AttributeValue> item = new HashMap<>(ATTRIBUTE_COUNT * 2);
+        ItemCodecUtil.putString(item, DBConstants.TRANSACTION_ID_KEY, transaction.getTransactionId());
+        ItemCodecUtil.putString(item, DBConstants.TRANSACTION_STATE_KEY, transaction.getTransactionState());
+        final SwapEstimate swapApplied = transaction.getSwapApplied();
+        if (swapApplied != null) {
+            putSwap(item, SWAP_IN_NAME, SWAP_IN_PRICE, SWAP_IN_AMOUNT, SWAP_OUT_NAME, SWAP_OUT_PRICE, SWAP_OUT_AMOUNT,
+                    swapApplied);
+            if (swapApplied.getLegs() != null) {
+                final List<AttributeValue> legs = new ArrayList<>(swapApplied.getLegs().size());
+                for (final SwapEstimate leg : swapApplied.getLegs()) {
+                    final Map<String, AttributeValue> legItem = new HashMap<>(LEG_ATTRIBUTE_COUNT * 2);
+                    putSwap(legItem, IN_NAME, IN_PRICE, IN_AMOUNT, OUT_NAME, OUT_PRICE, OUT_AMOUNT, leg);
+                    legs.add(new AttributeValue().withM(legItem));
+                }
+                item.put(SWAP_LEGS, new AttributeValue().withL(legs));
+            }
+        }
+        ItemCodecUtil.putDate(item, TIME_STARTED, transaction.getTimeStarted());
+        ItemCodecUtil.putDate(item, TIME_COMPLETED, transaction.getTimeCompleted());
+        return item;
+    }
+
+    /**
+     * @param transaction
+     * @return attributes of the DynamoDBMapper layout that an update of the transaction replaces
+     */
+    static List<String> replacedLegacyAttributeNames(final Transaction transaction) {
+        return transaction.getSwapApplied() == null ? Collections.emptyList() : LEGACY_ATTRIBUTE_NAMES;
+    }
+
+    static Transaction fromItem(final Map<String, AttributeValue> item) {
+        final Transaction transaction = new Transaction();
+        transaction.setTransactionId(ItemCodecUtil.getString(item, DBConstants.TRANSACTION_ID_KEY));
+        transaction.setTransactionState(ItemCodecUtil.getString(item, DBConstants.TRANSACTION_STATE_KEY));
+        if (item.containsKey(SWAP_IN_NAME)) {
+            final SwapEstimate swapApplied = readSwap(item, SWAP_IN_NAME, SWAP_IN_PRICE, SWAP_IN_AMOUNT, SWAP_OUT_NAME,
+                    SWAP_OUT_PRICE, SWAP_OUT_AMOUNT);
+            final AttributeValue legs = item.get(SWAP_LEGS);
+            if (legs != null && legs.getL() != null) {
+                final List<SwapEstimate> swapLegs = new ArrayList<>(legs.getL().size());
+                for (final AttributeValue leg : legs.getL()) {
+                    swapLegs.add(readSwap(leg.getM(), IN_NAME, IN_PRICE, IN_AMOUNT, OUT_NAME, OUT_PRICE, OUT_AMOUNT));
+                }
+                swapApplied.setLegs(swapLegs);
+            }
+            transaction.setSwapApplied(swapApplied);
+        } else {
+            final Map<String, AttributeValue> legacySwapApplied = ItemCodecUtil.getMap(item, SWAP_APPLIED);
+            if (legacySwapApplied != null) {
+                transaction.setSwapApplied(readLegacySwap(legacySwapApplied));
+            }
+        }
+        transaction.setTimeStarted(ItemCodecUtil.getDate(item, TIME_STARTED));
+        transaction.setTimeCompleted(ItemCodecUtil.getDate(item, TIME_COMPLETED));
+        return transaction;
+    }
+
+    private static void putSwap(final Map<String, AttributeValue> item,
+                                final String inName, final String inPrice, final String inAmount,
+                                final String outName, final String outPrice, final String outAmount,
+                                final SwapEstimate swapEstimate) {
+        ItemCodecUtil.putString(item, inName, swapEstimate.getInName());
+        if (swapEstimate.getInPriceAmount() != null) {
+            ItemCodecUtil.putNumber(item, inPrice, swapEstimate.getInPriceAmount().getPrice());
+            ItemCodecUtil.putNumber(item, inAmount, swapEstimate.getInPriceAmount().getAmount());
+        }
+        ItemCodecUtil.putString(item, outName, swapEstimate.getOutName());
+        if (swapEstimate.getOutPriceAmount() != null) {
+            ItemCodecUtil.putNumber(item, outPrice, swapEstimate.getOutPriceAmount().getPrice());
+            ItemCodecUtil.putNumber(item, outAmount, swapEstimate.getOutPriceAmount().getAmount());
+        }
+    }
+
+    private static SwapEstimate readSwap(final Map<String, AttributeValue> item,
+                                         final String inName, final String inPrice, final String inAmount,
+                                         final String outName, final String outPrice, final String outAmount) {
+        return new SwapEstimate(ItemCodecUtil.getString(item, inName),
+                readPriceAmount(item, inPrice, inAmount),
+                ItemCodecUtil.getString(item, outName),
+                readPriceAmount(item, outPrice, outAmount));
+    }
+
+    private static PriceAmount readPriceAmount(final Map<String, AttributeValue> item,
+                                               final String priceName,
+                                               final String amountName) {
+        if (item == null || !item.containsKey(priceName)) {
+            return null;
+        }
+        return new PriceAmount(ItemCodecUtil.getDouble(item, priceName), ItemCodecUtil.getDouble(item, amountName));
+    }
+
+    private static SwapEstimate readLegacySwap(final Map<String, AttributeValue> legacySwap) {
+        final SwapEstimate swapEstimate = new SwapEstimate(ItemCodecUtil.getString(legacySwap, IN_NAME),
+                readPriceAmount(ItemCodecUtil.getMap(legacySwap, IN_PRICE_AMOUNT), PRICE, AMOUNT),
+                ItemCodecUtil.getString(legacySwap, OUT_NAME),
+                readPriceAmount(ItemCodecUtil.getMap(legacySwap, OUT_PRICE_AMOUNT), PRICE, AMOUNT));
+        final AttributeValue legs = legacySwap.get(LEGS);
+        if (legs != null && legs.getL() != null) {
+            final List<SwapEstimate> swapLegs = new ArrayList<>(legs.getL().size());
+            for (final AttributeValue leg : legs.getL()) {
+                swapLegs.add(readLegacySwap(leg.getM()));
+            }
+            swapEstimate.setLegs(swapLegs);
+        }
+        return swapEstimate;
+    }
+}
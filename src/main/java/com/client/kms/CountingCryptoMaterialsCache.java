@@ -0,0 +1,121 @@
+package com.client.kms;
+
+import com.amazonaws.encryptionsdk.caching.CryptoMaterialsCache;
+import com.amazonaws.encryptionsdk.model.DecryptionMaterials;
+import com.amazonaws.encryptionsdk.model.EncryptionMaterials;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CryptoMaterialsCache which counts hits and misses of the cache it wraps, to track how many KMS calls the data key
+ * cache saves. A miss on encrypt means a GenerateDataKey call, and a miss on decrypt means a Decrypt call.
+ * <p>
+ * Each lookup is counted once, when it returns: a hit if the entry can be used, and a miss if there is none or the
+ * CachingCryptoMaterialsManager will discard it. Entries older than maxAgeMillis are discarded, and encrypt entries
+ * which have encrypted more than messageUseLimit messages (counting the lookup), the same limits the manager is built
+ * with. Hits and misses of encrypt and decrypt together are exported as the KMSClient.dataKeyCacheHit and
+ * KMSClient.dataKeyCacheMiss counters.
+ */
+public class CountingCryptoMaterialsCache implements CryptoMaterialsCache {
+
+    private static final Counter HIT_COUNTER = Metrics.counter("KMSClient.dataKeyCacheHit");
+    private static final Counter MISS_COUNTER = Metrics.counter("KMSClient.dataKeyCacheMiss");
+
+    private final CryptoMaterialsCache delegate;
+    private final long maxAgeMillis;
+    private final long messageUseLimit;
+    private final LongAdder encryptHits = new LongAdder();
+    private final LongAdder encryptMisses = new LongAdder();
+    private final LongAdder decryptHits = new LongAdder();
+    private final LongAdder decryptMisses = new LongAdder();
+
+    public CountingCryptoMaterialsCache(final CryptoMaterialsCache delegate,
+                                        final long maxAgeMillis,
+                                        final long messageUseLimit) {
+        this.delegate = delegate;
+        this.maxAgeMillis = maxAgeMillis;
+        this.messageUseLimit = messageUseLimit;
+    }
+
+    @Override
+    public EncryptCacheEntry getEntryForEncrypt(final byte[] cacheId, final UsageStats usageIncrement) {
+        final EncryptCacheEntry entry = delegate.getEntryForEncrypt(cacheId, usageIncrement);
+        if (entry != null && !isExpired(entry.getEntryCreationTime())
+                && entry.getUsageStats().getMessagesEncrypted() <= messageUseLimit) {
+            encryptHits.increment();
+            HIT_COUNTER.increment();
+        } else {
+            encryptMisses.increment();
+            MISS_COUNTER.increment();
+        }
+        return entry;
+    }
+
+    @Override
+    public EncryptCacheEntry putEntryForEncrypt(final byte[] cacheId,
+                                                final EncryptionMaterials encryptionMaterials,
+                                                final CacheHint hint,
+                                                final UsageStats initialUsage) {
+        return delegate.putEntryForEncrypt(cacheId, encryptionMaterials, hint, initialUsage);
+    }
+
+    @Override
+    public DecryptCacheEntry getEntryForDecrypt(final byte[] cacheId) {
+        final DecryptCacheEntry entry = delegate.getEntryForDecrypt(cacheId);
+        if (entry != null && !isExpired(entry.getEntryCreationTime())) {
+            decryptHits.increment();
+            HIT_COUNTER.increment();
+        } else {
+            decryptMisses.increment();
+            MISS_COUNTER.increment();
+        }
+        return entry;
+    }
+
+    @Override
+    public void putEntryForDecrypt(final byte[] cacheId,
+                                   final DecryptionMaterials decryptionMaterials,
+                                   final CacheHint hint) {
+        delegate.putEntryForDecrypt(cacheId, decryptionMaterials, hint);
+    }
+
+    private boolean isExpired(final long entryCreationTime) {
+        return System.currentTimeMillis() - entryCreationTime > maxAgeMillis;
+    }
+
+    public long getEncryptHits() {
+        return encryptHits.sum();
+    }
+
+    public long getEncryptMisses() {
+        return encryptMisses.sum();
+    }
+
+    public long getDecryptHits() {
+        return decryptHits.sum();
+    }
+
+    public long getDecryptMisses() {
+        return decryptMisses.sum();
+    }
+
+    /**
+     * Returns the fraction of encrypt and decrypt lookups served from the cache, or 0 if there were none.
+     */
+    public double getHitRate() {
+        final long hits = getEncryptHits() + getDecryptHits();
+        final long lookups = hits + getEncryptMisses() + getDecryptMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CountingCryptoMaterialsCache(encryptHits=" + getEncryptHits()
+                + ", encryptMisses=" + getEncryptMisses()
+                + ", decryptHits=" + getDecryptHits()
+                + ", decryptMisses=" + getDecryptMisses()
+                + ", hitRate=" + getHitRate() + ")";
+    }
+}
@@ -1,11 +1,13 @@
 package com.client.kms;
 
 import com.amazonaws.encryptionsdk.AwsCrypto;
+import com.amazonaws.encryptionsdk.CryptoMaterialsManager;
 import com.amazonaws.encryptionsdk.CryptoResult;
-import com.amazonaws.encryptionsdk.kms.KmsMasterKey;
-import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
+import com.client.AwsCallExecutor;
 import com.client.kms.token.SwapClaimToken;
 import com.config.ErrorMessages;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.exception.InvalidInputException;
 import com.util.ObjectMapperUtil;
 import lombok.AllArgsConstructor;
@@ -14,34 +16,72 @@ import lombok.extern.slf4j.Slf4j;
 import javax.inject.Singleton;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Client to decrypt / encrypt. Uses a single symmetric key provided.
+ * Client to decrypt / encrypt. Uses a single symmetric key provided. Data keys come from the CryptoMaterialsManager,
+ * which caches them locally so most calls do not go to KMS.
+ * <p>
+ * The AWS Encryption SDK has no async API, so the async methods run the blocking ones on the AwsCallExecutor.
  */
 @Slf4j
 @AllArgsConstructor
 @Singleton
 public class KMSClient {
 
+    private static final Timer ENCRYPT_TIMER = Metrics.timer("KMSClient.encrypt");
+    private static final Timer DECRYPT_TIMER = Metrics.timer("KMSClient.decrypt");
+
     private AwsCrypto awsCrypto;
-    private KmsMasterKeyProvider keyProvider;
+    private CryptoMaterialsManager cryptoMaterialsManager;
+    private AwsCallExecutor awsCallExecutor;
 
     public String encrypt(final String input) {
-        final CryptoResult<byte[], KmsMasterKey> encryptResult = awsCrypto.encryptData(this.keyProvider,
-                input.getBytes(StandardCharsets.UTF_8));
-        final byte[] ciphertext = encryptResult.getResult();
-        return Base64.getEncoder().encodeToString(ciphertext);
+        final long startNanos = System.nanoTime();
+        try {
+            final CryptoResult<byte[], ?> encryptResult = awsCrypto.encryptData(this.cryptoMaterialsManager,
+                    input.getBytes(StandardCharsets.UTF_8));
+            final byte[] ciphertext = encryptResult.getResult();
+            return Base64.getEncoder().encodeToString(ciphertext);
+        } finally {
+            ENCRYPT_TIMER.recordSince(startNanos);
+        }
     }
 
     public SwapClaimToken decrypt(final String inputText) throws InvalidInputException {
+        final long startNanos = System.nanoTime();
         try {
             final byte[] cipherText = Base64.getDecoder().decode(inputText);
-            final CryptoResult<byte[], KmsMasterKey> decryptResult = awsCrypto.decryptData(this.keyProvider, cipherText);
+            final CryptoResult<byte[], ?> decryptResult = awsCrypto.decryptData(this.cryptoMaterialsManager,
+                    cipherText);
             String decryptedSwapClaimToken = new String(decryptResult.getResult(), StandardCharsets.UTF_8);
             return ObjectMapperUtil.toClass(decryptedSwapClaimToken, SwapClaimToken.class);
         } catch (Exception e) {
             log.error("Error decrypting payload.", e);
             throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+        } finally {
+            DECRYPT_TIMER.recordSince(startNanos);
         }
     }
+
+    /**
+     * Encrypts the input, as encrypt, on the AwsCallExecutor.
+     *
+     * @param input
+     * @return future of the Base64 encoded ciphertext
+     */
+    public CompletableFuture<String> encryptAsync(final String input) {
+        return awsCallExecutor.supplyAsync(() -> encrypt(input));
+    }
+
+    /**
+     * Decrypts the input, as decrypt, on the AwsCallExecutor.
+     *
+     * @param inputText
+     * @return future of the SwapClaimToken, completed exceptionally with an InvalidInputException if it can't be
+     * decrypted
+     */
+    public CompletableFuture<SwapClaimToken> decryptAsync(final String inputText) {
+        return awsCallExecutor.supplyAsync(() -> decrypt(inputText));
+    }
 }
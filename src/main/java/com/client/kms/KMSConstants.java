@@ -2,4 +2,26 @@ package com.client.kms;
 
 public final class KMSConstants {
     public static final String KEY_ARN = "arn:aws:kms:us-east-1:861060714125:key/bbe2e63b-dfb4-4b55-b77b-12e7666f7b4a";
+
+    /**
+     * Data keys are cached locally so that encrypting / decrypting a SwapClaimToken does not call KMS every time. A
+     * cached data key is used for at most the max age or the max messages, whichever is reached first. Each can be
+     * overridden by the environment variable of the same name.
+     */
+    public static final String DATA_KEY_CACHE_CAPACITY = "DATA_KEY_CACHE_CAPACITY";
+    public static final String DATA_KEY_CACHE_MAX_AGE_SECONDS = "DATA_KEY_CACHE_MAX_AGE_SECONDS";
+    public static final String DATA_KEY_CACHE_MAX_MESSAGES = "DATA_KEY_CACHE_MAX_MESSAGES";
+
+    public static final int DEFAULT_DATA_KEY_CACHE_CAPACITY = 100;
+    public static final long DEFAULT_DATA_KEY_CACHE_MAX_AGE_SECONDS = 300;
+    public static final long DEFAULT_DATA_KEY_CACHE_MAX_MESSAGES = 1000;
+
+    /**
+     * Selects the ClaimTokenCodec. "encrypted" (default) encrypts tokens with KMS. "hmac" signs them with an HMAC key,
+     * which is stored encrypted under KEY_ARN in CLAIM_TOKEN_HMAC_KEY_CIPHERTEXT (Base64) and decrypted once per JVM.
+     */
+    public static final String CLAIM_TOKEN_MODE = "CLAIM_TOKEN_MODE";
+    public static final String CLAIM_TOKEN_MODE_ENCRYPTED = "encrypted";
+    public static final String CLAIM_TOKEN_MODE_HMAC = "hmac";
+    public static final String CLAIM_TOKEN_HMAC_KEY_CIPHERTEXT = "CLAIM_TOKEN_HMAC_KEY_CIPHERTEXT";
 }
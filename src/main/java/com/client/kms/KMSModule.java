@@ -2,13 +2,42 @@ package com.client.kms;
 
 import com.amazonaws.encryptionsdk.AwsCrypto;
 import com.amazonaws.encryptionsdk.CommitmentPolicy;
+import com.amazonaws.encryptionsdk.CryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.MasterKeyProvider;
+import com.amazonaws.encryptionsdk.caching.CachingCryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.caching.CryptoMaterialsCache;
+import com.amazonaws.encryptionsdk.caching.LocalCryptoMaterialsCache;
 import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
 import com.amazonaws.services.kms.AWSKMS;
 import com.amazonaws.services.kms.AWSKMSClientBuilder;
+import com.amazonaws.services.kms.model.DecryptRequest;
+import com.client.AwsCallExecutor;
+import com.client.AwsEndpointUtil;
+import com.client.kms.token.ClaimTokenCodec;
+import com.client.kms.token.EncryptedClaimTokenCodec;
+import com.client.kms.token.HmacClaimTokenCodec;
+import com.util.EnvironmentUtil;
+import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static com.client.kms.KMSConstants.CLAIM_TOKEN_HMAC_KEY_CIPHERTEXT;
+import static com.client.kms.KMSConstants.CLAIM_TOKEN_MODE;
+import static com.client.kms.KMSConstants.CLAIM_TOKEN_MODE_ENCRYPTED;
+import static com.client.kms.KMSConstants.CLAIM_TOKEN_MODE_HMAC;
+
+import static com.client.kms.KMSConstants.DATA_KEY_CACHE_CAPACITY;
+import static com.client.kms.KMSConstants.DATA_KEY_CACHE_MAX_AGE_SECONDS;
+import static com.client.kms.KMSConstants.DATA_KEY_CACHE_MAX_MESSAGES;
+import static com.client.kms.KMSConstants.DEFAULT_DATA_KEY_CACHE_CAPACITY;
+import static com.client.kms.KMSConstants.DEFAULT_DATA_KEY_CACHE_MAX_AGE_SECONDS;
+import static com.client.kms.KMSConstants.DEFAULT_DATA_KEY_CACHE_MAX_MESSAGES;
 import static com.client.kms.KMSConstants.KEY_ARN;
 
 @Module
@@ -16,6 +45,7 @@ import static com.client.kms.KMSConstants.KEY_ARN;
 public class KMSModule {
 
     @Provides
+    @Singleton
     public AWSKMS awsKMS() {
         // 1. Instantiate the SDK
         // This builds the AwsCrypto client with the RequireEncryptRequireDecrypt commitment policy,
@@ -23,10 +53,12 @@ public class KMSModule {
         // that this client will only decrypt encrypted messages that were created with a committing algorithm suite.
         // This is the default commitment policy if you build the client with `AwsCrypto.builder().build()`
         // or `AwsCrypto.standard()`.
-        return AWSKMSClientBuilder.defaultClient();
+        return AwsEndpointUtil.withEndpointFromEnv(AWSKMSClientBuilder.standard(), AwsEndpointUtil.KMS_ENDPOINT)
+                .build();
     }
 
     @Provides
+    @Singleton
     public AwsCrypto awsCrypto() {
         return AwsCrypto.builder()
                 .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
@@ -34,13 +66,95 @@ public class KMSModule {
     }
 
     @Provides
+    @Singleton
     public KmsMasterKeyProvider kmsMasterKeyProvider() {
-        return KmsMasterKeyProvider.builder().buildStrict(KEY_ARN);
+        return KmsMasterKeyProvider.builder()
+                .withClientBuilder(AwsEndpointUtil.withEndpointFromEnv(AWSKMSClientBuilder.standard(),
+                        AwsEndpointUtil.KMS_ENDPOINT))
+                .buildStrict(KEY_ARN);
+    }
+
+    @Provides
+    @Singleton
+    public CountingCryptoMaterialsCache cryptoMaterialsCache() {
+        return new CountingCryptoMaterialsCache(new LocalCryptoMaterialsCache(
+                EnvironmentUtil.getInt(DATA_KEY_CACHE_CAPACITY, DEFAULT_DATA_KEY_CACHE_CAPACITY)),
+                TimeUnit.SECONDS.toMillis(EnvironmentUtil.getLong(DATA_KEY_CACHE_MAX_AGE_SECONDS,
+                        DEFAULT_DATA_KEY_CACHE_MAX_AGE_SECONDS)),
+                EnvironmentUtil.getLong(DATA_KEY_CACHE_MAX_MESSAGES, DEFAULT_DATA_KEY_CACHE_MAX_MESSAGES));
+    }
+
+    @Provides
+    @Singleton
+    public CryptoMaterialsManager cryptoMaterialsManager(final KmsMasterKeyProvider kmsMasterKeyProvider,
+                                                         final CountingCryptoMaterialsCache cryptoMaterialsCache) {
+        return cachingCryptoMaterialsManager(kmsMasterKeyProvider, cryptoMaterialsCache,
+                EnvironmentUtil.getLong(DATA_KEY_CACHE_MAX_AGE_SECONDS, DEFAULT_DATA_KEY_CACHE_MAX_AGE_SECONDS),
+                EnvironmentUtil.getLong(DATA_KEY_CACHE_MAX_MESSAGES, DEFAULT_DATA_KEY_CACHE_MAX_MESSAGES));
     }
 
+    @Provides
+    @Singleton
+    public KMSClient kmsClient(final AwsCrypto awsCrypto, final CryptoMaterialsManager cryptoMaterialsManager,
+                               final AwsCallExecutor awsCallExecutor) {
+        return new KMSClient(awsCrypto, cryptoMaterialsManager, awsCallExecutor);
+    }
 
     @Provides
-    public KMSClient kmsClient() {
-        return new KMSClient(awsCrypto(), kmsMasterKeyProvider());
+    @Singleton
+    public ClaimTokenCodec claimTokenCodec(final Lazy<KMSClient> kmsClient, final Lazy<AWSKMS> awsKMS) {
+        // only the clients of the selected mode are built
+        final String mode = System.getenv(CLAIM_TOKEN_MODE);
+        if (mode == null || mode.isEmpty() || CLAIM_TOKEN_MODE_ENCRYPTED.equalsIgnoreCase(mode)) {
+            return new EncryptedClaimTokenCodec(kmsClient.get());
+        }
+        if (CLAIM_TOKEN_MODE_HMAC.equalsIgnoreCase(mode)) {
+            log.info("Using HMAC signed swap claim tokens.");
+            return new HmacClaimTokenCodec(decryptHmacKey(awsKMS.get(), System.getenv(CLAIM_TOKEN_HMAC_KEY_CIPHERTEXT)));
+        }
+        throw new IllegalStateException("Unknown " + CLAIM_TOKEN_MODE + ": " + mode);
+    }
+
+    /**
+     * Decrypts the HMAC key for claim tokens with KMS. Called once, as the codec is a singleton.
+     *
+     * @param awsKMS
+     * @param ciphertext Base64 encoded KMS ciphertext of the key
+     * @return key bytes
+     */
+    static byte[] decryptHmacKey(final AWSKMS awsKMS, final String ciphertext) {
+        if (ciphertext == null || ciphertext.isEmpty()) {
+            throw new IllegalStateException(CLAIM_TOKEN_HMAC_KEY_CIPHERTEXT + " must be set for "
+                    + CLAIM_TOKEN_MODE_HMAC + " claim tokens.");
+        }
+        final ByteBuffer plaintext = awsKMS.decrypt(new DecryptRequest()
+                .withKeyId(KEY_ARN)
+                .withCiphertextBlob(ByteBuffer.wrap(Base64.getDecoder().decode(ciphertext))))
+                .getPlaintext();
+        final byte[] key = new byte[plaintext.remaining()];
+        plaintext.get(key);
+        return key;
+    }
+
+    /**
+     * Builds a CryptoMaterialsManager which reuses data keys from the cache, only going to the master key provider
+     * when there is no cached data key or it has exceeded the max age / max messages.
+     *
+     * @param masterKeyProvider
+     * @param cryptoMaterialsCache
+     * @param maxAgeSeconds
+     * @param maxMessagesPerDataKey
+     * @return CryptoMaterialsManager
+     */
+    public static CryptoMaterialsManager cachingCryptoMaterialsManager(final MasterKeyProvider<?> masterKeyProvider,
+                                                                       final CryptoMaterialsCache cryptoMaterialsCache,
+                                                                       final long maxAgeSeconds,
+                                                                       final long maxMessagesPerDataKey) {
+        return CachingCryptoMaterialsManager.newBuilder()
+                .withMasterKeyProvider(masterKeyProvider)
+                .withCache(cryptoMaterialsCache)
+                .withMaxAge(maxAgeSeconds, TimeUnit.SECONDS)
+                .withMessageUseLimit(maxMessagesPerDataKey)
+                .build();
     }
 }
@@ -0,0 +1,34 @@
+package com.client.kms.token;
+
+import com.model.exception.InvalidInputException;
+
+/**
+ * Encodes a SwapClaimToken into the opaque String handed to clients by EstimateSwap, and decodes it again in
+ * SubmitSwap. Decoding must reject any token which was not issued by encode.
+ */
+public interface ClaimTokenCodec {
+
+    /**
+     * Encodes the SwapClaimToken.
+     *
+     * @param swapClaimToken
+     * @return token String
+     */
+    String encode(SwapClaimToken swapClaimToken);
+
+    /**
+     * Decodes a token String issued by encode.
+     *
+     * @param token
+     * @return SwapClaimToken
+     * @throws InvalidInputException if the token is malformed or was not issued by this codec
+     */
+    SwapClaimToken decode(String token) throws InvalidInputException;
+
+    /**
+     * @return whether encode makes a blocking call (ex - to KMS), so is worth running at the same time as other calls
+     */
+    default boolean isEncodeBlocking() {
+        return false;
+    }
+}
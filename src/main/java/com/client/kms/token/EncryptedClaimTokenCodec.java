@@ -0,0 +1,31 @@
+package com.client.kms.token;
+
+import com.client.kms.KMSClient;
+import com.model.exception.InvalidInputException;
+import com.util.ObjectMapperUtil;
+import lombok.AllArgsConstructor;
+
+/**
+ * ClaimTokenCodec which serializes the SwapClaimToken to JSON and encrypts it with KMS. The token contents are not
+ * visible to clients.
+ */
+@AllArgsConstructor
+public class EncryptedClaimTokenCodec implements ClaimTokenCodec {
+
+    private final KMSClient kmsClient;
+
+    @Override
+    public String encode(final SwapClaimToken swapClaimToken) {
+        return kmsClient.encrypt(ObjectMapperUtil.toString(swapClaimToken));
+    }
+
+    @Override
+    public SwapClaimToken decode(final String token) throws InvalidInputException {
+        return kmsClient.decrypt(token);
+    }
+
+    @Override
+    public boolean isEncodeBlocking() {
+        return true;
+    }
+}
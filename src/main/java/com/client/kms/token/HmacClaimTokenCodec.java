@@ -0,0 +1,176 @@
+package com.client.kms.token;
+
+import com.config.ErrorMessages;
+import com.model.SwapRequest;
+import com.model.exception.InvalidInputException;
+import com.model.types.Asset;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ClaimTokenCodec which signs a compact binary encoding of the SwapClaimToken with HMAC-SHA256, using a key held in
+ * memory. No call to KMS is made per token. The token only needs integrity and expiry, so its contents are signed but
+ * not encrypted, and are readable by the client.
+ * <p>
+ * Layout (big endian), Base64 url encoded without padding:
+ * version (1) | contractId length (1) | contractId UTF-8 | expiresAt epoch millis (8) | in asset ordinal (1) |
+ * out asset ordinal (1) | in amount (8) | route length (1) | route asset ordinals (1 each) |
+ * HMAC-SHA256 of all previous bytes (32)
+ * <p>
+ * The route length is 0 for a swap in a single pool. Tokens of another version are rejected.
+ * <p>
+ * Assets are stored by ordinal, so reordering Asset invalidates outstanding tokens. Tokens are short lived (see
+ * ServiceConstants.SWAP_ESTIMATE_EXPIRES_AFTER_IN_SECONDS), so appending new assets is safe.
+ */
+@Slf4j
+public class HmacClaimTokenCodec implements ClaimTokenCodec {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 2;
+    private static final int TAG_LENGTH = 32;
+    private static final int MAX_CONTRACT_ID_LENGTH = 255;
+    private static final int MAX_ROUTE_LENGTH = 255;
+    // version, contractId length, expiresAt, asset ordinals, in amount, route length
+    private static final int FIXED_PAYLOAD_LENGTH = 1 + 1 + 8 + 1 + 1 + 8 + 1;
+    private static final Asset[] ASSETS = Asset.values();
+
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<byte[]> expectedTag = ThreadLocal.withInitial(() -> new byte[TAG_LENGTH]);
+
+    public HmacClaimTokenCodec(final byte[] key) {
+        final SecretKeySpec secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        // fail fast on an unusable key, rather than on the first request
+        newMac(secretKey);
+        this.mac = ThreadLocal.withInitial(() -> newMac(secretKey));
+    }
+
+    @Override
+    public String encode(final SwapClaimToken swapClaimToken) {
+        final SwapRequest swapRequest = swapClaimToken.getSwapRequest();
+        final byte[] contractId = swapClaimToken.getSwapContractId().getBytes(StandardCharsets.UTF_8);
+        if (contractId.length > MAX_CONTRACT_ID_LENGTH) {
+            throw new IllegalArgumentException("swapContractId is too long: " + contractId.length);
+        }
+        final List<String> route = swapClaimToken.getRoute();
+        final int routeLength = route == null ? 0 : route.size();
+        if (routeLength > MAX_ROUTE_LENGTH) {
+            throw new IllegalArgumentException("route is too long: " + routeLength);
+        }
+        final int payloadLength = FIXED_PAYLOAD_LENGTH + contractId.length + routeLength;
+        final ByteBuffer buffer = ByteBuffer.allocate(payloadLength + TAG_LENGTH)
+                .put(VERSION)
+                .put((byte) contractId.length)
+                .put(contractId)
+                .putLong(swapClaimToken.getExpiresAt().getTime())
+                .put((byte) Asset.fromAssetName(swapRequest.getInName()).ordinal())
+                .put((byte) Asset.fromAssetName(swapRequest.getOutName()).ordinal())
+                .putDouble(swapRequest.getInAmount())
+                .put((byte) routeLength);
+        for (int i = 0; i < routeLength; i++) {
+            buffer.put((byte) Asset.fromAssetName(route.get(i)).ordinal());
+        }
+        final byte[] token = buffer.array();
+        sign(token, payloadLength, token, payloadLength);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    @Override
+    public SwapClaimToken decode(final String token) throws InvalidInputException {
+        final byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+        }
+        if (bytes.length < FIXED_PAYLOAD_LENGTH + TAG_LENGTH || bytes[0] != VERSION) {
+            throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+        }
+        final int contractIdLength = bytes[1] & 0xFF;
+        if (bytes.length < FIXED_PAYLOAD_LENGTH + contractIdLength + TAG_LENGTH) {
+            throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+        }
+        final int routeLength = bytes[FIXED_PAYLOAD_LENGTH - 1 + contractIdLength] & 0xFF;
+        final int payloadLength = FIXED_PAYLOAD_LENGTH + contractIdLength + routeLength;
+        if (bytes.length != payloadLength + TAG_LENGTH || !verify(bytes, payloadLength)) {
+            log.warn("Rejected swap claim token with invalid signature.");
+            throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+        }
+
+        final String contractId = new String(bytes, 2, contractIdLength, StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes, 2 + contractIdLength, payloadLength - 2 - contractIdLength);
+        final long expiresAt = buffer.getLong();
+        final int inOrdinal = buffer.get() & 0xFF;
+        final int outOrdinal = buffer.get() & 0xFF;
+        final double inAmount = buffer.getDouble();
+        if (inOrdinal >= ASSETS.length || outOrdinal >= ASSETS.length) {
+            throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+        }
+        buffer.get();
+        List<String> route = null;
+        if (routeLength > 0) {
+            route = new ArrayList<>(routeLength);
+            for (int i = 0; i < routeLength; i++) {
+                final int ordinal = buffer.get() & 0xFF;
+                if (ordinal >= ASSETS.length) {
+                    throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
+                }
+                route.add(ASSETS[ordinal].getName());
+            }
+        }
+
+        final SwapRequest swapRequest = new SwapRequest();
+        swapRequest.setInName(ASSETS[inOrdinal].getName());
+        swapRequest.setOutName(ASSETS[outOrdinal].getName());
+        swapRequest.setInAmount(inAmount);
+        final SwapClaimToken swapClaimToken = new SwapClaimToken();
+        swapClaimToken.setSwapContractId(contractId);
+        swapClaimToken.setExpiresAt(new Date(expiresAt));
+        swapClaimToken.setSwapRequest(swapRequest);
+        swapClaimToken.setRoute(route);
+        return swapClaimToken;
+    }
+
+    /**
+     * Computes the tag of the first payloadLength bytes of the token and compares it to the tag that follows them.
+     * The comparison looks at every byte regardless of where the first difference is, so its time does not reveal
+     * how much of a forged tag was correct. Uses a per thread buffer, so nothing is allocated.
+     */
+    private boolean verify(final byte[] token, final int payloadLength) {
+        final byte[] expected = expectedTag.get();
+        sign(token, payloadLength, expected, 0);
+        int difference = 0;
+        for (int i = 0; i < TAG_LENGTH; i++) {
+            difference |= expected[i] ^ token[payloadLength + i];
+        }
+        return difference == 0;
+    }
+
+    private void sign(final byte[] payload, final int payloadLength, final byte[] output, final int outputOffset) {
+        final Mac threadMac = mac.get();
+        threadMac.update(payload, 0, payloadLength);
+        try {
+            threadMac.doFinal(output, outputOffset);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Mac newMac(final SecretKeySpec secretKey) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + HMAC_ALGORITHM, e);
+        }
+    }
+}
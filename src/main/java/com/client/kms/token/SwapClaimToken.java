@@ -1,13 +1,21 @@
 package com.client.kms.token;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.model.SwapRequest;
 import lombok.Data;
 
 import java.util.Date;
+import java.util.List;
 
 @Data
 public class SwapClaimToken {
     private String swapContractId;
     private Date expiresAt;
     private SwapRequest swapRequest;
+    /**
+     * Asset names from the in asset to the out asset, for a swap routed through more than one pool. Null for a swap in
+     * a single pool.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> route;
 }
@@ -0,0 +1,324 @@
+package com.client.sqs;
+
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Buffers messages sent to the swap requests queue and sends them with SendMessageBatch, so that a burst of submitted
+ * swaps takes one SQS call per 10 messages instead of one per message. A single sender thread takes the first waiting
+ * message, collects more for up to maxBatchDelayMillis or until the batch is full, and sends the batch. Messages which
+ * arrive while a batch is being sent are collected into the next one, so with a delay of 0 only messages which are
+ * already waiting are batched together.
+ * <p>
+ * Each caller gets a future which completes once SQS acknowledged its message. Entries which fail with a server side
+ * error (or the whole call failing) are retried after a short backoff, up to MAX_ATTEMPTS. Entries rejected as a
+ * sender fault fail right away.
+ * <p>
+ * On a FIFO queue, the order of each message group is kept. A batch holds at most one message per group, as SQS may
+ * accept a later message of a group in a batch while failing an earlier one. Later messages of a group wait until the
+ * message before them is acknowledged, and a retried message goes ahead of them. A message which fails for good fails
+ * every later message of its group which is not sent yet. So messages of one group (the swaps of one pool) are never
+ * sent together, and concurrent submits only share a call across groups.
+ */
+@Slf4j
+public class SQSBatchProducer {
+
+    private static final Counter BATCH_COUNTER = Metrics.counter("SQSBatchProducer.batches");
+    private static final Counter RETRIED_COUNTER = Metrics.counter("SQSBatchProducer.retried");
+    private static final Counter FAILED_COUNTER = Metrics.counter("SQSBatchProducer.failed");
+
+    // limits of SendMessageBatch
+    static final int MAX_BATCH_SIZE = 10;
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+    static final int MAX_ATTEMPTS = 3;
+    // doubled for every attempt after the second
+    static final long RETRY_BACKOFF_BASE_MILLIS = 10;
+
+    private final SQSClient sqsClient;
+    private final long maxBatchDelayNanos;
+    private final BlockingQueue<PendingMessage> pendingMessages = new LinkedBlockingQueue<>();
+    // entries to retry or to send after an earlier entry of their group, in order. only touched by the sender thread
+    private final List<PendingMessage> deferredMessages = new ArrayList<>();
+
+    public SQSBatchProducer(final SQSClient sqsClient, final long maxBatchDelayMillis) {
+        this.sqsClient = sqsClient;
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMillis);
+        final Thread senderThread = new Thread(this::sendBatches, "sqs-batch-producer");
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+
+    /**
+     * Buffers a message to be sent to the queue. As SQSClient.isFifo, messageGroupId and deduplicationId are ignored
+     * for a standard queue.
+     *
+     * @param messageBody
+     * @param messageGroupId
+     * @param deduplicationId
+     * @return future completed once the message is acknowledged by SQS, or completed exceptionally if it could not be
+     * sent
+     */
+    public CompletableFuture<Void> submit(final String messageBody,
+                                          final String messageGroupId,
+                                          final String deduplicationId) {
+        final SendMessageBatchRequestEntry entry = new SendMessageBatchRequestEntry().withMessageBody(messageBody);
+        if (sqsClient.isFifo()) {
+            entry.setMessageGroupId(messageGroupId);
+            entry.setMessageDeduplicationId(deduplicationId);
+        }
+        final PendingMessage pendingMessage = new PendingMessage(entry);
+        pendingMessages.add(pendingMessage);
+        return pendingMessage.future;
+    }
+
+    /**
+     * Sends every message submitted before this call without waiting for the batch delay, and waits until they are
+     * acknowledged or failed. Called on shutdown, so that no buffered message is lost.
+     */
+    public void flush() {
+        final PendingMessage flushMarker = new PendingMessage(null);
+        pendingMessages.add(flushMarker);
+        flushMarker.future.join();
+    }
+
+    private void sendBatches() {
+        final List<PendingMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        final List<PendingMessage> flushMarkers = new ArrayList<>();
+        while (true) {
+            try {
+                batch.clear();
+                collectBatch(batch, flushMarkers);
+                if (!batch.isEmpty()) {
+                    sendBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to send batch of messages to SQS.", e);
+                for (final PendingMessage pendingMessage : batch) {
+                    pendingMessage.future.completeExceptionally(e);
+                }
+            }
+            // a flush completes once nothing submitted before it is waiting, including retries
+            if (deferredMessages.isEmpty()) {
+                for (final PendingMessage flushMarker : flushMarkers) {
+                    flushMarker.future.complete(null);
+                }
+                flushMarkers.clear();
+            }
+        }
+    }
+
+    /**
+     * Fills the batch with the deferred messages which are due and then the waiting messages, waiting for up to the
+     * batch delay after the first one. Stops early at a flush marker. On a FIFO queue, a batch has at most one message
+     * per message group, and a message is deferred while an earlier message of its group is in the batch or deferred.
+     *
+     * @param batch        filled with the messages to send
+     * @param flushMarkers added to with the flush markers taken
+     */
+    private void collectBatch(final List<PendingMessage> batch, final List<PendingMessage> flushMarkers)
+            throws InterruptedException {
+        // groups which already have a message in the batch or one still deferred
+        final Set<String> unavailableGroups = new HashSet<>();
+        int batchBytes = 0;
+        long nextRetryNanos = 0;
+        boolean retryWaiting = false;
+        final long nowNanos = System.nanoTime();
+        for (final Iterator<PendingMessage> iterator = deferredMessages.iterator(); iterator.hasNext(); ) {
+            final PendingMessage deferredMessage = iterator.next();
+            final boolean due = deferredMessage.notBeforeNanos - nowNanos <= 0;
+            // a message over the byte limit is sent on its own, for SQS to reject it, rather than deferred for good
+            if (due && batch.size() < MAX_BATCH_SIZE
+                    && (batch.isEmpty() || batchBytes + deferredMessage.bytes <= MAX_BATCH_BYTES)
+                    && !unavailableGroups.contains(deferredMessage.getMessageGroupId())) {
+                iterator.remove();
+                batch.add(deferredMessage);
+                batchBytes += deferredMessage.bytes;
+            } else if (!due && (!retryWaiting || deferredMessage.notBeforeNanos - nextRetryNanos < 0)) {
+                nextRetryNanos = deferredMessage.notBeforeNanos;
+                retryWaiting = true;
+            }
+            if (deferredMessage.getMessageGroupId() != null) {
+                unavailableGroups.add(deferredMessage.getMessageGroupId());
+            }
+        }
+        if (batch.isEmpty()) {
+            // wait for a message, or until the next retry is due
+            final PendingMessage first = retryWaiting
+                    ? pendingMessages.poll(nextRetryNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+                    : pendingMessages.take();
+            if (first == null) {
+                return;
+            }
+            if (first.isFlushMarker()) {
+                flushMarkers.add(first);
+                return;
+            }
+            if (unavailableGroups.contains(first.getMessageGroupId())) {
+                deferredMessages.add(first);
+                return;
+            }
+            batch.add(first);
+            batchBytes += first.bytes;
+            if (first.getMessageGroupId() != null) {
+                unavailableGroups.add(first.getMessageGroupId());
+            }
+        }
+        final long deadlineNanos = System.nanoTime() + maxBatchDelayNanos;
+        while (batch.size() < MAX_BATCH_SIZE) {
+            final PendingMessage next = pendingMessages.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            if (next.isFlushMarker()) {
+                flushMarkers.add(next);
+                break;
+            }
+            if (unavailableGroups.contains(next.getMessageGroupId())) {
+                // send it after the earlier message of its group
+                deferredMessages.add(next);
+                continue;
+            }
+            if (batchBytes + next.bytes > MAX_BATCH_BYTES) {
+                // send it first in the next batch
+                deferredMessages.add(next);
+                break;
+            }
+            batch.add(next);
+            batchBytes += next.bytes;
+            if (next.getMessageGroupId() != null) {
+                unavailableGroups.add(next.getMessageGroupId());
+            }
+        }
+    }
+
+    private void sendBatch(final List<PendingMessage> batch) {
+        final Map<String, PendingMessage> idToPendingMessage = new HashMap<>();
+        final List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            final PendingMessage pendingMessage = batch.get(i);
+            pendingMessage.attempts++;
+            final String id = Integer.toString(i);
+            idToPendingMessage.put(id, pendingMessage);
+            entries.add(pendingMessage.entry.withId(id));
+        }
+        BATCH_COUNTER.increment();
+        final List<PendingMessage> retries = new ArrayList<>(0);
+        final SendMessageBatchResult result;
+        try {
+            result = sqsClient.sendMessageBatch(entries);
+        } catch (Exception e) {
+            log.warn("Failed to send batch of {} message(s) to SQS.", batch.size(), e);
+            for (final PendingMessage pendingMessage : batch) {
+                retryOrFail(pendingMessage, e, retries);
+            }
+            deferredMessages.addAll(0, retries);
+            return;
+        }
+        for (final SendMessageBatchResultEntry successful : result.getSuccessful()) {
+            idToPendingMessage.get(successful.getId()).future.complete(null);
+        }
+        for (final BatchResultErrorEntry failed : result.getFailed()) {
+            final PendingMessage pendingMessage = idToPendingMessage.get(failed.getId());
+            final SQSBatchEntryException exception = new SQSBatchEntryException(failed.getCode(), failed.getMessage());
+            if (Boolean.TRUE.equals(failed.getSenderFault())) {
+                fail(pendingMessage, exception);
+            } else {
+                retryOrFail(pendingMessage, exception, retries);
+            }
+        }
+        // ahead of any later message of their groups
+        deferredMessages.addAll(0, retries);
+    }
+
+    private void retryOrFail(final PendingMessage pendingMessage, final Exception e,
+                             final List<PendingMessage> retries) {
+        if (pendingMessage.attempts >= MAX_ATTEMPTS) {
+            fail(pendingMessage, e);
+            return;
+        }
+        RETRIED_COUNTER.increment();
+        pendingMessage.notBeforeNanos = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_BASE_MILLIS << (pendingMessage.attempts - 1));
+        retries.add(pendingMessage);
+    }
+
+    /**
+     * Fails the message. On a FIFO queue, also fails every later message of its group which is not sent yet, so that
+     * none of them is queued without it.
+     */
+    private void fail(final PendingMessage pendingMessage, final Exception e) {
+        FAILED_COUNTER.increment();
+        pendingMessage.future.completeExceptionally(e);
+        final String messageGroupId = pendingMessage.getMessageGroupId();
+        if (messageGroupId == null) {
+            return;
+        }
+        final Predicate<PendingMessage> laterOfGroup = laterMessage -> {
+            if (laterMessage.isFlushMarker() || !messageGroupId.equals(laterMessage.getMessageGroupId())) {
+                return false;
+            }
+            FAILED_COUNTER.increment();
+            laterMessage.future.completeExceptionally(e);
+            return true;
+        };
+        deferredMessages.removeIf(laterOfGroup);
+        pendingMessages.removeIf(laterOfGroup);
+    }
+
+    /**
+     * A message waiting to be sent, or a flush marker if entry is null.
+     */
+    private static final class PendingMessage {
+        private final SendMessageBatchRequestEntry entry;
+        private final int bytes;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int attempts;
+        // System.nanoTime before which a retry is not sent
+        private long notBeforeNanos;
+
+        private PendingMessage(final SendMessageBatchRequestEntry entry) {
+            this.entry = entry;
+            this.bytes = entry == null ? 0 : entry.getMessageBody().getBytes(StandardCharsets.UTF_8).length;
+            this.notBeforeNanos = System.nanoTime();
+        }
+
+        private boolean isFlushMarker() {
+            return entry == null;
+        }
+
+        private String getMessageGroupId() {
+            return entry.getMessageGroupId();
+        }
+    }
+
+    /**
+     * An entry of a SendMessageBatch call which SQS did not accept.
+     */
+    public static class SQSBatchEntryException extends RuntimeException {
+        SQSBatchEntryException(final String code, final String message) {
+            super(code + ": " + message);
+        }
+    }
+}
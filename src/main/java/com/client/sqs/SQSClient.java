@@ -1,36 +1,160 @@
 package com.client.sqs;
 
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.client.AwsAsyncUtil;
+import com.metrics.Metrics;
+import com.metrics.Timer;
+import com.util.PayloadLogSampler;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Setter
 @Slf4j
 @Singleton
 public class SQSClient {
 
-    AmazonSQS amazonSQS;
-    final private String queueUrl;
+    private static final Timer SEND_MESSAGE_BATCH_TIMER = Metrics.timer("SQSClient.sendMessageBatch");
 
-    public SQSClient(final AmazonSQS amazonSQS) {
+    AmazonSQSAsync amazonSQS;
+    private final String queueName;
+    private volatile String queueUrl;
+
+    public SQSClient(final AmazonSQSAsync amazonSQS, final String queueName) {
         this.amazonSQS = amazonSQS;
-        this.queueUrl = amazonSQS.getQueueUrl(SQSConstants.SWAP_REQUESTS_QUEUE_NAME).getQueueUrl();
-        log.info("queueUrl: {}", this.queueUrl);
+        this.queueName = queueName;
+    }
+
+    /**
+     * @return whether the queue is a FIFO queue, which delivers the messages of each message group in order
+     */
+    public boolean isFifo() {
+        return queueName.endsWith(SQSConstants.FIFO_QUEUE_SUFFIX);
+    }
+
+    /**
+     * Resolves the queue url on first use instead of at construction, as it is a network call. Handlers which never
+     * touch the queue don't pay for it.
+     *
+     * @return queueUrl
+     */
+    String getQueueUrl() {
+        String resolvedQueueUrl = queueUrl;
+        if (resolvedQueueUrl == null) {
+            synchronized (this) {
+                resolvedQueueUrl = queueUrl;
+                if (resolvedQueueUrl == null) {
+                    resolvedQueueUrl = amazonSQS.getQueueUrl(queueName).getQueueUrl();
+                    log.info("queueUrl: {}", resolvedQueueUrl);
+                    queueUrl = resolvedQueueUrl;
+                }
+            }
+        }
+        return resolvedQueueUrl;
+    }
+
+    /**
+     * Resolves the queue url ahead of the first request.
+     */
+    public void warmUp() {
+        getQueueUrl();
+    }
+
+    /**
+     * Opens a connection to SQS ahead of the first request, ex - after a snapshot restore, by resolving the queue url
+     * again.
+     */
+    public void connect() {
+        queueUrl = amazonSQS.getQueueUrl(queueName).getQueueUrl();
     }
 
     /**
-     * Submits a SwapRequest to the SQS queue.
+     * Sends a batch of up to 10 messages to the SQS queue. Used by the SQSBatchProducer.
      *
-     * @param messageBody
-     */
-    public void submitMessage(final String messageBody) {
-        log.info("Submitting message to SQS: {}", messageBody);
-        SendMessageRequest sendMessageRequest = new SendMessageRequest();
-        sendMessageRequest.setQueueUrl(queueUrl);
-        sendMessageRequest.setMessageBody(messageBody);
-        amazonSQS.sendMessage(sendMessageRequest);
+     * @param entries
+     * @return SendMessageBatchResult, with the entries which succeeded and which failed
+     */
+    public SendMessageBatchResult sendMessageBatch(final List<SendMessageBatchRequestEntry> entries) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Submitting messages to SQS: {}", entries);
+        }
+        final long startNanos = System.nanoTime();
+        try {
+            return amazonSQS.sendMessageBatch(new SendMessageBatchRequest(getQueueUrl(), entries));
+        } finally {
+            SEND_MESSAGE_BATCH_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Sends a batch of up to 10 messages to the SQS queue, as sendMessageBatch, without taking a thread while the call
+     * is in flight. The queue url is resolved first if it is not yet.
+     *
+     * @param entries
+     * @return future of the SendMessageBatchResult, with the entries which succeeded and which failed, completed
+     * exceptionally if the whole call failed (ex - the ids of the entries are not distinct)
+     */
+    public CompletableFuture<SendMessageBatchResult> sendMessageBatchAsync(
+            final List<SendMessageBatchRequestEntry> entries) {
+        if (PayloadLogSampler.shouldLog(log)) {
+            log.info("Submitting messages to SQS: {}", entries);
+        }
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<SendMessageBatchResult> future;
+        try {
+            future = AwsAsyncUtil.call(amazonSQS::sendMessageBatchAsync,
+                    new SendMessageBatchRequest(getQueueUrl(), entries));
+        } catch (RuntimeException e) {
+            SEND_MESSAGE_BATCH_TIMER.recordSince(startNanos);
+            final CompletableFuture<SendMessageBatchResult> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        future.whenComplete((result, t) -> SEND_MESSAGE_BATCH_TIMER.recordSince(startNanos));
+        return future;
+    }
+
+    /**
+     * Long polls the SQS queue for a batch of messages. Used when the swap listener runs in-process instead of being
+     * triggered by Lambda.
+     *
+     * @param maxNumberOfMessages
+     * @param waitTimeSeconds
+     * @return List<Message>, empty if none arrived within the wait time
+     */
+    public List<Message> receiveMessages(final int maxNumberOfMessages, final int waitTimeSeconds) {
+        final ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest()
+                .withQueueUrl(getQueueUrl())
+                .withMaxNumberOfMessages(maxNumberOfMessages)
+                .withAttributeNames(SQSConstants.MESSAGE_GROUP_ID_ATTRIBUTE)
+                .withWaitTimeSeconds(waitTimeSeconds);
+        return amazonSQS.receiveMessage(receiveMessageRequest).getMessages();
+    }
+
+    /**
+     * Deletes processed messages from the SQS queue.
+     *
+     * @param messages
+     */
+    public void deleteMessages(final List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        final List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (final Message message : messages) {
+            entries.add(new DeleteMessageBatchRequestEntry(message.getMessageId(), message.getReceiptHandle()));
+        }
+        amazonSQS.deleteMessageBatch(new DeleteMessageBatchRequest(getQueueUrl(), entries));
     }
 }
@@ -2,4 +2,23 @@ package com.client.sqs;
 
 public final class SQSConstants {
     public static final String SWAP_REQUESTS_QUEUE_NAME = "AutomatedMarketMaker-dev-SwapRequests";
+
+    /**
+     * Name of the queue to submit swaps to and consume them from, defaults to SWAP_REQUESTS_QUEUE_NAME. Queues whose
+     * name ends with FIFO_QUEUE_SUFFIX are FIFO queues, and messages are sent with a message group and deduplication id.
+     */
+    public static final String SWAP_REQUESTS_QUEUE_NAME_ENV = "SWAP_REQUESTS_QUEUE_NAME";
+    public static final String FIFO_QUEUE_SUFFIX = ".fifo";
+
+    /**
+     * Message system attribute which FIFO queues set to the message group of each message.
+     */
+    public static final String MESSAGE_GROUP_ID_ATTRIBUTE = "MessageGroupId";
+
+    /**
+     * How long the SQSBatchProducer waits for more messages to fill a batch after the first one. Defaults to 0, as a
+     * Lambda handles one request at a time and would only wait for messages which never come.
+     */
+    public static final String SQS_BATCH_MAX_DELAY_MILLIS = "SQS_BATCH_MAX_DELAY_MILLIS";
+    public static final long DEFAULT_SQS_BATCH_MAX_DELAY_MILLIS = 0;
 }
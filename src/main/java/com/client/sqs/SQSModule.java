@@ -1,14 +1,39 @@
 package com.client.sqs;
 
-import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder;
+import com.client.AwsAsyncUtil;
+import com.client.AwsEndpointUtil;
+import com.util.EnvironmentUtil;
 import dagger.Module;
 import dagger.Provides;
 
+import javax.inject.Singleton;
+
 @Module
 public class SQSModule {
 
     @Provides
-    public SQSClient sqsClient() {
-        return new SQSClient(AmazonSQSClientBuilder.defaultClient());
+    @Singleton
+    public AmazonSQSAsync amazonSQS() {
+        // the async client also makes the blocking calls, on the calling thread
+        return AwsEndpointUtil.withEndpointFromEnv(AmazonSQSAsyncClientBuilder.standard(), AwsEndpointUtil.SQS_ENDPOINT)
+                .withExecutorFactory(AwsAsyncUtil.daemonExecutorFactory("sqs-async-",
+                        AwsAsyncUtil.DEFAULT_ASYNC_CLIENT_THREADS))
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    public SQSBatchProducer sqsBatchProducer(final SQSClient sqsClient) {
+        return new SQSBatchProducer(sqsClient, EnvironmentUtil.getLong(SQSConstants.SQS_BATCH_MAX_DELAY_MILLIS,
+                SQSConstants.DEFAULT_SQS_BATCH_MAX_DELAY_MILLIS));
+    }
+
+    @Provides
+    @Singleton
+    public SQSClient sqsClient(final AmazonSQSAsync amazonSQS) {
+        return new SQSClient(amazonSQS, EnvironmentUtil.getString(SQSConstants.SWAP_REQUESTS_QUEUE_NAME_ENV,
+                SQSConstants.SWAP_REQUESTS_QUEUE_NAME));
     }
 }
@@ -23,4 +23,12 @@ public class ErrorMessages {
     public static String INVALID_CLAIM = "Invalid swap claim.";
     public static String CLAIM_EXPIRED = "Claim is expired.";
     public static String CLAIM_ALREADY_USED = "Claim is already used.";
+    public static String INVALID_MAX_HOPS = MessageFormat.format("maxHops must be set between 1 and {0}",
+            ServiceConstants.MAX_ROUTE_HOPS);
+    public static String NO_ROUTE = "No route of liquidity pools exists between these assets.";
+    public static String INVALID_BATCH_SIZE = MessageFormat.format("Between 1 and {0} swap requests must be provided.",
+            ServiceConstants.MAX_SWAP_REQUESTS_PER_BATCH);
+    public static String INVALID_QUOTE_LADDER_SIZE = MessageFormat.format("Between 1 and {0} in amounts must be provided.",
+            ServiceConstants.MAX_QUOTE_LADDER_SIZE);
+    public static String ASSET_NOT_IN_POOL = "Asset is not in this liquidity pool.";
 }
@@ -10,4 +10,29 @@ public final class ServiceConstants {
     public static int MAX_SUPPLY = 1000000;
 
     public static String LIQUIDITY_POOL_PATH_PARAMETER_NAME = "poolName";
+
+    /**
+     * Settling swaps against a pool which was updated concurrently is retried with jittered exponential backoff.
+     * Swaps are written in chunks so each DynamoDB transaction stays within the 25 item limit (24 swaps + the pool).
+     */
+    public static final int POOL_UPDATE_MAX_ATTEMPTS = 5;
+    public static final long POOL_UPDATE_BACKOFF_BASE_MILLIS = 10;
+    public static final long POOL_UPDATE_BACKOFF_MAX_MILLIS = 200;
+    public static final int MAX_SWAPS_PER_POOL_WRITE = 24;
+
+    /**
+     * Maximum number of pools a swap can be routed through. Each hop multiplies the routes searched by the number of
+     * assets, and a routed swap is written as one DynamoDB transaction of (hops + 1) items.
+     */
+    public static final int MAX_ROUTE_HOPS = 3;
+
+    /**
+     * Maximum number of swap requests in one EstimateSwapBatch call.
+     */
+    public static final int MAX_SWAP_REQUESTS_PER_BATCH = 100;
+
+    /**
+     * Maximum number of in amounts quoted in one GetQuoteLadder call.
+     */
+    public static final int MAX_QUOTE_LADDER_SIZE = 1000;
 }
@@ -0,0 +1,38 @@
+package com.logic;
+
+/**
+ * Arithmetic MarketMakerLogic prices swaps and settles pool state in, set with the environment variable
+ * PRICING_ARITHMETIC_MODE (double or fixed-point). Defaults to DOUBLE.
+ * <p>
+ * DOUBLE - ConstantProductKernel on doubles, where each settlement can drift the product of the reserves by rounding
+ * FIXED_POINT - FixedPointKernel on scaled longs, where amounts and prices are rounded to SCALE_DIGITS decimals and
+ * each settlement can only grow the product of the reserves
+ */
+public enum ArithmeticMode {
+    DOUBLE("double"),
+    FIXED_POINT("fixed-point");
+
+    private final String name;
+
+    ArithmeticMode(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name
+     * @return the ArithmeticMode with the given name
+     * @throws IllegalArgumentException if there is none
+     */
+    public static ArithmeticMode fromName(final String name) {
+        for (final ArithmeticMode arithmeticMode : values()) {
+            if (arithmeticMode.name.equals(name)) {
+                return arithmeticMode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown arithmetic mode: " + name);
+    }
+}
@@ -0,0 +1,94 @@
+package com.logic;
+
+/**
+ * Constant product pricing on primitive doubles. Takes reserves and prices as arguments and returns a single value per
+ * call, so nothing is boxed or allocated. MarketMakerLogic adapts the LiquidityPool / SwapEstimate models onto these
+ * functions.
+ */
+public final class ConstantProductKernel {
+
+    private ConstantProductKernel() {
+    }
+
+    /**
+     * Calculates the amount of the out asset received for swapping inAmount of the in asset, maintaining a constant
+     * k = marketCap * marketCap.
+     *
+     * @param inReserve amount of the in asset in the pool
+     * @param inPrice   price of the in asset
+     * @param outPrice  price of the out asset
+     * @param inAmount  amount of the in asset being swapped in
+     * @return amount of the out asset
+     */
+    public static double amountOut(final double inReserve, final double inPrice,
+                                   final double outPrice, final double inAmount) {
+        // calculate constant k to maintain
+        final double constantMarketCap = inReserve * inPrice;
+        final double k = constantMarketCap * constantMarketCap;
+
+        // use constant k to determine amount out from the market cap being added
+        final double newMarketCapIn = constantMarketCap + inAmount * inPrice;
+        final double newMarketCapOut = k / newMarketCapIn;
+        return (constantMarketCap - newMarketCapOut) / outPrice;
+    }
+
+    /**
+     * Calculates the reserve of an asset of the pool after a swap. The in amount is added to the reserve of the in
+     * asset, and the amount out is taken from the reserve of the out asset.
+     *
+     * @param reserve   amount of the asset in the pool
+     * @param inAsset   whether the asset is the in asset of the swap, otherwise it is the out asset
+     * @param inAmount  amount of the in asset being swapped in
+     * @param amountOut amount of the out asset being swapped out
+     * @return new amount of the asset in the pool
+     */
+    public static double newReserve(final double reserve, final boolean inAsset,
+                                    final double inAmount, final double amountOut) {
+        return inAsset ? reserve + inAmount : reserve - amountOut;
+    }
+
+    /**
+     * Prices a ladder of swap sizes against the same pool in one pass, writing the results into the given arrays at the
+     * same index as each in amount. The market cap is computed once, and the loop body has no branches, calls or
+     * allocations, so the JIT can unroll / vectorize it.
+     * <p>
+     * With C = inReserve * inPrice and spot = inPrice / outPrice (out asset received per in asset for an infinitely
+     * small swap), the constant product gives an effective price of C * spot / (C + inAmount * inPrice). The amount out
+     * is inAmount times that, which matches amountOut up to rounding, and the price impact is 1 - effective / spot.
+     *
+     * @param inReserve       amount of the in asset in the pool
+     * @param inPrice         price of the in asset
+     * @param outPrice        price of the out asset
+     * @param inAmounts       amounts of the in asset to price
+     * @param amountsOut      output, amount of the out asset for each in amount
+     * @param effectivePrices output, amount of the out asset received per in asset for each in amount
+     * @param priceImpacts    output, fraction by which each effective price is below the spot price
+     */
+    public static void quoteLadder(final double inReserve, final double inPrice, final double outPrice,
+                                   final double[] inAmounts, final double[] amountsOut,
+                                   final double[] effectivePrices, final double[] priceImpacts) {
+        final double constantMarketCap = inReserve * inPrice;
+        final double spotPrice = inPrice / outPrice;
+        final double spotMarketCap = constantMarketCap * spotPrice;
+        for (int i = 0; i < inAmounts.length; i++) {
+            final double inAmount = inAmounts[i];
+            final double marketCapIn = inAmount * inPrice;
+            final double newMarketCapIn = constantMarketCap + marketCapIn;
+            final double effectivePrice = spotMarketCap / newMarketCapIn;
+            effectivePrices[i] = effectivePrice;
+            amountsOut[i] = inAmount * effectivePrice;
+            priceImpacts[i] = marketCapIn / newMarketCapIn;
+        }
+    }
+
+    /**
+     * Calculates the price of an asset such that its market cap stays constant at the new reserve.
+     *
+     * @param constantMarketCap market cap to maintain
+     * @param newReserve        amount of the asset in the pool after the swap
+     * @return new price of the asset
+     */
+    public static double priceForReserve(final double constantMarketCap, final double newReserve) {
+        return constantMarketCap / newReserve;
+    }
+}
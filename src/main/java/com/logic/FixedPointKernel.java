@@ -0,0 +1,270 @@
+package com.logic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Constant product pricing in fixed point, the exact counterpart of ConstantProductKernel. Amounts and prices are
+ * longs scaled by SCALE (micro units, ex - 1.5 is 1500000). The amount out is rounded down, in favour of the pool, so
+ * that swaps can only grow the product of its reserves, by at most a unit in the last place. Prices follow from the
+ * reserves and are rounded to the nearest.
+ * <p>
+ * Products of two scaled values are kept in 128 bits before dividing, so only results which don't fit a scaled long
+ * overflow. Those throw an ArithmeticException, and the same calculation is done by the BigDecimal functions of this
+ * class at the same scale and rounding.
+ */
+public final class FixedPointKernel {
+
+    public static final int SCALE_DIGITS = 6;
+    public static final long SCALE = 1_000_000L;
+
+    private static final double MAX_UNSCALED = Long.MAX_VALUE / (double) SCALE;
+    private static final long LOW_32_BITS = 0xFFFFFFFFL;
+    // below these, a quotient estimated in doubles is off by at most a few units, see multiplyDivide
+    private static final double MAX_ESTIMATED_QUOTIENT = 0x1p52;
+    private static final long MAX_ESTIMATED_DIVISOR = 1L << 59;
+    // bits of 2^52, a double whose mantissa holds integers below 2^52 exactly
+    private static final long TWO_52_BITS = Double.doubleToRawLongBits(0x1p52);
+    private static final long MAX_EXACT_MANTISSA = 1L << 52;
+
+    private FixedPointKernel() {
+    }
+
+    /**
+     * Scales a double to the nearest scaled long. A double which is a scaled long divided by SCALE (ex - the result of
+     * unscale) is scaled back to the same long, for values up to about 2 billion.
+     *
+     * @param value
+     * @return scaled value
+     * @throws ArithmeticException if the value does not fit a scaled long, or is not a number
+     */
+    public static long scale(final double value) {
+        if (!(Math.abs(value) < MAX_UNSCALED)) {
+            throw new ArithmeticException("Value does not fit in fixed point: " + value);
+        }
+        return Math.round(value * SCALE);
+    }
+
+    public static double unscale(final long scaledValue) {
+        return scaledValue / (double) SCALE;
+    }
+
+    public static BigDecimal toBigDecimal(final double value) {
+        return new BigDecimal(value).setScale(SCALE_DIGITS, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Calculates the amount of the out asset received for swapping inAmount of the in asset, as
+     * outReserve * inAmount / (inReserve + inAmount) rounded down. The same as ConstantProductKernel.amountOut for a
+     * pool whose assets have the same market cap, which pools are created with and settled to. This takes the out
+     * reserve rather than the prices, as prices rounded to the scale would not quite give the same market caps.
+     *
+     * @param inReserve  amount of the in asset in the pool, scaled
+     * @param outReserve amount of the out asset in the pool, scaled
+     * @param inAmount   amount of the in asset being swapped in, scaled
+     * @return amount of the out asset, scaled
+     * @throws ArithmeticException if a value is negative, or a result does not fit a scaled long
+     */
+    public static long amountOut(final long inReserve, final long outReserve, final long inAmount) {
+        return multiplyDivide(outReserve, inAmount, Math.addExact(inReserve, inAmount), RoundingMode.FLOOR);
+    }
+
+    public static BigDecimal amountOut(final BigDecimal inReserve, final BigDecimal outReserve,
+                                       final BigDecimal inAmount) {
+        return multiplyDivide(outReserve, inAmount, inReserve.add(inAmount), RoundingMode.FLOOR);
+    }
+
+    /**
+     * Calculates the reserve of an asset of the pool after a swap, the same as ConstantProductKernel.newReserve. Exact,
+     * as the amounts are already at the scale.
+     *
+     * @param reserve   amount of the asset in the pool, scaled
+     * @param inAsset   whether the asset is the in asset of the swap, otherwise it is the out asset
+     * @param inAmount  amount of the in asset being swapped in, scaled
+     * @param amountOut amount of the out asset being swapped out, scaled
+     * @return new amount of the asset in the pool, scaled
+     * @throws ArithmeticException if the result does not fit a long
+     */
+    public static long newReserve(final long reserve, final boolean inAsset,
+                                  final long inAmount, final long amountOut) {
+        return inAsset ? Math.addExact(reserve, inAmount) : Math.subtractExact(reserve, amountOut);
+    }
+
+    public static BigDecimal newReserve(final BigDecimal reserve, final boolean inAsset,
+                                        final BigDecimal inAmount, final BigDecimal amountOut) {
+        return inAsset ? reserve.add(inAmount) : reserve.subtract(amountOut);
+    }
+
+    /**
+     * Calculates the price of an asset such that the market cap reserve * price stays constant at the new reserve,
+     * the same as ConstantProductKernel.priceForReserve, rounded to the nearest.
+     *
+     * @param reserve    amount of the asset the market cap is of, scaled
+     * @param price      price of the asset the market cap is of, scaled
+     * @param newReserve amount of the asset in the pool after the swap, scaled
+     * @return new price of the asset, scaled
+     * @throws ArithmeticException if a value is negative, or a result does not fit a scaled long
+     */
+    public static long priceForReserve(final long reserve, final long price, final long newReserve) {
+        return multiplyDivide(reserve, price, newReserve, RoundingMode.HALF_UP);
+    }
+
+    public static BigDecimal priceForReserve(final BigDecimal reserve, final BigDecimal price,
+                                             final BigDecimal newReserve) {
+        return multiplyDivide(reserve, price, newReserve, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Calculates a * b / c of scaled values, where a * b is kept in 128 bits.
+     * <p>
+     * Quotients below 2^52 (results up to about 4.5 billion) are estimated in doubles and corrected rather than found
+     * by long division. The estimate is off by at most a few units, so the remainder of a * b by it is within a few c
+     * of 0. That fits a long, and as the 128 bit difference is that small, it is the difference of the low 64 bits of
+     * the two products alone. Moving the estimate until the remainder is in [0, c) gives the exact quotient and
+     * remainder, the same as the long division.
+     *
+     * @param a            not negative
+     * @param b            not negative
+     * @param c            positive
+     * @param roundingMode FLOOR, CEILING or HALF_UP
+     * @return result, scaled
+     * @throws ArithmeticException if a value is out of range, or the result does not fit a scaled long
+     */
+    static long multiplyDivide(final long a, final long b, final long c, final RoundingMode roundingMode) {
+        if (a < 0 || b < 0 || c <= 0) {
+            throw operandsOutOfRange(a, b, c);
+        }
+        // a * b is scaled by SCALE twice, so dividing it by the scaled c leaves the result scaled once
+        final double estimate = toDouble(a) * toDouble(b) / toDouble(c);
+        if (!(estimate < MAX_ESTIMATED_QUOTIENT) || c >= MAX_ESTIMATED_DIVISOR) {
+            return multiplyDivideWide(a, b, c, roundingMode);
+        }
+        long quotient = (long) estimate;
+        long remainder = a * b - quotient * c;
+        while (remainder < 0) {
+            quotient--;
+            remainder += c;
+        }
+        while (remainder >= c) {
+            quotient++;
+            remainder -= c;
+        }
+        // below 2^52, so rounding up can't overflow
+        return roundUp(remainder, c, roundingMode) ? quotient + 1 : quotient;
+    }
+
+    static BigDecimal multiplyDivide(final BigDecimal a, final BigDecimal b, final BigDecimal c,
+                                     final RoundingMode roundingMode) {
+        return a.multiply(b).divide(c, SCALE_DIGITS, roundingMode);
+    }
+
+    /**
+     * multiplyDivide by long division of the 128 bit product, kept apart so that multiplyDivide is small enough to
+     * inline.
+     */
+    private static long multiplyDivideWide(final long a, final long b, final long c, final RoundingMode roundingMode) {
+        final long high = multiplyHigh(a, b);
+        final long low = a * b;
+        if (high >= c) {
+            throw resultOverflows(a, b, c);
+        }
+        final long quotient = divideUnsigned(high, low, c);
+        final boolean roundUp = roundUp(low - quotient * c, c, roundingMode);
+        if (quotient < 0 || roundUp && quotient == Long.MAX_VALUE) {
+            throw resultOverflows(a, b, c);
+        }
+        return roundUp ? quotient + 1 : quotient;
+    }
+
+    /**
+     * Returns whether a quotient is rounded up, given the unsigned remainder of its division by divisor.
+     */
+    private static boolean roundUp(final long remainder, final long divisor, final RoundingMode roundingMode) {
+        if (roundingMode == RoundingMode.FLOOR) {
+            return false;
+        } else if (roundingMode == RoundingMode.CEILING) {
+            return remainder != 0;
+        } else if (roundingMode == RoundingMode.HALF_UP) {
+            return Long.compareUnsigned(remainder, divisor - remainder) >= 0;
+        }
+        throw new IllegalArgumentException("Unsupported rounding mode: " + roundingMode);
+    }
+
+    private static ArithmeticException operandsOutOfRange(final long a, final long b, final long c) {
+        return new ArithmeticException("Fixed point operands out of range: " + a + ", " + b + ", " + c);
+    }
+
+    private static ArithmeticException resultOverflows(final long a, final long b, final long c) {
+        return new ArithmeticException("Fixed point result overflows: " + a + " * " + b + " / " + c);
+    }
+
+    /**
+     * Converts a long which is not negative to the nearest double, the same as a cast. The cast is done by an x86
+     * instruction which also depends on the last value of the register it writes, so that one estimate of
+     * multiplyDivide waits on the last one; this sets the long as the mantissa of a double instead, or its halves
+     * added rounding once, if it is 2^52 or more.
+     */
+    static double toDouble(final long value) {
+        if (value < MAX_EXACT_MANTISSA) {
+            return Double.longBitsToDouble(TWO_52_BITS | value) - 0x1p52;
+        }
+        final double high = Double.longBitsToDouble(TWO_52_BITS | value >>> 32) - 0x1p52;
+        final double low = Double.longBitsToDouble(TWO_52_BITS | value & LOW_32_BITS) - 0x1p52;
+        return high * 0x1p32 + low;
+    }
+
+    /**
+     * High 64 bits of the 128 bit product of two longs which are not negative, as Math.multiplyHigh of Java 9.
+     */
+    private static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >>> 32;
+        final long x2 = x & LOW_32_BITS;
+        final long y1 = y >>> 32;
+        final long y2 = y & LOW_32_BITS;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & LOW_32_BITS;
+        final long z0 = t >>> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >>> 32);
+    }
+
+    /**
+     * Divides the unsigned 128 bit value high:low by divisor, where high < divisor so that the quotient fits in 64
+     * bits. Long division in base 2^32 with a normalized divisor (Knuth's algorithm D, as divlu in Hacker's Delight).
+     */
+    private static long divideUnsigned(final long high, final long low, final long divisor) {
+        final int shift = Long.numberOfLeadingZeros(divisor);
+        final long normalizedDivisor = divisor << shift;
+        final long divisorHigh = normalizedDivisor >>> 32;
+        final long divisorLow = normalizedDivisor & LOW_32_BITS;
+        final long dividendHigh = shift == 0 ? high : high << shift | low >>> (64 - shift);
+        final long dividendLow = low << shift;
+        final long dividendLowHigh = dividendLow >>> 32;
+        final long dividendLowLow = dividendLow & LOW_32_BITS;
+
+        long quotientHigh = Long.divideUnsigned(dividendHigh, divisorHigh);
+        long remainderHat = dividendHigh - quotientHigh * divisorHigh;
+        while (quotientHigh > LOW_32_BITS
+                || Long.compareUnsigned(quotientHigh * divisorLow, remainderHat << 32 | dividendLowHigh) > 0) {
+            quotientHigh--;
+            remainderHat += divisorHigh;
+            if (remainderHat > LOW_32_BITS) {
+                break;
+            }
+        }
+
+        final long middle = (dividendHigh << 32 | dividendLowHigh) - quotientHigh * normalizedDivisor;
+        long quotientLow = Long.divideUnsigned(middle, divisorHigh);
+        remainderHat = middle - quotientLow * divisorHigh;
+        while (quotientLow > LOW_32_BITS
+                || Long.compareUnsigned(quotientLow * divisorLow, remainderHat << 32 | dividendLowLow) > 0) {
+            quotientLow--;
+            remainderHat += divisorHigh;
+            if (remainderHat > LOW_32_BITS) {
+                break;
+            }
+        }
+        return quotientHigh << 32 | quotientLow;
+    }
+}
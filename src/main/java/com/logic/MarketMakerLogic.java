@@ -1,21 +1,92 @@
 package com.logic;
 
+import com.config.ErrorMessages;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import com.metrics.Timer;
 import com.model.LiquidityPool;
 import com.model.PriceAmount;
+import com.model.QuoteLadder;
 import com.model.SwapEstimate;
 import com.model.SwapRequest;
-import com.util.LiquidityPoolUtil;
+import com.model.exception.InvalidInputException;
+import com.model.types.Asset;
+import com.util.EnvironmentUtil;
+import com.util.PayloadLogSampler;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * Class for business logic of automated market maker logic.
+ * Class for business logic of automated market maker logic. The pricing itself is done on primitives by
+ * ConstantProductKernel, or FixedPointKernel in the FIXED_POINT ArithmeticMode; this class maps the models onto it.
+ * Quote ladders and the route search are priced in doubles in either mode. Swaps routed through several pools are
+ * searched on a PoolGraph, which is kept for as long as the same list of pools is passed in.
+ * <p>
+ * Every settlement checks the invariant of the pool, that the product of its reserves is unchanged. A relative drift
+ * beyond the threshold (environment variable INVARIANT_DRIFT_THRESHOLD, defaults to 1e-9) is counted and logged at
+ * ERROR.
  */
 @Slf4j
 public class MarketMakerLogic {
 
+    private static final Asset[] ASSETS = Asset.values();
+    private static final ArithmeticMode DEFAULT_ARITHMETIC_MODE = ArithmeticMode.fromName(
+            EnvironmentUtil.getString("PRICING_ARITHMETIC_MODE", ArithmeticMode.DOUBLE.getName()));
+    private static final double DEFAULT_INVARIANT_DRIFT_THRESHOLD =
+            EnvironmentUtil.getDouble("INVARIANT_DRIFT_THRESHOLD", 1e-9d);
+    private static final Counter INVARIANT_DRIFT_COUNTER = Metrics.counter("MarketMakerLogic.invariantDrift");
+    private static final Counter FIXED_POINT_OVERFLOW_COUNTER =
+            Metrics.counter("MarketMakerLogic.fixedPointOverflow");
+    private static final Timer APPLY_SWAP_ESTIMATE_TO_POOL_TIMER =
+            Metrics.timer("MarketMakerLogic.applySwapEstimateToPool");
+    private static final Timer CREATE_SWAP_ESTIMATE_TIMER = Metrics.timer("MarketMakerLogic.createSwapEstimate");
+    private static final Timer CREATE_QUOTE_LADDER_TIMER = Metrics.timer("MarketMakerLogic.createQuoteLadder");
+    private static final Timer CREATE_BEST_SWAP_ESTIMATE_TIMER =
+            Metrics.timer("MarketMakerLogic.createBestSwapEstimate");
+
+    private final ArithmeticMode arithmeticMode;
+    private final double invariantDriftThreshold;
+    private volatile PoolGraph poolGraph;
+
+    public MarketMakerLogic() {
+        this(DEFAULT_ARITHMETIC_MODE, DEFAULT_INVARIANT_DRIFT_THRESHOLD);
+    }
+
+    /**
+     * @param arithmeticMode
+     * @param invariantDriftThreshold relative drift of the product of the reserves a settlement may cause
+     */
+    public MarketMakerLogic(@NonNull final ArithmeticMode arithmeticMode, final double invariantDriftThreshold) {
+        this.arithmeticMode = arithmeticMode;
+        this.invariantDriftThreshold = invariantDriftThreshold;
+    }
+
+    public ArithmeticMode getArithmeticMode() {
+        return arithmeticMode;
+    }
+
+    /**
+     * Returns the pool as this logic prices it, which in the FIXED_POINT ArithmeticMode is an equal pool with its
+     * assets scaled (see ScaledPriceAmount), so that a pool priced for many swaps (ex - cached) is scaled once rather
+     * than on every swap. Assets which don't fit a scaled long are kept as they are, and are priced in BigDecimal.
+     *
+     * @param liquidityPool
+     * @return LiquidityPool
+     */
+    public LiquidityPool preparePool(@NonNull final LiquidityPool liquidityPool) {
+        if (arithmeticMode != ArithmeticMode.FIXED_POINT) {
+            return liquidityPool;
+        }
+        return new LiquidityPool(liquidityPool.getPoolName(),
+                toScaled(liquidityPool.getAssetOne()), toScaled(liquidityPool.getAssetTwo()),
+                liquidityPool.getCreatedTime(), liquidityPool.getUpdatedTime(), liquidityPool.getVersion(),
+                liquidityPool.getEventSequenceNumber());
+    }
 
     /**
      * Given a SwapEstimate and LiquidityPool, constructs a new LiquidityPool with the SwapEstimate applied.
@@ -25,32 +96,42 @@ public class MarketMakerLogic {
      */
     public LiquidityPool applySwapEstimateToPool(@NonNull final SwapEstimate swapEstimate,
                                                  @NonNull final LiquidityPool liquidityPool) {
-        // create a new pool to return
-        final LiquidityPool newLiquidityPool = new LiquidityPool();
-        newLiquidityPool.setPoolName(liquidityPool.getPoolName());
-        PriceAmount newPriceAmountOne = new PriceAmount();
-        PriceAmount newPriceAmountTwo = new PriceAmount();
-
-        // create map to access assetName to assetInfo to get details about asset being swapped in / out
-        Map<String, PriceAmount> nameToAssetAmountMap = LiquidityPoolUtil.getAssetNameToPriceAmountMap(liquidityPool);
-        String assetNameOne = nameToAssetAmountMap.entrySet().iterator().next().getKey();
-
-        // depending on order, make the swap in amount / supply
-        if (swapEstimate.getInName().equals(assetNameOne)) {
-            newPriceAmountOne.setAmount(liquidityPool.getAssetOne().getAmount() + swapEstimate.getInPriceAmount().getAmount());
-            newPriceAmountTwo.setAmount(liquidityPool.getAssetTwo().getAmount() - swapEstimate.getOutPriceAmount().getAmount());
-        } else {
-            newPriceAmountOne.setAmount(liquidityPool.getAssetOne().getAmount() - swapEstimate.getInPriceAmount().getAmount());
-            newPriceAmountTwo.setAmount(liquidityPool.getAssetTwo().getAmount() + swapEstimate.getInPriceAmount().getAmount());
-        }
+        final long startNanos = System.nanoTime();
+        try {
+            final PriceAmount assetOne = liquidityPool.getAssetOne();
+            final PriceAmount assetTwo = liquidityPool.getAssetTwo();
+            final boolean assetOneIn = isAssetOne(swapEstimate.getInName(), swapEstimate.getOutName());
 
-        // maintain market cap and calculate the new expected prices
-        final Double constantMarketCapOne = liquidityPool.getAssetOne().getAmount() * liquidityPool.getAssetOne().getPrice();
-        newPriceAmountOne.setPrice(constantMarketCapOne / newPriceAmountOne.getAmount());
-        newPriceAmountTwo.setPrice(constantMarketCapOne / newPriceAmountTwo.getAmount());
-        newLiquidityPool.setAssetOne(newPriceAmountOne);
-        newLiquidityPool.setAssetTwo(newPriceAmountTwo);
-        return newLiquidityPool;
+            final LiquidityPool newLiquidityPool = new LiquidityPool();
+            newLiquidityPool.setPoolName(liquidityPool.getPoolName());
+            // carry over the version / last event read, so the write of the new state is conditional on it
+            newLiquidityPool.setVersion(liquidityPool.getVersion());
+            newLiquidityPool.setEventSequenceNumber(liquidityPool.getEventSequenceNumber());
+            final double invariantDrift;
+            if (arithmeticMode == ArithmeticMode.FIXED_POINT) {
+                invariantDrift = setAssetsInFixedPoint(newLiquidityPool, assetOne, assetTwo, assetOneIn,
+                        swapEstimate.getInPriceAmount(), swapEstimate.getOutPriceAmount());
+            } else {
+                final double inAmount = swapEstimate.getInPriceAmount().getAmount();
+                final double outAmount = swapEstimate.getOutPriceAmount().getAmount();
+                final double newAmountOne = ConstantProductKernel.newReserve(assetOne.getAmount(), assetOneIn,
+                        inAmount, outAmount);
+                final double newAmountTwo = ConstantProductKernel.newReserve(assetTwo.getAmount(), !assetOneIn,
+                        inAmount, outAmount);
+
+                // maintain market cap and calculate the new expected prices
+                final double constantMarketCapOne = assetOne.getAmount() * assetOne.getPrice();
+                newLiquidityPool.setAssetOne(new PriceAmount(
+                        ConstantProductKernel.priceForReserve(constantMarketCapOne, newAmountOne), newAmountOne));
+                newLiquidityPool.setAssetTwo(new PriceAmount(
+                        ConstantProductKernel.priceForReserve(constantMarketCapOne, newAmountTwo), newAmountTwo));
+                invariantDrift = getInvariantDrift(liquidityPool, newLiquidityPool);
+            }
+            checkInvariant(invariantDrift, liquidityPool, newLiquidityPool);
+            return newLiquidityPool;
+        } finally {
+            APPLY_SWAP_ESTIMATE_TO_POOL_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -62,38 +143,329 @@ public class MarketMakerLogic {
      */
     public SwapEstimate createSwapEstimate(@NonNull final LiquidityPool liquidityPool,
                                            @NonNull final SwapRequest swapRequest) {
-        // create map to access assetName to assetInfo to get details about asset being swapped in / out
-        Map<String, PriceAmount> nameToAssetAmountMap = LiquidityPoolUtil.getAssetNameToPriceAmountMap(liquidityPool);
-        PriceAmount assetInInfo = nameToAssetAmountMap.get(swapRequest.getInName());
-        PriceAmount assetOutInfo = nameToAssetAmountMap.get(swapRequest.getOutName());
-
-        // calculate constant k to maintain
-        Double constantMarketCap = assetInInfo.getAmount() * assetInInfo.getPrice();
-        Double k = constantMarketCap * constantMarketCap;
-
-        // calculate market cap being added
-        Double marketCapBeingSwappedIn = swapRequest.getInAmount() * assetInInfo.getPrice();
-        Double newMarketCapIn = constantMarketCap + marketCapBeingSwappedIn;
-
-        // use constant k to determine PriceAmount out
-        Double newMarketCapOut = k / newMarketCapIn;
-        Double marketCapChange = constantMarketCap - newMarketCapOut;
-        Double assetAmountOut = marketCapChange / assetOutInfo.getPrice();
-        Double assetOutNewPrice = constantMarketCap / newMarketCapOut * assetOutInfo.getPrice();
-
-        SwapEstimate swapEstimate = SwapEstimate.builder()
-                .inName(swapRequest.getInName())
-                .inPriceAmount(PriceAmount.builder()
-                        .amount(swapRequest.getInAmount())
-                        .price(assetInInfo.getPrice())
-                        .build())
-                .outName(swapRequest.getOutName())
-                .outPriceAmount(PriceAmount.builder()
-                        .amount(assetAmountOut)
-                        .price(assetOutNewPrice)
-                        .build())
-                .build();
-        log.info("Created swap estimate: {}", swapEstimate);
-        return swapEstimate;
+        final long startNanos = System.nanoTime();
+        try {
+            // pool assets are in alphabetical order, so the in asset is asset one if it sorts first
+            final PriceAmount assetInInfo;
+            final PriceAmount assetOutInfo;
+            if (isAssetOne(swapRequest.getInName(), swapRequest.getOutName())) {
+                assetInInfo = liquidityPool.getAssetOne();
+                assetOutInfo = liquidityPool.getAssetTwo();
+            } else {
+                assetInInfo = liquidityPool.getAssetTwo();
+                assetOutInfo = liquidityPool.getAssetOne();
+            }
+            final double inAmount = swapRequest.getInAmount();
+
+            final SwapEstimate swapEstimate;
+            if (arithmeticMode == ArithmeticMode.FIXED_POINT) {
+                swapEstimate = createSwapEstimateInFixedPoint(swapRequest.getInName(), swapRequest.getOutName(),
+                        assetInInfo, assetOutInfo, inAmount);
+            } else {
+                final double inReserve = assetInInfo.getAmount();
+                final double inPrice = assetInInfo.getPrice();
+                final double outReserve = assetOutInfo.getAmount();
+                final double outPrice = assetOutInfo.getPrice();
+                final double amountOut = ConstantProductKernel.amountOut(inReserve, inPrice, outPrice, inAmount);
+                // the out asset keeps its market cap at its new reserve, as when the swap is settled
+                final double newOutReserve = ConstantProductKernel.newReserve(outReserve, false, inAmount, amountOut);
+                swapEstimate = new SwapEstimate(
+                        swapRequest.getInName(),
+                        new PriceAmount(inPrice, inAmount),
+                        swapRequest.getOutName(),
+                        new PriceAmount(ConstantProductKernel.priceForReserve(outReserve * outPrice, newOutReserve),
+                                amountOut));
+            }
+            if (PayloadLogSampler.shouldLog(log)) {
+                log.info("Created swap estimate: {}", swapEstimate);
+            }
+            return swapEstimate;
+        } finally {
+            CREATE_SWAP_ESTIMATE_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Given a LiquidityPool, quotes swapping each of inAmounts of the in asset for the out asset of the pool, all
+     * against the same state of the pool. See ConstantProductKernel.quoteLadder.
+     *
+     * @param liquidityPool
+     * @param inName        name of the in asset, which must be an asset of the pool
+     * @param outName       name of the out asset, which must be the other asset of the pool
+     * @param inAmounts
+     * @return QuoteLadder
+     */
+    public QuoteLadder createQuoteLadder(@NonNull final LiquidityPool liquidityPool,
+                                         @NonNull final String inName,
+                                         @NonNull final String outName,
+                                         @NonNull final double[] inAmounts) {
+        final long startNanos = System.nanoTime();
+        try {
+            final PriceAmount assetInInfo;
+            final PriceAmount assetOutInfo;
+            if (isAssetOne(inName, outName)) {
+                assetInInfo = liquidityPool.getAssetOne();
+                assetOutInfo = liquidityPool.getAssetTwo();
+            } else {
+                assetInInfo = liquidityPool.getAssetTwo();
+                assetOutInfo = liquidityPool.getAssetOne();
+            }
+            final double[] amountsOut = new double[inAmounts.length];
+            final double[] effectivePrices = new double[inAmounts.length];
+            final double[] priceImpacts = new double[inAmounts.length];
+            ConstantProductKernel.quoteLadder(assetInInfo.getAmount(), assetInInfo.getPrice(), assetOutInfo.getPrice(),
+                    inAmounts, amountsOut, effectivePrices, priceImpacts);
+            return new QuoteLadder(inName, outName, assetInInfo.getPrice() / assetOutInfo.getPrice(),
+                    inAmounts, amountsOut, effectivePrices, priceImpacts);
+        } finally {
+            CREATE_QUOTE_LADDER_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Given all LiquidityPools and a SwapRequest, constructs the SwapEstimate for the route of at most maxHops pools
+     * which returns the most of the out asset. A route through a single pool returns the same SwapEstimate as
+     * createSwapEstimate, otherwise the SwapEstimate has one leg per pool, see getRoute.
+     *
+     * @param liquidityPools
+     * @param swapRequest
+     * @param maxHops
+     * @return SwapEstimate
+     * @throws InvalidInputException if no route of at most maxHops pools exists
+     */
+    public SwapEstimate createBestSwapEstimate(@NonNull final List<LiquidityPool> liquidityPools,
+                                               @NonNull final SwapRequest swapRequest,
+                                               final int maxHops) throws InvalidInputException {
+        final long startNanos = System.nanoTime();
+        try {
+            final PoolGraph graph = getPoolGraph(liquidityPools);
+            final int[] route = graph.findBestRoute(Asset.fromAssetName(swapRequest.getInName()).ordinal(),
+                    Asset.fromAssetName(swapRequest.getOutName()).ordinal(), swapRequest.getInAmount(), maxHops);
+            if (route == null) {
+                throw new InvalidInputException(ErrorMessages.NO_ROUTE);
+            }
+            if (route.length == 2) {
+                return createSwapEstimate(graph.getLiquidityPool(route[0], route[1]), swapRequest);
+            }
+            final List<LiquidityPool> liquidityPoolsAlongRoute = new ArrayList<>(route.length - 1);
+            final List<String> assetNames = new ArrayList<>(route.length);
+            for (int i = 0; i < route.length; i++) {
+                assetNames.add(ASSETS[route[i]].getName());
+                if (i > 0) {
+                    liquidityPoolsAlongRoute.add(graph.getLiquidityPool(route[i - 1], route[i]));
+                }
+            }
+            return createSwapEstimateAlongRoute(liquidityPoolsAlongRoute, assetNames, swapRequest.getInAmount());
+        } finally {
+            CREATE_BEST_SWAP_ESTIMATE_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Given the LiquidityPools along a route and the asset names of the route, constructs a SwapEstimate with one leg
+     * per pool. The out amount of each leg is swapped in to the next.
+     *
+     * @param liquidityPoolsAlongRoute one pool per hop, in order
+     * @param route                    asset names from the in asset to the out asset
+     * @param inAmount
+     * @return SwapEstimate
+     */
+    public SwapEstimate createSwapEstimateAlongRoute(@NonNull final List<LiquidityPool> liquidityPoolsAlongRoute,
+                                                     @NonNull final List<String> route,
+                                                     final double inAmount) {
+        if (route.size() != liquidityPoolsAlongRoute.size() + 1) {
+            throw new IllegalArgumentException("Route of " + route.size() + " assets needs "
+                    + (route.size() - 1) + " pools, got " + liquidityPoolsAlongRoute.size());
+        }
+        final List<SwapEstimate> legs = new ArrayList<>(liquidityPoolsAlongRoute.size());
+        double legInAmount = inAmount;
+        for (int i = 0; i < liquidityPoolsAlongRoute.size(); i++) {
+            final SwapRequest legRequest = new SwapRequest();
+            legRequest.setInName(route.get(i));
+            legRequest.setOutName(route.get(i + 1));
+            legRequest.setInAmount(legInAmount);
+            final SwapEstimate leg = createSwapEstimate(liquidityPoolsAlongRoute.get(i), legRequest);
+            legs.add(leg);
+            legInAmount = leg.getOutPriceAmount().getAmount();
+        }
+        return new SwapEstimate(route.get(0), legs.get(0).getInPriceAmount(),
+                route.get(route.size() - 1), legs.get(legs.size() - 1).getOutPriceAmount(), legs);
+    }
+
+    /**
+     * Returns the asset names a SwapEstimate is routed through, from the in asset to the out asset, or null if it is a
+     * swap in a single pool.
+     *
+     * @param swapEstimate
+     * @return List<String>
+     */
+    public static List<String> getRoute(@NonNull final SwapEstimate swapEstimate) {
+        if (swapEstimate.getLegs() == null) {
+            return null;
+        }
+        final List<String> route = new ArrayList<>(swapEstimate.getLegs().size() + 1);
+        route.add(swapEstimate.getInName());
+        for (final SwapEstimate leg : swapEstimate.getLegs()) {
+            route.add(leg.getOutName());
+        }
+        return Collections.unmodifiableList(route);
+    }
+
+    /**
+     * Returns the product of the reserves of a pool after a settlement relative to before it, minus one, so 0 while the
+     * invariant holds.
+     *
+     * @param liquidityPool    before the settlement
+     * @param newLiquidityPool after the settlement
+     * @return double
+     */
+    public static double getInvariantDrift(@NonNull final LiquidityPool liquidityPool,
+                                           @NonNull final LiquidityPool newLiquidityPool) {
+        return newLiquidityPool.getAssetOne().getAmount() * newLiquidityPool.getAssetTwo().getAmount()
+                / (liquidityPool.getAssetOne().getAmount() * liquidityPool.getAssetTwo().getAmount()) - 1;
+    }
+
+    private void checkInvariant(final double invariantDrift, final LiquidityPool liquidityPool,
+                                final LiquidityPool newLiquidityPool) {
+        if (!(Math.abs(invariantDrift) <= invariantDriftThreshold)) {
+            INVARIANT_DRIFT_COUNTER.increment();
+            log.error("Invariant drift of {} settling a swap in pool {}, from {} / {} to {} / {}.", invariantDrift,
+                    liquidityPool.getPoolName(), liquidityPool.getAssetOne(), liquidityPool.getAssetTwo(),
+                    newLiquidityPool.getAssetOne(), newLiquidityPool.getAssetTwo());
+        }
+    }
+
+    /**
+     * Prices a swap with FixedPointKernel, in BigDecimal if a value does not fit a scaled long. The in amount is
+     * rounded to the scale, so the estimate holds the amount which is settled. The estimate keeps its amounts scaled,
+     * see ScaledPriceAmount.
+     */
+    private static SwapEstimate createSwapEstimateInFixedPoint(final String inName, final String outName,
+                                                               final PriceAmount assetIn, final PriceAmount assetOut,
+                                                               final double inAmount) {
+        try {
+            final long inReserve = ScaledPriceAmount.scaledAmount(assetIn);
+            final long inPrice = ScaledPriceAmount.scaledPrice(assetIn);
+            final long outReserve = ScaledPriceAmount.scaledAmount(assetOut);
+            final long outPrice = ScaledPriceAmount.scaledPrice(assetOut);
+            final long scaledInAmount = FixedPointKernel.scale(inAmount);
+            final long amountOut = FixedPointKernel.amountOut(inReserve, outReserve, scaledInAmount);
+            final long newOutReserve = FixedPointKernel.newReserve(outReserve, false, scaledInAmount, amountOut);
+            return new SwapEstimate(
+                    inName,
+                    new ScaledPriceAmount(inPrice, scaledInAmount),
+                    outName,
+                    new ScaledPriceAmount(FixedPointKernel.priceForReserve(outReserve, outPrice, newOutReserve),
+                            amountOut));
+        } catch (ArithmeticException e) {
+            FIXED_POINT_OVERFLOW_COUNTER.increment();
+            return createSwapEstimateInBigDecimal(inName, outName, assetIn, assetOut, inAmount);
+        }
+    }
+
+    /**
+     * Prices a swap with the BigDecimal functions of FixedPointKernel, kept apart from createSwapEstimateInFixedPoint
+     * so that it is small enough to inline.
+     */
+    private static SwapEstimate createSwapEstimateInBigDecimal(final String inName, final String outName,
+                                                               final PriceAmount assetIn, final PriceAmount assetOut,
+                                                               final double inAmount) {
+        final BigDecimal exactInReserve = FixedPointKernel.toBigDecimal(assetIn.getAmount());
+        final BigDecimal exactInPrice = FixedPointKernel.toBigDecimal(assetIn.getPrice());
+        final BigDecimal exactOutReserve = FixedPointKernel.toBigDecimal(assetOut.getAmount());
+        final BigDecimal exactOutPrice = FixedPointKernel.toBigDecimal(assetOut.getPrice());
+        final BigDecimal exactInAmount = FixedPointKernel.toBigDecimal(inAmount);
+        final BigDecimal amountOut = FixedPointKernel.amountOut(exactInReserve, exactOutReserve, exactInAmount);
+        final BigDecimal newOutReserve = FixedPointKernel.newReserve(exactOutReserve, false, exactInAmount, amountOut);
+        return new SwapEstimate(
+                inName,
+                new PriceAmount(exactInPrice.doubleValue(), exactInAmount.doubleValue()),
+                outName,
+                new PriceAmount(FixedPointKernel.priceForReserve(exactOutReserve, exactOutPrice, newOutReserve)
+                        .doubleValue(), amountOut.doubleValue()));
+    }
+
+    /**
+     * Sets the assets of the pool after a swap with FixedPointKernel, in BigDecimal if a value does not fit a scaled
+     * long. The pool keeps its assets scaled, see ScaledPriceAmount.
+     *
+     * @return invariant drift of the settlement, as getInvariantDrift
+     */
+    private static double setAssetsInFixedPoint(final LiquidityPool newLiquidityPool,
+                                              final PriceAmount assetOne, final PriceAmount assetTwo,
+                                              final boolean assetOneIn,
+                                              final PriceAmount inPriceAmount, final PriceAmount outPriceAmount) {
+        try {
+            final long amountOne = ScaledPriceAmount.scaledAmount(assetOne);
+            final long priceOne = ScaledPriceAmount.scaledPrice(assetOne);
+            final long amountTwo = ScaledPriceAmount.scaledAmount(assetTwo);
+            final long inAmount = ScaledPriceAmount.scaledAmount(inPriceAmount);
+            final long outAmount = ScaledPriceAmount.scaledAmount(outPriceAmount);
+            final long newAmountOne = FixedPointKernel.newReserve(amountOne, assetOneIn, inAmount, outAmount);
+            final long newAmountTwo = FixedPointKernel.newReserve(amountTwo, !assetOneIn, inAmount, outAmount);
+            newLiquidityPool.setAssetOne(new ScaledPriceAmount(
+                    FixedPointKernel.priceForReserve(amountOne, priceOne, newAmountOne), newAmountOne));
+            newLiquidityPool.setAssetTwo(new ScaledPriceAmount(
+                    FixedPointKernel.priceForReserve(amountOne, priceOne, newAmountTwo), newAmountTwo));
+            return (double) newAmountOne * newAmountTwo / ((double) amountOne * amountTwo) - 1;
+        } catch (ArithmeticException e) {
+            FIXED_POINT_OVERFLOW_COUNTER.increment();
+            return setAssetsInBigDecimal(newLiquidityPool, assetOne, assetTwo, assetOneIn, inPriceAmount,
+                    outPriceAmount);
+        }
+    }
+
+    /**
+     * Sets the assets of the pool after a swap with the BigDecimal functions of FixedPointKernel, kept apart from
+     * setAssetsInFixedPoint so that it is small enough to inline.
+     */
+    private static double setAssetsInBigDecimal(final LiquidityPool newLiquidityPool,
+                                                final PriceAmount assetOne, final PriceAmount assetTwo,
+                                                final boolean assetOneIn,
+                                                final PriceAmount inPriceAmount, final PriceAmount outPriceAmount) {
+        final BigDecimal amountOne = FixedPointKernel.toBigDecimal(assetOne.getAmount());
+        final BigDecimal priceOne = FixedPointKernel.toBigDecimal(assetOne.getPrice());
+        final BigDecimal amountTwo = FixedPointKernel.toBigDecimal(assetTwo.getAmount());
+        final BigDecimal exactInAmount = FixedPointKernel.toBigDecimal(inPriceAmount.getAmount());
+        final BigDecimal exactOutAmount = FixedPointKernel.toBigDecimal(outPriceAmount.getAmount());
+        final BigDecimal newAmountOne = FixedPointKernel.newReserve(amountOne, assetOneIn, exactInAmount,
+                exactOutAmount);
+        final BigDecimal newAmountTwo = FixedPointKernel.newReserve(amountTwo, !assetOneIn, exactInAmount,
+                exactOutAmount);
+        newLiquidityPool.setAssetOne(new PriceAmount(
+                FixedPointKernel.priceForReserve(amountOne, priceOne, newAmountOne).doubleValue(),
+                newAmountOne.doubleValue()));
+        newLiquidityPool.setAssetTwo(new PriceAmount(
+                FixedPointKernel.priceForReserve(amountOne, priceOne, newAmountTwo).doubleValue(),
+                newAmountTwo.doubleValue()));
+        return newAmountOne.doubleValue() * newAmountTwo.doubleValue() / (assetOne.getAmount() * assetTwo.getAmount())
+                - 1;
+    }
+
+    private static PriceAmount toScaled(final PriceAmount priceAmount) {
+        if (priceAmount == null || priceAmount instanceof ScaledPriceAmount) {
+            return priceAmount;
+        }
+        try {
+            return new ScaledPriceAmount(priceAmount);
+        } catch (ArithmeticException e) {
+            return priceAmount;
+        }
+    }
+
+    private PoolGraph getPoolGraph(final List<LiquidityPool> liquidityPools) {
+        PoolGraph graph = poolGraph;
+        if (graph == null || !graph.isBuiltFrom(liquidityPools)) {
+            graph = new PoolGraph(liquidityPools);
+            poolGraph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * Returns whether the in asset is asset one of the pool, given that pool names order assets alphabetically.
+     */
+    private static boolean isAssetOne(final String inName, final String outName) {
+        return inName.compareTo(outName) < 0;
     }
 }
@@ -0,0 +1,199 @@
+package com.logic;
+
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.types.Asset;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Graph of assets (vertices) and liquidity pools (edges), used to route a swap through several pools when there is no
+ * pool between its in and out assets, or when a route through other pools returns more.
+ * <p>
+ * Everything needed for the route search is precomputed over Asset ordinals when the graph is built: the neighbours
+ * of each asset, the reserve / prices of each directed edge, and the minimum number of hops between every pair of
+ * assets. The search is then a depth first search over int ordinals with a bitmask of visited assets, which prices
+ * each candidate with ConstantProductKernel and skips any neighbour that cannot reach the out asset within the hops
+ * left. Nothing is allocated per edge visited.
+ * <p>
+ * A graph is immutable and is built from one list of pools, see isBuiltFrom.
+ */
+@Slf4j
+public final class PoolGraph {
+
+    private static final Asset[] ASSETS = Asset.values();
+    private static final int ASSET_COUNT = ASSETS.length;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final List<LiquidityPool> liquidityPools;
+    private final int[][] neighbours;
+    // per directed edge, indexed by in ordinal * ASSET_COUNT + out ordinal
+    private final LiquidityPool[] edgePools = new LiquidityPool[ASSET_COUNT * ASSET_COUNT];
+    private final double[] edgeInReserve = new double[ASSET_COUNT * ASSET_COUNT];
+    private final double[] edgeInPrice = new double[ASSET_COUNT * ASSET_COUNT];
+    private final double[] edgeOutPrice = new double[ASSET_COUNT * ASSET_COUNT];
+    // indexed the same way, the minimum number of pools between two assets
+    private final int[] minHops = new int[ASSET_COUNT * ASSET_COUNT];
+
+    public PoolGraph(final List<LiquidityPool> liquidityPools) {
+        this.liquidityPools = liquidityPools;
+        final boolean[][] adjacent = new boolean[ASSET_COUNT][ASSET_COUNT];
+        for (final LiquidityPool liquidityPool : liquidityPools) {
+            final String[] assetNames = liquidityPool.getPoolName().split("-");
+            final Asset assetOne = assetNames.length == 2 ? Asset.fromAssetName(assetNames[0]) : null;
+            final Asset assetTwo = assetNames.length == 2 ? Asset.fromAssetName(assetNames[1]) : null;
+            if (assetOne == null || assetTwo == null || assetOne == assetTwo) {
+                log.warn("Skipping liquidity pool with invalid name: {}", liquidityPool.getPoolName());
+                continue;
+            }
+            // pool names are in alphabetical order, so asset one of the pool is the first asset of the name
+            addEdge(assetOne.ordinal(), assetTwo.ordinal(), liquidityPool,
+                    liquidityPool.getAssetOne(), liquidityPool.getAssetTwo());
+            addEdge(assetTwo.ordinal(), assetOne.ordinal(), liquidityPool,
+                    liquidityPool.getAssetTwo(), liquidityPool.getAssetOne());
+            adjacent[assetOne.ordinal()][assetTwo.ordinal()] = true;
+            adjacent[assetTwo.ordinal()][assetOne.ordinal()] = true;
+        }
+
+        this.neighbours = new int[ASSET_COUNT][];
+        for (int asset = 0; asset < ASSET_COUNT; asset++) {
+            int count = 0;
+            final int[] assetNeighbours = new int[ASSET_COUNT];
+            for (int other = 0; other < ASSET_COUNT; other++) {
+                if (adjacent[asset][other]) {
+                    assetNeighbours[count++] = other;
+                }
+            }
+            neighbours[asset] = Arrays.copyOf(assetNeighbours, count);
+        }
+        computeMinHops();
+    }
+
+    /**
+     * Returns whether this graph was built from this exact list of pools (by identity), so a graph can be reused for
+     * as long as the same snapshot of pools is.
+     *
+     * @param liquidityPools
+     * @return boolean
+     */
+    public boolean isBuiltFrom(final List<LiquidityPool> liquidityPools) {
+        return this.liquidityPools == liquidityPools;
+    }
+
+    /**
+     * Returns the pool between two assets, or null if there is none.
+     *
+     * @param assetOrdinalOne
+     * @param assetOrdinalTwo
+     * @return LiquidityPool
+     */
+    public LiquidityPool getLiquidityPool(final int assetOrdinalOne, final int assetOrdinalTwo) {
+        return edgePools[assetOrdinalOne * ASSET_COUNT + assetOrdinalTwo];
+    }
+
+    /**
+     * Finds the route of at most maxHops pools which returns the most of the out asset for inAmount of the in asset.
+     * Between routes returning the same amount, the one with fewer hops is chosen.
+     *
+     * @param inOrdinal  ordinal of the in asset
+     * @param outOrdinal ordinal of the out asset
+     * @param inAmount   amount of the in asset
+     * @param maxHops    maximum number of pools to route through
+     * @return asset ordinals from the in asset to the out asset, or null if no route exists
+     */
+    public int[] findBestRoute(final int inOrdinal, final int outOrdinal, final double inAmount, final int maxHops) {
+        if (inOrdinal == outOrdinal || minHops[inOrdinal * ASSET_COUNT + outOrdinal] > maxHops) {
+            return null;
+        }
+        final RouteSearch search = new RouteSearch(outOrdinal, maxHops);
+        search.path[0] = inOrdinal;
+        search(search, inOrdinal, inAmount, 1, 1 << inOrdinal);
+        return search.bestLength == 0 ? null : Arrays.copyOf(search.bestPath, search.bestLength);
+    }
+
+    /**
+     * Extends the path ending at asset (which has pathLength assets, holding amount of that asset) by every neighbour
+     * which can still reach the out asset.
+     */
+    private void search(final RouteSearch search, final int asset, final double amount,
+                        final int pathLength, final int visited) {
+        final int hopsLeft = search.maxHops - pathLength;
+        for (final int next : neighbours[asset]) {
+            if ((visited & (1 << next)) != 0 || minHops[next * ASSET_COUNT + search.out] > hopsLeft) {
+                continue;
+            }
+            final int edge = asset * ASSET_COUNT + next;
+            final double nextAmount = ConstantProductKernel.amountOut(
+                    edgeInReserve[edge], edgeInPrice[edge], edgeOutPrice[edge], amount);
+            if (!(nextAmount > 0)) {
+                continue;
+            }
+            search.path[pathLength] = next;
+            if (next == search.out) {
+                final int length = pathLength + 1;
+                if (nextAmount > search.bestAmount
+                        || (nextAmount == search.bestAmount && length < search.bestLength)) {
+                    search.bestAmount = nextAmount;
+                    search.bestLength = length;
+                    System.arraycopy(search.path, 0, search.bestPath, 0, length);
+                }
+            } else {
+                search(search, next, nextAmount, pathLength + 1, visited | (1 << next));
+            }
+        }
+    }
+
+    private void addEdge(final int in, final int out, final LiquidityPool liquidityPool,
+                         final PriceAmount inPriceAmount, final PriceAmount outPriceAmount) {
+        final int edge = in * ASSET_COUNT + out;
+        edgePools[edge] = liquidityPool;
+        edgeInReserve[edge] = inPriceAmount.getAmount();
+        edgeInPrice[edge] = inPriceAmount.getPrice();
+        edgeOutPrice[edge] = outPriceAmount.getPrice();
+    }
+
+    /**
+     * Breadth first search from every asset. There are few assets, so this is cheap next to loading the pools.
+     */
+    private void computeMinHops() {
+        Arrays.fill(minHops, UNREACHABLE);
+        final int[] queue = new int[ASSET_COUNT];
+        for (int from = 0; from < ASSET_COUNT; from++) {
+            minHops[from * ASSET_COUNT + from] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = from;
+            while (head < tail) {
+                final int asset = queue[head++];
+                final int hops = minHops[from * ASSET_COUNT + asset];
+                for (final int next : neighbours[asset]) {
+                    if (minHops[from * ASSET_COUNT + next] == UNREACHABLE) {
+                        minHops[from * ASSET_COUNT + next] = hops + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * State of a single route search: the path being explored and the best complete route so far.
+     */
+    private static final class RouteSearch {
+        private final int out;
+        private final int maxHops;
+        private final int[] path;
+        private final int[] bestPath;
+        private double bestAmount;
+        private int bestLength;
+
+        private RouteSearch(final int out, final int maxHops) {
+            this.out = out;
+            this.maxHops = maxHops;
+            this.path = new int[maxHops + 1];
+            this.bestPath = new int[maxHops + 1];
+        }
+    }
+}
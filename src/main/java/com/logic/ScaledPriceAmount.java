@@ -0,0 +1,97 @@
+package com.logic;
+
+import com.model.PriceAmount;
+
+/**
+ * PriceAmount priced in the FIXED_POINT ArithmeticMode, which keeps its price and amount as longs scaled by
+ * FixedPointKernel.SCALE. A pool or estimate priced in fixed point is priced or settled again from the scaled values,
+ * without scaling its doubles, and the doubles are only unscaled when they are first read. It is equal to the
+ * PriceAmount of the same price and amount.
+ * <p>
+ * A PriceAmount scaled to price a pool in fixed point keeps its doubles, which may have more digits than the scale.
+ */
+final class ScaledPriceAmount extends PriceAmount {
+
+    private long scaledPrice;
+    private long scaledAmount;
+
+    ScaledPriceAmount(final long scaledPrice, final long scaledAmount) {
+        this.scaledPrice = scaledPrice;
+        this.scaledAmount = scaledAmount;
+    }
+
+    /**
+     * @param priceAmount
+     * @throws ArithmeticException if the price or amount does not fit a scaled long
+     */
+    ScaledPriceAmount(final PriceAmount priceAmount) {
+        super(priceAmount.getPrice(), priceAmount.getAmount());
+        this.scaledPrice = FixedPointKernel.scale(priceAmount.getPrice());
+        this.scaledAmount = FixedPointKernel.scale(priceAmount.getAmount());
+    }
+
+    /**
+     * Returns the price of a PriceAmount scaled, without scaling it if it was priced in fixed point.
+     *
+     * @param priceAmount
+     * @return scaled price
+     * @throws ArithmeticException if the price does not fit a scaled long
+     */
+    static long scaledPrice(final PriceAmount priceAmount) {
+        return priceAmount instanceof ScaledPriceAmount
+                ? ((ScaledPriceAmount) priceAmount).scaledPrice
+                : FixedPointKernel.scale(priceAmount.getPrice());
+    }
+
+    /**
+     * Returns the amount of a PriceAmount scaled, without scaling it if it was priced in fixed point.
+     *
+     * @param priceAmount
+     * @return scaled amount
+     * @throws ArithmeticException if the amount does not fit a scaled long
+     */
+    static long scaledAmount(final PriceAmount priceAmount) {
+        return priceAmount instanceof ScaledPriceAmount
+                ? ((ScaledPriceAmount) priceAmount).scaledAmount
+                : FixedPointKernel.scale(priceAmount.getAmount());
+    }
+
+    @Override
+    public Double getPrice() {
+        // unscaling again on a race gives the same value
+        Double price = super.getPrice();
+        if (price == null) {
+            price = FixedPointKernel.unscale(scaledPrice);
+            super.setPrice(price);
+        }
+        return price;
+    }
+
+    @Override
+    public Double getAmount() {
+        Double amount = super.getAmount();
+        if (amount == null) {
+            amount = FixedPointKernel.unscale(scaledAmount);
+            super.setAmount(amount);
+        }
+        return amount;
+    }
+
+    /**
+     * @throws ArithmeticException if the price does not fit a scaled long
+     */
+    @Override
+    public void setPrice(final Double price) {
+        scaledPrice = FixedPointKernel.scale(price);
+        super.setPrice(price);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount does not fit a scaled long
+     */
+    @Override
+    public void setAmount(final Double amount) {
+        scaledAmount = FixedPointKernel.scale(amount);
+        super.setAmount(amount);
+    }
+}
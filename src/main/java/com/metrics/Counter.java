@@ -0,0 +1,36 @@
+package com.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events (ex - cache hits) on a LongAdder, which stripes the count across cells so concurrent increments don't
+ * contend. Get a counter with Metrics.counter and keep it in a static field.
+ */
+public final class Counter {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    Counter(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(final long value) {
+        count.add(value);
+    }
+
+    /**
+     * Returns the count since the previous call.
+     */
+    long getIntervalCount() {
+        return count.sumThenReset();
+    }
+}
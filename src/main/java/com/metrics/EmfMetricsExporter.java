@@ -0,0 +1,210 @@
+package com.metrics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.util.ObjectMapperUtil;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes metrics as CloudWatch Embedded Metric Format (EMF) log lines to stdout. CloudWatch Logs extracts the metrics
+ * from the log group of the Lambda, so no call to CloudWatch is made. The lines are written straight to stdout rather
+ * than through log4j, as EMF needs the line to be the JSON document alone.
+ * <p>
+ * Each timer is published as the distribution of its latencies in microseconds, as the Values and Counts arrays of the
+ * HdrHistogram buckets, rather than as percentiles of this one environment. CloudWatch merges the distributions of
+ * every environment, so percentiles (ex - p99) of the metric are computed over the whole fleet. Each counter is
+ * published as a count. All metrics have the FunctionName dimension. EMF allows at most 100 metrics per line, so
+ * larger intervals are split across lines, and at most 100 values per metric, so a histogram with more buckets is
+ * merged into 100 buckets of geometrically increasing width.
+ */
+public class EmfMetricsExporter implements MetricsExporter {
+
+    static final int MAX_METRICS_PER_LINE = 100;
+    static final int MAX_VALUES_PER_METRIC = 100;
+    private static final String FUNCTION_NAME_DIMENSION = "FunctionName";
+    private static final String COUNT = "Count";
+    private static final String MICROSECONDS = "Microseconds";
+    private static final double NANOS_PER_MICRO = 1000d;
+
+    private final String namespace;
+    private final String functionName;
+    private final PrintStream out;
+
+    public EmfMetricsExporter(final String namespace, final String functionName, final PrintStream out) {
+        this.namespace = namespace;
+        this.functionName = functionName;
+        this.out = out;
+    }
+
+    @Override
+    public void export(final MetricsSnapshot snapshot) {
+        final List<Metric> metrics = new ArrayList<>();
+        for (final Map.Entry<String, Histogram> entry : snapshot.getTimers().entrySet()) {
+            metrics.add(new Metric(entry.getKey(), MICROSECONDS, 0, toDistribution(entry.getValue())));
+        }
+        for (final Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+            metrics.add(new Metric(entry.getKey(), COUNT, entry.getValue(), null));
+        }
+        for (int from = 0; from < metrics.size(); from += MAX_METRICS_PER_LINE) {
+            out.println(toLine(snapshot.getEndMillis(),
+                    metrics.subList(from, Math.min(from + MAX_METRICS_PER_LINE, metrics.size()))));
+        }
+    }
+
+    private String toLine(final long timestamp, final List<Metric> metrics) {
+        final StringWriter line = new StringWriter();
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("_aws");
+            generator.writeNumberField("Timestamp", timestamp);
+            generator.writeArrayFieldStart("CloudWatchMetrics");
+            generator.writeStartObject();
+            generator.writeStringField("Namespace", namespace);
+            generator.writeArrayFieldStart("Dimensions");
+            generator.writeStartArray();
+            generator.writeString(FUNCTION_NAME_DIMENSION);
+            generator.writeEndArray();
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("Metrics");
+            for (final Metric metric : metrics) {
+                generator.writeStartObject();
+                generator.writeStringField("Name", metric.name);
+                generator.writeStringField("Unit", metric.unit);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeStringField(FUNCTION_NAME_DIMENSION, functionName);
+            for (final Metric metric : metrics) {
+                if (metric.distribution == null) {
+                    generator.writeNumberField(metric.name, metric.count);
+                } else {
+                    writeDistribution(generator, metric.name, metric.distribution);
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    private static void writeDistribution(final JsonGenerator generator,
+                                          final String name,
+                                          final Distribution distribution) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeArrayFieldStart("Values");
+        for (int i = 0; i < distribution.size; i++) {
+            generator.writeNumber(distribution.values[i]);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("Counts");
+        for (int i = 0; i < distribution.size; i++) {
+            generator.writeNumber(distribution.counts[i]);
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("Min", distribution.min);
+        generator.writeNumberField("Max", distribution.max);
+        generator.writeNumberField("Count", distribution.count);
+        generator.writeNumberField("Sum", distribution.sum);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Converts the latencies of a histogram, in nanoseconds, to at most MAX_VALUES_PER_METRIC values in microseconds
+     * with the count of each. Each value is the middle of an HdrHistogram bucket, or the mean of the buckets merged
+     * into it.
+     *
+     * @param histogram
+     * @return Distribution
+     */
+    static Distribution toDistribution(final Histogram histogram) {
+        final int bucketCount = countRecordedBuckets(histogram);
+        final Distribution distribution = new Distribution(Math.min(bucketCount, MAX_VALUES_PER_METRIC));
+        distribution.min = histogram.getMinValue() / NANOS_PER_MICRO;
+        distribution.max = histogram.getMaxValue() / NANOS_PER_MICRO;
+        distribution.count = histogram.getTotalCount();
+        // merged buckets are spaced evenly on a log scale between the lowest and the highest value
+        final double lowest = Math.max(1, histogram.getMinValue());
+        final double logRange = Math.log(Math.max(lowest, histogram.getMaxValue()) / lowest);
+        final double[] sums = new double[distribution.counts.length];
+        for (final HistogramIterationValue value : histogram.recordedValues()) {
+            final double nanos = histogram.medianEquivalentValue(value.getValueIteratedTo());
+            final long count = value.getCountAtValueIteratedTo();
+            final int index;
+            if (bucketCount <= MAX_VALUES_PER_METRIC) {
+                index = distribution.size;
+            } else {
+                index = (int) Math.min(MAX_VALUES_PER_METRIC - 1,
+                        Math.log(Math.max(lowest, nanos) / lowest) / logRange * MAX_VALUES_PER_METRIC);
+            }
+            if (index >= distribution.size) {
+                distribution.size = index + 1;
+            }
+            distribution.counts[index] += count;
+            sums[index] += nanos * count;
+            distribution.sum += nanos * count / NANOS_PER_MICRO;
+        }
+        // drop the merged buckets nothing fell into
+        int size = 0;
+        for (int i = 0; i < distribution.size; i++) {
+            if (distribution.counts[i] > 0) {
+                distribution.values[size] = sums[i] / distribution.counts[i] / NANOS_PER_MICRO;
+                distribution.counts[size] = distribution.counts[i];
+                size++;
+            }
+        }
+        distribution.size = size;
+        return distribution;
+    }
+
+    private static int countRecordedBuckets(final Histogram histogram) {
+        int bucketCount = 0;
+        for (final HistogramIterationValue ignored : histogram.recordedValues()) {
+            bucketCount++;
+        }
+        return bucketCount;
+    }
+
+    private static final class Metric {
+        private final String name;
+        private final String unit;
+        private final long count;
+        private final Distribution distribution;
+
+        private Metric(final String name, final String unit, final long count, final Distribution distribution) {
+            this.name = name;
+            this.unit = unit;
+            this.count = count;
+            this.distribution = distribution;
+        }
+    }
+
+    /**
+     * Values and their counts, in the EMF form of a distribution, with statistics of all of them.
+     */
+    static final class Distribution {
+        final double[] values;
+        final long[] counts;
+        int size;
+        double min;
+        double max;
+        long count;
+        double sum;
+
+        private Distribution(final int capacity) {
+            this.values = new double[capacity];
+            this.counts = new long[capacity];
+        }
+    }
+}
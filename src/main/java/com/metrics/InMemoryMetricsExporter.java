@@ -0,0 +1,66 @@
+package com.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the metrics of every exported interval in memory, adding them up, so tests can assert on what was recorded.
+ */
+public class InMemoryMetricsExporter implements MetricsExporter {
+
+    private final Map<String, Histogram> timers = new HashMap<>();
+    private final Map<String, Long> counters = new HashMap<>();
+
+    @Override
+    public synchronized void export(final MetricsSnapshot snapshot) {
+        for (final Map.Entry<String, Histogram> entry : snapshot.getTimers().entrySet()) {
+            final Histogram histogram = timers.get(entry.getKey());
+            if (histogram == null) {
+                timers.put(entry.getKey(), entry.getValue().copy());
+            } else {
+                histogram.add(entry.getValue());
+            }
+        }
+        for (final Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+            counters.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * Returns the latencies recorded by a timer in nanoseconds, or null if it recorded nothing.
+     *
+     * @param name
+     * @return Histogram
+     */
+    public synchronized Histogram getTimer(final String name) {
+        return timers.get(name);
+    }
+
+    /**
+     * Returns the number of latencies recorded by a timer.
+     *
+     * @param name
+     * @return long
+     */
+    public synchronized long getTimerCount(final String name) {
+        final Histogram histogram = timers.get(name);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    /**
+     * Returns the count of a counter, 0 if it counted nothing.
+     *
+     * @param name
+     * @return long
+     */
+    public synchronized long getCount(final String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public synchronized void clear() {
+        timers.clear();
+        counters.clear();
+    }
+}
@@ -0,0 +1,129 @@
+package com.metrics;
+
+import com.util.EnvironmentUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the Timers and Counters of the JVM, which are exported together once per flush interval. Timers and
+ * counters are created on first use by name, and should be kept in static fields by the classes using them, so that
+ * recording is a single call on the hot path. Names are ClassName.method for timers and ClassName.event for counters.
+ * <p>
+ * Lambda freezes the execution environment between invocations, so there is no background flush. Handlers call
+ * flushIfDue once done with each request instead, which exports at most once per interval.
+ * <p>
+ * Configuration (environment variables):
+ * METRICS_EXPORTER - emf (default) to write CloudWatch Embedded Metric Format lines to stdout, or none
+ * METRICS_FLUSH_INTERVAL_SECONDS - how often metrics are exported, defaults to 60
+ * METRICS_NAMESPACE - CloudWatch namespace of the EMF metrics, defaults to AutomatedMarketMaker
+ */
+@Slf4j
+public final class Metrics {
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(
+            EnvironmentUtil.getLong("METRICS_FLUSH_INTERVAL_SECONDS", 60));
+    private static final String DEFAULT_NAMESPACE = "AutomatedMarketMaker";
+    private static final String LOCAL_FUNCTION_NAME = "local";
+
+    private static final Map<String, Timer> NAME_TO_TIMER = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> NAME_TO_COUNTER = new ConcurrentHashMap<>();
+    private static final AtomicLong LAST_FLUSH_NANOS = new AtomicLong(System.nanoTime());
+    private static volatile long intervalStartMillis = System.currentTimeMillis();
+    private static volatile MetricsExporter exporter = createExporter(System.getenv("METRICS_EXPORTER"));
+
+    private Metrics() {
+    }
+
+    public static Timer timer(final String name) {
+        return NAME_TO_TIMER.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Counter counter(final String name) {
+        return NAME_TO_COUNTER.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Replaces the exporter, ex - with an InMemoryMetricsExporter in tests.
+     *
+     * @param metricsExporter
+     */
+    public static void setExporter(final MetricsExporter metricsExporter) {
+        exporter = metricsExporter;
+    }
+
+    /**
+     * Exports the metrics if the flush interval has passed since the last export. Only one caller exports per
+     * interval, the others return straight away.
+     */
+    public static void flushIfDue() {
+        final long now = System.nanoTime();
+        final long lastFlushNanos = LAST_FLUSH_NANOS.get();
+        if (now - lastFlushNanos >= FLUSH_INTERVAL_NANOS && LAST_FLUSH_NANOS.compareAndSet(lastFlushNanos, now)) {
+            flush();
+        }
+    }
+
+    /**
+     * Exports the metrics recorded since the last export, and starts a new interval. Failing to export is logged and
+     * does not fail the caller.
+     */
+    public static synchronized void flush() {
+        final long endMillis = System.currentTimeMillis();
+        final Map<String, Histogram> timers = new HashMap<>();
+        for (final Timer timer : NAME_TO_TIMER.values()) {
+            final Histogram histogram = timer.getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                timers.put(timer.getName(), histogram);
+            }
+        }
+        final Map<String, Long> counters = new HashMap<>();
+        for (final Counter counter : NAME_TO_COUNTER.values()) {
+            final long count = counter.getIntervalCount();
+            if (count > 0) {
+                counters.put(counter.getName(), count);
+            }
+        }
+        final MetricsSnapshot snapshot = new MetricsSnapshot(intervalStartMillis, endMillis, timers, counters);
+        intervalStartMillis = endMillis;
+        if (timers.isEmpty() && counters.isEmpty()) {
+            return;
+        }
+        try {
+            exporter.export(snapshot);
+        } catch (RuntimeException e) {
+            log.warn("Failed to export metrics.", e);
+        }
+    }
+
+    /**
+     * Drops the metrics recorded since the last export without exporting them, and starts a new interval. Used after
+     * priming with synthetic calls, and after a restore from a snapshot.
+     */
+    public static synchronized void discard() {
+        for (final Timer timer : NAME_TO_TIMER.values()) {
+            timer.getIntervalHistogram();
+        }
+        for (final Counter counter : NAME_TO_COUNTER.values()) {
+            counter.getIntervalCount();
+        }
+        intervalStartMillis = System.currentTimeMillis();
+        LAST_FLUSH_NANOS.set(System.nanoTime());
+    }
+
+    static MetricsExporter createExporter(final String exporterName) {
+        if ("none".equalsIgnoreCase(exporterName)) {
+            return snapshot -> {
+            };
+        }
+        final String functionName = System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+        final String namespace = System.getenv("METRICS_NAMESPACE");
+        return new EmfMetricsExporter(namespace == null || namespace.isEmpty() ? DEFAULT_NAMESPACE : namespace,
+                functionName == null ? LOCAL_FUNCTION_NAME : functionName, System.out);
+    }
+}
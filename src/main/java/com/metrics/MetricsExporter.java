@@ -0,0 +1,9 @@
+package com.metrics;
+
+/**
+ * Publishes the metrics of an interval, see Metrics.flush.
+ */
+public interface MetricsExporter {
+
+    void export(MetricsSnapshot snapshot);
+}
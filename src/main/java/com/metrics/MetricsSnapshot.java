@@ -0,0 +1,18 @@
+package com.metrics;
+
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Metrics recorded over one interval, from startMillis to endMillis. Only timers / counters which recorded anything in
+ * the interval are present. Timer histograms are in nanoseconds.
+ */
+@Value
+public class MetricsSnapshot {
+    long startMillis;
+    long endMillis;
+    Map<String, Histogram> timers;
+    Map<String, Long> counters;
+}
@@ -0,0 +1,54 @@
+package com.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records latencies into an HdrHistogram Recorder. Recording is wait-free and does not allocate once the histogram
+ * has grown to the range of values seen, so timers can be used on every call of a hot path. Get a timer with
+ * Metrics.timer and keep it in a static field.
+ * <pre>
+ * final long startNanos = System.nanoTime();
+ * try {
+ *     ...
+ * } finally {
+ *     TIMER.recordSince(startNanos);
+ * }
+ * </pre>
+ */
+public final class Timer {
+
+    // values are within 1% of what was recorded
+    private static final int SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private final String name;
+    private final Recorder recorder = new Recorder(SIGNIFICANT_VALUE_DIGITS);
+
+    Timer(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records the time since startNanos, a value of System.nanoTime.
+     *
+     * @param startNanos
+     */
+    public void recordSince(final long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(final long nanos) {
+        recorder.recordValue(Math.max(0, nanos));
+    }
+
+    /**
+     * Returns the latencies recorded since the previous call, in nanoseconds.
+     */
+    Histogram getIntervalHistogram() {
+        return recorder.getIntervalHistogram();
+    }
+}
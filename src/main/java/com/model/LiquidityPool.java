@@ -1,9 +1,6 @@
 package com.model;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDocument;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
-import com.client.dynamodb.DBConstants;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,17 +10,18 @@ import java.util.Date;
 
 /**
  * Data about a liquidity pool between two assets. Contains the name in alphabetical order (ex - Apples-Bananas) and the
- * PriceAmount of each asset.
+ * PriceAmount of each asset. The version is incremented on every write and pool updates are conditional on it, so
+ * concurrent updates to the same pool cannot overwrite each other.
+ * <p>
+ * With event sourced persistence, the stored item is a snapshot of the pool and eventSequenceNumber is the last event
+ * of the pool's log that it includes. It is null for pools which have no events.
  */
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-@DynamoDBTable(tableName = DBConstants.LIQUIDITY_POOLS_TABLE_NAME)
-@DynamoDBDocument
 public class LiquidityPool {
 
-    @DynamoDBHashKey(attributeName = DBConstants.LIQUIDITY_POOL_NAME_KEY)
     private String poolName;
 
     private PriceAmount assetOne;
@@ -31,4 +29,14 @@ public class LiquidityPool {
 
     private Date createdTime;
     private Date updatedTime;
+
+    private Long version;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long eventSequenceNumber;
+
+    public LiquidityPool(final String poolName, final PriceAmount assetOne, final PriceAmount assetTwo,
+                         final Date createdTime, final Date updatedTime, final Long version) {
+        this(poolName, assetOne, assetTwo, createdTime, updatedTime, version, null);
+    }
 }
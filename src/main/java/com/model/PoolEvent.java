@@ -0,0 +1,26 @@
+package com.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A swap settled against a single liquidity pool, as appended to the pool's event log. Only keeps what is needed to
+ * apply the swap to the pool again (the in / out assets, amounts and prices) and the transactionId it was settled for.
+ * Events are numbered per pool, starting at 1, in the order they were applied.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PoolEvent {
+    private Long sequenceNumber;
+    private String transactionId;
+    private String inName;
+    private Double inAmount;
+    private Double inPrice;
+    private String outName;
+    private Double outAmount;
+    private Double outPrice;
+}
@@ -0,0 +1,30 @@
+package com.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The PoolEvents appended to the event log of a pool by a single write, keyed by the pool name and the sequence number
+ * of its first event. The item is put on the condition that this key does not exist yet, so of two writers which read
+ * the pool at the same sequence number only one can append.
+ * <p>
+ * The batch also records the state of the pool after its last event, which replaying sets the pool to rather than
+ * pricing the events again. It is null for batches appended before it was recorded.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PoolEventBatch {
+    private String poolName;
+    private Long sequenceNumber;
+    private List<PoolEvent> events;
+    private Date appendedTime;
+    private PriceAmount assetOne;
+    private PriceAmount assetTwo;
+}
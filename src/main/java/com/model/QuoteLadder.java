@@ -0,0 +1,25 @@
+package com.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quotes for swapping several amounts of the in asset in the same liquidity pool, as a depth curve. Each array has one
+ * entry per in amount, at the same index, rather than one object per quote:
+ * amountsOut - amount of the out asset received
+ * effectivePrices - amount of the out asset received per in asset
+ * priceImpacts - fraction by which the effective price is below the current (spot) price of the pool
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteLadder {
+    private String inName;
+    private String outName;
+    private double spotPrice;
+    private double[] inAmounts;
+    private double[] amountsOut;
+    private double[] effectivePrices;
+    private double[] priceImpacts;
+}
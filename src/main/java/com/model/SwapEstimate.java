@@ -1,23 +1,32 @@
 package com.model;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDocument;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * An estimate for a swap being performed in a liquidity pool. Contains the exact in / out amounts that a one can expect
- * that the automated market maker calculated.
+ * that the automated market maker calculated. A swap routed through several pools also has one leg per pool, in order,
+ * with the in / out amounts of the whole route set on the estimate itself.
  */
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 @Builder
-@DynamoDBDocument
 public class SwapEstimate {
     private String inName;
     private PriceAmount inPriceAmount;
     private String outName;
     private PriceAmount outPriceAmount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<SwapEstimate> legs;
+
+    public SwapEstimate(final String inName, final PriceAmount inPriceAmount,
+                        final String outName, final PriceAmount outPriceAmount) {
+        this(inName, inPriceAmount, outName, outPriceAmount, null);
+    }
 }
@@ -1,14 +1,18 @@
 package com.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 /**
  * A request that a user can make to swap. Requires in and out asset names. Only requires in the in asset amount,
  * as the automated market maker will return the amount the user can expect to receive back in the SwapEstimate.
+ * maxHops optionally allows the swap to be routed through up to that many pools, when it defaults to a single pool.
  */
 @Data
 public class SwapRequest {
     private String inName;
     private Double inAmount;
     private String outName;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer maxHops;
 }
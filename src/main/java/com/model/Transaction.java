@@ -1,8 +1,5 @@
 package com.model;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
-import com.client.dynamodb.DBConstants;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,9 +16,7 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-@DynamoDBTable(tableName = DBConstants.TRANSACTIONS_TABLE_NAME)
 public class Transaction {
-    @DynamoDBHashKey(attributeName = DBConstants.TRANSACTION_ID_KEY)
     private String transactionId;
     private String transactionState;
     private SwapEstimate swapApplied;
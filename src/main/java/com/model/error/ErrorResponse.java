@@ -12,4 +12,12 @@ public class ErrorResponse {
     public static ErrorResponse badRequest(final String message) {
         return new ErrorResponse("BAD_REQUEST", message);
     }
+
+    public static ErrorResponse notFound(final String message) {
+        return new ErrorResponse("NOT_FOUND", message);
+    }
+
+    public static ErrorResponse internalError(final String message) {
+        return new ErrorResponse("INTERNAL_ERROR", message);
+    }
 }
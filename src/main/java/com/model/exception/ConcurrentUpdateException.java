@@ -0,0 +1,26 @@
+package com.model.exception;
+
+import lombok.experimental.StandardException;
+
+/**
+ * Thrown when a conditional write fails because the item was updated by another writer since it was read.
+ */
+@StandardException
+public class ConcurrentUpdateException extends Exception {
+    public ConcurrentUpdateException() {
+        this(null, null);
+    }
+
+    public ConcurrentUpdateException(String message) {
+        this(message, null);
+    }
+
+    public ConcurrentUpdateException(Throwable cause) {
+        this(cause != null ? cause.getMessage() : null, cause);
+    }
+
+    public ConcurrentUpdateException(String message, Throwable cause) {
+        super(message);
+        if (cause != null) super.initCause(cause);
+    }
+}
@@ -0,0 +1,25 @@
+package com.model.exception;
+
+import java.util.List;
+
+/**
+ * Thrown when settling swaps whose transactions were already FINISHED by an earlier write, ex - one which committed
+ * although its caller saw a timeout, and whose message was then delivered again. Nothing of the failed write was
+ * applied. The swaps of the given transactions are already part of the pool, and must not be applied again.
+ */
+public class TransactionAlreadySettledException extends Exception {
+
+    private final List<String> transactionIds;
+
+    public TransactionAlreadySettledException(final List<String> transactionIds, final Throwable cause) {
+        super("Transaction(s) already settled: " + transactionIds, cause);
+        this.transactionIds = transactionIds;
+    }
+
+    /**
+     * @return ids of the transactions which were already settled
+     */
+    public List<String> getTransactionIds() {
+        return transactionIds;
+    }
+}
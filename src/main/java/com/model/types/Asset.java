@@ -27,6 +27,20 @@ public enum Asset {
         this.name = name;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the Asset with the given name, or null if there is none.
+     *
+     * @param assetName
+     * @return Asset
+     */
+    public static Asset fromAssetName(final String assetName) {
+        return nameToAssetMap.get(assetName);
+    }
+
     public static boolean isValidAssetName(final String assetName) {
         return nameToAssetMap.containsKey(assetName);
     }
@@ -0,0 +1,90 @@
+package com.settlement;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer, in the style of the LMAX Disruptor. Each
+ * slot carries a sequence number: a producer claims the next slot with a CAS on the tail and publishes its entry by
+ * advancing the slot's sequence, and the consumer frees a slot by advancing its sequence by one lap of the ring.
+ * <p>
+ * offer may be called from any thread. drainTo and isEmpty must only be called from the consumer thread.
+ */
+final class MpscRingBuffer<T> {
+
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // only read / written by the consumer
+    private long head;
+
+    MpscRingBuffer(final int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.entries = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an entry, without blocking.
+     *
+     * @param entry
+     * @return false if the ring is full
+     */
+    boolean offer(final T entry) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) (position & mask);
+            final long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries[index] = entry;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                // the consumer has not freed this slot from the previous lap yet
+                return false;
+            }
+            // else another producer claimed this position first. retry with the new tail
+        }
+    }
+
+    /**
+     * Moves up to maxEntries published entries into the list, in the order they were claimed.
+     *
+     * @param output
+     * @param maxEntries
+     * @return number of entries moved
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(final List<T> output, final int maxEntries) {
+        int drained = 0;
+        while (drained < maxEntries) {
+            final int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            output.add((T) entries[index]);
+            entries[index] = null;
+            sequences.lazySet(index, head + entries.length);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns whether every claimed entry was drained, including entries claimed but not yet published.
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
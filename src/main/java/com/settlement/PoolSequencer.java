@@ -0,0 +1,311 @@
+package com.settlement;
+
+import com.client.dynamodb.DynamoDBClient;
+import com.client.dynamodb.LiquidityPoolCache;
+import com.client.kms.token.SwapClaimToken;
+import com.config.ServiceConstants;
+import com.logic.MarketMakerLogic;
+import com.metrics.Counter;
+import com.metrics.Metrics;
+import com.metrics.Timer;
+import com.model.LiquidityPool;
+import com.model.SwapEstimate;
+import com.model.Transaction;
+import com.model.exception.ConcurrentUpdateException;
+import com.model.exception.InvalidInputException;
+import com.model.exception.TransactionAlreadySettledException;
+import com.model.types.TransactionStatus;
+import com.util.LiquidityPoolUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory settlement engine for a long-lived service, as an alternative to the SQS queue and SwapListenerHandler.
+ * Pools are sharded by the hash of their name, and each shard is a single thread which consumes its swaps from an
+ * MpscRingBuffer. As only that thread ever settles the pools of its shard, it keeps the state of those pools in memory
+ * and applies swaps to it without reloading, only loading a pool from DynamoDB the first time it is seen or after a
+ * failed write. The logic for each shard is as follows:
+ * 1. Drain every swap submitted since the last pass, and group them by pool, keeping the order they were submitted in.
+ * 2. For each pool, price every swap in order against the in-memory pool, applying each one before pricing the next.
+ * 3. Write the transactions and the final pool state in one DynamoDB transaction per chunk of MAX_SWAPS_PER_POOL_WRITE
+ *    swaps, conditional on the version of the pool, and only then replace the in-memory pool with the written one.
+ *    Swaps submitted while a write is in flight wait in the ring and are committed together by the next pass.
+ * If a write conflicts (another writer, ex - the SwapListenerHandler settling routed swaps), the pool is reloaded and
+ * the chunk is priced again, with the same bounded attempts as the listener, so no update is lost. Swaps which still
+ * cannot be settled are logged and counted, and their transactions stay STARTED. Swaps are only held in memory, so
+ * swaps not yet written when the process exits without stop are left STARTED as well.
+ * <p>
+ * A swap submitted while stopping is either settled before its shard thread exits, or rejected. Each shard counts the
+ * submits in flight, and only exits once it has seen running false, then no submit in flight, then an empty ring. A
+ * submit counts itself before it reads running, so it either sees running false and is rejected, or is seen by the
+ * shard, which then waits for its offer.
+ */
+@Slf4j
+public class PoolSequencer {
+
+    private static final Timer SETTLE_TIMER = Metrics.timer("PoolSequencer.settle");
+    private static final Counter SETTLED_COUNTER = Metrics.counter("PoolSequencer.settled");
+    private static final Counter FAILED_COUNTER = Metrics.counter("PoolSequencer.failed");
+    private static final Counter REJECTED_COUNTER = Metrics.counter("PoolSequencer.rejected");
+
+    // most swaps drained by one pass, so one busy shard still writes at a steady pace
+    private static final int MAX_SWAPS_PER_PASS = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final DynamoDBClient dynamoDBClient;
+    private final LiquidityPoolCache liquidityPoolCache;
+    private final MarketMakerLogic marketMakerLogic;
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    /**
+     * @param dynamoDBClient
+     * @param liquidityPoolCache updated with the pools written, for readers in the same JVM
+     * @param marketMakerLogic
+     * @param shardCount         number of shard threads
+     * @param ringCapacity       most swaps waiting per shard, a power of two
+     */
+    public PoolSequencer(final DynamoDBClient dynamoDBClient,
+                         final LiquidityPoolCache liquidityPoolCache,
+                         final MarketMakerLogic marketMakerLogic,
+                         final int shardCount,
+                         final int ringCapacity) {
+        this.dynamoDBClient = dynamoDBClient;
+        this.liquidityPoolCache = liquidityPoolCache;
+        this.marketMakerLogic = marketMakerLogic;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(ringCapacity);
+        }
+    }
+
+    /**
+     * Starts one thread per shard. Swaps submitted before are settled once the threads start.
+     */
+    public void start() {
+        for (int i = 0; i < shards.length; i++) {
+            final Thread thread = new Thread(shards[i], "pool-sequencer-" + i);
+            thread.setDaemon(true);
+            shards[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops accepting swaps, and waits for each shard to settle the swaps it already took, including those of submits
+     * which returned true while stopping.
+     */
+    public void stop() {
+        running = false;
+        for (final Shard shard : shards) {
+            if (shard.thread != null) {
+                LockSupport.unpark(shard.thread);
+                try {
+                    shard.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits a swap against a single pool to the shard of that pool, without blocking.
+     *
+     * @param swapClaimToken
+     * @return false if the sequencer is stopped or the shard is full, in which case the swap must be settled elsewhere
+     */
+    public boolean submit(final SwapClaimToken swapClaimToken) {
+        final String poolName = LiquidityPoolUtil.getPoolName(swapClaimToken.getSwapRequest().getInName(),
+                swapClaimToken.getSwapRequest().getOutName());
+        final Shard shard = shards[(poolName.hashCode() & Integer.MAX_VALUE) % shards.length];
+        shard.submitsInFlight.incrementAndGet();
+        try {
+            if (!running || !shard.ring.offer(new PendingSwap(poolName, swapClaimToken))) {
+                REJECTED_COUNTER.increment();
+                return false;
+            }
+        } finally {
+            shard.submitsInFlight.decrementAndGet();
+        }
+        if (shard.thread != null) {
+            LockSupport.unpark(shard.thread);
+        }
+        return true;
+    }
+
+    /**
+     * Runs one pass of every shard on the calling thread. Only for when the shard threads are not started.
+     *
+     * @return number of swaps drained
+     */
+    int settlePending() {
+        int drained = 0;
+        for (final Shard shard : shards) {
+            drained += shard.settlePending();
+        }
+        return drained;
+    }
+
+    /**
+     * A ring of submitted swaps, and the in-memory state of the pools it settles. All but the ring is only touched by
+     * the thread of the shard.
+     */
+    private final class Shard implements Runnable {
+        private final MpscRingBuffer<PendingSwap> ring;
+        private final AtomicInteger submitsInFlight = new AtomicInteger();
+        private final Map<String, LiquidityPool> poolNameToLiquidityPool = new HashMap<>();
+        private final List<PendingSwap> drainedSwaps = new ArrayList<>();
+        private volatile Thread thread;
+
+        private Shard(final int ringCapacity) {
+            this.ring = new MpscRingBuffer<>(ringCapacity);
+        }
+
+        @Override
+        public void run() {
+            // in this order, see the class javadoc
+            while (running || submitsInFlight.get() > 0 || !ring.isEmpty()) {
+                if (settlePending() == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        private int settlePending() {
+            drainedSwaps.clear();
+            final int drained = ring.drainTo(drainedSwaps, MAX_SWAPS_PER_PASS);
+            if (drained == 0) {
+                return 0;
+            }
+            final long startNanos = System.nanoTime();
+            try {
+                final Map<String, List<PendingSwap>> poolNameToPendingSwaps = new LinkedHashMap<>();
+                for (final PendingSwap pendingSwap : drainedSwaps) {
+                    poolNameToPendingSwaps.computeIfAbsent(pendingSwap.poolName, k -> new ArrayList<>())
+                            .add(pendingSwap);
+                }
+                for (final Map.Entry<String, List<PendingSwap>> entry : poolNameToPendingSwaps.entrySet()) {
+                    final List<PendingSwap> allPendingSwaps = entry.getValue();
+                    for (int i = 0; i < allPendingSwaps.size(); i += ServiceConstants.MAX_SWAPS_PER_POOL_WRITE) {
+                        settleWithRetries(entry.getKey(), allPendingSwaps.subList(i,
+                                Math.min(i + ServiceConstants.MAX_SWAPS_PER_POOL_WRITE, allPendingSwaps.size())));
+                    }
+                }
+            } finally {
+                SETTLE_TIMER.recordSince(startNanos);
+            }
+            return drained;
+        }
+
+        private void settleWithRetries(final String poolName, final List<PendingSwap> allPendingSwaps) {
+            List<PendingSwap> pendingSwaps = allPendingSwaps;
+            try {
+                int attempt = 1;
+                while (true) {
+                    try {
+                        settle(poolName, pendingSwaps);
+                        return;
+                    } catch (TransactionAlreadySettledException e) {
+                        // settled by an earlier write, so the pool in memory is missing those swaps
+                        poolNameToLiquidityPool.remove(poolName);
+                        final List<PendingSwap> remainingSwaps = new ArrayList<>(pendingSwaps.size());
+                        for (final PendingSwap pendingSwap : pendingSwaps) {
+                            if (!e.getTransactionIds().contains(pendingSwap.swapClaimToken.getSwapContractId())) {
+                                remainingSwaps.add(pendingSwap);
+                            }
+                        }
+                        if (remainingSwaps.size() == pendingSwaps.size()) {
+                            throw e;
+                        }
+                        pendingSwaps = remainingSwaps;
+                        if (pendingSwaps.isEmpty()) {
+                            return;
+                        }
+                    } catch (ConcurrentUpdateException e) {
+                        poolNameToLiquidityPool.remove(poolName);
+                        liquidityPoolCache.invalidate(poolName);
+                        if (attempt >= ServiceConstants.POOL_UPDATE_MAX_ATTEMPTS) {
+                            throw e;
+                        }
+                        attempt++;
+                        log.info("Pool {} updated concurrently. Retrying, attempt {}.", poolName, attempt);
+                    }
+                }
+            } catch (InvalidInputException e) {
+                log.error("Liquidity pool {} does not exist. Ignoring {} swap(s).", poolName, pendingSwaps.size(), e);
+                FAILED_COUNTER.add(pendingSwaps.size());
+            } catch (Exception e) {
+                // the write may or may not have been applied, so the in-memory pool can no longer be trusted
+                poolNameToLiquidityPool.remove(poolName);
+                log.error("Failed to settle {} swap(s) for pool {}.", pendingSwaps.size(), poolName, e);
+                FAILED_COUNTER.add(pendingSwaps.size());
+            }
+        }
+
+        /**
+         * Applies the swaps in order to the in-memory pool, then writes the transactions and the final pool state. A
+         * swap which fails to be priced is logged and not applied to the pool.
+         */
+        private void settle(final String poolName, final List<PendingSwap> pendingSwaps)
+                throws InvalidInputException, ConcurrentUpdateException, TransactionAlreadySettledException {
+            LiquidityPool liquidityPool = poolNameToLiquidityPool.get(poolName);
+            if (liquidityPool == null) {
+                liquidityPool = dynamoDBClient.loadLiquidityPool(poolName, true);
+                poolNameToLiquidityPool.put(poolName, liquidityPool);
+            }
+            final List<Transaction> transactions = new ArrayList<>(pendingSwaps.size());
+            final Date now = new Date();
+            for (final PendingSwap pendingSwap : pendingSwaps) {
+                final String swapContractId = pendingSwap.swapClaimToken.getSwapContractId();
+                try {
+                    final SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool,
+                            pendingSwap.swapClaimToken.getSwapRequest());
+                    liquidityPool = marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool);
+
+                    final Transaction transaction = new Transaction();
+                    transaction.setTransactionId(swapContractId);
+                    transaction.setTransactionState(TransactionStatus.FINISHED.name());
+                    transaction.setSwapApplied(swapEstimate);
+                    transaction.setTimeCompleted(now);
+                    transactions.add(transaction);
+                } catch (Exception e) {
+                    log.error("Failed to apply swapContractId: {}", swapContractId, e);
+                    FAILED_COUNTER.increment();
+                }
+            }
+            if (transactions.isEmpty()) {
+                return;
+            }
+
+            dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(transactions, liquidityPool);
+            poolNameToLiquidityPool.put(poolName, liquidityPool);
+            liquidityPoolCache.put(liquidityPool);
+            SETTLED_COUNTER.add(transactions.size());
+            log.debug("Updated {} transaction(s) and pool {} in dynamoDB.", transactions.size(), poolName);
+        }
+    }
+
+    /**
+     * A submitted swap and the pool it settles against.
+     */
+    private static final class PendingSwap {
+        private final String poolName;
+        private final SwapClaimToken swapClaimToken;
+
+        private PendingSwap(final String poolName, final SwapClaimToken swapClaimToken) {
+            this.poolName = poolName;
+            this.swapClaimToken = swapClaimToken;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.settlement;
+
+import com.client.kms.token.SwapClaimToken;
+import com.client.sqs.SQSBatchProducer;
+import com.util.LiquidityPoolUtil;
+import com.util.ObjectMapperUtil;
+import lombok.AllArgsConstructor;
+
+/**
+ * Submits swaps to the swap requests SQS queue, to be settled by the SwapListenerHandler. On a FIFO queue, the message
+ * group is the pool of the swap, so the swaps of a pool are delivered in order while different pools are delivered in
+ * parallel, and the deduplication id is the swapContractId. The group of a routed swap is the pool of its in / out
+ * assets, so it is only ordered with the swaps of that pair, not with those of the pools along its route. Messages go
+ * through the SQSBatchProducer, so concurrent submits share SendMessageBatch calls.
+ */
+@AllArgsConstructor
+public class QueueSwapSubmitter implements SwapSubmitter {
+
+    private final SQSBatchProducer sqsBatchProducer;
+
+    @Override
+    public void submit(final SwapClaimToken swapClaimToken) {
+        // wait for the message to be acknowledged, so the swap is not reported as submitted before it is queued
+        sqsBatchProducer.submit(ObjectMapperUtil.toString(swapClaimToken),
+                LiquidityPoolUtil.inferPoolNameFromSwapRequest(swapClaimToken.getSwapRequest()),
+                swapClaimToken.getSwapContractId()).join();
+    }
+}
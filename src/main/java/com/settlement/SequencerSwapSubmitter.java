@@ -0,0 +1,23 @@
+package com.settlement;
+
+import com.client.kms.token.SwapClaimToken;
+import lombok.AllArgsConstructor;
+
+/**
+ * Submits swaps to the in-memory PoolSequencer. Swaps routed through several pools span shards, so they, and swaps
+ * which the sequencer cannot take (full or stopped), go to the fallback submitter instead.
+ */
+@AllArgsConstructor
+public class SequencerSwapSubmitter implements SwapSubmitter {
+
+    private final PoolSequencer poolSequencer;
+    private final SwapSubmitter fallbackSwapSubmitter;
+
+    @Override
+    public void submit(final SwapClaimToken swapClaimToken) {
+        if (swapClaimToken.getRoute() == null && poolSequencer.submit(swapClaimToken)) {
+            return;
+        }
+        fallbackSwapSubmitter.submit(swapClaimToken);
+    }
+}
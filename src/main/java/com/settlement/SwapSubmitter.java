@@ -0,0 +1,17 @@
+package com.settlement;
+
+import com.client.kms.token.SwapClaimToken;
+
+/**
+ * Hands a submitted swap over to be settled. The transaction of the swap is already initialized as STARTED, and the
+ * submitter is responsible for eventually settling it against its pool(s).
+ */
+public interface SwapSubmitter {
+
+    /**
+     * Submits a swap to be settled.
+     *
+     * @param swapClaimToken
+     */
+    void submit(SwapClaimToken swapClaimToken);
+}
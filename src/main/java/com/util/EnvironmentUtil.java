@@ -0,0 +1,55 @@
+package com.util;
+
+/**
+ * Utility class for reading configuration from environment variables, falling back to a default when unset.
+ */
+public final class EnvironmentUtil {
+
+    /**
+     * Reads an int environment variable.
+     *
+     * @param name
+     * @param defaultValue returned if the variable is unset or empty
+     * @return int value
+     */
+    public static int getInt(final String name, final int defaultValue) {
+        final String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Reads a long environment variable.
+     *
+     * @param name
+     * @param defaultValue returned if the variable is unset or empty
+     * @return long value
+     */
+    public static long getLong(final String name, final long defaultValue) {
+        final String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Reads a double environment variable.
+     *
+     * @param name
+     * @param defaultValue returned if the variable is unset or empty
+     * @return double value
+     */
+    public static double getDouble(final String name, final double defaultValue) {
+        final String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Reads a String environment variable.
+     *
+     * @param name
+     * @param defaultValue returned if the variable is unset or empty
+     * @return String value
+     */
+    public static String getString(final String name, final String defaultValue) {
+        final String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,35 @@
+package com.util;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * Random jitter for retry backoff, so that competing invocations spread out their retries.
+ * <p>
+ * ThreadLocalRandom is not used for this. Its seeds derive from a generator initialized the first time it is used,
+ * which for a SnapStart function is before the snapshot (ex - by priming), so every environment restored from the
+ * snapshot would draw the same jitter. Instead, PrimingResource calls reseed after a restore, which reseeds this
+ * generator from SecureRandom.
+ */
+public final class JitterUtil {
+
+    private static volatile Random random = new Random();
+
+    private JitterUtil() {
+    }
+
+    /**
+     * @param bound
+     * @return random value between 0 (inclusive) and bound (exclusive)
+     */
+    public static long nextLong(final long bound) {
+        return (long) (random.nextDouble() * bound);
+    }
+
+    /**
+     * Replaces the generator with one seeded from SecureRandom. Called after a restore.
+     */
+    public static void reseed() {
+        random = new Random(new SecureRandom().nextLong());
+    }
+}
@@ -9,7 +9,6 @@ import com.model.types.Asset;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
-import java.text.MessageFormat;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -53,27 +52,30 @@ public final class LiquidityPoolUtil {
     public static String getPoolName(@NonNull final String assetNameOne, @NonNull final String assetNameTwo) {
         int compare = assetNameOne.compareTo(assetNameTwo);
         if (compare < 0) {
-            return MessageFormat.format("{0}-{1}", assetNameOne, assetNameTwo);
+            return assetNameOne + "-" + assetNameTwo;
         } else if (compare > 0) {
-            return MessageFormat.format("{0}-{1}", assetNameTwo, assetNameOne);
+            return assetNameTwo + "-" + assetNameOne;
         } else {
             throw new IllegalArgumentException(ErrorMessages.DUPLICATE_ASSET);
         }
     }
 
     /**
-     * Logs stats about the liquidity pool.
+     * Logs stats about the liquidity pool at DEBUG. Nothing is calculated when DEBUG is off.
      *
      * @param liquidityPool
      */
     public static void logStats(@NonNull final LiquidityPool liquidityPool) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
         // calculate stats for asset one and asset two
         final PriceAmount priceAmountOne = liquidityPool.getAssetOne();
         final PriceAmount priceAmountTwo = liquidityPool.getAssetTwo();
         final Double constantMarketCapOne = priceAmountOne.getAmount() * priceAmountOne.getPrice();
         final Double constantMarketCapTwo = priceAmountTwo.getAmount() * priceAmountTwo.getPrice();
         final Double k = constantMarketCapOne * constantMarketCapOne;
-        log.info("constantMarketCapOne: {}, constantMarketCapOne: {}, k: {}",
+        log.debug("constantMarketCapOne: {}, constantMarketCapTwo: {}, k: {}",
                 constantMarketCapOne, constantMarketCapTwo, k);
     }
 
@@ -87,9 +89,9 @@ public final class LiquidityPoolUtil {
         String assetOut = swapRequest.getOutName();
         int compare = assetIn.compareTo(assetOut);
         if (compare < 0) {
-            return MessageFormat.format("{0}-{1}", assetIn, assetOut);
+            return assetIn + "-" + assetOut;
         }
-        return MessageFormat.format("{0}-{1}", assetOut, assetIn);
+        return assetOut + "-" + assetIn;
     }
 
     /**
@@ -1,37 +1,172 @@
 package com.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import com.model.exception.InvalidInputException;
+import com.util.json.SwapModelsModule;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Utility ObjectMapper class to utilize one static reusable instance of object mapper to serialize and deserialize
  * requests. Also handles error handling and translates any errors into our internal InvalidInputException.
+ * <p>
+ * An ObjectReader / ObjectWriter is built once per class and reused, so the (de)serializer of a class is looked up
+ * once rather than per call. The models on the swap hot paths use the hand written codecs of SwapModelsModule, and
+ * all other models use bean (de)serializers generated by Afterburner instead of reflection.
+ * <p>
+ * In a native image, classes can't be defined at runtime, so Afterburner is left out and the other models use
+ * reflection, with the reflection configuration in META-INF/native-image.
  */
 @Slf4j
 public final class ObjectMapperUtil {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // set by GraalVM while building and running a native image
+    private static final boolean NATIVE_IMAGE = System.getProperty("org.graalvm.nativeimage.imagecode") != null;
+
+    private static final ObjectMapper objectMapper = createObjectMapper();
+    private static final Map<Class<?>, ObjectReader> classToReader = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> classToWriter = new ConcurrentHashMap<>();
 
     public static <T> T toClass(final String input, final Class<T> clazz) throws InvalidInputException {
         try {
-            return objectMapper.readValue(input, clazz);
+            return readerFor(clazz).readValue(input);
         } catch (JsonProcessingException e) {
             log.error("Failed to deserialize,", e);
             throw new InvalidInputException(e);
         }
     }
 
+    public static <T> T toClass(final byte[] input, final Class<T> clazz) throws InvalidInputException {
+        try {
+            return readerFor(clazz).readValue(input);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize,", e);
+            throw new InvalidInputException(e);
+        } catch (IOException e) {
+            log.error("Failed to read,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Deserializes from a stream without buffering it into a String first. The stream is closed once read.
+     */
+    public static <T> T toClass(final InputStream input, final Class<T> clazz) throws InvalidInputException {
+        try {
+            return readerFor(clazz).readValue(input);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize,", e);
+            throw new InvalidInputException(e);
+        } catch (IOException e) {
+            log.error("Failed to read,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Attempts to serialize a given object. Should succeed, but if not, throws a runtime exception which is bubbled up.
      */
     public static String toString(final Object input) {
         try {
-            return objectMapper.writeValueAsString(input);
+            return writerFor(input).writeValueAsString(input);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Serializes a given object to UTF-8 bytes. Should succeed, but if not, throws a runtime exception which is
+     * bubbled up.
+     */
+    public static byte[] toBytes(final Object input) {
+        try {
+            return writerFor(input).writeValueAsBytes(input);
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize,", e);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Serializes a given object as UTF-8 into the stream, e.g. a buffer reused across requests. The stream is not
+     * closed. Should succeed, but if not, throws a runtime exception which is bubbled up.
+     */
+    public static void writeTo(final OutputStream output, final Object input) {
+        try (JsonGenerator generator = createGenerator(output)) {
+            writerFor(input).writeValue(generator, input);
+        } catch (IOException e) {
+            log.error("Failed to serialize,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates a generator to write a response incrementally, one value at a time, instead of serializing a complete
+     * object tree.
+     */
+    public static JsonGenerator createGenerator(final Writer writer) {
+        try {
+            return objectMapper.getFactory().createGenerator(writer);
+        } catch (IOException e) {
+            log.error("Failed to create generator,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Same as createGenerator(Writer), writing UTF-8 into a stream. Closing the generator does not close the stream.
+     */
+    public static JsonGenerator createGenerator(final OutputStream output) {
+        try {
+            return objectMapper.getFactory().createGenerator(output)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        } catch (IOException e) {
+            log.error("Failed to create generator,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Serializes a given object into the generator. Should succeed, but if not, throws a runtime exception which is
+     * bubbled up.
+     */
+    public static void writeValue(final JsonGenerator generator, final Object input) {
+        try {
+            writerFor(input).writeValue(generator, input);
+        } catch (IOException e) {
+            log.error("Failed to serialize,", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        final ObjectMapper mapper = new ObjectMapper();
+        if (!NATIVE_IMAGE) {
+            mapper.registerModule(new AfterburnerModule());
+        }
+        return mapper.registerModule(new SwapModelsModule());
+    }
+
+    private static ObjectReader readerFor(final Class<?> clazz) {
+        return classToReader.computeIfAbsent(clazz, objectMapper::readerFor);
+    }
+
+    private static ObjectWriter writerFor(final Object input) {
+        if (input == null) {
+            return objectMapper.writer();
+        }
+        return classToWriter.computeIfAbsent(input.getClass(), objectMapper::writerFor);
+    }
 }
@@ -0,0 +1,44 @@
+package com.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples the logs of whole payloads (request events, SQS messages, estimates, pools) on the request hot paths.
+ * Formatting these calls toString on the whole object graph, so they are only logged for a fraction of calls, set
+ * with the environment variable PAYLOAD_LOG_SAMPLE_RATE between 0 (never) and 1 (always). Defaults to 0.01.
+ * <p>
+ * Guard the log call with shouldLog, so that nothing is formatted when the call is not sampled or INFO is off:
+ * <pre>
+ * if (PayloadLogSampler.shouldLog(log)) {
+ *     log.info("Received request event: {}", requestEvent);
+ * }
+ * </pre>
+ */
+public final class PayloadLogSampler {
+
+    private static final double DEFAULT_SAMPLE_RATE = 0.01d;
+    private static final double SAMPLE_RATE = EnvironmentUtil.getDouble("PAYLOAD_LOG_SAMPLE_RATE",
+            DEFAULT_SAMPLE_RATE);
+
+    private PayloadLogSampler() {
+    }
+
+    /**
+     * Returns whether to log a payload at INFO with this logger.
+     *
+     * @param log
+     * @return boolean
+     */
+    public static boolean shouldLog(final Logger log) {
+        return isSampled(SAMPLE_RATE) && log.isInfoEnabled();
+    }
+
+    static boolean isSampled(final double sampleRate) {
+        if (sampleRate <= 0) {
+            return false;
+        }
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -42,6 +42,16 @@ public final class ResponseUtil {
                 .withHeaders(Collections.singletonMap(REQUEST_ID, context.getAwsRequestId()));
     }
 
+    /**
+     * Creates a success response with a body which is already serialized.
+     */
+    public static APIGatewayProxyResponseEvent createSuccessResponseWithBody(final String body, final Context context) {
+        return new APIGatewayProxyResponseEvent()
+                .withBody(body)
+                .withStatusCode(200)
+                .withHeaders(Collections.singletonMap(REQUEST_ID, context.getAwsRequestId()));
+    }
+
     public static APIGatewayProxyResponseEvent createSuccessResponse(final Object object, final Context context) {
         return new APIGatewayProxyResponseEvent()
                 .withBody(ObjectMapperUtil.toString(object))
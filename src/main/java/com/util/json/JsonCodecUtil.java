@@ -0,0 +1,116 @@
+package com.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Helpers for the hand written codecs in this package. Reading the common token for a field (e.g. a number for a
+ * Double) is done directly on the parser. Any other token is passed on to Jackson, so that coercions (e.g. "7000" to
+ * a Double) and errors are the same as for the generated bean deserializers.
+ */
+final class JsonCodecUtil {
+
+    private JsonCodecUtil() {
+    }
+
+    /**
+     * Returns the name of the first field of the object the parser is at, or null if the object is empty. Jackson
+     * calls deserializers at either the start of the object or its first field name.
+     */
+    static String firstFieldName(final JsonParser p, final DeserializationContext ctxt, final Class<?> type)
+            throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            return p.nextFieldName();
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            return p.currentName();
+        }
+        if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+        return (String) ctxt.handleUnexpectedToken(type, p);
+    }
+
+    static String readString(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return ctxt.readValue(p, String.class);
+    }
+
+    static Double readDouble(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return p.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return ctxt.readValue(p, Double.class);
+    }
+
+    static Integer readInteger(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT && p.getNumberType() == JsonParser.NumberType.INT) {
+            return p.getIntValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return ctxt.readValue(p, Integer.class);
+    }
+
+    static Date readDate(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return new Date(p.getLongValue());
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return ctxt.readValue(p, Date.class);
+    }
+
+    static List<String> readStringList(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            ctxt.handleUnexpectedToken(List.class, p);
+        }
+        final List<String> values = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            values.add(readString(p, ctxt));
+        }
+        return values;
+    }
+
+    static void writeNumberOrNull(final JsonGenerator g, final Double value) throws IOException {
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value);
+        }
+    }
+
+    static void writeNumberOrNull(final JsonGenerator g, final Integer value) throws IOException {
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value);
+        }
+    }
+}
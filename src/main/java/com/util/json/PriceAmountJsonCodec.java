@@ -0,0 +1,98 @@
+package com.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.model.PriceAmount;
+
+import java.io.IOException;
+
+/**
+ * Streaming JSON codec for PriceAmount, as nested in SwapEstimate. As for the bean, price and amount
+ * can't be set to null.
+ */
+final class PriceAmountJsonCodec {
+
+    private static final SerializedString PRICE = new SerializedString("price");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+
+    private PriceAmountJsonCodec() {
+    }
+
+    static void write(final JsonGenerator g, final PriceAmount priceAmount) throws IOException {
+        if (priceAmount == null) {
+            g.writeNull();
+            return;
+        }
+        g.writeStartObject();
+        g.writeFieldName(PRICE);
+        JsonCodecUtil.writeNumberOrNull(g, priceAmount.getPrice());
+        g.writeFieldName(AMOUNT);
+        JsonCodecUtil.writeNumberOrNull(g, priceAmount.getAmount());
+        g.writeEndObject();
+    }
+
+    static PriceAmount read(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        final PriceAmount priceAmount = new PriceAmount();
+        for (String name = JsonCodecUtil.firstFieldName(p, ctxt, PriceAmount.class); name != null;
+             name = p.nextFieldName()) {
+            p.nextToken();
+            switch (name) {
+                case "price":
+                    priceAmount.setPrice(readRequiredDouble(p, ctxt, name));
+                    break;
+                case "amount":
+                    priceAmount.setAmount(readRequiredDouble(p, ctxt, name));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, Deserializer.INSTANCE, PriceAmount.class, name);
+            }
+        }
+        return priceAmount;
+    }
+
+    private static Double readRequiredDouble(final JsonParser p, final DeserializationContext ctxt, final String name)
+            throws IOException {
+        final Double value = JsonCodecUtil.readDouble(p, ctxt);
+        if (value == null) {
+            throw JsonMappingException.from(p, "PriceAmount " + name + " is marked non-null but is null");
+        }
+        return value;
+    }
+
+    static final class Serializer extends StdSerializer<PriceAmount> {
+        static final Serializer INSTANCE = new Serializer();
+
+        private Serializer() {
+            super(PriceAmount.class);
+        }
+
+        @Override
+        public void serialize(final PriceAmount value, final JsonGenerator g, final SerializerProvider provider)
+                throws IOException {
+            write(g, value);
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<PriceAmount> {
+        static final Deserializer INSTANCE = new Deserializer();
+
+        private Deserializer() {
+            super(PriceAmount.class);
+        }
+
+        @Override
+        public PriceAmount deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+            return read(p, ctxt);
+        }
+    }
+}
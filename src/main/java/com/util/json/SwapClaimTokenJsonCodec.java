@@ -0,0 +1,108 @@
+package com.util.json;
+
+import com.client.kms.token.SwapClaimToken;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streaming JSON codec for SwapClaimToken, as encrypted into claim tokens and sent through the swap requests queue.
+ * Same JSON as the bean serializer: expiresAt is epoch millis, and route is left out when null.
+ */
+final class SwapClaimTokenJsonCodec {
+
+    private static final SerializedString SWAP_CONTRACT_ID = new SerializedString("swapContractId");
+    private static final SerializedString EXPIRES_AT = new SerializedString("expiresAt");
+    private static final SerializedString SWAP_REQUEST = new SerializedString("swapRequest");
+    private static final SerializedString ROUTE = new SerializedString("route");
+
+    private SwapClaimTokenJsonCodec() {
+    }
+
+    static void write(final JsonGenerator g, final SwapClaimToken swapClaimToken) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(SWAP_CONTRACT_ID);
+        g.writeString(swapClaimToken.getSwapContractId());
+        g.writeFieldName(EXPIRES_AT);
+        if (swapClaimToken.getExpiresAt() == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(swapClaimToken.getExpiresAt().getTime());
+        }
+        g.writeFieldName(SWAP_REQUEST);
+        if (swapClaimToken.getSwapRequest() == null) {
+            g.writeNull();
+        } else {
+            SwapRequestJsonCodec.write(g, swapClaimToken.getSwapRequest());
+        }
+        final List<String> route = swapClaimToken.getRoute();
+        if (route != null) {
+            g.writeFieldName(ROUTE);
+            g.writeStartArray();
+            for (final String assetName : route) {
+                g.writeString(assetName);
+            }
+            g.writeEndArray();
+        }
+        g.writeEndObject();
+    }
+
+    static SwapClaimToken read(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final SwapClaimToken swapClaimToken = new SwapClaimToken();
+        for (String name = JsonCodecUtil.firstFieldName(p, ctxt, SwapClaimToken.class); name != null;
+             name = p.nextFieldName()) {
+            p.nextToken();
+            switch (name) {
+                case "swapContractId":
+                    swapClaimToken.setSwapContractId(JsonCodecUtil.readString(p, ctxt));
+                    break;
+                case "expiresAt":
+                    swapClaimToken.setExpiresAt(JsonCodecUtil.readDate(p, ctxt));
+                    break;
+                case "swapRequest":
+                    swapClaimToken.setSwapRequest(SwapRequestJsonCodec.read(p, ctxt));
+                    break;
+                case "route":
+                    swapClaimToken.setRoute(JsonCodecUtil.readStringList(p, ctxt));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, Deserializer.INSTANCE, SwapClaimToken.class, name);
+            }
+        }
+        return swapClaimToken;
+    }
+
+    static final class Serializer extends StdSerializer<SwapClaimToken> {
+        static final Serializer INSTANCE = new Serializer();
+
+        private Serializer() {
+            super(SwapClaimToken.class);
+        }
+
+        @Override
+        public void serialize(final SwapClaimToken value, final JsonGenerator g, final SerializerProvider provider)
+                throws IOException {
+            write(g, value);
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<SwapClaimToken> {
+        static final Deserializer INSTANCE = new Deserializer();
+
+        private Deserializer() {
+            super(SwapClaimToken.class);
+        }
+
+        @Override
+        public SwapClaimToken deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+            return read(p, ctxt);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.model.SwapEstimate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming JSON codec for SwapEstimate, including the legs of a routed estimate. Same JSON as the bean serializer:
+ * legs are left out when null.
+ */
+final class SwapEstimateJsonCodec {
+
+    private static final SerializedString IN_NAME = new SerializedString("inName");
+    private static final SerializedString IN_PRICE_AMOUNT = new SerializedString("inPriceAmount");
+    private static final SerializedString OUT_NAME = new SerializedString("outName");
+    private static final SerializedString OUT_PRICE_AMOUNT = new SerializedString("outPriceAmount");
+    private static final SerializedString LEGS = new SerializedString("legs");
+
+    private SwapEstimateJsonCodec() {
+    }
+
+    static void write(final JsonGenerator g, final SwapEstimate swapEstimate) throws IOException {
+        if (swapEstimate == null) {
+            g.writeNull();
+            return;
+        }
+        g.writeStartObject();
+        g.writeFieldName(IN_NAME);
+        g.writeString(swapEstimate.getInName());
+        g.writeFieldName(IN_PRICE_AMOUNT);
+        PriceAmountJsonCodec.write(g, swapEstimate.getInPriceAmount());
+        g.writeFieldName(OUT_NAME);
+        g.writeString(swapEstimate.getOutName());
+        g.writeFieldName(OUT_PRICE_AMOUNT);
+        PriceAmountJsonCodec.write(g, swapEstimate.getOutPriceAmount());
+        final List<SwapEstimate> legs = swapEstimate.getLegs();
+        if (legs != null) {
+            g.writeFieldName(LEGS);
+            g.writeStartArray();
+            for (final SwapEstimate leg : legs) {
+                write(g, leg);
+            }
+            g.writeEndArray();
+        }
+        g.writeEndObject();
+    }
+
+    static SwapEstimate read(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        final SwapEstimate swapEstimate = new SwapEstimate();
+        for (String name = JsonCodecUtil.firstFieldName(p, ctxt, SwapEstimate.class); name != null;
+             name = p.nextFieldName()) {
+            p.nextToken();
+            switch (name) {
+                case "inName":
+                    swapEstimate.setInName(JsonCodecUtil.readString(p, ctxt));
+                    break;
+                case "inPriceAmount":
+                    swapEstimate.setInPriceAmount(PriceAmountJsonCodec.read(p, ctxt));
+                    break;
+                case "outName":
+                    swapEstimate.setOutName(JsonCodecUtil.readString(p, ctxt));
+                    break;
+                case "outPriceAmount":
+                    swapEstimate.setOutPriceAmount(PriceAmountJsonCodec.read(p, ctxt));
+                    break;
+                case "legs":
+                    swapEstimate.setLegs(readLegs(p, ctxt));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, Deserializer.INSTANCE, SwapEstimate.class, name);
+            }
+        }
+        return swapEstimate;
+    }
+
+    private static List<SwapEstimate> readLegs(final JsonParser p, final DeserializationContext ctxt)
+            throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            ctxt.handleUnexpectedToken(List.class, p);
+        }
+        final List<SwapEstimate> legs = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            legs.add(read(p, ctxt));
+        }
+        return legs;
+    }
+
+    static final class Serializer extends StdSerializer<SwapEstimate> {
+        static final Serializer INSTANCE = new Serializer();
+
+        private Serializer() {
+            super(SwapEstimate.class);
+        }
+
+        @Override
+        public void serialize(final SwapEstimate value, final JsonGenerator g, final SerializerProvider provider)
+                throws IOException {
+            write(g, value);
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<SwapEstimate> {
+        static final Deserializer INSTANCE = new Deserializer();
+
+        private Deserializer() {
+            super(SwapEstimate.class);
+        }
+
+        @Override
+        public SwapEstimate deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+            return read(p, ctxt);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.util.json;
+
+import com.client.kms.token.SwapClaimToken;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+
+/**
+ * Registers the hand written streaming codecs of the models on the swap hot paths (estimate, claim tokens and the swap
+ * requests queue). They read / write fields directly on the JsonParser / JsonGenerator with pre-encoded field names,
+ * instead of going through bean properties, and produce the same JSON as the bean serializers. Other models use the
+ * bean (de)serializers.
+ */
+public class SwapModelsModule extends SimpleModule {
+
+    public SwapModelsModule() {
+        super("SwapModelsModule");
+        addSerializer(SwapRequest.class, SwapRequestJsonCodec.Serializer.INSTANCE);
+        addDeserializer(SwapRequest.class, SwapRequestJsonCodec.Deserializer.INSTANCE);
+        addSerializer(PriceAmount.class, PriceAmountJsonCodec.Serializer.INSTANCE);
+        addDeserializer(PriceAmount.class, PriceAmountJsonCodec.Deserializer.INSTANCE);
+        addSerializer(SwapEstimate.class, SwapEstimateJsonCodec.Serializer.INSTANCE);
+        addDeserializer(SwapEstimate.class, SwapEstimateJsonCodec.Deserializer.INSTANCE);
+        addSerializer(SwapClaimToken.class, SwapClaimTokenJsonCodec.Serializer.INSTANCE);
+        addDeserializer(SwapClaimToken.class, SwapClaimTokenJsonCodec.Deserializer.INSTANCE);
+    }
+}
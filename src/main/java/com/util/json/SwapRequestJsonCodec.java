@@ -0,0 +1,97 @@
+package com.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.model.SwapRequest;
+
+import java.io.IOException;
+
+/**
+ * Streaming JSON codec for SwapRequest. Same JSON as the bean serializer: maxHops is left out when null.
+ */
+final class SwapRequestJsonCodec {
+
+    private static final SerializedString IN_NAME = new SerializedString("inName");
+    private static final SerializedString IN_AMOUNT = new SerializedString("inAmount");
+    private static final SerializedString OUT_NAME = new SerializedString("outName");
+    private static final SerializedString MAX_HOPS = new SerializedString("maxHops");
+
+    private SwapRequestJsonCodec() {
+    }
+
+    static void write(final JsonGenerator g, final SwapRequest swapRequest) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(IN_NAME);
+        g.writeString(swapRequest.getInName());
+        g.writeFieldName(IN_AMOUNT);
+        JsonCodecUtil.writeNumberOrNull(g, swapRequest.getInAmount());
+        g.writeFieldName(OUT_NAME);
+        g.writeString(swapRequest.getOutName());
+        if (swapRequest.getMaxHops() != null) {
+            g.writeFieldName(MAX_HOPS);
+            g.writeNumber(swapRequest.getMaxHops());
+        }
+        g.writeEndObject();
+    }
+
+    static SwapRequest read(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        final SwapRequest swapRequest = new SwapRequest();
+        for (String name = JsonCodecUtil.firstFieldName(p, ctxt, SwapRequest.class); name != null;
+             name = p.nextFieldName()) {
+            p.nextToken();
+            switch (name) {
+                case "inName":
+                    swapRequest.setInName(JsonCodecUtil.readString(p, ctxt));
+                    break;
+                case "inAmount":
+                    swapRequest.setInAmount(JsonCodecUtil.readDouble(p, ctxt));
+                    break;
+                case "outName":
+                    swapRequest.setOutName(JsonCodecUtil.readString(p, ctxt));
+                    break;
+                case "maxHops":
+                    swapRequest.setMaxHops(JsonCodecUtil.readInteger(p, ctxt));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, Deserializer.INSTANCE, SwapRequest.class, name);
+            }
+        }
+        return swapRequest;
+    }
+
+    static final class Serializer extends StdSerializer<SwapRequest> {
+        static final Serializer INSTANCE = new Serializer();
+
+        private Serializer() {
+            super(SwapRequest.class);
+        }
+
+        @Override
+        public void serialize(final SwapRequest value, final JsonGenerator g, final SerializerProvider provider)
+                throws IOException {
+            write(g, value);
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<SwapRequest> {
+        static final Deserializer INSTANCE = new Deserializer();
+
+        private Deserializer() {
+            super(SwapRequest.class);
+        }
+
+        @Override
+        public SwapRequest deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+            return read(p, ctxt);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.simulation;
+
+import com.model.LiquidityPool;
+import com.model.SwapRequest;
+
+import java.util.Arrays;
+
+/**
+ * An arbitrage bot trading against an external market. Each asset has a reference price, one of which moves by up to
+ * volatility (as a log return) per swap. The bot checks a random pool, and when the price of asset one in asset two
+ * differs from the reference by more than minMispricing, it swaps the overpriced asset in until the constant product
+ * price of the pool matches the reference. Otherwise, a noise trader makes a random swap of up to maxFraction of the
+ * reserve of the in asset.
+ */
+public class ArbitrageSwapGenerator extends RandomSwapGenerator {
+
+    private final double volatility;
+    private final double minMispricing;
+    private final double maxFraction;
+    private final double[] referencePrices = new double[SimulatedMarket.ASSETS.length];
+
+    public ArbitrageSwapGenerator(final long seed, final double volatility, final double minMispricing,
+                                  final double maxFraction) {
+        super(seed);
+        this.volatility = volatility;
+        this.minMispricing = minMispricing;
+        this.maxFraction = maxFraction;
+        Arrays.fill(referencePrices, 1);
+    }
+
+    @Override
+    public boolean next(final SimulatedMarket market, final SwapRequest swapRequest) {
+        referencePrices[random.nextInt(referencePrices.length)] *= Math.exp(volatility * (2 * random.nextDouble() - 1));
+
+        int one = random.nextInt(SimulatedMarket.ASSETS.length);
+        int two = random.nextInt(SimulatedMarket.ASSETS.length - 1);
+        if (two >= one) {
+            two++;
+        }
+        // pool assets are in alphabetical order
+        if (SimulatedMarket.ASSETS[one].getName().compareTo(SimulatedMarket.ASSETS[two].getName()) > 0) {
+            final int swap = one;
+            one = two;
+            two = swap;
+        }
+        final LiquidityPool liquidityPool = market.getLiquidityPool(SimulatedMarket.getPoolIndex(one, two));
+        final double poolPrice = liquidityPool.getAssetOne().getPrice() / liquidityPool.getAssetTwo().getPrice();
+        final double referencePrice = referencePrices[one] / referencePrices[two];
+        final double mispricing = poolPrice / referencePrice - 1;
+        if (Math.abs(mispricing) < minMispricing) {
+            randomSwap(market, swapRequest, maxFraction * random.nextDouble());
+            return true;
+        }
+
+        // reserves x * y = k at a price of y / x, so the price is p at reserves sqrt(k / p) and sqrt(k * p)
+        final double amountOne = liquidityPool.getAssetOne().getAmount();
+        final double amountTwo = liquidityPool.getAssetTwo().getAmount();
+        final double product = amountOne * amountTwo;
+        if (mispricing > 0) {
+            swapRequest.setInName(SimulatedMarket.ASSETS[one].getName());
+            swapRequest.setOutName(SimulatedMarket.ASSETS[two].getName());
+            swapRequest.setInAmount(Math.sqrt(product / referencePrice) - amountOne);
+        } else {
+            swapRequest.setInName(SimulatedMarket.ASSETS[two].getName());
+            swapRequest.setOutName(SimulatedMarket.ASSETS[one].getName());
+            swapRequest.setInAmount(Math.sqrt(product * referencePrice) - amountTwo);
+        }
+        return true;
+    }
+}
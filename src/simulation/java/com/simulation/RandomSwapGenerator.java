@@ -0,0 +1,52 @@
+package com.simulation;
+
+import com.model.LiquidityPool;
+import com.model.SwapRequest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Base of the generators drawing swaps from a seeded SplittableRandom, so that a scenario is repeatable.
+ */
+abstract class RandomSwapGenerator implements SwapGenerator {
+
+    protected final SplittableRandom random;
+
+    RandomSwapGenerator(final long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Fills in a swap of a random pair of distinct assets, in a random direction, of fraction of the reserve of the in
+     * asset.
+     *
+     * @param market
+     * @param swapRequest
+     * @param fraction
+     */
+    protected void randomSwap(final SimulatedMarket market, final SwapRequest swapRequest, final double fraction) {
+        final int in = random.nextInt(SimulatedMarket.ASSETS.length);
+        int out = random.nextInt(SimulatedMarket.ASSETS.length - 1);
+        if (out >= in) {
+            out++;
+        }
+        swap(market, swapRequest, in, out, fraction);
+    }
+
+    /**
+     * Fills in a swap of the in asset for the out asset, of fraction of the reserve of the in asset.
+     */
+    protected static void swap(final SimulatedMarket market, final SwapRequest swapRequest,
+                               final int in, final int out, final double fraction) {
+        final LiquidityPool liquidityPool = market.getLiquidityPool(SimulatedMarket.getPoolIndex(in, out));
+        final String inName = SimulatedMarket.ASSETS[in].getName();
+        final String outName = SimulatedMarket.ASSETS[out].getName();
+        // pool assets are in alphabetical order
+        final double inReserve = inName.compareTo(outName) < 0
+                ? liquidityPool.getAssetOne().getAmount()
+                : liquidityPool.getAssetTwo().getAmount();
+        swapRequest.setInName(inName);
+        swapRequest.setOutName(outName);
+        swapRequest.setInAmount(inReserve * fraction);
+    }
+}
@@ -0,0 +1,23 @@
+package com.simulation;
+
+import com.model.SwapRequest;
+
+/**
+ * Swaps of a random pool in a random direction, each of up to maxFraction of the reserve of the in asset. The price of
+ * each pool takes a random walk.
+ */
+public class RandomWalkSwapGenerator extends RandomSwapGenerator {
+
+    private final double maxFraction;
+
+    public RandomWalkSwapGenerator(final long seed, final double maxFraction) {
+        super(seed);
+        this.maxFraction = maxFraction;
+    }
+
+    @Override
+    public boolean next(final SimulatedMarket market, final SwapRequest swapRequest) {
+        randomSwap(market, swapRequest, maxFraction * random.nextDouble());
+        return true;
+    }
+}
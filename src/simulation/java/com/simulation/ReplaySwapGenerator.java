@@ -0,0 +1,74 @@
+package com.simulation;
+
+import com.model.SwapRequest;
+import com.model.types.Asset;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Replays swaps from a file, one per line as inName,inAmount,outName (ex - Apples,1000,Bananas). Blank lines and lines
+ * starting with # are skipped. The file is streamed, so it can be larger than memory.
+ */
+public class ReplaySwapGenerator implements SwapGenerator {
+
+    private final Path path;
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    public ReplaySwapGenerator(final Path path) throws IOException {
+        this.path = path;
+        this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line is not a swap of two distinct Assets with a positive in amount
+     */
+    @Override
+    public boolean next(final SimulatedMarket market, final SwapRequest swapRequest) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            line = line.trim();
+        } while (line.isEmpty() || line.startsWith("#"));
+
+        final String[] fields = line.split(",");
+        if (fields.length != 3) {
+            throw invalidLine("expected inName,inAmount,outName");
+        }
+        final String inName = fields[0].trim();
+        final String outName = fields[2].trim();
+        if (!Asset.isValidAssetName(inName) || !Asset.isValidAssetName(outName) || inName.equals(outName)) {
+            throw invalidLine("expected two distinct asset names");
+        }
+        final double inAmount;
+        try {
+            inAmount = Double.parseDouble(fields[1].trim());
+        } catch (NumberFormatException e) {
+            throw invalidLine("expected a number as the in amount");
+        }
+        if (!(inAmount > 0) || Double.isInfinite(inAmount)) {
+            throw invalidLine("expected a positive in amount");
+        }
+        swapRequest.setInName(inName);
+        swapRequest.setInAmount(inAmount);
+        swapRequest.setOutName(outName);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private IllegalArgumentException invalidLine(final String expected) {
+        return new IllegalArgumentException("Invalid swap at " + path + ":" + lineNumber + ", " + expected);
+    }
+}
@@ -0,0 +1,101 @@
+package com.simulation;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A simulation run of swapCount swaps of one Type against a new SimulatedMarket. Scenarios are independent of each
+ * other, and the swaps of a generated scenario are repeatable for the same seed. For REPLAY, replayFile is the file of
+ * swaps, and the scenario ends early at the end of the file.
+ * <p>
+ * The state of all pools is sampled every sampleInterval swaps, and after the last swap.
+ */
+@Value
+@Builder
+public class Scenario {
+
+    // swaps of up to 0.1% of the in reserve
+    static final double MAX_FRACTION = 0.001d;
+    // one in ten thousand swaps is of 5% to 25% of the in reserve
+    static final double WHALE_PROBABILITY = 0.0001d;
+    static final double MIN_WHALE_FRACTION = 0.05d;
+    static final double MAX_WHALE_FRACTION = 0.25d;
+    // reference prices move by up to 0.1% per swap, and pools are arbitraged once 0.3% away from them
+    static final double ARBITRAGE_VOLATILITY = 0.001d;
+    static final double ARBITRAGE_MIN_MISPRICING = 0.003d;
+
+    /**
+     * Kinds of swap streams, named as on the command line of SimulationMain.
+     */
+    public enum Type {
+        RANDOM_WALK("random-walk"),
+        ARBITRAGE("arbitrage"),
+        WHALE("whale"),
+        REPLAY("replay");
+
+        private final String name;
+
+        Type(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param name
+         * @return the Type with the given name
+         * @throws IllegalArgumentException if there is none
+         */
+        public static Type fromName(final String name) {
+            for (final Type type : values()) {
+                if (type.name.equals(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scenario type: " + name);
+        }
+    }
+
+    @NonNull
+    String name;
+    @NonNull
+    Type type;
+    long seed;
+    long swapCount;
+    Path replayFile;
+    @Builder.Default
+    double initialPrice = 100;
+    @Builder.Default
+    double initialAmount = 50000;
+    @Builder.Default
+    long sampleInterval = 100_000;
+
+    /**
+     * @return a new generator of the swaps of this scenario
+     * @throws IOException if the replay file can't be opened
+     */
+    public SwapGenerator createSwapGenerator() throws IOException {
+        switch (type) {
+            case RANDOM_WALK:
+                return new RandomWalkSwapGenerator(seed, MAX_FRACTION);
+            case ARBITRAGE:
+                return new ArbitrageSwapGenerator(seed, ARBITRAGE_VOLATILITY, ARBITRAGE_MIN_MISPRICING, MAX_FRACTION);
+            case WHALE:
+                return new WhaleSwapGenerator(seed, MAX_FRACTION, WHALE_PROBABILITY, MIN_WHALE_FRACTION,
+                        MAX_WHALE_FRACTION);
+            case REPLAY:
+                if (replayFile == null) {
+                    throw new IllegalArgumentException("Scenario " + name + " has no replay file");
+                }
+                return new ReplaySwapGenerator(replayFile);
+            default:
+                throw new IllegalArgumentException("Unknown scenario type: " + type);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.simulation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of running a Scenario. Swaps are rejected, and not applied, when the pool after the swap would have a reserve
+ * or price which is not positive and finite. The slippage of each applied swap is how far the amount out per amount in
+ * was below the spot price of the pool before the swap, recorded in parts per million.
+ */
+@Value
+public class ScenarioResult {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double PARTS_PER_BASIS_POINT = 100d;
+
+    String scenarioName;
+    long appliedSwapCount;
+    long rejectedSwapCount;
+    long elapsedNanos;
+    @JsonIgnore
+    Histogram slippageHistogram;
+    List<PoolResult> poolResults;
+
+    /**
+     * State of a pool after the last swap of a scenario.
+     */
+    @Value
+    public static class PoolResult {
+        String poolName;
+        double assetOneAmount;
+        double assetTwoAmount;
+        double invariantDrift;
+        double maxAbsoluteInvariantDrift;
+    }
+
+    public double getSwapsPerSecond() {
+        return (appliedSwapCount + rejectedSwapCount) * 1e9d / Math.max(elapsedNanos, 1);
+    }
+
+    /**
+     * @return percentiles of the slippage (ex - p99), and its max, in basis points
+     */
+    public Map<String, Double> getSlippageBasisPoints() {
+        final Map<String, Double> slippageBasisPoints = new LinkedHashMap<>();
+        for (final double percentile : PERCENTILES) {
+            slippageBasisPoints.put("p" + (percentile == Math.rint(percentile) ? Long.toString((long) percentile)
+                            : Double.toString(percentile)),
+                    slippageHistogram.getValueAtPercentile(percentile) / PARTS_PER_BASIS_POINT);
+        }
+        slippageBasisPoints.put("max", slippageHistogram.getMaxValue() / PARTS_PER_BASIS_POINT);
+        return slippageBasisPoints;
+    }
+
+    /**
+     * @return largest absolute invariant drift of any pool during the scenario
+     */
+    public double getMaxAbsoluteInvariantDrift() {
+        double maxAbsoluteInvariantDrift = 0;
+        for (final PoolResult poolResult : poolResults) {
+            maxAbsoluteInvariantDrift = Math.max(maxAbsoluteInvariantDrift, poolResult.getMaxAbsoluteInvariantDrift());
+        }
+        return maxAbsoluteInvariantDrift;
+    }
+}
@@ -0,0 +1,157 @@
+package com.simulation;
+
+import com.logic.MarketMakerLogic;
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.SwapEstimate;
+import com.model.SwapRequest;
+import lombok.NonNull;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs one Scenario on a fork-join pool. Each swap is estimated and applied with MarketMakerLogic, the same pricing
+ * code as the handlers, against the in-memory pools of a SimulatedMarket.
+ * <p>
+ * With an output directory, the reserves, prices and invariant drift of all pools are streamed to
+ * {scenarioName}-reserves.csv every sample interval, so the file is written as the scenario runs rather than held in
+ * memory.
+ */
+public class ScenarioTask extends RecursiveTask<ScenarioResult> {
+
+    static final String RESERVES_FILE_SUFFIX = "-reserves.csv";
+    private static final String RESERVES_HEADER =
+            "swap,poolName,assetOnePrice,assetOneAmount,assetTwoPrice,assetTwoAmount,invariantDrift\n";
+    private static final long MAX_SLIPPAGE_PARTS_PER_MILLION = 1_000_000L;
+    private static final double PARTS_PER_MILLION = 1e6d;
+
+    private final Scenario scenario;
+    private final MarketMakerLogic marketMakerLogic;
+    private final Path outputDirectory;
+
+    /**
+     * @param scenario
+     * @param marketMakerLogic
+     * @param outputDirectory  directory to stream the reserves to, or null to not write them
+     */
+    public ScenarioTask(@NonNull final Scenario scenario, @NonNull final MarketMakerLogic marketMakerLogic,
+                        final Path outputDirectory) {
+        this.scenario = scenario;
+        this.marketMakerLogic = marketMakerLogic;
+        this.outputDirectory = outputDirectory;
+    }
+
+    @Override
+    protected ScenarioResult compute() {
+        try {
+            return run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ScenarioResult run() throws IOException {
+        final SimulatedMarket market = new SimulatedMarket(scenario.getInitialPrice(), scenario.getInitialAmount());
+        final int[] poolIndexes = market.getPoolIndexes();
+        final SwapRequest swapRequest = new SwapRequest();
+        final Histogram slippageHistogram = new Histogram(MAX_SLIPPAGE_PARTS_PER_MILLION, 3);
+        final long sampleInterval = scenario.getSampleInterval();
+        long appliedSwapCount = 0;
+        long rejectedSwapCount = 0;
+        long swap = 0;
+        final long startNanos = System.nanoTime();
+        try (SwapGenerator swapGenerator = scenario.createSwapGenerator();
+             Writer reservesWriter = createReservesWriter()) {
+            writeReserves(reservesWriter, swap, market, poolIndexes);
+            while (swap < scenario.getSwapCount() && swapGenerator.next(market, swapRequest)) {
+                swap++;
+                final int poolIndex = SimulatedMarket.getPoolIndex(swapRequest.getInName(), swapRequest.getOutName());
+                final LiquidityPool liquidityPool = market.getLiquidityPool(poolIndex);
+                final SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest);
+                final LiquidityPool newLiquidityPool =
+                        marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool);
+                if (swapEstimate.getOutPriceAmount().getAmount() > 0 && SimulatedMarket.isValid(newLiquidityPool)) {
+                    market.setLiquidityPool(poolIndex, newLiquidityPool);
+                    slippageHistogram.recordValue(toPartsPerMillion(slippage(liquidityPool, swapEstimate)));
+                    appliedSwapCount++;
+                } else {
+                    rejectedSwapCount++;
+                }
+                if (swap % sampleInterval == 0) {
+                    writeReserves(reservesWriter, swap, market, poolIndexes);
+                }
+            }
+            if (swap % sampleInterval != 0) {
+                writeReserves(reservesWriter, swap, market, poolIndexes);
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        final List<ScenarioResult.PoolResult> poolResults = new ArrayList<>(poolIndexes.length);
+        for (final int poolIndex : poolIndexes) {
+            final LiquidityPool liquidityPool = market.getLiquidityPool(poolIndex);
+            poolResults.add(new ScenarioResult.PoolResult(liquidityPool.getPoolName(),
+                    liquidityPool.getAssetOne().getAmount(), liquidityPool.getAssetTwo().getAmount(),
+                    market.getInvariantDrift(poolIndex), market.getMaxAbsoluteInvariantDrift(poolIndex)));
+        }
+        return new ScenarioResult(scenario.getName(), appliedSwapCount, rejectedSwapCount, elapsedNanos,
+                slippageHistogram, poolResults);
+    }
+
+    /**
+     * @return fraction by which the amount out per amount in of the swap is below the spot price of the pool before it
+     */
+    static double slippage(final LiquidityPool liquidityPool, final SwapEstimate swapEstimate) {
+        // pool assets are in alphabetical order
+        final PriceAmount assetOutInfo = swapEstimate.getInName().compareTo(swapEstimate.getOutName()) < 0
+                ? liquidityPool.getAssetTwo()
+                : liquidityPool.getAssetOne();
+        final double spotPrice = swapEstimate.getInPriceAmount().getPrice() / assetOutInfo.getPrice();
+        final double effectivePrice =
+                swapEstimate.getOutPriceAmount().getAmount() / swapEstimate.getInPriceAmount().getAmount();
+        return 1 - effectivePrice / spotPrice;
+    }
+
+    private static long toPartsPerMillion(final double fraction) {
+        return Math.round(Math.min(Math.max(fraction, 0), 1) * PARTS_PER_MILLION);
+    }
+
+    private Writer createReservesWriter() throws IOException {
+        if (outputDirectory == null) {
+            return null;
+        }
+        final BufferedWriter writer = Files.newBufferedWriter(
+                outputDirectory.resolve(scenario.getName() + RESERVES_FILE_SUFFIX), StandardCharsets.UTF_8);
+        writer.write(RESERVES_HEADER);
+        return writer;
+    }
+
+    private static void writeReserves(final Writer writer, final long swap, final SimulatedMarket market,
+                                      final int[] poolIndexes) throws IOException {
+        if (writer == null) {
+            return;
+        }
+        final StringBuilder rows = new StringBuilder(poolIndexes.length * 128);
+        for (final int poolIndex : poolIndexes) {
+            final LiquidityPool liquidityPool = market.getLiquidityPool(poolIndex);
+            rows.append(swap).append(',')
+                    .append(liquidityPool.getPoolName()).append(',')
+                    .append(liquidityPool.getAssetOne().getPrice()).append(',')
+                    .append(liquidityPool.getAssetOne().getAmount()).append(',')
+                    .append(liquidityPool.getAssetTwo().getPrice()).append(',')
+                    .append(liquidityPool.getAssetTwo().getAmount()).append(',')
+                    .append(market.getInvariantDrift(poolIndex)).append('\n');
+        }
+        writer.write(rows.toString());
+    }
+}
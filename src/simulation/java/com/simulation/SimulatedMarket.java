@@ -0,0 +1,126 @@
+package com.simulation;
+
+import com.model.LiquidityPool;
+import com.model.PriceAmount;
+import com.model.types.Asset;
+import com.util.LiquidityPoolUtil;
+import lombok.NonNull;
+
+/**
+ * In-memory state of a simulated market, with one LiquidityPool per pair of Assets, all created with the same price
+ * and amount of each asset. Pools are indexed by the ordinals of their assets, so a pool is looked up without building
+ * its name.
+ * <p>
+ * The invariant of a pool is the product of its reserves, which a swap should leave unchanged. The invariant drift of a
+ * pool is its product relative to the product it was created with, minus one, so it is 0 while the invariant holds.
+ * <p>
+ * Not thread safe, each scenario has its own market.
+ */
+public class SimulatedMarket {
+
+    static final Asset[] ASSETS = Asset.values();
+
+    private final LiquidityPool[] liquidityPools = new LiquidityPool[ASSETS.length * ASSETS.length];
+    private final double[] initialProducts = new double[liquidityPools.length];
+    private final double[] maxAbsoluteDrifts = new double[liquidityPools.length];
+    private final int[] poolIndexes;
+
+    public SimulatedMarket(final double initialPrice, final double initialAmount) {
+        poolIndexes = new int[ASSETS.length * (ASSETS.length - 1) / 2];
+        int pool = 0;
+        for (int one = 0; one < ASSETS.length; one++) {
+            for (int two = one + 1; two < ASSETS.length; two++) {
+                final int poolIndex = getPoolIndex(one, two);
+                liquidityPools[poolIndex] = LiquidityPool.builder()
+                        .poolName(LiquidityPoolUtil.getPoolName(ASSETS[one].getName(), ASSETS[two].getName()))
+                        .assetOne(new PriceAmount(initialPrice, initialAmount))
+                        .assetTwo(new PriceAmount(initialPrice, initialAmount))
+                        .build();
+                initialProducts[poolIndex] = initialAmount * initialAmount;
+                poolIndexes[pool++] = poolIndex;
+            }
+        }
+    }
+
+    /**
+     * @param assetOrdinalOne
+     * @param assetOrdinalTwo
+     * @return index of the pool of the two assets, in either order
+     */
+    public static int getPoolIndex(final int assetOrdinalOne, final int assetOrdinalTwo) {
+        return Math.min(assetOrdinalOne, assetOrdinalTwo) * ASSETS.length
+                + Math.max(assetOrdinalOne, assetOrdinalTwo);
+    }
+
+    /**
+     * @param assetNameOne
+     * @param assetNameTwo
+     * @return index of the pool of the two assets, in either order
+     * @throws IllegalArgumentException if either name is not an Asset, or both are the same
+     */
+    public static int getPoolIndex(@NonNull final String assetNameOne, @NonNull final String assetNameTwo) {
+        final Asset assetOne = Asset.fromAssetName(assetNameOne);
+        final Asset assetTwo = Asset.fromAssetName(assetNameTwo);
+        if (assetOne == null || assetTwo == null || assetOne == assetTwo) {
+            throw new IllegalArgumentException("No pool of " + assetNameOne + " and " + assetNameTwo);
+        }
+        return getPoolIndex(assetOne.ordinal(), assetTwo.ordinal());
+    }
+
+    /**
+     * @return indexes of all pools of the market
+     */
+    public int[] getPoolIndexes() {
+        return poolIndexes.clone();
+    }
+
+    public LiquidityPool getLiquidityPool(final int poolIndex) {
+        return liquidityPools[poolIndex];
+    }
+
+    /**
+     * Replaces the pool at poolIndex with its state after a swap, and tracks its invariant drift.
+     *
+     * @param poolIndex
+     * @param liquidityPool
+     */
+    public void setLiquidityPool(final int poolIndex, @NonNull final LiquidityPool liquidityPool) {
+        liquidityPools[poolIndex] = liquidityPool;
+        final double absoluteDrift = Math.abs(getInvariantDrift(poolIndex));
+        if (absoluteDrift > maxAbsoluteDrifts[poolIndex]) {
+            maxAbsoluteDrifts[poolIndex] = absoluteDrift;
+        }
+    }
+
+    /**
+     * @param poolIndex
+     * @return current product of the reserves of the pool relative to its initial product, minus one
+     */
+    public double getInvariantDrift(final int poolIndex) {
+        final LiquidityPool liquidityPool = liquidityPools[poolIndex];
+        return liquidityPool.getAssetOne().getAmount() * liquidityPool.getAssetTwo().getAmount()
+                / initialProducts[poolIndex] - 1;
+    }
+
+    /**
+     * @param poolIndex
+     * @return largest absolute invariant drift the pool has had
+     */
+    public double getMaxAbsoluteInvariantDrift(final int poolIndex) {
+        return maxAbsoluteDrifts[poolIndex];
+    }
+
+    /**
+     * @param liquidityPool
+     * @return whether both reserves and prices of the pool are positive and finite, which a swap must leave them
+     */
+    static boolean isValid(final LiquidityPool liquidityPool) {
+        return isPositive(liquidityPool.getAssetOne()) && isPositive(liquidityPool.getAssetTwo());
+    }
+
+    private static boolean isPositive(final PriceAmount priceAmount) {
+        final double price = priceAmount.getPrice();
+        final double amount = priceAmount.getAmount();
+        return price > 0 && amount > 0 && !Double.isInfinite(price) && !Double.isInfinite(amount);
+    }
+}
@@ -0,0 +1,60 @@
+package com.simulation;
+
+import com.logic.MarketMakerLogic;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs independent Scenarios in parallel, one ScenarioTask per scenario on a fork-join pool of its own. Scenarios
+ * share nothing but the MarketMakerLogic, which holds no state across calls for single pool swaps.
+ */
+public class SimulationEngine implements AutoCloseable {
+
+    private final MarketMakerLogic marketMakerLogic;
+    private final ForkJoinPool forkJoinPool;
+
+    public SimulationEngine(@NonNull final MarketMakerLogic marketMakerLogic, final int parallelism) {
+        this.marketMakerLogic = marketMakerLogic;
+        this.forkJoinPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Runs all scenarios and waits for them to finish.
+     *
+     * @param scenarios
+     * @param outputDirectory directory to stream the reserves of each scenario to, or null to not write them
+     * @return result of each scenario, in the order of scenarios
+     */
+    public List<ScenarioResult> run(@NonNull final List<Scenario> scenarios, final Path outputDirectory) {
+        if (outputDirectory != null) {
+            try {
+                Files.createDirectories(outputDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        final List<ScenarioTask> tasks = new ArrayList<>(scenarios.size());
+        for (final Scenario scenario : scenarios) {
+            final ScenarioTask task = new ScenarioTask(scenario, marketMakerLogic, outputDirectory);
+            forkJoinPool.execute(task);
+            tasks.add(task);
+        }
+        final List<ScenarioResult> results = new ArrayList<>(tasks.size());
+        for (final ScenarioTask task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        forkJoinPool.shutdown();
+    }
+}
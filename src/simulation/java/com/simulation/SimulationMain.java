@@ -0,0 +1,106 @@
+package com.simulation;
+
+import com.logic.ArithmeticMode;
+import com.logic.MarketMakerLogic;
+import com.util.ObjectMapperUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point of the market simulation, see SimulationEngine. Arguments are --name=value:
+ * --scenarios - comma separated Scenario.Type names, defaults to random-walk,arbitrage,whale
+ * --swaps - swaps per scenario, defaults to 10000000
+ * --runs - scenarios run per type, each with its own seed, defaults to 1
+ * --seed - seed of the first run, defaults to 1
+ * --replay - file of swaps for the replay scenario, see ReplaySwapGenerator
+ * --sample-interval - swaps between samples of the reserves, defaults to 100000
+ * --parallelism - threads of the fork-join pool, defaults to the number of processors
+ * --arithmetic - ArithmeticMode name of the pricing, defaults to double
+ * --out - directory of the results, defaults to build/simulation
+ * <p>
+ * The reserves of each scenario are streamed to {scenario}-reserves.csv, and the results of all scenarios are written
+ * to summary.json and printed. Run with: ./gradlew runSimulation -PsimulationArgs="--swaps=1000000 --runs=4"
+ */
+public final class SimulationMain {
+
+    private static final String SUMMARY_FILE_NAME = "summary.json";
+
+    private SimulationMain() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Map<String, String> options = parseOptions(args);
+        final long swapCount = Long.parseLong(options.getOrDefault("swaps", "10000000"));
+        final int runs = Integer.parseInt(options.getOrDefault("runs", "1"));
+        final long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        final long sampleInterval = Long.parseLong(options.getOrDefault("sample-interval", "100000"));
+        final int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        final ArithmeticMode arithmeticMode = ArithmeticMode.fromName(options.getOrDefault("arithmetic",
+                ArithmeticMode.DOUBLE.getName()));
+        final Path replayFile = options.containsKey("replay") ? Paths.get(options.get("replay")) : null;
+        final Path outputDirectory = Paths.get(options.getOrDefault("out", "build/simulation"));
+
+        final List<Scenario> scenarios = new ArrayList<>();
+        for (final String typeName : options.getOrDefault("scenarios", "random-walk,arbitrage,whale").split(",")) {
+            final Scenario.Type type = Scenario.Type.fromName(typeName.trim());
+            // a replay is the same on every run
+            final int typeRuns = type == Scenario.Type.REPLAY ? 1 : runs;
+            for (int run = 0; run < typeRuns; run++) {
+                scenarios.add(Scenario.builder()
+                        .name(typeRuns == 1 ? type.getName() : type.getName() + "-" + run)
+                        .type(type)
+                        .seed(seed + run)
+                        .swapCount(swapCount)
+                        .replayFile(replayFile)
+                        .sampleInterval(sampleInterval)
+                        .build());
+            }
+        }
+
+        final long startNanos = System.nanoTime();
+        final List<ScenarioResult> results;
+        // invariant drift is reported per pool by the simulation, rather than logged per swap
+        try (SimulationEngine simulationEngine = new SimulationEngine(
+                new MarketMakerLogic(arithmeticMode, Double.POSITIVE_INFINITY), parallelism)) {
+            results = simulationEngine.run(scenarios, outputDirectory);
+        }
+        final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9d;
+
+        long totalSwapCount = 0;
+        for (final ScenarioResult result : results) {
+            totalSwapCount += result.getAppliedSwapCount() + result.getRejectedSwapCount();
+            System.out.printf("%s: %d swaps (%d rejected) at %.0f swaps/s, slippage bps %s, max invariant drift %.3e%n",
+                    result.getScenarioName(), result.getAppliedSwapCount() + result.getRejectedSwapCount(),
+                    result.getRejectedSwapCount(), result.getSwapsPerSecond(), result.getSlippageBasisPoints(),
+                    result.getMaxAbsoluteInvariantDrift());
+        }
+        System.out.printf("%d swaps in %.1f s, %.1fM swaps/min%n", totalSwapCount, elapsedSeconds,
+                totalSwapCount / elapsedSeconds * 60 / 1e6d);
+
+        try (OutputStream summary = Files.newOutputStream(outputDirectory.resolve(SUMMARY_FILE_NAME))) {
+            ObjectMapperUtil.writeTo(summary, results);
+        }
+        System.out.println("Results written to " + outputDirectory.toAbsolutePath());
+    }
+
+    private static Map<String, String> parseOptions(final String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,27 @@
+package com.simulation;
+
+import com.model.SwapRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A stream of swaps for a simulated market. A generator fills in one SwapRequest per call rather than returning a new
+ * one, so the same request is reused for every swap of a scenario.
+ */
+public interface SwapGenerator extends Closeable {
+
+    /**
+     * Fills in the in / out asset names and the in amount of the next swap, against the current state of the market.
+     *
+     * @param market
+     * @param swapRequest
+     * @return false once there are no more swaps, when swapRequest is left as it was
+     * @throws IOException if the swaps are read and reading fails
+     */
+    boolean next(SimulatedMarket market, SwapRequest swapRequest) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
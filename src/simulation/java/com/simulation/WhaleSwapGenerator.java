@@ -0,0 +1,35 @@
+package com.simulation;
+
+import com.model.SwapRequest;
+
+/**
+ * Swaps of a random pool in a random direction like RandomWalkSwapGenerator, where a swap is instead a whale trade with
+ * probability whaleProbability. A whale trade is of between minWhaleFraction and maxWhaleFraction of the reserve of the
+ * in asset.
+ */
+public class WhaleSwapGenerator extends RandomSwapGenerator {
+
+    private final double maxFraction;
+    private final double whaleProbability;
+    private final double minWhaleFraction;
+    private final double maxWhaleFraction;
+
+    public WhaleSwapGenerator(final long seed, final double maxFraction, final double whaleProbability,
+                              final double minWhaleFraction, final double maxWhaleFraction) {
+        super(seed);
+        this.maxFraction = maxFraction;
+        this.whaleProbability = whaleProbability;
+        this.minWhaleFraction = minWhaleFraction;
+        this.maxWhaleFraction = maxWhaleFraction;
+    }
+
+    @Override
+    public boolean next(final SimulatedMarket market, final SwapRequest swapRequest) {
+        if (random.nextDouble() < whaleProbability) {
+            randomSwap(market, swapRequest, random.nextDouble(minWhaleFraction, maxWhaleFraction));
+        } else {
+            randomSwap(market, swapRequest, maxFraction * random.nextDouble());
+        }
+        return true;
+    }
+}
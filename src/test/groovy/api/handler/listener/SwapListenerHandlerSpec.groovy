@@ -1,16 +1,22 @@
 package api.handler.listener
 
 import com.amazonaws.services.lambda.runtime.Context
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse
 import com.amazonaws.services.lambda.runtime.events.SQSEvent
 import com.api.handler.listener.SwapListenerHandler
+import com.client.AwsCallExecutor
 import com.client.dynamodb.DynamoDBClient
+import com.client.dynamodb.LiquidityPoolCache
 import com.client.kms.token.SwapClaimToken
+import com.config.ServiceConstants
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.logic.MarketMakerLogic
 import com.model.LiquidityPool
 import com.model.SwapEstimate
 import com.model.SwapRequest
 import com.model.Transaction
+import com.model.exception.ConcurrentUpdateException
+import com.model.exception.TransactionAlreadySettledException
 import com.model.types.TransactionStatus
 import com.util.ObjectMapperUtil
 import org.joda.time.DateTime
@@ -18,10 +24,15 @@ import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
 class SwapListenerHandlerSpec extends Specification {
 
     def context = Mock(Context)
     def dynamoDBClient = Mock(DynamoDBClient)
+    def liquidityPoolCache = Mock(LiquidityPoolCache)
     def marketMakerLogic = Mock(MarketMakerLogic)
 
     private static Double someValidAmountToSwap = 5000
@@ -41,7 +52,10 @@ class SwapListenerHandlerSpec extends Specification {
     def setup() {
         swapRequestListenerHandler = new SwapListenerHandler()
         swapRequestListenerHandler.setDynamoDBClient(dynamoDBClient)
+        swapRequestListenerHandler.setLiquidityPoolCache(liquidityPoolCache)
         swapRequestListenerHandler.setMarketMakerLogic(marketMakerLogic)
+        // settle pools on the calling thread, so that interactions happen in a fixed order
+        swapRequestListenerHandler.setAwsCallExecutor(new AwsCallExecutor({ it.run() } as Executor))
         liquidityPool = new LiquidityPool()
         swapRequest = new SwapRequest()
     }
@@ -55,10 +69,10 @@ class SwapListenerHandlerSpec extends Specification {
         SQSEvent sqsEvent = buildSQSEvent(swapRequest)
 
         when:
-        swapRequestListenerHandler.handleRequest(sqsEvent, context)
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
 
         then:
-        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName) >> {
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> {
             return liquidityPool
         }
         1 * marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest) >> {
@@ -67,11 +81,14 @@ class SwapListenerHandlerSpec extends Specification {
         1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> {
             return liquidityPool
         }
-        1 * dynamoDBClient.writeTransactionAndUpdateLiquidityPool(_, liquidityPool) >> { Transaction transaction, LiquidityPool newLiquidityPool ->
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            assert transactions.size() == 1
+            Transaction transaction = transactions.get(0)
             assert transaction.getTransactionId() == someValidSwapContractId
             assert transaction.getTimeCompleted() != null
             assert transaction.getTransactionState() == TransactionStatus.FINISHED.name()
         }
+        assert response.getBatchItemFailures().isEmpty()
 
         where:
         type            | assetOne          | assetTwo
@@ -79,6 +96,348 @@ class SwapListenerHandlerSpec extends Specification {
         "reverse order" | someValidAssetTwo | someValidAssetOne
     }
 
+    def "given multiple messages for the same pool should apply in order and write pool once"() {
+        given:
+        LiquidityPool poolAfterFirstSwap = new LiquidityPool()
+        LiquidityPool poolAfterSecondSwap = new LiquidityPool()
+        SwapEstimate secondSwapEstimate = new SwapEstimate()
+        SwapRequest reverseSwapRequest = new SwapRequest()
+        reverseSwapRequest.setInAmount(someValidAmountToSwap)
+        reverseSwapRequest.setInName(someValidAssetTwo)
+        reverseSwapRequest.setOutName(someValidAssetOne)
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(buildSQSMessage("messageOne", "contractOne", swapRequest),
+                buildSQSMessage("messageTwo", "contractTwo", reverseSwapRequest)))
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> poolAfterFirstSwap
+
+        then:
+        1 * marketMakerLogic.createSwapEstimate(poolAfterFirstSwap, reverseSwapRequest) >> secondSwapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(secondSwapEstimate, poolAfterFirstSwap) >> poolAfterSecondSwap
+
+        then:
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, poolAfterSecondSwap) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            assert transactions*.getTransactionId() == ["contractOne", "contractTwo"]
+        }
+        assert response.getBatchItemFailures().isEmpty()
+    }
+
+    def "given write fails for a pool should report only that pool's messages as failures"() {
+        given:
+        SwapRequest otherPoolSwapRequest = new SwapRequest()
+        otherPoolSwapRequest.setInAmount(someValidAmountToSwap)
+        otherPoolSwapRequest.setInName("Limes")
+        otherPoolSwapRequest.setOutName("Lemons")
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(buildSQSMessage("messageOne", "contractOne", swapRequest),
+                buildSQSMessage("messageTwo", "contractTwo", otherPoolSwapRequest)))
+        LiquidityPool otherLiquidityPool = new LiquidityPool()
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * dynamoDBClient.loadLiquidityPool("Lemons-Limes", true) >> otherLiquidityPool
+        2 * marketMakerLogic.createSwapEstimate(_, _) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> liquidityPool
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, otherLiquidityPool) >> otherLiquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool) >> {
+            throw new RuntimeException("some dynamoDB failure")
+        }
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, otherLiquidityPool)
+        assert response.getBatchItemFailures()*.getItemIdentifier() == ["messageOne"]
+    }
+
+    def "given messages for several pools should settle the pools concurrently"() {
+        given:
+        swapRequestListenerHandler.setAwsCallExecutor(AwsCallExecutor.withThreads(2))
+        SwapRequest otherPoolSwapRequest = new SwapRequest()
+        otherPoolSwapRequest.setInAmount(someValidAmountToSwap)
+        otherPoolSwapRequest.setInName("Limes")
+        otherPoolSwapRequest.setOutName("Lemons")
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(buildSQSMessage("messageOne", "contractOne", swapRequest),
+                buildSQSMessage("messageTwo", "contractTwo", otherPoolSwapRequest)))
+        liquidityPool.setPoolName(someValidLiquidityPoolName)
+        LiquidityPool otherLiquidityPool = new LiquidityPool()
+        otherLiquidityPool.setPoolName("Lemons-Limes")
+        // pricing a swap waits for the other pool to be priced, which only completes if both are settled at once.
+        // mocks handle one call at a time, so the wait is in a real MarketMakerLogic
+        CountDownLatch bothPricing = new CountDownLatch(2)
+        swapRequestListenerHandler.setMarketMakerLogic(new MarketMakerLogic() {
+            @Override
+            SwapEstimate createSwapEstimate(LiquidityPool pool, SwapRequest request) {
+                bothPricing.countDown()
+                if (!bothPricing.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("pools were not settled concurrently")
+                }
+                return swapEstimate
+            }
+
+            @Override
+            LiquidityPool applySwapEstimateToPool(SwapEstimate estimate, LiquidityPool pool) {
+                return pool
+            }
+        })
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * dynamoDBClient.loadLiquidityPool("Lemons-Limes", true) >> otherLiquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool)
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, otherLiquidityPool)
+        assert response.getBatchItemFailures().isEmpty()
+    }
+
+    def "given fifo messages and a swap fails to price should fail the later messages of its pool"() {
+        given:
+        SwapRequest secondSwapRequest = new SwapRequest()
+        secondSwapRequest.setInAmount(someValidAmountToSwap + 1)
+        secondSwapRequest.setInName(someValidAssetOne)
+        secondSwapRequest.setOutName(someValidAssetTwo)
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent.SQSMessage first = buildSQSMessage("messageOne", "contractOne", swapRequest)
+        SQSEvent.SQSMessage second = buildSQSMessage("messageTwo", "contractTwo", secondSwapRequest)
+        [first, second].each { it.setAttributes([MessageGroupId: someValidLiquidityPoolName]) }
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(first, second))
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest) >> {
+            throw new IllegalArgumentException("some pricing failure")
+        }
+        0 * marketMakerLogic.createSwapEstimate(_, secondSwapRequest)
+        0 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, _)
+        assert response.getBatchItemFailures()*.getItemIdentifier() == ["messageOne", "messageTwo"]
+    }
+
+    def "given pool updated concurrently should reload pool and retry"() {
+        given:
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = buildSQSEvent(swapRequest)
+        LiquidityPool reloadedLiquidityPool = new LiquidityPool()
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> liquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool) >> {
+            throw new ConcurrentUpdateException()
+        }
+        1 * liquidityPoolCache.invalidate(someValidLiquidityPoolName)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> reloadedLiquidityPool
+        1 * marketMakerLogic.createSwapEstimate(reloadedLiquidityPool, swapRequest) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, reloadedLiquidityPool) >> reloadedLiquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, reloadedLiquidityPool)
+        1 * liquidityPoolCache.put(reloadedLiquidityPool)
+        assert response.getBatchItemFailures().isEmpty()
+    }
+
+    def "given pool updated concurrently on every attempt should report message as failed"() {
+        given:
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = buildSQSEvent(swapRequest)
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        ServiceConstants.POOL_UPDATE_MAX_ATTEMPTS * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        ServiceConstants.POOL_UPDATE_MAX_ATTEMPTS * marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest) >> swapEstimate
+        ServiceConstants.POOL_UPDATE_MAX_ATTEMPTS * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> liquidityPool
+        ServiceConstants.POOL_UPDATE_MAX_ATTEMPTS * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool) >> {
+            throw new ConcurrentUpdateException()
+        }
+        assert response.getBatchItemFailures()*.getItemIdentifier() == ["someMessageId"]
+    }
+
+    def "given a swap already settled by an earlier delivery should acknowledge it and settle the others"() {
+        given:
+        SwapRequest secondSwapRequest = new SwapRequest()
+        secondSwapRequest.setInAmount(someValidAmountToSwap + 1)
+        secondSwapRequest.setInName(someValidAssetOne)
+        secondSwapRequest.setOutName(someValidAssetTwo)
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(buildSQSMessage("messageOne", "contractOne", swapRequest),
+                buildSQSMessage("messageTwo", "contractTwo", secondSwapRequest)))
+        LiquidityPool reloadedLiquidityPool = new LiquidityPool()
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        2 * marketMakerLogic.createSwapEstimate(_, _) >> swapEstimate
+        2 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, _) >> liquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool) >> {
+            throw new TransactionAlreadySettledException(["contractOne"], null)
+        }
+
+        then:
+        // the pool the first swap was settled into, so only the second swap is applied to it
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> reloadedLiquidityPool
+        1 * marketMakerLogic.createSwapEstimate(reloadedLiquidityPool, secondSwapRequest) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, reloadedLiquidityPool) >> reloadedLiquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, reloadedLiquidityPool) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            assert transactions*.getTransactionId() == ["contractTwo"]
+        }
+        0 * marketMakerLogic.createSwapEstimate(_, swapRequest)
+        assert response.getBatchItemFailures().isEmpty()
+    }
+
+    def "given routed swap should settle it after pool groups and write all pools together"() {
+        given:
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName("Limes")
+        SwapRequest directSwapRequest = new SwapRequest()
+        directSwapRequest.setInAmount(someValidAmountToSwap)
+        directSwapRequest.setInName(someValidAssetOne)
+        directSwapRequest.setOutName(someValidAssetTwo)
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(
+                buildSQSMessage("messageOne", "contractOne", swapRequest, [someValidAssetOne, someValidAssetTwo, "Limes"]),
+                buildSQSMessage("messageTwo", "contractTwo", directSwapRequest)))
+        LiquidityPool poolAfterDirectSwap = new LiquidityPool()
+        LiquidityPool otherLiquidityPool = new LiquidityPool()
+        SwapEstimate legOne = new SwapEstimate()
+        SwapEstimate legTwo = new SwapEstimate()
+        SwapEstimate routedSwapEstimate = new SwapEstimate(someValidAssetOne, null, "Limes", null, [legOne, legTwo])
+        LiquidityPool newLiquidityPool = LiquidityPool.builder().poolName(someValidLiquidityPoolName).build()
+        LiquidityPool newOtherLiquidityPool = LiquidityPool.builder().poolName("Bananas-Limes").build()
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, directSwapRequest) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> poolAfterDirectSwap
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, poolAfterDirectSwap)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> poolAfterDirectSwap
+        1 * dynamoDBClient.loadLiquidityPool("Bananas-Limes", true) >> otherLiquidityPool
+        1 * marketMakerLogic.createSwapEstimateAlongRoute([poolAfterDirectSwap, otherLiquidityPool],
+                [someValidAssetOne, someValidAssetTwo, "Limes"], someValidAmountToSwap) >> routedSwapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(legOne, poolAfterDirectSwap) >> newLiquidityPool
+        1 * marketMakerLogic.applySwapEstimateToPool(legTwo, otherLiquidityPool) >> newOtherLiquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPools(_, [newLiquidityPool, newOtherLiquidityPool]) >> { List<Transaction> transactions, List<LiquidityPool> newLiquidityPools ->
+            assert transactions*.getTransactionId() == ["contractOne"]
+            assert transactions.get(0).getSwapApplied() == routedSwapEstimate
+        }
+        1 * liquidityPoolCache.put(newLiquidityPool)
+        1 * liquidityPoolCache.put(newOtherLiquidityPool)
+        assert response.getBatchItemFailures().isEmpty()
+    }
+
+    def "given fifo routed swap before a direct swap of its group should settle them in arrival order"() {
+        given:
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName("Limes")
+        SwapRequest directSwapRequest = new SwapRequest()
+        directSwapRequest.setInAmount(someValidAmountToSwap)
+        directSwapRequest.setInName(someValidAssetOne)
+        directSwapRequest.setOutName("Limes")
+        SQSEvent.SQSMessage routed = buildSQSMessage("messageOne", "contractOne", swapRequest,
+                [someValidAssetOne, someValidAssetTwo, "Limes"])
+        SQSEvent.SQSMessage direct = buildSQSMessage("messageTwo", "contractTwo", directSwapRequest)
+        [routed, direct].each { it.setAttributes([MessageGroupId: "Apples-Limes"]) }
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(routed, direct))
+        LiquidityPool otherLiquidityPool = new LiquidityPool()
+        LiquidityPool directLiquidityPool = new LiquidityPool()
+        SwapEstimate legOne = new SwapEstimate()
+        SwapEstimate legTwo = new SwapEstimate()
+        SwapEstimate routedSwapEstimate = new SwapEstimate(someValidAssetOne, null, "Limes", null, [legOne, legTwo])
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * dynamoDBClient.loadLiquidityPool("Bananas-Limes", true) >> otherLiquidityPool
+        1 * marketMakerLogic.createSwapEstimateAlongRoute([liquidityPool, otherLiquidityPool],
+                [someValidAssetOne, someValidAssetTwo, "Limes"], someValidAmountToSwap) >> routedSwapEstimate
+        2 * marketMakerLogic.applySwapEstimateToPool(_, _) >> { SwapEstimate estimate, LiquidityPool pool -> pool }
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPools(_, [liquidityPool, otherLiquidityPool])
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool("Apples-Limes", true) >> directLiquidityPool
+        1 * marketMakerLogic.createSwapEstimate(directLiquidityPool, directSwapRequest) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, directLiquidityPool) >> directLiquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, directLiquidityPool)
+        assert response.getBatchItemFailures().isEmpty()
+    }
+
+    def "given fifo routed swap fails should fail the direct swaps after it in its group"() {
+        given:
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName("Limes")
+        SwapRequest directSwapRequest = new SwapRequest()
+        directSwapRequest.setInAmount(someValidAmountToSwap)
+        directSwapRequest.setInName(someValidAssetOne)
+        directSwapRequest.setOutName("Limes")
+        SQSEvent.SQSMessage routed = buildSQSMessage("messageOne", "contractOne", swapRequest,
+                [someValidAssetOne, someValidAssetTwo, "Limes"])
+        SQSEvent.SQSMessage direct = buildSQSMessage("messageTwo", "contractTwo", directSwapRequest)
+        [routed, direct].each { it.setAttributes([MessageGroupId: "Apples-Limes"]) }
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(routed, direct))
+
+        when:
+        SQSBatchResponse response = swapRequestListenerHandler.handleRequest(sqsEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName, true) >> liquidityPool
+        1 * dynamoDBClient.loadLiquidityPool("Bananas-Limes", true) >> new LiquidityPool()
+        1 * marketMakerLogic.createSwapEstimateAlongRoute(_, _, _) >> {
+            throw new IllegalArgumentException("some pricing failure")
+        }
+        0 * dynamoDBClient.loadLiquidityPool("Apples-Limes", _)
+        0 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, _)
+        0 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPools(_, _)
+        assert response.getBatchItemFailures()*.getItemIdentifier() == ["messageOne", "messageTwo"]
+    }
+
     def "given invalid message should ignore()"() {
         given:
         SQSEvent invalidEvent = new SQSEvent()
@@ -87,23 +446,30 @@ class SwapListenerHandlerSpec extends Specification {
         swapRequestListenerHandler.handleRequest(invalidEvent, context)
 
         then:
-        0 * dynamoDBClient.loadLiquidityPool(_)
+        0 * dynamoDBClient.loadLiquidityPool(_, _)
         0 * marketMakerLogic.createSwapEstimate(_, _)
         0 * marketMakerLogic.applySwapEstimateToPool(_, _)
-        0 * dynamoDBClient.writeTransactionAndUpdateLiquidityPool(_, _)
+        0 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, _)
     }
 
     private SQSEvent buildSQSEvent(final SwapRequest swapRequest) {
+        SQSEvent sqsEvent = new SQSEvent()
+        sqsEvent.setRecords(Arrays.asList(buildSQSMessage("someMessageId", someValidSwapContractId, swapRequest)))
+        return sqsEvent;
+    }
+
+    private SQSEvent.SQSMessage buildSQSMessage(final String messageId, final String swapContractId,
+                                                final SwapRequest swapRequest, final List<String> route = null) {
         swapClaim = new SwapClaimToken()
-        swapClaim.setSwapContractId(someValidSwapContractId)
+        swapClaim.setRoute(route)
+        swapClaim.setSwapContractId(swapContractId)
         swapClaim.setSwapRequest(swapRequest)
         swapClaim.setExpiresAt(new DateTime().plusHours(1).toDate())
         swapClaimAsString = ObjectMapperUtil.toString(swapClaim)
 
-        SQSEvent sqsEvent = new SQSEvent()
         SQSEvent.SQSMessage sqsMessage = new SQSEvent.SQSMessage()
+        sqsMessage.setMessageId(messageId)
         sqsMessage.setBody(swapClaimAsString)
-        sqsEvent.setRecords(Arrays.asList(sqsMessage))
-        return sqsEvent;
+        return sqsMessage
     }
 }
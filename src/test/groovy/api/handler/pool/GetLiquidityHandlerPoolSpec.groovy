@@ -23,14 +23,14 @@ class GetLiquidityHandlerPoolSpec extends Specification {
     private Integer someValidPrice = 10
     private PriceAmount someValidPriceAmount = new PriceAmount(someValidPrice, someValidSupply)
     private LiquidityPool someValidLiquidityPool = new LiquidityPool(someValidLiquidityPoolName,
-            someValidPriceAmount, someValidPriceAmount, new Date(), new Date())
+            someValidPriceAmount, someValidPriceAmount, new Date(), new Date(), 1L)
 
     @Subject
     GetLiquidityPoolHandler getLiquidityPoolHandler
 
     def setup() {
         getLiquidityPoolHandler = new GetLiquidityPoolHandler()
-        getLiquidityPoolHandler.setDynamoDBClient(dynamoDBClient)
+        getLiquidityPoolHandler.setLiquidityPoolCache(TestUtil.uncachedLiquidityPoolCache(dynamoDBClient))
         requestEvent = new APIGatewayProxyRequestEvent()
         requestEvent.setPathParameters(TestUtil.getPoolNamePathParams(someValidLiquidityPoolName))
     }
@@ -0,0 +1,79 @@
+package api.handler.pool
+
+import com.amazonaws.services.lambda.runtime.Context
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
+import com.api.handler.pool.GetQuoteLadderHandler
+import com.api.handler.pool.model.QuoteLadderRequest
+import com.client.dynamodb.DynamoDBClient
+import com.config.ErrorMessages
+import com.config.ServiceConstants
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.QuoteLadder
+import com.util.ObjectMapperUtil
+import spock.lang.Specification
+import spock.lang.Subject
+import util.TestUtil
+
+class GetQuoteLadderHandlerSpec extends Specification {
+
+    def context = Mock(Context)
+    def dynamoDBClient = Mock(DynamoDBClient)
+    private String someValidLiquidityPoolName = "Apples-Bananas"
+    private LiquidityPool someValidLiquidityPool = new LiquidityPool(someValidLiquidityPoolName,
+            new PriceAmount(100, 50000), new PriceAmount(50, 100000), new Date(), new Date(), 1L)
+
+    @Subject
+    GetQuoteLadderHandler getQuoteLadderHandler
+
+    def setup() {
+        getQuoteLadderHandler = new GetQuoteLadderHandler(TestUtil.uncachedLiquidityPoolCache(dynamoDBClient),
+                new MarketMakerLogic())
+    }
+
+    def "given in amounts should quote each against the pool once"() {
+        given:
+        QuoteLadderRequest request = new QuoteLadderRequest()
+        request.setInName("Bananas")
+        request.setInAmounts([100d, 1000d, 10000d] as double[])
+
+        when:
+        APIGatewayProxyResponseEvent response = getQuoteLadderHandler.handleRequest(
+                TestUtil.createEventRequest(request, someValidLiquidityPoolName), context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName) >> someValidLiquidityPool
+        assert response.getStatusCode() == 200
+        QuoteLadder quoteLadder = ObjectMapperUtil.toClass(response.getBody(), QuoteLadder.class)
+        assert quoteLadder.getInName() == "Bananas"
+        assert quoteLadder.getOutName() == "Apples"
+        assert quoteLadder.getSpotPrice() == 0.5d
+        assert quoteLadder.getAmountsOut().length == 3
+        assert quoteLadder.getAmountsOut()[2] > quoteLadder.getAmountsOut()[1]
+        assert quoteLadder.getPriceImpacts()[2] > quoteLadder.getPriceImpacts()[1]
+    }
+
+    def "given invalid request (#type) should return bad request"() {
+        given:
+        QuoteLadderRequest request = new QuoteLadderRequest()
+        request.setInName(inName)
+        request.setInAmounts(inAmounts as double[])
+
+        when:
+        APIGatewayProxyResponseEvent response = getQuoteLadderHandler.handleRequest(
+                TestUtil.createEventRequest(request, someValidLiquidityPoolName), context)
+
+        then:
+        0 * dynamoDBClient.loadLiquidityPool(_)
+        assert response.getStatusCode() == 400
+        assert response.getBody().contains(expectedErrorMessage)
+
+        where:
+        type                | inName    | inAmounts                                             | expectedErrorMessage
+        "asset not in pool" | "Limes"   | [100d]                                                | ErrorMessages.ASSET_NOT_IN_POOL
+        "no amounts"        | "Apples"  | []                                                    | ErrorMessages.INVALID_QUOTE_LADDER_SIZE
+        "too many amounts"  | "Apples"  | [1d] * (ServiceConstants.MAX_QUOTE_LADDER_SIZE + 1)   | ErrorMessages.INVALID_QUOTE_LADDER_SIZE
+        "negative amount"   | "Apples"  | [100d, -1d]                                           | ErrorMessages.NEGATIVE_AMOUNT_TO_SWAP
+    }
+}
@@ -0,0 +1,119 @@
+package api.handler.swap
+
+import com.amazonaws.services.lambda.runtime.Context
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
+import com.api.handler.swap.EstimateSwapBatchHandler
+import com.api.handler.swap.model.EstimateSwapBatchRequest
+import com.client.dynamodb.DynamoDBClient
+import com.client.kms.token.ClaimTokenCodec
+import com.client.kms.token.SwapClaimToken
+import com.config.ErrorMessages
+import com.config.ServiceConstants
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.SwapRequest
+import com.fasterxml.jackson.databind.ObjectMapper
+import spock.lang.Specification
+import spock.lang.Subject
+import util.TestUtil
+
+class EstimateSwapBatchHandlerSpec extends Specification {
+
+    private static String someAwsRequestId = "someAwsRequestId"
+
+    def context = Mock(Context)
+    def dynamoDBClient = Mock(DynamoDBClient)
+    def claimTokenCodec = Mock(ClaimTokenCodec)
+
+    @Subject
+    EstimateSwapBatchHandler estimateSwapBatchHandler
+
+    LiquidityPool liquidityPool
+
+    def setup() {
+        estimateSwapBatchHandler = new EstimateSwapBatchHandler(TestUtil.uncachedLiquidityPoolCache(dynamoDBClient),
+                claimTokenCodec, new MarketMakerLogic())
+        liquidityPool = LiquidityPool.builder()
+                .poolName("Apples-Bananas")
+                .assetOne(new PriceAmount(100, 50000))
+                .assetTwo(new PriceAmount(100, 50000))
+                .build()
+        context.getAwsRequestId() >> someAwsRequestId
+    }
+
+    def "given batch should load each pool once and return results in request order"() {
+        given:
+        EstimateSwapBatchRequest batchRequest = new EstimateSwapBatchRequest()
+        batchRequest.setSwapRequests([swapRequest("Apples", "Bananas"), swapRequest("Apples", "Pears"),
+                                      swapRequest("Bananas", "Apples"), swapRequest("Apples", "Apples")])
+
+        when:
+        APIGatewayProxyResponseEvent response = estimateSwapBatchHandler.handleRequest(
+                TestUtil.createEventRequest(batchRequest), context)
+
+        then:
+        1 * dynamoDBClient.batchLoadLiquidityPools({ it as Set == ["Apples-Bananas", "Apples-Pears"] as Set }) >> [
+                "Apples-Bananas": liquidityPool]
+        0 * dynamoDBClient.loadLiquidityPool(_)
+        0 * claimTokenCodec.encode(_)
+        assert response.getStatusCode() == 200
+        List results = new ObjectMapper().readValue(response.getBody(), Map).results
+        assert results.size() == 4
+        assert results[0].swapEstimate.inName == "Apples"
+        assert results[0].swapEstimate.outName == "Bananas"
+        assert results[1] == [errorMessage: ErrorMessages.LIQUIDITY_POOL_DOES_NOT_EXIST]
+        assert results[2].swapEstimate.inName == "Bananas"
+        assert results[3] == [errorMessage: ErrorMessages.DUPLICATE_ASSET]
+    }
+
+    def "given issueClaimTokens should issue a claim token per estimate"() {
+        given:
+        EstimateSwapBatchRequest batchRequest = new EstimateSwapBatchRequest()
+        batchRequest.setSwapRequests([swapRequest("Apples", "Bananas"), swapRequest("Bananas", "Apples")])
+        batchRequest.setIssueClaimTokens(true)
+        List<String> swapContractIds = []
+
+        when:
+        APIGatewayProxyResponseEvent response = estimateSwapBatchHandler.handleRequest(
+                TestUtil.createEventRequest(batchRequest), context)
+
+        then:
+        1 * dynamoDBClient.batchLoadLiquidityPools(_) >> ["Apples-Bananas": liquidityPool]
+        2 * claimTokenCodec.encode(_) >> { SwapClaimToken swapClaimToken ->
+            swapContractIds.add(swapClaimToken.getSwapContractId())
+            return "token-" + swapClaimToken.getSwapContractId()
+        }
+        assert swapContractIds == [someAwsRequestId + "-0", someAwsRequestId + "-1"]
+        List results = new ObjectMapper().readValue(response.getBody(), Map).results
+        assert results*.swapClaimToken == ["token-" + someAwsRequestId + "-0", "token-" + someAwsRequestId + "-1"]
+    }
+
+    def "given batch size out of range should throw bad request"() {
+        given:
+        EstimateSwapBatchRequest batchRequest = new EstimateSwapBatchRequest()
+        batchRequest.setSwapRequests(swapRequests)
+
+        when:
+        APIGatewayProxyResponseEvent response = estimateSwapBatchHandler.handleRequest(
+                TestUtil.createEventRequest(batchRequest), context)
+
+        then:
+        0 * dynamoDBClient._
+        assert response.getStatusCode() == 400
+        assert response.getBody().contains(ErrorMessages.INVALID_BATCH_SIZE)
+
+        where:
+        swapRequests << [null, [], (0..ServiceConstants.MAX_SWAP_REQUESTS_PER_BATCH).collect {
+            swapRequest("Apples", "Bananas")
+        }]
+    }
+
+    private static SwapRequest swapRequest(final String inName, final String outName) {
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName(inName)
+        swapRequest.setOutName(outName)
+        swapRequest.setInAmount(7000)
+        return swapRequest
+    }
+}
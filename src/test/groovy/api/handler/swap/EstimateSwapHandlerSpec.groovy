@@ -5,10 +5,12 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import com.api.handler.swap.EstimateSwapHandler
 import com.api.handler.swap.model.EstimateSwapResponse
+import com.client.AwsCallExecutor
 import com.client.dynamodb.DynamoDBClient
-import com.client.kms.KMSClient
+import com.client.kms.token.ClaimTokenCodec
 import com.client.kms.token.SwapClaimToken
 import com.config.ErrorMessages
+import com.config.ServiceConstants
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.logic.MarketMakerLogic
 import com.model.LiquidityPool
@@ -20,6 +22,9 @@ import spock.lang.Subject
 import spock.lang.Unroll
 import util.TestUtil
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 class EstimateSwapHandlerSpec extends Specification {
 
     private static Double someValidAmountToSwap = 5000
@@ -31,7 +36,7 @@ class EstimateSwapHandlerSpec extends Specification {
 
     def context = Mock(Context)
     def dynamoDBClient = Mock(DynamoDBClient)
-    def kmsClient = Mock(KMSClient)
+    def claimTokenCodec = Mock(ClaimTokenCodec)
     def marketMakerLogic = Mock(MarketMakerLogic)
 
     @Subject
@@ -44,8 +49,8 @@ class EstimateSwapHandlerSpec extends Specification {
 
     def setup() {
         estimateSwapHandler = new EstimateSwapHandler()
-        estimateSwapHandler.setDynamoDBClient(dynamoDBClient)
-        estimateSwapHandler.setKmsClient(kmsClient)
+        estimateSwapHandler.setLiquidityPoolCache(TestUtil.uncachedLiquidityPoolCache(dynamoDBClient))
+        estimateSwapHandler.setClaimTokenCodec(claimTokenCodec)
         estimateSwapHandler.setMarketMakerLogic(marketMakerLogic)
 
         liquidityPool = new LiquidityPool()
@@ -71,8 +76,7 @@ class EstimateSwapHandlerSpec extends Specification {
         1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName) >> {
             return liquidityPool
         }
-        1 * kmsClient.encrypt(_) >> { String swapClaimAsString ->
-            final SwapClaimToken swapClaimToken = ObjectMapperUtil.toClass(swapClaimAsString, SwapClaimToken.class)
+        1 * claimTokenCodec.encode(_) >> { SwapClaimToken swapClaimToken ->
             assert swapClaimToken.getSwapRequest() == request
             assert swapClaimToken.getSwapContractId() == someAwsRequestId
             assert swapClaimToken.getExpiresAt() != null
@@ -93,6 +97,42 @@ class EstimateSwapHandlerSpec extends Specification {
         "reverse order" | someValidAssetTwo | someValidAssetOne
     }
 
+    def "given codec which calls KMS should encode the token while the pool is loaded"() {
+        given:
+        estimateSwapHandler.setAwsCallExecutor(AwsCallExecutor.withThreads(1))
+        request = new SwapRequest()
+        request.setInName(someValidAssetOne)
+        request.setOutName(someValidAssetTwo)
+        request.setInAmount(someValidAmountToSwap)
+        requestEvent = TestUtil.createEventRequest(request, someValidLiquidityPoolName)
+        CountDownLatch encodeStarted = new CountDownLatch(1)
+        CountDownLatch poolLoaded = new CountDownLatch(1)
+        // not a Mock, as Spock answers calls to mocks one at a time
+        estimateSwapHandler.setClaimTokenCodec([
+                isEncodeBlocking: { -> true },
+                encode          : { SwapClaimToken swapClaimToken ->
+                    encodeStarted.countDown()
+                    assert poolLoaded.await(5, TimeUnit.SECONDS)
+                    assert swapClaimToken.getRoute() == null
+                    return someSwapClaimToken
+                }] as ClaimTokenCodec)
+
+        when:
+        APIGatewayProxyResponseEvent response = estimateSwapHandler.handleRequest(requestEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(someValidLiquidityPoolName) >> {
+            // only returns once the encode is running on another thread
+            assert encodeStarted.await(5, TimeUnit.SECONDS)
+            poolLoaded.countDown()
+            return liquidityPool
+        }
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, _) >> swapEstimate
+        assert response.getStatusCode() == 200
+        assert ObjectMapperUtil.toClass(response.getBody(), EstimateSwapResponse.class).getSwapClaimToken() ==
+                someSwapClaimToken
+    }
+
     def "given invalid request (#type) should throw bad request"() {
         given:
         request = new SwapRequest()
@@ -115,4 +155,51 @@ class EstimateSwapHandlerSpec extends Specification {
         "duplicate asset"     | someValidAssetOne | someValidAssetOne | someValidAmountToSwap | ErrorMessages.DUPLICATE_ASSET
         "invalid swap amount" | someValidAssetOne | someValidAssetTwo | -5                    | ErrorMessages.NEGATIVE_AMOUNT_TO_SWAP
     }
+
+    def "given maxHops should estimate best route over all pools"() {
+        given:
+        request = new SwapRequest()
+        request.setInName(someValidAssetOne)
+        request.setOutName("Limes")
+        request.setInAmount(someValidAmountToSwap)
+        request.setMaxHops(2)
+        requestEvent = TestUtil.createEventRequest(request, someValidLiquidityPoolName)
+        List<LiquidityPool> liquidityPools = [liquidityPool]
+        swapEstimate = new SwapEstimate(someValidAssetOne, null, "Limes", null, [
+                new SwapEstimate(someValidAssetOne, null, someValidAssetTwo, null),
+                new SwapEstimate(someValidAssetTwo, null, "Limes", null)])
+
+        when:
+        APIGatewayProxyResponseEvent response = estimateSwapHandler.handleRequest(requestEvent, context)
+
+        then:
+        1 * dynamoDBClient.loadAllLiquidityPools() >> liquidityPools
+        0 * dynamoDBClient.loadLiquidityPool(_)
+        1 * marketMakerLogic.createBestSwapEstimate(liquidityPools, request, 2) >> swapEstimate
+        1 * claimTokenCodec.encode(_) >> { SwapClaimToken swapClaimToken ->
+            assert swapClaimToken.getRoute() == [someValidAssetOne, someValidAssetTwo, "Limes"]
+            return someSwapClaimToken
+        }
+        assert response.getStatusCode() == 200
+    }
+
+    def "given maxHops out of range should throw bad request"() {
+        given:
+        request = new SwapRequest()
+        request.setInName(someValidAssetOne)
+        request.setOutName(someValidAssetTwo)
+        request.setInAmount(someValidAmountToSwap)
+        request.setMaxHops(maxHops)
+        requestEvent = TestUtil.createEventRequest(request, someValidLiquidityPoolName)
+
+        when:
+        APIGatewayProxyResponseEvent response = estimateSwapHandler.handleRequest(requestEvent, context)
+
+        then:
+        assert response.getStatusCode() == 400
+        assert response.getBody().contains(ErrorMessages.INVALID_MAX_HOPS)
+
+        where:
+        maxHops << [0, ServiceConstants.MAX_ROUTE_HOPS + 1]
+    }
 }
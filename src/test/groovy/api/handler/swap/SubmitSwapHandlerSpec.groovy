@@ -6,15 +6,14 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import com.api.handler.swap.SubmitSwapHandler
 import com.api.handler.swap.model.SubmitSwapRequest
 import com.client.dynamodb.DynamoDBClient
-import com.client.kms.KMSClient
+import com.client.kms.token.ClaimTokenCodec
 import com.client.kms.token.SwapClaimToken
-import com.client.sqs.SQSClient
 import com.config.ErrorMessages
 import com.model.SwapRequest
 import com.model.Transaction
 import com.model.exception.InvalidInputException
 import com.model.types.TransactionStatus
-import com.util.ObjectMapperUtil
+import com.settlement.SwapSubmitter
 import org.joda.time.DateTime
 import spock.lang.Specification
 import spock.lang.Subject
@@ -22,9 +21,9 @@ import util.TestUtil
 
 class SubmitSwapHandlerSpec extends Specification {
 
-    def sqsClient = Mock(SQSClient)
+    def swapSubmitter = Mock(SwapSubmitter)
     def dynamoDBClient = Mock(DynamoDBClient)
-    def kmsClient = Mock(KMSClient)
+    def claimTokenCodec = Mock(ClaimTokenCodec)
     def context = Mock(Context)
 
     private final String someValidSwapClaimToken = "someValidSwapClaimToken"
@@ -41,9 +40,9 @@ class SubmitSwapHandlerSpec extends Specification {
 
     def setup() {
         submitSwapRequestHandler = new SubmitSwapHandler()
-        submitSwapRequestHandler.setSqsClient(sqsClient)
+        submitSwapRequestHandler.setSwapSubmitter(swapSubmitter)
         submitSwapRequestHandler.setDynamoDBClient(dynamoDBClient)
-        submitSwapRequestHandler.setKmsClient(kmsClient)
+        submitSwapRequestHandler.setClaimTokenCodec(claimTokenCodec)
 
         submitSwapRequest = new SubmitSwapRequest()
         submitSwapRequest.setSwapClaimToken(someValidSwapClaimToken)
@@ -65,7 +64,7 @@ class SubmitSwapHandlerSpec extends Specification {
         APIGatewayProxyResponseEvent response = submitSwapRequestHandler.handleRequest(requestEvent, context)
 
         then:
-        1 * kmsClient.decrypt(someValidSwapClaimToken) >> {
+        1 * claimTokenCodec.decode(someValidSwapClaimToken) >> {
             return swapClaimToken
         }
 
@@ -75,8 +74,7 @@ class SubmitSwapHandlerSpec extends Specification {
             assert transaction.getTimeStarted() != null
             assert transaction.getTimeCompleted() == null
         }
-        1 * sqsClient.submitMessage(_) >> { String swapClaimAsString ->
-            SwapClaimToken swapClaimToken = ObjectMapperUtil.toClass(swapClaimAsString, SwapClaimToken.class)
+        1 * swapSubmitter.submit(_) >> { SwapClaimToken swapClaimToken ->
             assert swapClaimToken.getSwapRequest() == swapRequest
             assert swapClaimToken.getExpiresAt() != null
             assert swapClaimToken.getSwapContractId() == someSwapContractId
@@ -96,19 +94,19 @@ class SubmitSwapHandlerSpec extends Specification {
         APIGatewayProxyResponseEvent response = submitSwapRequestHandler.handleRequest(requestEvent, context)
 
         then:
-        1 * kmsClient.decrypt(someValidSwapClaimToken) >> {
+        1 * claimTokenCodec.decode(someValidSwapClaimToken) >> {
             return swapClaimToken
         }
         assert response.getBody().contains(ErrorMessages.CLAIM_EXPIRED)
         assert response.getStatusCode() == 400
     }
 
-    def "given kms client throws invalid input exception should throw bad request invalid claim"() {
+    def "given claim token codec throws invalid input exception should throw bad request invalid claim"() {
         when:
         APIGatewayProxyResponseEvent response = submitSwapRequestHandler.handleRequest(requestEvent, context)
 
         then:
-        1 * kmsClient.decrypt(someValidSwapClaimToken) >> {
+        1 * claimTokenCodec.decode(someValidSwapClaimToken) >> {
             throw new InvalidInputException(ErrorMessages.INVALID_CLAIM);
         }
         assert response.getStatusCode() == 400
@@ -120,7 +118,7 @@ class SubmitSwapHandlerSpec extends Specification {
         APIGatewayProxyResponseEvent response = submitSwapRequestHandler.handleRequest(requestEvent, context)
 
         then:
-        1 * kmsClient.decrypt(someValidSwapClaimToken) >> {
+        1 * claimTokenCodec.decode(someValidSwapClaimToken) >> {
             return swapClaimToken
         }
         1 * dynamoDBClient.initializeTransaction(_) >> {
@@ -0,0 +1,78 @@
+package api.server
+
+import com.amazonaws.services.lambda.runtime.RequestHandler
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
+import com.api.server.ApiGatewayRouter
+import com.sun.net.httpserver.HttpServer
+import spock.lang.Specification
+import spock.lang.Subject
+
+class ApiGatewayRouterSpec extends Specification {
+
+    def getHandler = Mock(RequestHandler)
+    def postHandler = Mock(RequestHandler)
+    private HttpServer httpServer
+
+    @Subject
+    ApiGatewayRouter router
+
+    def setup() {
+        router = new ApiGatewayRouter()
+                .route("GET", "/pool/{poolName}", getHandler)
+                .route("POST", "/pool/{poolName}", postHandler)
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        httpServer.createContext("/", router)
+        httpServer.start()
+    }
+
+    def cleanup() {
+        httpServer.stop(0)
+    }
+
+    def "given matching route should pass path parameters and body to handler"() {
+        when:
+        HttpURLConnection connection = open("/pool/Apples-Bananas", "POST")
+        connection.setDoOutput(true)
+        connection.getOutputStream().withCloseable { it.write("{}".getBytes("UTF-8")) }
+        int responseCode = connection.getResponseCode()
+
+        then:
+        1 * postHandler.handleRequest(_, _) >> { APIGatewayProxyRequestEvent requestEvent, context ->
+            assert requestEvent.getPathParameters() == [poolName: "Apples-Bananas"]
+            assert requestEvent.getBody() == "{}"
+            return new APIGatewayProxyResponseEvent().withStatusCode(200).withBody("ok")
+        }
+        0 * getHandler.handleRequest(_, _)
+        assert responseCode == 200
+        assert connection.getInputStream().text == "ok"
+    }
+
+    def "given handler throws should return internal error"() {
+        when:
+        int responseCode = open("/pool/Apples-Bananas", "GET").getResponseCode()
+
+        then:
+        1 * getHandler.handleRequest(_, _) >> { throw new RuntimeException("unexpected") }
+        assert responseCode == 500
+    }
+
+    def "given no matching route should return not found"() {
+        when:
+        int responseCode = open(path, "GET").getResponseCode()
+
+        then:
+        0 * getHandler.handleRequest(_, _)
+        assert responseCode == 404
+
+        where:
+        path << ["/pool", "/pool/", "/pool/Apples-Bananas/extra", "/swap/estimate"]
+    }
+
+    private HttpURLConnection open(final String path, final String method) {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://localhost:" + httpServer.getAddress().getPort() + path).openConnection()
+        connection.setRequestMethod(method)
+        return connection
+    }
+}
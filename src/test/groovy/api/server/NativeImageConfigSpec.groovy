@@ -0,0 +1,60 @@
+package api.server
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.model.PriceAmount
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.stream.Collectors
+
+/**
+ * Checks the reflection configuration of the native image on the JVM, as a class missing from it only fails at run
+ * time of the image. Jackson reflects on the runtime class of a value, so a subclass of a registered class, ex - the
+ * ScaledPriceAmount of a pool priced in fixed point, needs registering too.
+ */
+class NativeImageConfigSpec extends Specification {
+
+    private static final String REFLECT_CONFIG =
+            "/META-INF/native-image/automated-market-maker/reflect-config.json"
+
+    @Shared
+    Set<String> registeredNames
+
+    def setupSpec() {
+        JsonNode reflectConfig = getClass().getResourceAsStream(REFLECT_CONFIG).withCloseable {
+            new ObjectMapper().readTree(it)
+        }
+        registeredNames = reflectConfig.collect { it.get("name").asText() } as Set
+    }
+
+    def "given reflect config should name only classes that exist"() {
+        expect:
+        registeredNames.each {
+            Class.forName(it, false, getClass().getClassLoader())
+        }
+    }
+
+    def "given class of this project extending a registered class should register it"() {
+        given:
+        Path classesRoot = Paths.get(PriceAmount.getProtectionDomain().getCodeSource().getLocation().toURI())
+        List<Class<?>> classes = Files.walk(classesRoot).withCloseable {
+            it.filter { it.toString().endsWith(".class") }
+                    .map { classesRoot.relativize(it).toString().replace(File.separator, ".") - ~/\.class$/ }
+                    .map { Class.forName(it, false, getClass().getClassLoader()) }
+                    .collect(Collectors.toList())
+        }
+
+        when:
+        List<String> unregistered = classes.findAll { clazz ->
+            !registeredNames.contains(clazz.getName()) && registeredNames.contains(clazz.getSuperclass()?.getName())
+        }*.getName()
+
+        then:
+        assert classes.any { it.getName() == "com.logic.ScaledPriceAmount" }
+        assert unregistered.isEmpty()
+    }
+}
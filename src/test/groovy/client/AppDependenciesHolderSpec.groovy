@@ -0,0 +1,47 @@
+package client
+
+import com.client.AppDependencies
+import com.client.AppDependenciesHolder
+import com.client.dynamodb.DynamoDBClient
+import com.client.sqs.SQSClient
+import spock.lang.Specification
+
+class AppDependenciesHolderSpec extends Specification {
+
+    def "should share one component and one instance of each client"() {
+        expect:
+        assert AppDependenciesHolder.get().is(AppDependenciesHolder.get())
+        assert AppDependenciesHolder.get().dynamoDBClient().is(AppDependenciesHolder.get().dynamoDBClient())
+        assert AppDependenciesHolder.get().kmsClient().is(AppDependenciesHolder.get().kmsClient())
+        assert AppDependenciesHolder.get().sqsClient().is(AppDependenciesHolder.get().sqsClient())
+    }
+
+    def "given eager client names should parse them ignoring case and whitespace"() {
+        expect:
+        assert AppDependenciesHolder.parseClientNames(clientNames) == expected as Set
+
+        where:
+        clientNames          | expected
+        null                 | []
+        ""                   | []
+        "dynamodb"           | ["dynamodb"]
+        " DynamoDB , kms,, " | ["dynamodb", "kms"]
+    }
+
+    def "should warm up only the listed clients"() {
+        given:
+        def dynamoDBClient = Mock(DynamoDBClient)
+        def sqsClient = Mock(SQSClient)
+        def appDependencies = Mock(AppDependencies)
+
+        when:
+        AppDependenciesHolder.warmUp(appDependencies, ["dynamodb"] as Set)
+
+        then:
+        1 * appDependencies.dynamoDBClient() >> dynamoDBClient
+        1 * dynamoDBClient.warmUp()
+        0 * appDependencies.claimTokenCodec()
+        0 * appDependencies.sqsClient()
+        0 * sqsClient.warmUp()
+    }
+}
@@ -0,0 +1,58 @@
+package client
+
+import com.client.AppDependencies
+import com.client.PrimingResource
+import com.client.dynamodb.DynamoDBClient
+import com.client.sqs.SQSClient
+import com.util.JitterUtil
+import spock.lang.Specification
+
+class PrimingResourceSpec extends Specification {
+
+    def dynamoDBClient = Mock(DynamoDBClient)
+    def sqsClient = Mock(SQSClient)
+    def appDependencies = Mock(AppDependencies)
+
+    def "before checkpoint should prime without connecting clients"() {
+        given:
+        PrimingResource primingResource = new PrimingResource(appDependencies, ["dynamodb", "sqs"] as Set)
+
+        when:
+        primingResource.beforeCheckpoint(null)
+
+        then:
+        _ * appDependencies.dynamoDBClient() >> dynamoDBClient
+        1 * dynamoDBClient.warmUp()
+        0 * dynamoDBClient.connect()
+        0 * appDependencies.sqsClient()
+    }
+
+    def "after restore should connect the listed clients and not fail if they cannot"() {
+        given:
+        PrimingResource primingResource = new PrimingResource(appDependencies, ["dynamodb", "sqs"] as Set)
+
+        when:
+        primingResource.afterRestore(null)
+
+        then:
+        _ * appDependencies.dynamoDBClient() >> dynamoDBClient
+        _ * appDependencies.sqsClient() >> sqsClient
+        1 * dynamoDBClient.connect() >> { throw new RuntimeException("unreachable") }
+        1 * sqsClient.connect()
+        noExceptionThrown()
+    }
+
+    def "after restore should reseed the jitter of retry backoff"() {
+        given:
+        PrimingResource primingResource = new PrimingResource(appDependencies, [] as Set)
+        Random beforeRestore = JitterUtil.random
+
+        when:
+        primingResource.afterRestore(null)
+
+        then:
+        assert !JitterUtil.random.is(beforeRestore)
+        long jitter = JitterUtil.nextLong(100)
+        assert jitter >= 0 && jitter < 100
+    }
+}
@@ -0,0 +1,221 @@
+package client.dynamodb
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider
+import com.amazonaws.auth.BasicAWSCredentials
+import com.amazonaws.client.builder.AwsClientBuilder
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClientBuilder
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition
+import com.amazonaws.services.dynamodbv2.model.AttributeValue
+import com.amazonaws.services.dynamodbv2.model.BillingMode
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement
+import com.amazonaws.services.dynamodbv2.model.KeyType
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType
+import com.amazonaws.services.dynamodbv2.util.TableUtils
+import com.client.AwsEndpointUtil
+import com.client.dynamodb.DBConstants
+import com.client.dynamodb.DynamoDBClient
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.SwapEstimate
+import com.model.SwapRequest
+import com.model.Transaction
+import com.model.exception.ConcurrentUpdateException
+import com.model.exception.InvalidInputException
+import com.model.exception.TransactionAlreadySettledException
+import com.model.types.TransactionStatus
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ExecutionException
+
+/**
+ * Runs the async methods of the DynamoDBClient against DynamoDB Local, at DYNAMODB_ENDPOINT, and is skipped when it is
+ * not set. The tables are created if they don't exist, and every pool and transaction gets a name of its own, so the
+ * spec can run against the tables of the local server. Ex -
+ * docker run -p 8000:8000 amazon/dynamodb-local -jar DynamoDBLocal.jar -inMemory
+ * DYNAMODB_ENDPOINT=http://localhost:8000 ./gradlew test --tests '*IntegrationSpec'
+ */
+@Requires({ env.DYNAMODB_ENDPOINT })
+class DynamoDBClientIntegrationSpec extends Specification {
+
+    @Shared
+    AmazonDynamoDBAsync amazonDynamoDB
+    private MarketMakerLogic marketMakerLogic = new MarketMakerLogic()
+    private String somePoolName = "Apples-Bananas-" + UUID.randomUUID()
+    private Date someTime = new Date(1638323280000L)
+
+    @Subject
+    DynamoDBClient dynamoDBClient
+
+    def setupSpec() {
+        amazonDynamoDB = AmazonDynamoDBAsyncClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                        System.getenv(AwsEndpointUtil.DYNAMODB_ENDPOINT), "us-east-1"))
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("local", "local")))
+                .build()
+        createTableIfNotExists(DBConstants.LIQUIDITY_POOLS_TABLE_NAME, DBConstants.LIQUIDITY_POOL_NAME_KEY)
+        createTableIfNotExists(DBConstants.TRANSACTIONS_TABLE_NAME, DBConstants.TRANSACTION_ID_KEY)
+    }
+
+    def cleanupSpec() {
+        amazonDynamoDB?.shutdown()
+    }
+
+    def setup() {
+        dynamoDBClient = new DynamoDBClient(amazonDynamoDB)
+    }
+
+    def cleanup() {
+        amazonDynamoDB.deleteItem(DBConstants.LIQUIDITY_POOLS_TABLE_NAME,
+                [(DBConstants.LIQUIDITY_POOL_NAME_KEY): new AttributeValue().withS(somePoolName)])
+    }
+
+    def "given new pool should create it and load it back"() {
+        given:
+        LiquidityPool liquidityPool = newLiquidityPool()
+
+        when:
+        dynamoDBClient.createLiquidityPoolAsync(liquidityPool).get()
+        LiquidityPool result = dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+
+        then:
+        assert result == liquidityPool
+        assert result.getVersion() == 1L
+    }
+
+    def "given existing pool should fail the conditional create with invalid input"() {
+        given:
+        dynamoDBClient.createLiquidityPoolAsync(newLiquidityPool()).get()
+
+        when:
+        dynamoDBClient.createLiquidityPoolAsync(newLiquidityPool()).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+        assert dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get().getVersion() == 1L
+    }
+
+    def "given missing pool should fail the load with invalid input"() {
+        when:
+        dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+    }
+
+    def "given existing transaction should fail the conditional initialize with invalid input"() {
+        given:
+        Transaction transaction = startedTransaction()
+        dynamoDBClient.initializeTransactionAsync(transaction).get()
+
+        when:
+        dynamoDBClient.initializeTransactionAsync(transaction).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+    }
+
+    def "given pool updated since it was read should fail the conditional write with ConcurrentUpdateException"() {
+        given:
+        dynamoDBClient.createLiquidityPoolAsync(newLiquidityPool()).get()
+        LiquidityPool first = dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+        LiquidityPool second = dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+        Transaction firstTransaction = startedTransaction()
+        Transaction secondTransaction = startedTransaction()
+        dynamoDBClient.initializeTransactionAsync(firstTransaction).get()
+        dynamoDBClient.initializeTransactionAsync(secondTransaction).get()
+        LiquidityPool afterFirst = settle(firstTransaction, first, 1000)
+        LiquidityPool afterSecond = settle(secondTransaction, second, 2000)
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([firstTransaction], [afterFirst]).get()
+
+        then:
+        assert afterFirst.getVersion() == 2L
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([secondTransaction], [afterSecond]).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof ConcurrentUpdateException
+        assert afterSecond.getVersion() == 1L
+        LiquidityPool result = dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+        assert result.getVersion() == 2L
+        assert result.getAssetOne() == afterFirst.getAssetOne()
+    }
+
+    def "given transaction already settled should fail the write with TransactionAlreadySettledException"() {
+        given:
+        dynamoDBClient.createLiquidityPoolAsync(newLiquidityPool()).get()
+        Transaction transaction = startedTransaction()
+        dynamoDBClient.initializeTransactionAsync(transaction).get()
+        LiquidityPool afterFirst = settle(transaction,
+                dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get(), 1000)
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([transaction], [afterFirst]).get()
+
+        when:
+        // the same swap delivered again, settled against the pool it left
+        LiquidityPool afterAgain = settle(transaction,
+                dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get(), 1000)
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([transaction], [afterAgain]).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof TransactionAlreadySettledException
+        assert ((TransactionAlreadySettledException) e.getCause()).getTransactionIds() ==
+                [transaction.getTransactionId()]
+        assert dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get().getVersion() == 2L
+    }
+
+    private LiquidityPool newLiquidityPool() {
+        return LiquidityPool.builder()
+                .poolName(somePoolName)
+                .assetOne(new PriceAmount(100, 50000))
+                .assetTwo(new PriceAmount(100, 50000))
+                .createdTime(someTime)
+                .updatedTime(someTime)
+                .build()
+    }
+
+    private Transaction startedTransaction() {
+        return Transaction.builder()
+                .transactionId(UUID.randomUUID().toString())
+                .transactionState(TransactionStatus.STARTED.name())
+                .timeStarted(someTime)
+                .build()
+    }
+
+    /**
+     * Applies a swap of inAmount Apples to the pool, and marks the transaction FINISHED, as the swap listener does.
+     */
+    private LiquidityPool settle(final Transaction transaction, final LiquidityPool liquidityPool,
+                                 final double inAmount) {
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName("Apples")
+        swapRequest.setOutName("Bananas")
+        swapRequest.setInAmount(inAmount)
+        SwapEstimate swapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest)
+        transaction.setTransactionState(TransactionStatus.FINISHED.name())
+        transaction.setSwapApplied(swapEstimate)
+        transaction.setTimeCompleted(new Date())
+        return marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool)
+    }
+
+    private void createTableIfNotExists(final String tableName, final String keyName) {
+        TableUtils.createTableIfNotExists(amazonDynamoDB, new CreateTableRequest()
+                .withTableName(tableName)
+                .withAttributeDefinitions(new AttributeDefinition(keyName, ScalarAttributeType.S))
+                .withKeySchema(new KeySchemaElement(keyName, KeyType.HASH))
+                .withBillingMode(BillingMode.PAY_PER_REQUEST))
+        TableUtils.waitUntilActive(amazonDynamoDB, tableName)
+    }
+}
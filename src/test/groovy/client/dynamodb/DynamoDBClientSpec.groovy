@@ -0,0 +1,338 @@
+package client.dynamodb
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync
+import com.amazonaws.services.dynamodbv2.model.AttributeValue
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult
+import com.amazonaws.services.dynamodbv2.model.CancellationReason
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException
+import com.amazonaws.services.dynamodbv2.model.GetItemResult
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest
+import com.amazonaws.services.dynamodbv2.model.PutItemResult
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException
+import com.client.dynamodb.DBConstants
+import com.client.dynamodb.DynamoDBClient
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.SwapEstimate
+import com.model.Transaction
+import com.model.exception.ConcurrentUpdateException
+import com.model.exception.InvalidInputException
+import com.model.exception.TransactionAlreadySettledException
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ExecutionException
+
+class DynamoDBClientSpec extends Specification {
+
+    def amazonDynamoDB = Mock(AmazonDynamoDBAsync)
+    private String somePoolName = "Apples-Bananas"
+    private Date someTime = new Date(1638323280000L)
+    private LiquidityPool liquidityPool = LiquidityPool.builder()
+            .poolName(somePoolName)
+            .assetOne(new PriceAmount(100, 50000))
+            .assetTwo(new PriceAmount(100, 50000))
+            .createdTime(someTime)
+            .updatedTime(someTime)
+            .build()
+
+    @Subject
+    DynamoDBClient dynamoDBClient = new DynamoDBClient(amazonDynamoDB)
+
+    def "given new pool should put it with flat attributes and load it back"() {
+        given:
+        PutItemRequest request = null
+
+        when:
+        dynamoDBClient.createLiquidityPool(liquidityPool)
+        LiquidityPool result = dynamoDBClient.loadLiquidityPool(somePoolName)
+
+        then:
+        1 * amazonDynamoDB.putItem(_) >> { arguments -> request = arguments[0]; null }
+        1 * amazonDynamoDB.getItem({
+            it.getProjectionExpression() != null && it.getKey().poolName.getS() == somePoolName
+        }) >> { new GetItemResult().withItem(request.getItem()) }
+        assert request.getTableName() == DBConstants.LIQUIDITY_POOLS_TABLE_NAME
+        assert request.getConditionExpression() == "attribute_not_exists(#poolName)"
+        assert request.getItem().assetOneAmount.getN() == "50000.0"
+        assert request.getItem().createdTime.getN() == "1638323280000"
+        assert !request.getItem().containsKey("assetOne")
+        assert result == liquidityPool
+        assert result.getVersion() == 1L
+    }
+
+    def "given pool written by DynamoDBMapper should load it"() {
+        when:
+        LiquidityPool result = dynamoDBClient.loadLiquidityPool(somePoolName)
+
+        then:
+        1 * amazonDynamoDB.getItem(_) >> new GetItemResult().withItem([
+                poolName   : new AttributeValue().withS(somePoolName),
+                assetOne   : priceAmountItem("100", "50000"),
+                assetTwo   : priceAmountItem("100", "50000"),
+                createdTime: new AttributeValue().withS("2021-12-01T01:48:00.000Z"),
+                updatedTime: new AttributeValue().withS("2021-12-01T01:48:00.000Z"),
+                version    : new AttributeValue().withN("3")
+        ])
+        assert result.getAssetOne() == liquidityPool.getAssetOne()
+        assert result.getAssetTwo() == liquidityPool.getAssetTwo()
+        assert result.getCreatedTime() == someTime
+        assert result.getUpdatedTime() == someTime
+        assert result.getVersion() == 3L
+        assert result.getEventSequenceNumber() == null
+    }
+
+    def "given settled swap should write flat attributes and remove the nested ones"() {
+        given:
+        liquidityPool.setVersion(3L)
+        Transaction transaction = Transaction.builder()
+                .transactionId("someContractId")
+                .transactionState("FINISHED")
+                .swapApplied(new SwapEstimate("Apples", new PriceAmount(100, 1000),
+                        "Bananas", new PriceAmount(100, 980)))
+                .timeCompleted(someTime)
+                .build()
+        TransactWriteItemsRequest request = null
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool([transaction], liquidityPool)
+
+        then:
+        1 * amazonDynamoDB.transactWriteItems(_) >> { arguments -> request = arguments[0]; null }
+        def transactionUpdate = request.getTransactItems()[0].getUpdate()
+        def values = transactionUpdate.getExpressionAttributeValues()
+        def names = transactionUpdate.getExpressionAttributeNames()
+        assert transactionUpdate.getUpdateExpression().endsWith(" REMOVE #r0")
+        assert names["#r0"] == "swapApplied"
+        assert values.values()*.getS().containsAll(["FINISHED", "Apples", "Bananas"])
+        assert names.values().containsAll(["swapInName", "swapInAmount", "swapOutAmount", "timeCompleted"])
+        assert transactionUpdate.getConditionExpression() ==
+                "attribute_not_exists(#transactionState) OR #transactionState <> :finished"
+        assert values[":finished"].getS() == "FINISHED"
+        def poolUpdate = request.getTransactItems()[1].getUpdate()
+        assert poolUpdate.getUpdateExpression().endsWith(" REMOVE #r0, #r1")
+        assert poolUpdate.getExpressionAttributeValues()[":expectedVersion"].getN() == "3"
+        assert liquidityPool.getVersion() == 4L
+    }
+
+    def "given settlement read should load the pool consistently"() {
+        when:
+        dynamoDBClient.loadLiquidityPool(somePoolName, true)
+
+        then:
+        1 * amazonDynamoDB.getItem({ it.getConsistentRead() }) >> new GetItemResult().withItem([
+                poolName: new AttributeValue().withS(somePoolName)
+        ])
+    }
+
+    def "given write cancelled on a transaction should throw TransactionAlreadySettledException"() {
+        given:
+        liquidityPool.setVersion(3L)
+        List<Transaction> transactions = ["contractOne", "contractTwo"].collect {
+            Transaction.builder()
+                    .transactionId(it)
+                    .transactionState("FINISHED")
+                    .swapApplied(new SwapEstimate("Apples", new PriceAmount(100, 1000),
+                            "Bananas", new PriceAmount(100, 980)))
+                    .build()
+        }
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(transactions, liquidityPool)
+
+        then:
+        1 * amazonDynamoDB.transactWriteItems(_) >> {
+            throw cancelled(["None", "ConditionalCheckFailed", "None"])
+        }
+        TransactionAlreadySettledException e = thrown()
+        assert e.getTransactionIds() == ["contractTwo"]
+        assert liquidityPool.getVersion() == 3L
+    }
+
+    def "given write cancelled on the pool should throw ConcurrentUpdateException"() {
+        given:
+        liquidityPool.setVersion(3L)
+        Transaction transaction = Transaction.builder()
+                .transactionId("contractOne")
+                .transactionState("FINISHED")
+                .swapApplied(new SwapEstimate("Apples", new PriceAmount(100, 1000),
+                        "Bananas", new PriceAmount(100, 980)))
+                .build()
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool([transaction], liquidityPool)
+
+        then:
+        1 * amazonDynamoDB.transactWriteItems(_) >> { throw cancelled(["None", "ConditionalCheckFailed"]) }
+        thrown(ConcurrentUpdateException)
+    }
+
+    def "given unprocessed keys should retry them"() {
+        given:
+        Map<String, AttributeValue> item = [
+                poolName      : new AttributeValue().withS(somePoolName),
+                assetOnePrice : new AttributeValue().withN("100"),
+                assetOneAmount: new AttributeValue().withN("50000"),
+                assetTwoPrice : new AttributeValue().withN("100"),
+                assetTwoAmount: new AttributeValue().withN("50000")
+        ]
+        KeysAndAttributes unprocessed = new KeysAndAttributes()
+                .withKeys([poolName: new AttributeValue().withS(somePoolName)])
+
+        when:
+        Map<String, LiquidityPool> result = dynamoDBClient.batchLoadLiquidityPools([somePoolName, "Apples-Pears"])
+
+        then:
+        1 * amazonDynamoDB.batchGetItem({
+            it.getRequestItems()[DBConstants.LIQUIDITY_POOLS_TABLE_NAME].getKeys().size() == 2
+        }) >> new BatchGetItemResult()
+                .withResponses([(DBConstants.LIQUIDITY_POOLS_TABLE_NAME): []])
+                .withUnprocessedKeys([(DBConstants.LIQUIDITY_POOLS_TABLE_NAME): unprocessed])
+        1 * amazonDynamoDB.batchGetItem({
+            it.getRequestItems()[DBConstants.LIQUIDITY_POOLS_TABLE_NAME].is(unprocessed)
+        }) >> new BatchGetItemResult()
+                .withResponses([(DBConstants.LIQUIDITY_POOLS_TABLE_NAME): [item]])
+                .withUnprocessedKeys([:])
+        assert result.keySet() == [somePoolName] as Set
+        assert result[somePoolName].getAssetOne() == liquidityPool.getAssetOne()
+    }
+
+    def "given new pool should create it asynchronously and load it back"() {
+        given:
+        PutItemRequest request = null
+
+        when:
+        dynamoDBClient.createLiquidityPoolAsync(liquidityPool).get()
+        LiquidityPool result = dynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+
+        then:
+        1 * amazonDynamoDB.putItemAsync(_, _) >> { arguments ->
+            request = arguments[0]
+            arguments[1].onSuccess(request, new PutItemResult())
+            null
+        }
+        1 * amazonDynamoDB.getItemAsync({ it.getConsistentRead() }, _) >> { arguments ->
+            arguments[1].onSuccess(arguments[0], new GetItemResult().withItem(request.getItem()))
+            null
+        }
+        assert request.getConditionExpression() == "attribute_not_exists(#poolName)"
+        assert result == liquidityPool
+        assert liquidityPool.getVersion() == 1L
+    }
+
+    def "given existing pool should complete the async create with invalid input"() {
+        when:
+        dynamoDBClient.createLiquidityPoolAsync(liquidityPool).get()
+
+        then:
+        1 * amazonDynamoDB.putItemAsync(_, _) >> { arguments ->
+            arguments[1].onError(new ConditionalCheckFailedException("The conditional request failed"))
+            null
+        }
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+        assert liquidityPool.getVersion() == null
+    }
+
+    def "given missing pool should complete the async load with invalid input"() {
+        when:
+        dynamoDBClient.loadLiquidityPoolAsync(somePoolName, false).get()
+
+        then:
+        1 * amazonDynamoDB.getItemAsync(_, _) >> { arguments ->
+            arguments[1].onSuccess(arguments[0], new GetItemResult())
+            null
+        }
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+    }
+
+    def "given existing transaction should complete the async initialize with invalid input"() {
+        given:
+        Transaction transaction = Transaction.builder()
+                .transactionId("someContractId")
+                .transactionState("STARTED")
+                .timeStarted(someTime)
+                .build()
+
+        when:
+        dynamoDBClient.initializeTransactionAsync(transaction).get()
+
+        then:
+        1 * amazonDynamoDB.putItemAsync({ it.getTableName() == DBConstants.TRANSACTIONS_TABLE_NAME }, _) >> {
+            arguments ->
+                arguments[1].onError(new ConditionalCheckFailedException("The conditional request failed"))
+                null
+        }
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+    }
+
+    def "given async write should update the pool version once written"() {
+        given:
+        liquidityPool.setVersion(3L)
+        TransactWriteItemsRequest request = null
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([settledTransaction("contractOne")],
+                [liquidityPool]).get()
+
+        then:
+        1 * amazonDynamoDB.transactWriteItemsAsync(_, _) >> { arguments ->
+            request = arguments[0]
+            arguments[1].onSuccess(request, new TransactWriteItemsResult())
+            null
+        }
+        assert request.getTransactItems()[1].getUpdate().getExpressionAttributeValues()[":expectedVersion"]
+                .getN() == "3"
+        assert liquidityPool.getVersion() == 4L
+    }
+
+    def "given async write cancelled should complete it with the exception the blocking write throws"() {
+        given:
+        liquidityPool.setVersion(3L)
+
+        when:
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync(
+                [settledTransaction("contractOne"), settledTransaction("contractTwo")], [liquidityPool]).get()
+
+        then:
+        1 * amazonDynamoDB.transactWriteItemsAsync(_, _) >> { arguments ->
+            arguments[1].onError(cancelled(codes))
+            null
+        }
+        ExecutionException e = thrown()
+        assert exceptionClass.isInstance(e.getCause())
+        assert liquidityPool.getVersion() == 3L
+
+        where:
+        codes                                             | exceptionClass
+        ["None", "ConditionalCheckFailed", "None"]        | TransactionAlreadySettledException
+        ["None", "None", "ConditionalCheckFailed"]        | ConcurrentUpdateException
+        ["None", "None", "TransactionConflict"]           | ConcurrentUpdateException
+        ["None", "None", "ProvisionedThroughputExceeded"] | TransactionCanceledException
+    }
+
+    private static Transaction settledTransaction(final String transactionId) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .transactionState("FINISHED")
+                .swapApplied(new SwapEstimate("Apples", new PriceAmount(100, 1000),
+                        "Bananas", new PriceAmount(100, 980)))
+                .build()
+    }
+
+    private static TransactionCanceledException cancelled(final List<String> codes) {
+        TransactionCanceledException e = new TransactionCanceledException("some cancellation")
+        e.setCancellationReasons(codes.collect { new CancellationReason().withCode(it) })
+        return e
+    }
+
+    private static AttributeValue priceAmountItem(final String price, final String amount) {
+        return new AttributeValue().withM([price: new AttributeValue().withN(price),
+                                           amount: new AttributeValue().withN(amount)])
+    }
+}
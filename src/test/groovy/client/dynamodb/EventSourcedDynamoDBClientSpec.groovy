@@ -0,0 +1,259 @@
+package client.dynamodb
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync
+import com.amazonaws.services.dynamodbv2.model.AttributeValue
+import com.amazonaws.services.dynamodbv2.model.CancellationReason
+import com.amazonaws.services.dynamodbv2.model.GetItemResult
+import com.amazonaws.services.dynamodbv2.model.QueryResult
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest
+import com.client.dynamodb.DBConstants
+import com.client.dynamodb.EventSourcedDynamoDBClient
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.SwapEstimate
+import com.model.SwapRequest
+import com.model.Transaction
+import com.model.exception.ConcurrentUpdateException
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ExecutionException
+
+class EventSourcedDynamoDBClientSpec extends Specification {
+
+    private static final int SNAPSHOT_INTERVAL = 4
+
+    def amazonDynamoDB = Mock(AmazonDynamoDBAsync)
+    private MarketMakerLogic marketMakerLogic = new MarketMakerLogic()
+    private String somePoolName = "Apples-Bananas"
+    private LiquidityPool snapshot = LiquidityPool.builder()
+            .poolName(somePoolName)
+            .assetOne(new PriceAmount(100, 50000))
+            .assetTwo(new PriceAmount(100, 50000))
+            .version(1L)
+            .eventSequenceNumber(2L)
+            .build()
+
+    @Subject
+    EventSourcedDynamoDBClient eventSourcedDynamoDBClient
+
+    def setup() {
+        eventSourcedDynamoDBClient = new EventSourcedDynamoDBClient(amazonDynamoDB, marketMakerLogic,
+                SNAPSHOT_INTERVAL)
+    }
+
+    def "given events after snapshot should replay them in order"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        LiquidityPool afterFirst = marketMakerLogic.applySwapEstimateToPool(first, snapshot)
+        SwapEstimate second = estimate(afterFirst, 2000)
+        LiquidityPool afterSecond = marketMakerLogic.applySwapEstimateToPool(second, afterFirst)
+        Map<String, AttributeValue> poolEventBatchItem = [
+                poolName      : new AttributeValue().withS(somePoolName),
+                sequenceNumber: new AttributeValue().withN("3"),
+                events        : new AttributeValue().withL(
+                        toEventItem(3L, "contract1", first), toEventItem(4L, "contract2", second)),
+                appendedTime  : new AttributeValue().withN(Long.toString(System.currentTimeMillis()))
+        ]
+
+        when:
+        LiquidityPool result = eventSourcedDynamoDBClient.loadLiquidityPool(somePoolName)
+
+        then:
+        1 * amazonDynamoDB.getItem(_) >> new GetItemResult().withItem(snapshotItem())
+        1 * amazonDynamoDB.query({
+            it.getTableName() == DBConstants.POOL_EVENTS_TABLE_NAME && it.getConsistentRead() &&
+                    it.getExpressionAttributeValues()[":sequenceNumber"].getN() == "2"
+        }) >> new QueryResult().withItems(poolEventBatchItem)
+        assert result.getEventSequenceNumber() == 4L
+        assert result.getAssetOne() == afterSecond.getAssetOne()
+        assert result.getAssetTwo() == afterSecond.getAssetTwo()
+    }
+
+    def "given events with the pool state recorded should replay the recorded state"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        // as settled by other pricing code, which the events alone no longer rebuild
+        Map<String, AttributeValue> poolEventBatchItem = [
+                poolName      : new AttributeValue().withS(somePoolName),
+                sequenceNumber: new AttributeValue().withN("3"),
+                events        : new AttributeValue().withL(toEventItem(3L, "contract1", first)),
+                appendedTime  : new AttributeValue().withN(Long.toString(System.currentTimeMillis())),
+                assetOnePrice : new AttributeValue().withN("99.5"),
+                assetOneAmount: new AttributeValue().withN("51000"),
+                assetTwoPrice : new AttributeValue().withN("102.5"),
+                assetTwoAmount: new AttributeValue().withN("49005")
+        ]
+
+        when:
+        LiquidityPool result = eventSourcedDynamoDBClient.loadLiquidityPool(somePoolName)
+
+        then:
+        1 * amazonDynamoDB.getItem(_) >> new GetItemResult().withItem(snapshotItem())
+        1 * amazonDynamoDB.query(_) >> new QueryResult().withItems(poolEventBatchItem)
+        assert result.getEventSequenceNumber() == 3L
+        assert result.getVersion() == 1L
+        assert result.getAssetOne() == new PriceAmount(99.5, 51000)
+        assert result.getAssetTwo() == new PriceAmount(102.5, 49005)
+    }
+
+    def "given settled swaps should append them after the last event read and snapshot at the interval"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        LiquidityPool afterFirst = marketMakerLogic.applySwapEstimateToPool(first, snapshot)
+        SwapEstimate second = estimate(afterFirst, 2000)
+        LiquidityPool afterSecond = marketMakerLogic.applySwapEstimateToPool(second, afterFirst)
+        TransactWriteItemsRequest request = null
+
+        when:
+        eventSourcedDynamoDBClient.writeTransactionsAndUpdateLiquidityPool(
+                [transaction("contract1", first), transaction("contract2", second)], afterSecond)
+
+        then:
+        1 * amazonDynamoDB.transactWriteItems(_) >> { arguments -> request = arguments[0]; null }
+        // events 3 and 4 cross the snapshot interval
+        1 * amazonDynamoDB.updateItem({ UpdateItemRequest it ->
+            it.getTableName() == DBConstants.LIQUIDITY_POOLS_TABLE_NAME &&
+                    it.getExpressionAttributeValues()[":snapshotSequenceNumber"].getN() == "4"
+        })
+        assert request.getTransactItems().size() == 3
+        def put = request.getTransactItems()[2].getPut()
+        assert put.getTableName() == DBConstants.POOL_EVENTS_TABLE_NAME
+        assert put.getConditionExpression() == "attribute_not_exists(#sequenceNumber)"
+        assert put.getItem().sequenceNumber.getN() == "3"
+        assert put.getItem().events.getL()*.getM()*.sequenceNumber*.getN() == ["3", "4"]
+        assert put.getItem().events.getL()*.getM()*.transactionId*.getS() == ["contract1", "contract2"]
+        assert put.getItem().assetOneAmount.getN() == afterSecond.getAssetOne().getAmount().toString()
+        assert put.getItem().assetTwoPrice.getN() == afterSecond.getAssetTwo().getPrice().toString()
+        assert afterSecond.getEventSequenceNumber() == 4L
+    }
+
+    def "given events appended concurrently should throw ConcurrentUpdateException"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        LiquidityPool afterFirst = marketMakerLogic.applySwapEstimateToPool(first, snapshot)
+
+        when:
+        eventSourcedDynamoDBClient.writeTransactionsAndUpdateLiquidityPool([transaction("contract1", first)],
+                afterFirst)
+
+        then:
+        1 * amazonDynamoDB.transactWriteItems(_) >> {
+            throw new TransactionCanceledException("conflict").withCancellationReasons(
+                    new CancellationReason().withCode("None"),
+                    new CancellationReason().withCode("ConditionalCheckFailed"))
+        }
+        0 * amazonDynamoDB.updateItem(_)
+        thrown(ConcurrentUpdateException)
+        assert afterFirst.getEventSequenceNumber() == 2L
+    }
+
+    def "given async load should replay the events after the snapshot"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        LiquidityPool afterFirst = marketMakerLogic.applySwapEstimateToPool(first, snapshot)
+        Map<String, AttributeValue> poolEventBatchItem = [
+                poolName      : new AttributeValue().withS(somePoolName),
+                sequenceNumber: new AttributeValue().withN("3"),
+                events        : new AttributeValue().withL(toEventItem(3L, "contract1", first)),
+                appendedTime  : new AttributeValue().withN(Long.toString(System.currentTimeMillis()))
+        ]
+
+        when:
+        LiquidityPool result = eventSourcedDynamoDBClient.loadLiquidityPoolAsync(somePoolName, true).get()
+
+        then:
+        1 * amazonDynamoDB.getItemAsync(_, _) >> { arguments ->
+            arguments[1].onSuccess(arguments[0], new GetItemResult().withItem(snapshotItem()))
+            null
+        }
+        1 * amazonDynamoDB.query(_) >> new QueryResult().withItems(poolEventBatchItem)
+        assert result.getEventSequenceNumber() == 3L
+        assert result.getAssetOne() == afterFirst.getAssetOne()
+    }
+
+    def "given async append should append the events instead of updating the pool item"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        LiquidityPool afterFirst = marketMakerLogic.applySwapEstimateToPool(first, snapshot)
+        TransactWriteItemsRequest request = null
+
+        when:
+        eventSourcedDynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([transaction("contract1", first)],
+                [afterFirst]).get()
+
+        then:
+        1 * amazonDynamoDB.transactWriteItemsAsync(_, _) >> { arguments ->
+            request = arguments[0]
+            arguments[1].onSuccess(request, new TransactWriteItemsResult())
+            null
+        }
+        0 * amazonDynamoDB.updateItem(_)
+        assert request.getTransactItems()[1].getPut().getTableName() == DBConstants.POOL_EVENTS_TABLE_NAME
+        assert afterFirst.getEventSequenceNumber() == 3L
+    }
+
+    def "given events appended concurrently should complete the async append with ConcurrentUpdateException"() {
+        given:
+        SwapEstimate first = estimate(snapshot, 1000)
+        LiquidityPool afterFirst = marketMakerLogic.applySwapEstimateToPool(first, snapshot)
+
+        when:
+        eventSourcedDynamoDBClient.writeTransactionsAndUpdateLiquidityPoolsAsync([transaction("contract1", first)],
+                [afterFirst]).get()
+
+        then:
+        1 * amazonDynamoDB.transactWriteItemsAsync(_, _) >> { arguments ->
+            arguments[1].onError(new TransactionCanceledException("conflict").withCancellationReasons(
+                    new CancellationReason().withCode("None"),
+                    new CancellationReason().withCode("ConditionalCheckFailed")))
+            null
+        }
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof ConcurrentUpdateException
+        assert afterFirst.getEventSequenceNumber() == 2L
+    }
+
+    private SwapEstimate estimate(final LiquidityPool liquidityPool, final double inAmount) {
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName("Apples")
+        swapRequest.setOutName("Bananas")
+        swapRequest.setInAmount(inAmount)
+        return marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest)
+    }
+
+    private static Transaction transaction(final String transactionId, final SwapEstimate swapEstimate) {
+        return Transaction.builder().transactionId(transactionId).swapApplied(swapEstimate).build()
+    }
+
+    // as written by DynamoDBMapper
+    private Map<String, AttributeValue> snapshotItem() {
+        return [
+                poolName           : new AttributeValue().withS(somePoolName),
+                assetOne           : new AttributeValue().withM([price : new AttributeValue().withN("100"),
+                                                                 amount: new AttributeValue().withN("50000")]),
+                assetTwo           : new AttributeValue().withM([price : new AttributeValue().withN("100"),
+                                                                 amount: new AttributeValue().withN("50000")]),
+                version            : new AttributeValue().withN("1"),
+                eventSequenceNumber: new AttributeValue().withN("2")
+        ]
+    }
+
+    private static AttributeValue toEventItem(final long sequenceNumber, final String transactionId,
+                                              final SwapEstimate swapEstimate) {
+        return new AttributeValue().withM([
+                sequenceNumber: new AttributeValue().withN(Long.toString(sequenceNumber)),
+                transactionId : new AttributeValue().withS(transactionId),
+                inName        : new AttributeValue().withS(swapEstimate.getInName()),
+                inAmount      : new AttributeValue().withN(swapEstimate.getInPriceAmount().getAmount().toString()),
+                inPrice       : new AttributeValue().withN(swapEstimate.getInPriceAmount().getPrice().toString()),
+                outName       : new AttributeValue().withS(swapEstimate.getOutName()),
+                outAmount     : new AttributeValue().withN(swapEstimate.getOutPriceAmount().getAmount().toString()),
+                outPrice      : new AttributeValue().withN(swapEstimate.getOutPriceAmount().getPrice().toString())
+        ])
+    }
+}
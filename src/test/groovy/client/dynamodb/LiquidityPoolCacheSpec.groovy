@@ -0,0 +1,139 @@
+package client.dynamodb
+
+import com.client.dynamodb.DynamoDBClient
+import com.client.dynamodb.LiquidityPoolCache
+import com.logic.ArithmeticMode
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.exception.InvalidInputException
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.util.concurrent.PollingConditions
+
+import java.util.function.LongSupplier
+
+class LiquidityPoolCacheSpec extends Specification {
+
+    private static final long MAX_STALENESS_MILLIS = 1000
+    private static final long REFRESH_AFTER_MILLIS = 500
+
+    def dynamoDBClient = Mock(DynamoDBClient)
+    private String somePoolName = "Apples-Bananas"
+    private long now = 0
+    private LiquidityPool liquidityPool = LiquidityPool.builder().poolName(somePoolName).version(1L).build()
+    private LiquidityPool newerLiquidityPool = LiquidityPool.builder().poolName(somePoolName).version(2L).build()
+
+    @Subject
+    LiquidityPoolCache liquidityPoolCache
+
+    def setup() {
+        liquidityPoolCache = new LiquidityPoolCache(dynamoDBClient, new MarketMakerLogic(ArithmeticMode.DOUBLE, 1e-9),
+                MAX_STALENESS_MILLIS, REFRESH_AFTER_MILLIS, { now } as LongSupplier)
+    }
+
+    def "given fixed point logic should cache the pool scaled, equal to the loaded pool"() {
+        given:
+        MarketMakerLogic fixedPointLogic = new MarketMakerLogic(ArithmeticMode.FIXED_POINT, 1e-9)
+        liquidityPoolCache = new LiquidityPoolCache(dynamoDBClient, fixedPointLogic, MAX_STALENESS_MILLIS,
+                REFRESH_AFTER_MILLIS, { now } as LongSupplier)
+        LiquidityPool loadedPool = LiquidityPool.builder().poolName(somePoolName).version(1L)
+                .assetOne(new PriceAmount(100.1234567, 50000)).assetTwo(new PriceAmount(100, 50000.5)).build()
+
+        when:
+        LiquidityPool result = liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName) >> loadedPool
+        assert result == loadedPool
+        assert !result.getAssetOne().is(loadedPool.getAssetOne())
+        assert result.getAssetOne().getPrice() == 100.1234567
+        assert liquidityPoolCache.getLiquidityPool(somePoolName).is(result)
+    }
+
+    def "given fresh snapshot should not load again"() {
+        when:
+        liquidityPoolCache.getLiquidityPool(somePoolName)
+        now = REFRESH_AFTER_MILLIS - 1
+        LiquidityPool result = liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName) >> liquidityPool
+        assert result.is(liquidityPool)
+    }
+
+    def "given snapshot past refresh age should serve it and refresh in background"() {
+        given:
+        def conditions = new PollingConditions(timeout: 5)
+        // the refresh runs on another thread, so the stub is not verified at the end of the when block
+        dynamoDBClient.loadLiquidityPool(somePoolName) >>> [liquidityPool, newerLiquidityPool]
+
+        when:
+        liquidityPoolCache.getLiquidityPool(somePoolName)
+        now = REFRESH_AFTER_MILLIS
+        LiquidityPool served = liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        assert served.is(liquidityPool)
+        conditions.eventually {
+            assert liquidityPoolCache.getLiquidityPool(somePoolName).is(newerLiquidityPool)
+        }
+    }
+
+    def "given snapshot past staleness bound should load synchronously"() {
+        when:
+        liquidityPoolCache.getLiquidityPool(somePoolName)
+        now = MAX_STALENESS_MILLIS
+        LiquidityPool result = liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        2 * dynamoDBClient.loadLiquidityPool(somePoolName) >>> [liquidityPool, newerLiquidityPool]
+        assert result.is(newerLiquidityPool)
+    }
+
+    def "given put or invalidate should serve the new state"() {
+        when:
+        liquidityPoolCache.getLiquidityPool(somePoolName)
+        liquidityPoolCache.put(newerLiquidityPool)
+        LiquidityPool afterPut = liquidityPoolCache.getLiquidityPool(somePoolName)
+        liquidityPoolCache.invalidate(somePoolName)
+        LiquidityPool afterInvalidate = liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        2 * dynamoDBClient.loadLiquidityPool(somePoolName) >>> [liquidityPool, liquidityPool]
+        assert afterPut.is(newerLiquidityPool)
+        assert afterInvalidate.is(liquidityPool)
+    }
+
+    def "given pool does not exist should not cache it"() {
+        when:
+        liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName) >> { throw new InvalidInputException() }
+        thrown(InvalidInputException)
+
+        when:
+        LiquidityPool result = liquidityPoolCache.getLiquidityPool(somePoolName)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName) >> liquidityPool
+        assert result.is(liquidityPool)
+    }
+
+    def "given some pools cached should batch load only the others"() {
+        given:
+        LiquidityPool otherLiquidityPool = LiquidityPool.builder().poolName("Lemons-Limes").version(1L).build()
+
+        when:
+        liquidityPoolCache.getLiquidityPool(somePoolName)
+        Map<String, LiquidityPool> result = liquidityPoolCache.getLiquidityPools(
+                [somePoolName, "Lemons-Limes", "Apples-Pears"])
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName) >> liquidityPool
+        1 * dynamoDBClient.batchLoadLiquidityPools(["Lemons-Limes", "Apples-Pears"]) >> [
+                "Lemons-Limes": otherLiquidityPool]
+        assert result == [(somePoolName): liquidityPool, "Lemons-Limes": otherLiquidityPool]
+    }
+}
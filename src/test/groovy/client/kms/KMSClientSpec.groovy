@@ -0,0 +1,112 @@
+package client.kms
+
+import com.amazonaws.encryptionsdk.AwsCrypto
+import com.amazonaws.encryptionsdk.CommitmentPolicy
+import com.amazonaws.encryptionsdk.caching.LocalCryptoMaterialsCache
+import com.amazonaws.encryptionsdk.jce.JceMasterKey
+import com.client.AwsCallExecutor
+import com.client.kms.CountingCryptoMaterialsCache
+import com.client.kms.KMSClient
+import com.client.kms.KMSModule
+import com.client.kms.token.SwapClaimToken
+import com.model.SwapRequest
+import com.model.exception.InvalidInputException
+import com.util.ObjectMapperUtil
+import spock.lang.Specification
+import spock.lang.Subject
+
+import javax.crypto.spec.SecretKeySpec
+import java.security.SecureRandom
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Uses a local AES master key in place of KMS, so every cache miss would otherwise be a KMS call.
+ */
+class KMSClientSpec extends Specification {
+
+    private static final long MAX_AGE_SECONDS = 60
+    private static final long MAX_MESSAGES_PER_DATA_KEY = 3
+
+    def awsCrypto = AwsCrypto.builder().withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt).build()
+    def cryptoMaterialsCache = new CountingCryptoMaterialsCache(new LocalCryptoMaterialsCache(10),
+            TimeUnit.SECONDS.toMillis(MAX_AGE_SECONDS), MAX_MESSAGES_PER_DATA_KEY)
+    private SwapClaimToken swapClaimToken
+
+    @Subject
+    KMSClient kmsClient
+
+    def setup() {
+        byte[] rawKey = new byte[32]
+        new SecureRandom().nextBytes(rawKey)
+        def masterKey = JceMasterKey.getInstance(new SecretKeySpec(rawKey, "AES"), "local", "test-key",
+                "AES/GCM/NoPadding")
+        kmsClient = new KMSClient(awsCrypto, KMSModule.cachingCryptoMaterialsManager(masterKey, cryptoMaterialsCache,
+                MAX_AGE_SECONDS, MAX_MESSAGES_PER_DATA_KEY), AwsCallExecutor.withThreads(1))
+
+        swapClaimToken = new SwapClaimToken()
+        swapClaimToken.setSwapContractId("someSwapContractId")
+        swapClaimToken.setExpiresAt(new Date())
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName("Apples")
+        swapRequest.setOutName("Bananas")
+        swapRequest.setInAmount(10)
+        swapClaimToken.setSwapRequest(swapRequest)
+    }
+
+    def "given encrypted token should decrypt to the same token"() {
+        when:
+        String encrypted = kmsClient.encrypt(ObjectMapperUtil.toString(swapClaimToken))
+        SwapClaimToken decrypted = kmsClient.decrypt(encrypted)
+
+        then:
+        assert decrypted == swapClaimToken
+    }
+
+    def "should reuse the data key until the message limit is reached"() {
+        when:
+        List<String> encrypted = (1..MAX_MESSAGES_PER_DATA_KEY + 1).collect {
+            kmsClient.encrypt(ObjectMapperUtil.toString(swapClaimToken))
+        }
+
+        then:
+        // first and fourth encrypt generate a data key
+        assert cryptoMaterialsCache.getEncryptMisses() == 2
+        assert cryptoMaterialsCache.getEncryptHits() == MAX_MESSAGES_PER_DATA_KEY - 1
+
+        when:
+        encrypted.each { kmsClient.decrypt(it) }
+
+        then:
+        // one decrypt per distinct data key
+        assert cryptoMaterialsCache.getDecryptMisses() == 2
+        assert cryptoMaterialsCache.getDecryptHits() == MAX_MESSAGES_PER_DATA_KEY - 1
+        assert cryptoMaterialsCache.getHitRate() == 0.5
+    }
+
+    def "given invalid token should throw invalid input"() {
+        when:
+        kmsClient.decrypt(Base64.getEncoder().encodeToString("notEncrypted".getBytes()))
+
+        then:
+        thrown(InvalidInputException)
+    }
+
+    def "given encrypted token should decrypt to the same token asynchronously"() {
+        when:
+        String encrypted = kmsClient.encryptAsync(ObjectMapperUtil.toString(swapClaimToken)).get()
+        SwapClaimToken decrypted = kmsClient.decryptAsync(encrypted).get()
+
+        then:
+        assert decrypted == swapClaimToken
+    }
+
+    def "given invalid token should complete the async decrypt with invalid input"() {
+        when:
+        kmsClient.decryptAsync(Base64.getEncoder().encodeToString("notEncrypted".getBytes())).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof InvalidInputException
+    }
+}
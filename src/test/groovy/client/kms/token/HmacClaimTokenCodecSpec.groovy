@@ -0,0 +1,93 @@
+package client.kms.token
+
+import com.client.kms.token.HmacClaimTokenCodec
+import com.client.kms.token.SwapClaimToken
+import com.config.ErrorMessages
+import com.model.SwapRequest
+import com.model.exception.InvalidInputException
+import spock.lang.Specification
+import spock.lang.Subject
+
+class HmacClaimTokenCodecSpec extends Specification {
+
+    private static final byte[] KEY = (1..32).collect { it as byte } as byte[]
+    private SwapClaimToken swapClaimToken
+
+    @Subject
+    HmacClaimTokenCodec codec = new HmacClaimTokenCodec(KEY)
+
+    def setup() {
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName("Bananas")
+        swapRequest.setOutName("Apples")
+        swapRequest.setInAmount(12.5)
+        swapClaimToken = new SwapClaimToken()
+        swapClaimToken.setSwapContractId(UUID.randomUUID().toString())
+        swapClaimToken.setExpiresAt(new Date())
+        swapClaimToken.setSwapRequest(swapRequest)
+    }
+
+    def "given encoded token should decode to the same token"() {
+        when:
+        String token = codec.encode(swapClaimToken)
+
+        then:
+        assert codec.decode(token) == swapClaimToken
+        // 1 + 1 + 36 + 8 + 1 + 1 + 8 + 1 + 32 bytes, Base64 encoded
+        assert token.length() == 119
+    }
+
+    def "given token with route should decode to the same route"() {
+        given:
+        swapClaimToken.setRoute(["Bananas", "Lemons", "Apples"])
+
+        when:
+        SwapClaimToken decoded = codec.decode(codec.encode(swapClaimToken))
+
+        then:
+        assert decoded == swapClaimToken
+        assert decoded.getRoute() == ["Bananas", "Lemons", "Apples"]
+    }
+
+    def "given any byte of the token is changed should reject it"() {
+        given:
+        byte[] bytes = Base64.getUrlDecoder().decode(codec.encode(swapClaimToken))
+
+        expect:
+        (0..<bytes.length).each { int i ->
+            byte[] tampered = Arrays.copyOf(bytes, bytes.length)
+            tampered[i] = (byte) (tampered[i] ^ 1)
+            String tamperedToken = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered)
+            try {
+                codec.decode(tamperedToken)
+                assert false: "accepted token tampered at byte " + i
+            } catch (InvalidInputException e) {
+                assert e.getMessage() == ErrorMessages.INVALID_CLAIM
+            }
+        }
+    }
+
+    def "given token signed with another key should reject it"() {
+        given:
+        byte[] otherKey = Arrays.copyOf(KEY, KEY.length)
+        otherKey[0] = 0
+        String token = new HmacClaimTokenCodec(otherKey).encode(swapClaimToken)
+
+        when:
+        codec.decode(token)
+
+        then:
+        thrown(InvalidInputException)
+    }
+
+    def "given malformed token should reject it"() {
+        when:
+        codec.decode(token)
+
+        then:
+        thrown(InvalidInputException)
+
+        where:
+        token << ["", "not base64 !", "AQ", "AQ" + "A" * 100]
+    }
+}
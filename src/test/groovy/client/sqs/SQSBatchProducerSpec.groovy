@@ -0,0 +1,155 @@
+package client.sqs
+
+import com.amazonaws.services.sqs.model.AmazonSQSException
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry
+import com.amazonaws.services.sqs.model.SendMessageBatchResult
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry
+import com.client.sqs.SQSBatchProducer
+import com.client.sqs.SQSClient
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+
+@Timeout(10)
+class SQSBatchProducerSpec extends Specification {
+
+    def sqsClient = Mock(SQSClient)
+
+    def "given burst of messages should send them in batches of at most 10"() {
+        given:
+        SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, 50)
+        List<Integer> batchSizes = []
+
+        when:
+        List<CompletableFuture<Void>> futures = (1..12).collect {
+            sqsBatchProducer.submit("message" + it, "group" + it, "contract" + it)
+        }
+        sqsBatchProducer.flush()
+
+        then:
+        _ * sqsClient.isFifo() >> true
+        2 * sqsClient.sendMessageBatch(_) >> { arguments ->
+            List<SendMessageBatchRequestEntry> entries = arguments[0]
+            batchSizes.add(entries.size())
+            assert entries.every { it.getMessageGroupId() == "group" + it.getMessageBody().substring(7) }
+            return successful(entries)
+        }
+        assert batchSizes == [10, 2]
+        assert futures.every { it.isDone() && !it.isCompletedExceptionally() }
+    }
+
+    def "given failed entries should retry server faults and fail sender faults"() {
+        given:
+        SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, 50)
+
+        when:
+        CompletableFuture<Void> retried = sqsBatchProducer.submit("retried", null, null)
+        CompletableFuture<Void> rejected = sqsBatchProducer.submit("rejected", null, null)
+        sqsBatchProducer.flush()
+
+        then:
+        1 * sqsClient.sendMessageBatch({ it*.getMessageBody() == ["retried", "rejected"] }) >> { arguments ->
+            List<SendMessageBatchRequestEntry> entries = arguments[0]
+            return new SendMessageBatchResult().withFailed(
+                    new BatchResultErrorEntry().withId(entries[0].getId()).withCode("InternalError")
+                            .withSenderFault(false),
+                    new BatchResultErrorEntry().withId(entries[1].getId()).withCode("InvalidMessageContents")
+                            .withSenderFault(true))
+        }
+        1 * sqsClient.sendMessageBatch({ it*.getMessageBody() == ["retried"] }) >> { arguments ->
+            successful(arguments[0])
+        }
+        assert retried.isDone() && !retried.isCompletedExceptionally()
+
+        when:
+        rejected.join()
+
+        then:
+        def e = thrown(CompletionException)
+        assert e.getCause() instanceof SQSBatchProducer.SQSBatchEntryException
+    }
+
+    def "given fifo messages of one group should send one per batch and retry a failure before the later ones"() {
+        given:
+        SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, 50)
+        List<List<String>> batches = []
+        boolean failedOnce = false
+
+        when:
+        List<CompletableFuture<Void>> futures = ["first", "second", "third"].collect {
+            sqsBatchProducer.submit(it, "Apples-Bananas", it)
+        }
+        futures.add(sqsBatchProducer.submit("other", "Apples-Limes", "other"))
+        sqsBatchProducer.flush()
+
+        then:
+        _ * sqsClient.isFifo() >> true
+        _ * sqsClient.sendMessageBatch(_) >> { arguments ->
+            List<SendMessageBatchRequestEntry> entries = arguments[0]
+            batches.add(entries*.getMessageBody())
+            SendMessageBatchRequestEntry second = entries.find { it.getMessageBody() == "second" }
+            if (second != null && !failedOnce) {
+                failedOnce = true
+                return successful(entries - second).withFailed(new BatchResultErrorEntry().withId(second.getId())
+                        .withCode("InternalError").withSenderFault(false))
+            }
+            return successful(entries)
+        }
+        assert batches == [["first", "other"], ["second"], ["second"], ["third"]]
+        assert futures.every { it.isDone() && !it.isCompletedExceptionally() }
+    }
+
+    def "given fifo message fails should fail the later messages of its group"() {
+        given:
+        SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, 50)
+
+        when:
+        CompletableFuture<Void> rejected = sqsBatchProducer.submit("rejected", "Apples-Bananas", "rejected")
+        CompletableFuture<Void> later = sqsBatchProducer.submit("later", "Apples-Bananas", "later")
+        CompletableFuture<Void> other = sqsBatchProducer.submit("other", "Apples-Limes", "other")
+        sqsBatchProducer.flush()
+
+        then:
+        _ * sqsClient.isFifo() >> true
+        1 * sqsClient.sendMessageBatch({ it*.getMessageBody() == ["rejected", "other"] }) >> { arguments ->
+            List<SendMessageBatchRequestEntry> entries = arguments[0]
+            return successful([entries[1]]).withFailed(new BatchResultErrorEntry().withId(entries[0].getId())
+                    .withCode("InvalidMessageContents").withSenderFault(true))
+        }
+        0 * sqsClient.sendMessageBatch(_)
+        assert rejected.isCompletedExceptionally()
+        assert later.isCompletedExceptionally()
+        assert other.isDone() && !other.isCompletedExceptionally()
+    }
+
+    def "given message over the batch byte limit should send it on its own, also when retried"() {
+        given:
+        SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, 50)
+        String tooLongBody = "x" * (SQSBatchProducer.MAX_BATCH_BYTES + 1)
+
+        when:
+        CompletableFuture<Void> tooLong = sqsBatchProducer.submit(tooLongBody, "Apples-Bananas", "tooLong")
+        CompletableFuture<Void> other = sqsBatchProducer.submit("other", "Apples-Limes", "other")
+        sqsBatchProducer.flush()
+
+        then:
+        _ * sqsClient.isFifo() >> true
+        SQSBatchProducer.MAX_ATTEMPTS * sqsClient.sendMessageBatch({ it*.getMessageBody() == [tooLongBody] }) >> {
+            throw new AmazonSQSException("Batch requests cannot be longer than 262144 bytes")
+        }
+        1 * sqsClient.sendMessageBatch({ it*.getMessageBody() == ["other"] }) >> { arguments ->
+            successful(arguments[0])
+        }
+        assert tooLong.isCompletedExceptionally()
+        assert other.isDone() && !other.isCompletedExceptionally()
+    }
+
+    private static SendMessageBatchResult successful(final List<SendMessageBatchRequestEntry> entries) {
+        return new SendMessageBatchResult().withSuccessful(entries.collect {
+            new SendMessageBatchResultEntry().withId(it.getId())
+        })
+    }
+}
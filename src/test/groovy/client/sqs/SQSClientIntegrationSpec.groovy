@@ -0,0 +1,144 @@
+package client.sqs
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider
+import com.amazonaws.auth.BasicAWSCredentials
+import com.amazonaws.client.builder.AwsClientBuilder
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder
+import com.amazonaws.services.sqs.model.AmazonSQSException
+import com.amazonaws.services.sqs.model.CreateQueueRequest
+import com.amazonaws.services.sqs.model.Message
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry
+import com.amazonaws.services.sqs.model.SendMessageBatchResult
+import com.client.AwsEndpointUtil
+import com.client.sqs.SQSBatchProducer
+import com.client.sqs.SQSClient
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Runs the SQSClient and the SQSBatchProducer against ElasticMQ, at SQS_ENDPOINT, and is skipped when it is not set.
+ * Each run creates a FIFO queue of its own, and deletes it after. Every test receives the messages it sent. Ex -
+ * docker run -p 9324:9324 softwaremill/elasticmq-native
+ * SQS_ENDPOINT=http://localhost:9324 ./gradlew test --tests '*IntegrationSpec'
+ */
+@Requires({ env.SQS_ENDPOINT })
+class SQSClientIntegrationSpec extends Specification {
+
+    @Shared
+    AmazonSQSAsync amazonSQS
+    @Shared
+    String queueName = "AutomatedMarketMaker-test-" + UUID.randomUUID() + ".fifo"
+    @Shared
+    String queueUrl
+
+    @Subject
+    SQSClient sqsClient
+
+    def setupSpec() {
+        amazonSQS = AmazonSQSAsyncClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                        System.getenv(AwsEndpointUtil.SQS_ENDPOINT), "us-east-1"))
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("local", "local")))
+                .build()
+        queueUrl = amazonSQS.createQueue(new CreateQueueRequest(queueName)
+                .withAttributes([FifoQueue: "true"])).getQueueUrl()
+    }
+
+    def cleanupSpec() {
+        if (queueUrl != null) {
+            amazonSQS.deleteQueue(queueUrl)
+        }
+        amazonSQS?.shutdown()
+    }
+
+    def setup() {
+        sqsClient = new SQSClient(amazonSQS, queueName)
+    }
+
+    def "given batch should send every entry, in order within its group"() {
+        given:
+        List<SendMessageBatchRequestEntry> entries = (1..3).collect {
+            entry(it.toString(), "body" + it, "Apples-Bananas")
+        }
+
+        when:
+        SendMessageBatchResult result = sqsClient.sendMessageBatchAsync(entries).get()
+
+        then:
+        assert result.getSuccessful()*.getId() as Set == ["1", "2", "3"] as Set
+        assert result.getFailed().isEmpty()
+        assert receiveAll(3)*.getBody() == ["body1", "body2", "body3"]
+    }
+
+    def "given entries with the same id should fail the whole batch"() {
+        when:
+        sqsClient.sendMessageBatchAsync([entry("1", "body1", "Apples-Bananas"),
+                                         entry("1", "body2", "Apples-Pears")]).get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof AmazonSQSException
+        assert ((AmazonSQSException) e.getCause()).getErrorCode().contains("BatchEntryIdsNotDistinct")
+        assert receiveAll(0).isEmpty()
+    }
+
+    def "given entry with characters SQS does not allow should fail only that entry, as a sender fault"() {
+        when:
+        SendMessageBatchResult result = sqsClient.sendMessageBatchAsync([
+                entry("1", "body1", "Apples-Bananas"),
+                entry("2", "body\u0000", "Apples-Pears")]).get()
+
+        then:
+        assert result.getSuccessful()*.getId() == ["1"]
+        assert result.getFailed()*.getId() == ["2"]
+        assert result.getFailed()[0].getSenderFault()
+        assert receiveAll(1)*.getBody() == ["body1"]
+    }
+
+    def "given message SQS rejects should fail it and the later messages of its group, and send the other groups"() {
+        given:
+        SQSBatchProducer sqsBatchProducer = new SQSBatchProducer(sqsClient, 0)
+        // over the 256 KiB limit of a message
+        String tooLongBody = "x" * (256 * 1024 + 1)
+
+        when:
+        def tooLong = sqsBatchProducer.submit(tooLongBody, "Apples-Bananas", "dedup-1")
+        def laterOfGroup = sqsBatchProducer.submit("body2", "Apples-Bananas", "dedup-2")
+        def otherGroup = sqsBatchProducer.submit("body3", "Apples-Pears", "dedup-3")
+        otherGroup.get(10, TimeUnit.SECONDS)
+        sqsBatchProducer.flush()
+
+        then:
+        assert tooLong.isCompletedExceptionally()
+        assert laterOfGroup.isCompletedExceptionally()
+        assert receiveAll(1)*.getBody() == ["body3"]
+    }
+
+    private static SendMessageBatchRequestEntry entry(final String id, final String body,
+                                                      final String messageGroupId) {
+        return new SendMessageBatchRequestEntry(id, body)
+                .withMessageGroupId(messageGroupId)
+                .withMessageDeduplicationId(UUID.randomUUID().toString())
+    }
+
+    /**
+     * Receives and deletes messages until expected are received, or none arrive within the wait time.
+     */
+    private List<Message> receiveAll(final int expected) {
+        List<Message> messages = []
+        while (true) {
+            List<Message> received = sqsClient.receiveMessages(10, expected > messages.size() ? 5 : 1)
+            if (received.isEmpty()) {
+                return messages
+            }
+            sqsClient.deleteMessages(received)
+            messages.addAll(received)
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package client.sqs
+
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry
+import com.amazonaws.services.sqs.model.GetQueueUrlResult
+import com.amazonaws.services.sqs.model.QueueDoesNotExistException
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry
+import com.amazonaws.services.sqs.model.SendMessageBatchResult
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry
+import com.client.sqs.SQSClient
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ExecutionException
+
+class SQSClientSpec extends Specification {
+
+    private static final String QUEUE_NAME = "SwapRequests.fifo"
+    private static final String QUEUE_URL = "http://localhost:9324/000000000000/SwapRequests.fifo"
+
+    def amazonSQS = Mock(AmazonSQSAsync)
+
+    @Subject
+    SQSClient sqsClient = new SQSClient(amazonSQS, QUEUE_NAME)
+
+    def "given batch should send it asynchronously to the queue url"() {
+        given:
+        List<SendMessageBatchRequestEntry> entries = [entry("1"), entry("2")]
+        SendMessageBatchRequest request = null
+
+        when:
+        SendMessageBatchResult result = sqsClient.sendMessageBatchAsync(entries).get()
+
+        then:
+        1 * amazonSQS.getQueueUrl(QUEUE_NAME) >> new GetQueueUrlResult().withQueueUrl(QUEUE_URL)
+        1 * amazonSQS.sendMessageBatchAsync(_, _) >> { arguments ->
+            request = arguments[0]
+            arguments[1].onSuccess(request, new SendMessageBatchResult()
+                    .withSuccessful(new SendMessageBatchResultEntry().withId("1"))
+                    .withFailed(new BatchResultErrorEntry().withId("2").withSenderFault(false)))
+            null
+        }
+        assert request.getQueueUrl() == QUEUE_URL
+        assert request.getEntries() == entries
+        assert result.getSuccessful()*.getId() == ["1"]
+        assert result.getFailed()*.getId() == ["2"]
+    }
+
+    def "given missing queue should complete the async send exceptionally instead of throwing"() {
+        when:
+        def future = sqsClient.sendMessageBatchAsync([entry("1")])
+
+        then:
+        1 * amazonSQS.getQueueUrl(QUEUE_NAME) >> { throw new QueueDoesNotExistException("no queue") }
+        0 * amazonSQS.sendMessageBatchAsync(_, _)
+        assert future.isCompletedExceptionally()
+
+        when:
+        future.get()
+
+        then:
+        ExecutionException e = thrown()
+        assert e.getCause() instanceof QueueDoesNotExistException
+    }
+
+    private static SendMessageBatchRequestEntry entry(final String id) {
+        return new SendMessageBatchRequestEntry(id, "body" + id).withMessageGroupId("Apples-Bananas")
+    }
+}
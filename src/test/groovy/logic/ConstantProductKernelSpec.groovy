@@ -0,0 +1,81 @@
+package logic
+
+import com.logic.ConstantProductKernel
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ConstantProductKernelSpec extends Specification {
+
+    private static double someValidReserve = 50000
+    private static double someValidPrice = 100
+
+    @Unroll
+    def "given swap of #inAmount should keep market cap of amount out equal to market cap swapped in"() {
+        when:
+        double amountOut = ConstantProductKernel.amountOut(someValidReserve, someValidPrice, someValidPrice, inAmount)
+        double outPrice = ConstantProductKernel.priceForReserve(someValidReserve * someValidPrice,
+                ConstantProductKernel.newReserve(someValidReserve, false, inAmount, amountOut))
+
+        then:
+        assert amountOut > 0
+        assert amountOut < someValidReserve
+        assert outPrice > someValidPrice
+        assert Math.abs(amountOut * outPrice - inAmount * someValidPrice) < 0.01
+
+        where:
+        inAmount << [1d, 7000d, 50000d, 1000000d]
+    }
+
+    def "given swap of zero should not change amount or price"() {
+        expect:
+        ConstantProductKernel.amountOut(someValidReserve, someValidPrice, someValidPrice, 0) == 0
+        ConstantProductKernel.newReserve(someValidReserve, true, 0, 0) == someValidReserve
+        ConstantProductKernel.newReserve(someValidReserve, false, 0, 0) == someValidReserve
+    }
+
+    def "given swap should add the in amount to the in asset and take the amount out from the out asset"() {
+        given:
+        double amountOut = ConstantProductKernel.amountOut(someValidReserve, someValidPrice, someValidPrice, 7000)
+
+        when:
+        double newInReserve = ConstantProductKernel.newReserve(someValidReserve, true, 7000, amountOut)
+        double newOutReserve = ConstantProductKernel.newReserve(someValidReserve, false, 7000, amountOut)
+
+        then:
+        assert newInReserve == someValidReserve + 7000
+        assert newOutReserve == someValidReserve - amountOut
+        // the product of the reserves is kept
+        assert Math.abs(newInReserve * newOutReserve / (someValidReserve * someValidReserve) - 1) < 1e-12
+    }
+
+    def "given new reserve should keep market cap constant"() {
+        expect:
+        ConstantProductKernel.priceForReserve(someValidReserve * someValidPrice, 40000) * 40000 == someValidReserve * someValidPrice
+    }
+
+    def "given ladder of in amounts should match single swaps and increase price impact with size"() {
+        given:
+        double[] inAmounts = [0d, 1d, 7000d, 50000d, 1000000d] as double[]
+        double[] amountsOut = new double[inAmounts.length]
+        double[] effectivePrices = new double[inAmounts.length]
+        double[] priceImpacts = new double[inAmounts.length]
+
+        when:
+        ConstantProductKernel.quoteLadder(someValidReserve, someValidPrice, someValidPrice * 2, inAmounts,
+                amountsOut, effectivePrices, priceImpacts)
+
+        then:
+        assert amountsOut[0] == 0
+        assert effectivePrices[0] == 0.5d
+        assert priceImpacts[0] == 0
+        (0..<inAmounts.length).each { int i ->
+            double amountOut = ConstantProductKernel.amountOut(someValidReserve, someValidPrice, someValidPrice * 2,
+                    inAmounts[i])
+            assert Math.abs(amountsOut[i] - amountOut) < 1e-6
+            assert Math.abs(effectivePrices[i] - 0.5d * (1 - priceImpacts[i])) < 1e-12
+            if (i > 0) {
+                assert priceImpacts[i] > priceImpacts[i - 1]
+            }
+        }
+    }
+}
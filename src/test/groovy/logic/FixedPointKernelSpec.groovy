@@ -0,0 +1,142 @@
+package logic
+
+import com.logic.ConstantProductKernel
+import com.logic.FixedPointKernel
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.math.RoundingMode
+
+class FixedPointKernelSpec extends Specification {
+
+    private static long someValidReserve = FixedPointKernel.scale(50000)
+    private static long someValidPrice = FixedPointKernel.scale(100)
+
+    @Unroll
+    def "given swap of #inAmount should match double pricing and round the amount out down"() {
+        given:
+        long scaledInAmount = FixedPointKernel.scale(inAmount)
+
+        when:
+        long amountOut = FixedPointKernel.amountOut(someValidReserve, someValidReserve, scaledInAmount)
+        long newInReserve = FixedPointKernel.newReserve(someValidReserve, true, scaledInAmount, amountOut)
+        long newOutReserve = FixedPointKernel.newReserve(someValidReserve, false, scaledInAmount, amountOut)
+        long outPrice = FixedPointKernel.priceForReserve(someValidReserve, someValidPrice, newOutReserve)
+
+        then:
+        double expectedAmountOut = ConstantProductKernel.amountOut(50000, 100, 100, inAmount)
+        assert FixedPointKernel.unscale(amountOut) <= expectedAmountOut + 1e-9
+        assert expectedAmountOut - FixedPointKernel.unscale(amountOut) < 1e-6
+        assert newInReserve == someValidReserve + scaledInAmount
+        assert newOutReserve == someValidReserve - amountOut
+        double expectedOutPrice = ConstantProductKernel.priceForReserve(50000 * 100,
+                ConstantProductKernel.newReserve(50000, false, inAmount, expectedAmountOut))
+        assert Math.abs(FixedPointKernel.unscale(outPrice) - expectedOutPrice) <= 1e-6 * expectedOutPrice
+        // the product of the reserves can only grow
+        assert newInReserve.toBigInteger() * newOutReserve.toBigInteger() >=
+                someValidReserve.toBigInteger() * someValidReserve.toBigInteger()
+
+        where:
+        inAmount << [0.000001d, 1d, 7000d, 50000d, 1000000d]
+    }
+
+    def "given random values should match BigDecimal at the same scale and rounding"() {
+        given:
+        Random random = new Random(7)
+
+        expect:
+        1000.times {
+            // up to 10^12, where products need more than 64 bits
+            long reserve = 1 + (long) (random.nextDouble() * 1e18d)
+            long outReserve = 1 + (long) (random.nextDouble() * 1e18d)
+            long price = 1 + (long) (random.nextDouble() * 1e10d)
+            long inAmount = (long) (random.nextDouble() * reserve)
+            BigDecimal exactReserve = BigDecimal.valueOf(reserve, FixedPointKernel.SCALE_DIGITS)
+            BigDecimal exactOutReserve = BigDecimal.valueOf(outReserve, FixedPointKernel.SCALE_DIGITS)
+            BigDecimal exactPrice = BigDecimal.valueOf(price, FixedPointKernel.SCALE_DIGITS)
+            BigDecimal exactInAmount = BigDecimal.valueOf(inAmount, FixedPointKernel.SCALE_DIGITS)
+            assert FixedPointKernel.amountOut(reserve, outReserve, inAmount) == FixedPointKernel.amountOut(
+                    exactReserve, exactOutReserve, exactInAmount).unscaledValue().longValueExact()
+            BigDecimal expectedPrice = FixedPointKernel.priceForReserve(exactReserve, exactPrice,
+                    exactReserve.add(exactInAmount))
+            assert FixedPointKernel.priceForReserve(reserve, price, reserve + inAmount) ==
+                    expectedPrice.unscaledValue().longValueExact()
+        }
+    }
+
+    def "given random values within the pool limits should divide exactly without long division"() {
+        given:
+        Random random = new Random(11)
+
+        expect:
+        10000.times {
+            // quotients below 2^52, which are estimated in doubles and corrected
+            long a = (long) (random.nextDouble() * 1e17d)
+            long b = (long) (random.nextDouble() * 1e16d)
+            long c = 1 + (long) (random.nextDouble() * 1e17d)
+            if ((double) a * b / c < Math.pow(2, 52)) {
+                [RoundingMode.FLOOR, RoundingMode.CEILING, RoundingMode.HALF_UP].each { roundingMode ->
+                    assert FixedPointKernel.multiplyDivide(a, b, c, roundingMode) ==
+                            (a.toBigInteger() * b.toBigInteger()).toBigDecimal().divide(c.toBigDecimal(), 0,
+                                    roundingMode).longValueExact()
+                }
+            }
+        }
+    }
+
+    def "given long which is not negative should convert to the same double as a cast"() {
+        given:
+        Random random = new Random(13)
+
+        expect:
+        [0L, 1L, 0xFFFFFFFFL, 1L << 32, (1L << 53) + 1, Long.MAX_VALUE].each {
+            assert FixedPointKernel.toDouble(it) == (double) it
+        }
+        10000.times {
+            long value = random.nextLong() >>> 1 + random.nextInt(63)
+            assert FixedPointKernel.toDouble(value) == (double) value
+        }
+    }
+
+    @Unroll
+    def "given #a * #b / #c should round #roundingMode to #expected"() {
+        expect:
+        FixedPointKernel.multiplyDivide(a, b, c, roundingMode) == expected
+
+        where:
+        a                      | b  | c                      | roundingMode          | expected
+        // exact multiples, where the estimate may land either side of the quotient
+        4503599627370495L      | 3L | 3L                     | RoundingMode.FLOOR    | 4503599627370495L
+        4503599627370495L      | 3L | 3L                     | RoundingMode.CEILING  | 4503599627370495L
+        999999999999999999L    | 1L | 999999999999999999L    | RoundingMode.FLOOR    | 1L
+        // half way
+        5L                     | 1L | 2L                     | RoundingMode.HALF_UP  | 3L
+        5L                     | 1L | 2L                     | RoundingMode.FLOOR    | 2L
+        5L                     | 1L | 2L                     | RoundingMode.CEILING  | 3L
+        576460752303423487L    | 1L | 1152921504606846974L   | RoundingMode.HALF_UP  | 1L
+        576460752303423487L    | 1L | 1152921504606846975L   | RoundingMode.HALF_UP  | 0L
+        0L                     | 7L | 3L                     | RoundingMode.CEILING  | 0L
+    }
+
+    def "given result which does not fit a scaled long should throw"() {
+        when:
+        FixedPointKernel.priceForReserve(someValidReserve, someValidPrice * 1000, 1)
+
+        then:
+        thrown(ArithmeticException)
+
+        when:
+        FixedPointKernel.scale(1e13d)
+
+        then:
+        thrown(ArithmeticException)
+    }
+
+    def "given scaled value should round trip through double"() {
+        expect:
+        FixedPointKernel.scale(FixedPointKernel.unscale(scaledValue)) == scaledValue
+
+        where:
+        scaledValue << [0L, 1L, 999999L, 50000000001L, 2000000000000001L]
+    }
+}
@@ -1,10 +1,15 @@
 package logic
 
+import com.logic.ArithmeticMode
 import com.logic.MarketMakerLogic
+import com.metrics.InMemoryMetricsExporter
+import com.metrics.Metrics
+import com.metrics.MetricsExporter
 import com.model.LiquidityPool
 import com.model.PriceAmount
 import com.model.SwapEstimate
 import com.model.SwapRequest
+import com.util.ObjectMapperUtil
 import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
@@ -62,6 +67,160 @@ class MarketMakerLogicSpec extends Specification {
         "reverse order" | someValidAssetTwo | someValidAssetOne
     }
 
+    def "given no pool between assets, should create swap estimate with a leg per pool along best route"() {
+        given:
+        LiquidityPool otherLiquidityPool = new LiquidityPool()
+        otherLiquidityPool.setPoolName("Bananas-Limes")
+        otherLiquidityPool.setAssetOne(someValidPriceAmount)
+        otherLiquidityPool.setAssetTwo(someValidPriceAmount)
+        swapRequest = new SwapRequest()
+        swapRequest.setInAmount(someValidAmountToSwap)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName("Limes")
+
+        when:
+        SwapEstimate swapEstimate = marketMakerLogic.createBestSwapEstimate(
+                [liquidityPool, otherLiquidityPool], swapRequest, 2)
+
+        then:
+        assert MarketMakerLogic.getRoute(swapEstimate) == [someValidAssetOne, someValidAssetTwo, "Limes"]
+        assert swapEstimate.getLegs().size() == 2
+        validateSwapEstimate(swapEstimate.getLegs().get(0))
+        assert swapEstimate.getLegs().get(1).getInPriceAmount().getAmount()
+                == swapEstimate.getLegs().get(0).getOutPriceAmount().getAmount()
+        assert swapEstimate.getInPriceAmount() == swapEstimate.getLegs().get(0).getInPriceAmount()
+        assert swapEstimate.getOutPriceAmount() == swapEstimate.getLegs().get(1).getOutPriceAmount()
+        assert swapEstimate.getOutPriceAmount().getAmount() < swapEstimate.getLegs().get(0).getOutPriceAmount().getAmount()
+    }
+
+    @Unroll
+    def "given repeated swaps in #arithmeticMode (#type), should keep product of reserves"() {
+        given:
+        MarketMakerLogic logic = new MarketMakerLogic(arithmeticMode, 1e-9)
+        swapRequest = new SwapRequest()
+        swapRequest.setInAmount(1234.567891)
+        swapRequest.setInName(inAsset)
+        swapRequest.setOutName(outAsset)
+        LiquidityPool pool = liquidityPool
+
+        when:
+        1000.times {
+            pool = logic.applySwapEstimateToPool(logic.createSwapEstimate(pool, swapRequest), pool)
+        }
+
+        then:
+        double invariantDrift = MarketMakerLogic.getInvariantDrift(liquidityPool, pool)
+        assert invariantDrift >= minDrift
+        assert invariantDrift < maxDrift
+        validateMarketCaps(pool, 1e-6)
+
+        where:
+        // in fixed point, the amount out is rounded down to the scale, so the product grows by dust on each swap
+        arithmeticMode             | type            | inAsset           | outAsset          | minDrift | maxDrift
+        ArithmeticMode.DOUBLE      | "normal order"  | someValidAssetOne | someValidAssetTwo | -1e-12   | 1e-12
+        ArithmeticMode.DOUBLE      | "reverse order" | someValidAssetTwo | someValidAssetOne | -1e-12   | 1e-12
+        ArithmeticMode.FIXED_POINT | "normal order"  | someValidAssetOne | someValidAssetTwo | 0        | 1e-6
+        ArithmeticMode.FIXED_POINT | "reverse order" | someValidAssetTwo | someValidAssetOne | 0        | 1e-6
+    }
+
+    def "given fixed point mode, should round to the scale and match double pricing"() {
+        given:
+        MarketMakerLogic logic = new MarketMakerLogic(ArithmeticMode.FIXED_POINT, 1e-9)
+        swapRequest = new SwapRequest()
+        swapRequest.setInAmount(someValidAmountToSwap + 0.0000004)
+        swapRequest.setInName(someValidAssetTwo)
+        swapRequest.setOutName(someValidAssetOne)
+
+        when:
+        SwapEstimate swapEstimate = logic.createSwapEstimate(liquidityPool, swapRequest)
+        LiquidityPool newLiquidityPool = logic.applySwapEstimateToPool(swapEstimate, liquidityPool)
+
+        then:
+        SwapEstimate doubleSwapEstimate = marketMakerLogic.createSwapEstimate(liquidityPool, swapRequest)
+        assert swapEstimate.getInPriceAmount().getAmount() == someValidAmountToSwap
+        assert swapEstimate.getOutPriceAmount().getAmount() <= doubleSwapEstimate.getOutPriceAmount().getAmount()
+        assert Math.abs(swapEstimate.getOutPriceAmount().getAmount()
+                - doubleSwapEstimate.getOutPriceAmount().getAmount()) < 1e-5
+        [newLiquidityPool.getAssetOne(), newLiquidityPool.getAssetTwo()].each {
+            assert new BigDecimal(it.getAmount()).setScale(6, BigDecimal.ROUND_HALF_UP).doubleValue() == it.getAmount()
+        }
+        assert Math.abs(newLiquidityPool.getAssetOne().getAmount()
+                - (someValidSupply - swapEstimate.getOutPriceAmount().getAmount())) < 1e-9
+        assert newLiquidityPool.getAssetTwo().getAmount() == someValidSupply + someValidAmountToSwap
+        validateMarketCaps(newLiquidityPool, 1e-8)
+    }
+
+    def "given fixed point mode and repeated swaps, should price the settled pool the same as a pool read back"() {
+        given:
+        MarketMakerLogic logic = new MarketMakerLogic(ArithmeticMode.FIXED_POINT, 1e-9)
+        swapRequest = new SwapRequest()
+        swapRequest.setInAmount(someValidAmountToSwap + 0.0000004)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+
+        when:
+        SwapEstimate swapEstimate = logic.createSwapEstimate(liquidityPool, swapRequest)
+        LiquidityPool settledPool = logic.applySwapEstimateToPool(swapEstimate, liquidityPool)
+        LiquidityPool readPool = ObjectMapperUtil.toClass(ObjectMapperUtil.toString(settledPool), LiquidityPool)
+        SwapEstimate nextSwapEstimate = logic.createSwapEstimate(settledPool, swapRequest)
+        SwapEstimate readSwapEstimate = logic.createSwapEstimate(readPool, swapRequest)
+
+        then:
+        assert readPool == settledPool
+        assert ObjectMapperUtil.toClass(ObjectMapperUtil.toString(swapEstimate), SwapEstimate) == swapEstimate
+        assert nextSwapEstimate == readSwapEstimate
+        assert logic.applySwapEstimateToPool(nextSwapEstimate, settledPool) ==
+                logic.applySwapEstimateToPool(readSwapEstimate, readPool)
+    }
+
+    def "given fixed point mode and values which overflow a scaled long, should price in BigDecimal"() {
+        given:
+        InMemoryMetricsExporter exporter = new InMemoryMetricsExporter()
+        Metrics.flush()
+        Metrics.setExporter(exporter)
+        MarketMakerLogic logic = new MarketMakerLogic(ArithmeticMode.FIXED_POINT, 1e-9)
+        liquidityPool.setAssetOne(new PriceAmount(0.001, 1e14))
+        liquidityPool.setAssetTwo(new PriceAmount(0.001, 1e14))
+        swapRequest = new SwapRequest()
+        swapRequest.setInAmount(1e12)
+        swapRequest.setInName(someValidAssetOne)
+        swapRequest.setOutName(someValidAssetTwo)
+
+        when:
+        SwapEstimate swapEstimate = logic.createSwapEstimate(liquidityPool, swapRequest)
+        LiquidityPool newLiquidityPool = logic.applySwapEstimateToPool(swapEstimate, liquidityPool)
+        Metrics.flush()
+
+        then:
+        assert Math.abs(swapEstimate.getOutPriceAmount().getAmount() - 1e14 * 1e12 / (1e14 + 1e12)) < 1e-2
+        assert MarketMakerLogic.getInvariantDrift(liquidityPool, newLiquidityPool) > -1e-12
+        assert exporter.getCount("MarketMakerLogic.fixedPointOverflow") == 2
+        assert exporter.getCount("MarketMakerLogic.invariantDrift") == 0
+
+        cleanup:
+        Metrics.setExporter({ snapshot -> } as MetricsExporter)
+    }
+
+    def "given settlement which drifts the invariant beyond the threshold, should count it"() {
+        given:
+        InMemoryMetricsExporter exporter = new InMemoryMetricsExporter()
+        Metrics.flush()
+        Metrics.setExporter(exporter)
+        SwapEstimate swapEstimate = new SwapEstimate(someValidAssetOne, new PriceAmount(someValidPrice, 1000),
+                someValidAssetTwo, new PriceAmount(someValidPrice, 1000))
+
+        when:
+        LiquidityPool newLiquidityPool = marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool)
+        Metrics.flush()
+
+        then:
+        assert MarketMakerLogic.getInvariantDrift(liquidityPool, newLiquidityPool) < -1e-9
+        assert exporter.getCount("MarketMakerLogic.invariantDrift") == 1
+
+        cleanup:
+        Metrics.setExporter({ snapshot -> } as MetricsExporter)
+    }
+
     /**
      * Validates that the swap contract has correct in / out details, along with approximately equal in / out value.
      * @param swapEstimate
@@ -84,4 +243,14 @@ class MarketMakerLogicSpec extends Specification {
         Double marketCapAssetTwo = liquidityPool.getAssetTwo().getPrice() * liquidityPool.getAssetTwo().getAmount()
         assert Math.abs(marketCapAssetOne - marketCapAssetTwo) < 0.01
     }
+
+    /**
+     * Validates that both the market caps of an asset in a liquidity pool are the same, up to a relative tolerance, as
+     * prices rounded to the scale in fixed point don't give exactly the same market caps.
+     */
+    private static void validateMarketCaps(final LiquidityPool liquidityPool, final double tolerance) {
+        double marketCapAssetOne = liquidityPool.getAssetOne().getPrice() * liquidityPool.getAssetOne().getAmount()
+        double marketCapAssetTwo = liquidityPool.getAssetTwo().getPrice() * liquidityPool.getAssetTwo().getAmount()
+        assert Math.abs(marketCapAssetOne - marketCapAssetTwo) < marketCapAssetOne * tolerance
+    }
 }
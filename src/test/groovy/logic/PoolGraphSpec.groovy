@@ -0,0 +1,65 @@
+package logic
+
+import com.logic.PoolGraph
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.types.Asset
+import spock.lang.Specification
+
+class PoolGraphSpec extends Specification {
+
+    private static final int APPLES = Asset.APPLES.ordinal()
+    private static final int BANANAS = Asset.BANANAS.ordinal()
+    private static final int LEMONS = Asset.LEMONS.ordinal()
+    private static final int LIMES = Asset.LIMES.ordinal()
+    private static final int ORANGES = Asset.ORANGES.ordinal()
+
+    def "given no pool between assets should route through other pools"() {
+        given:
+        PoolGraph poolGraph = new PoolGraph([pool("Apples-Bananas", 50000), pool("Bananas-Limes", 50000)])
+
+        expect:
+        assert poolGraph.findBestRoute(APPLES, LIMES, 1000, 2) == [APPLES, BANANAS, LIMES] as int[]
+        assert poolGraph.findBestRoute(LIMES, APPLES, 1000, 3) == [LIMES, BANANAS, APPLES] as int[]
+        assert poolGraph.findBestRoute(APPLES, LIMES, 1000, 1) == null
+        assert poolGraph.findBestRoute(APPLES, ORANGES, 1000, 3) == null
+    }
+
+    def "given route through deeper pools returns more should prefer it over direct pool"() {
+        given:
+        PoolGraph poolGraph = new PoolGraph([pool("Apples-Limes", 2000), pool("Apples-Lemons", 50000),
+                                             pool("Lemons-Limes", 50000)])
+
+        expect:
+        assert poolGraph.findBestRoute(APPLES, LIMES, 1000, 1) == [APPLES, LIMES] as int[]
+        assert poolGraph.findBestRoute(APPLES, LIMES, 1000, 2) == [APPLES, LEMONS, LIMES] as int[]
+    }
+
+    def "given equal pools should prefer direct route"() {
+        given:
+        PoolGraph poolGraph = new PoolGraph([pool("Apples-Limes", 50000), pool("Apples-Lemons", 50000),
+                                             pool("Lemons-Limes", 50000)])
+
+        expect:
+        assert poolGraph.findBestRoute(APPLES, LIMES, 1000, 3) == [APPLES, LIMES] as int[]
+    }
+
+    def "given same list of pools should report being built from it"() {
+        given:
+        List<LiquidityPool> liquidityPools = [pool("Apples-Bananas", 50000)]
+        PoolGraph poolGraph = new PoolGraph(liquidityPools)
+
+        expect:
+        assert poolGraph.isBuiltFrom(liquidityPools)
+        assert !poolGraph.isBuiltFrom(new ArrayList<>(liquidityPools))
+        assert poolGraph.getLiquidityPool(BANANAS, APPLES) == liquidityPools.get(0)
+    }
+
+    private static LiquidityPool pool(final String poolName, final double supply) {
+        LiquidityPool liquidityPool = new LiquidityPool()
+        liquidityPool.setPoolName(poolName)
+        liquidityPool.setAssetOne(new PriceAmount(100, supply))
+        liquidityPool.setAssetTwo(new PriceAmount(100, supply))
+        return liquidityPool
+    }
+}
@@ -0,0 +1,86 @@
+package metrics
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.metrics.EmfMetricsExporter
+import com.metrics.MetricsSnapshot
+import org.HdrHistogram.Histogram
+import spock.lang.Specification
+
+class EmfMetricsExporterSpec extends Specification {
+
+    private ByteArrayOutputStream output = new ByteArrayOutputStream()
+    private EmfMetricsExporter exporter = new EmfMetricsExporter("AutomatedMarketMaker", "estimateSwap",
+            new PrintStream(output, true, "UTF-8"))
+
+    def "given timer and counter should write embedded metric format line"() {
+        given:
+        Histogram histogram = new Histogram(2)
+        histogram.recordValue(2000)
+        histogram.recordValue(4000)
+
+        when:
+        exporter.export(new MetricsSnapshot(0, 1634000000000L, ["EstimateSwapHandler.handleRequest": histogram],
+                ["LiquidityPoolCache.hit": 5L]))
+        List<String> lines = output.toString("UTF-8").readLines()
+        Map line = new ObjectMapper().readValue(lines[0], Map)
+        Map directive = line._aws.CloudWatchMetrics[0]
+
+        then:
+        assert lines.size() == 1
+        assert line._aws.Timestamp == 1634000000000L
+        assert directive.Namespace == "AutomatedMarketMaker"
+        assert directive.Dimensions == [["FunctionName"]]
+        assert directive.Metrics == [[Name: "EstimateSwapHandler.handleRequest", Unit: "Microseconds"],
+                                     [Name: "LiquidityPoolCache.hit", Unit: "Count"]]
+        assert line.FunctionName == "estimateSwap"
+        Map distribution = line["EstimateSwapHandler.handleRequest"]
+        assert distribution.Counts == [1, 1]
+        assert distribution.Count == 2
+        // histogram values are within 1%
+        assert [distribution.Values, [2d, 4d]].transpose().every { value, expected ->
+            Math.abs(value - expected) < expected / 100
+        }
+        assert Math.abs(distribution.Max - 4d) < 0.04d
+        assert Math.abs(distribution.Sum - 6d) < 0.06d
+        assert line["LiquidityPoolCache.hit"] == 5
+    }
+
+    def "given histogram with more buckets than EMF allows should merge them keeping every count"() {
+        given:
+        Histogram histogram = new Histogram(2)
+        // 1 microsecond to 10 seconds, many more distinct buckets than EMF allows values
+        (0..<700).each { histogram.recordValue((long) (1000 * Math.pow(10, it / 100d))) }
+        histogram.recordValueWithCount(5000, 1000)
+
+        when:
+        exporter.export(new MetricsSnapshot(0, 1634000000000L, ["SQSClient.sendMessage": histogram], [:]))
+        Map line = new ObjectMapper().readValue(output.toString("UTF-8").readLines()[0], Map)
+        Map distribution = line["SQSClient.sendMessage"]
+
+        then:
+        assert distribution.Values.size() <= EmfMetricsExporter.MAX_VALUES_PER_METRIC
+        assert distribution.Values.size() == distribution.Counts.size()
+        assert distribution.Values == distribution.Values.sort(false)
+        assert distribution.Counts.sum() == 1700
+        assert distribution.Count == 1700
+        assert Math.abs(distribution.Min - 1d) < 0.01d
+        assert Math.abs(distribution.Max - Math.pow(10, 6.99)) < Math.pow(10, 6.99) / 100
+        // the merged values stay close to the bulk of the latencies
+        int bulk = distribution.Counts.indexOf(distribution.Counts.max())
+        assert Math.abs(distribution.Values[bulk] - 5d) < 1d
+    }
+
+    def "given more than 100 metrics should split them across lines"() {
+        given:
+        Map<String, Long> counters = (1..150).collectEntries { ["counter" + it, (long) it] }
+
+        when:
+        exporter.export(new MetricsSnapshot(0, 1634000000000L, [:], counters))
+        List<String> lines = output.toString("UTF-8").readLines()
+
+        then:
+        assert lines.size() == 2
+        assert lines.collect { new ObjectMapper().readValue(it, Map)._aws.CloudWatchMetrics[0].Metrics.size() } ==
+                [100, 50]
+    }
+}
@@ -0,0 +1,147 @@
+package metrics
+
+import com.amazonaws.encryptionsdk.caching.CryptoMaterialsCache
+import com.amazonaws.encryptionsdk.caching.CryptoMaterialsCache.UsageStats
+import com.client.dynamodb.DynamoDBClient
+import com.client.dynamodb.LiquidityPoolCache
+import com.client.kms.CountingCryptoMaterialsCache
+import com.metrics.InMemoryMetricsExporter
+import com.metrics.Metrics
+import com.metrics.MetricsExporter
+import com.model.LiquidityPool
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class MetricsSpec extends Specification {
+
+    private static final long MAX_AGE_MILLIS = 60000
+
+    private InMemoryMetricsExporter exporter = new InMemoryMetricsExporter()
+
+    def setup() {
+        // drop whatever earlier specs recorded
+        Metrics.flush()
+        Metrics.setExporter(exporter)
+    }
+
+    def cleanup() {
+        Metrics.setExporter({ snapshot -> } as MetricsExporter)
+    }
+
+    def "given recorded timer and counter should export them once per flush"() {
+        given:
+        def timer = Metrics.timer("MetricsSpec.timer")
+        def counter = Metrics.counter("MetricsSpec.counter")
+
+        when:
+        timer.recordNanos(TimeUnit.MILLISECONDS.toNanos(5))
+        timer.recordNanos(TimeUnit.MILLISECONDS.toNanos(7))
+        counter.increment()
+        counter.add(2)
+        Metrics.flush()
+        Metrics.flush()
+
+        then:
+        assert Metrics.timer("MetricsSpec.timer").is(timer)
+        assert exporter.getTimerCount("MetricsSpec.timer") == 2
+        assert Math.abs(exporter.getTimer("MetricsSpec.timer").getMaxValue() - TimeUnit.MILLISECONDS.toNanos(7)) <
+                TimeUnit.MILLISECONDS.toNanos(7) / 100
+        assert exporter.getCount("MetricsSpec.counter") == 3
+    }
+
+    def "given failing exporter should not fail caller"() {
+        given:
+        Metrics.setExporter({ snapshot -> throw new IllegalStateException("unavailable") } as MetricsExporter)
+        Metrics.counter("MetricsSpec.counter").increment()
+
+        when:
+        Metrics.flush()
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "given pool cache reads should count hits and misses"() {
+        given:
+        def dynamoDBClient = Mock(DynamoDBClient)
+        def liquidityPoolCache = new LiquidityPoolCache(dynamoDBClient, 1000, 500)
+        dynamoDBClient.loadLiquidityPool("Apples-Bananas") >> LiquidityPool.builder().poolName("Apples-Bananas").build()
+
+        when:
+        liquidityPoolCache.getLiquidityPool("Apples-Bananas")
+        liquidityPoolCache.getLiquidityPool("Apples-Bananas")
+        liquidityPoolCache.getLiquidityPool("Apples-Bananas")
+        Metrics.flush()
+
+        then:
+        assert exporter.getCount("LiquidityPoolCache.miss") == 1
+        assert exporter.getCount("LiquidityPoolCache.hit") == 2
+    }
+
+    def "given data key cache lookups should count a hit only for entries which can be used"() {
+        given:
+        def delegate = Mock(CryptoMaterialsCache)
+        def cryptoMaterialsCache = new CountingCryptoMaterialsCache(delegate, MAX_AGE_MILLIS, 2)
+        byte[] cacheId = new byte[16]
+        long now = System.currentTimeMillis()
+        delegate.getEntryForEncrypt(cacheId, _) >>> [null, encryptEntry(now, 2), encryptEntry(now, 3),
+                                                     encryptEntry(now - 2 * MAX_AGE_MILLIS, 1)]
+        delegate.getEntryForDecrypt(cacheId) >>> [null, decryptEntry(now), decryptEntry(now),
+                                                  decryptEntry(now - 2 * MAX_AGE_MILLIS)]
+
+        when:
+        // none, usable, over the message limit and expired
+        4.times { cryptoMaterialsCache.getEntryForEncrypt(cacheId, UsageStats.ZERO) }
+        // none, usable twice and expired
+        4.times { cryptoMaterialsCache.getEntryForDecrypt(cacheId) }
+        Metrics.flush()
+
+        then:
+        assert exporter.getCount("KMSClient.dataKeyCacheMiss") == 5
+        assert exporter.getCount("KMSClient.dataKeyCacheHit") == 3
+        assert cryptoMaterialsCache.getEncryptHits() == 1
+        assert cryptoMaterialsCache.getDecryptHits() == 2
+        assert cryptoMaterialsCache.getHitRate() == 3d / 8
+    }
+
+    def "given flush between a data key lookup and its put should count the miss in the interval of the lookup"() {
+        given:
+        def delegate = Mock(CryptoMaterialsCache)
+        def cryptoMaterialsCache = new CountingCryptoMaterialsCache(delegate, MAX_AGE_MILLIS, 2)
+        byte[] cacheId = new byte[16]
+        delegate.getEntryForEncrypt(cacheId, _) >>> [null, encryptEntry(System.currentTimeMillis(), 1)]
+
+        when:
+        cryptoMaterialsCache.getEntryForEncrypt(cacheId, UsageStats.ZERO)
+        Metrics.flush()
+
+        then:
+        assert exporter.getCount("KMSClient.dataKeyCacheMiss") == 1
+        assert exporter.getCount("KMSClient.dataKeyCacheHit") == 0
+
+        when:
+        exporter.clear()
+        cryptoMaterialsCache.putEntryForEncrypt(cacheId, null, null, UsageStats.ZERO)
+        cryptoMaterialsCache.getEntryForEncrypt(cacheId, UsageStats.ZERO)
+        Metrics.flush()
+
+        then:
+        assert exporter.getCount("KMSClient.dataKeyCacheMiss") == 0
+        assert exporter.getCount("KMSClient.dataKeyCacheHit") == 1
+    }
+
+    private CryptoMaterialsCache.EncryptCacheEntry encryptEntry(final long entryCreationTime,
+                                                                final long messagesEncrypted) {
+        return Stub(CryptoMaterialsCache.EncryptCacheEntry) {
+            getEntryCreationTime() >> entryCreationTime
+            getUsageStats() >> new UsageStats(0, messagesEncrypted)
+        }
+    }
+
+    private CryptoMaterialsCache.DecryptCacheEntry decryptEntry(final long entryCreationTime) {
+        return Stub(CryptoMaterialsCache.DecryptCacheEntry) {
+            getEntryCreationTime() >> entryCreationTime
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package settlement
+
+import com.client.dynamodb.DynamoDBClient
+import com.client.dynamodb.LiquidityPoolCache
+import com.client.kms.token.SwapClaimToken
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.SwapEstimate
+import com.model.SwapRequest
+import com.model.Transaction
+import com.model.exception.ConcurrentUpdateException
+import com.settlement.PoolSequencer
+import com.settlement.SequencerSwapSubmitter
+import com.settlement.SwapSubmitter
+import spock.lang.Specification
+import spock.lang.Subject
+
+class PoolSequencerSpec extends Specification {
+
+    def dynamoDBClient = Mock(DynamoDBClient)
+    def liquidityPoolCache = Mock(LiquidityPoolCache)
+    def marketMakerLogic = Mock(MarketMakerLogic)
+
+    private String somePoolName = "Apples-Bananas"
+    private LiquidityPool liquidityPool = LiquidityPool.builder().poolName(somePoolName).version(1L).build()
+    private LiquidityPool poolAfterFirstSwap = LiquidityPool.builder().poolName(somePoolName).version(2L).build()
+    private LiquidityPool poolAfterSecondSwap = LiquidityPool.builder().poolName(somePoolName).version(3L).build()
+    private SwapEstimate swapEstimate = new SwapEstimate()
+
+    @Subject
+    PoolSequencer poolSequencer
+
+    def setup() {
+        // threads are not started, so each test runs the passes with settlePending
+        poolSequencer = new PoolSequencer(dynamoDBClient, liquidityPoolCache, marketMakerLogic, 2, 4)
+    }
+
+    def "given swaps for a pool should apply in order against in-memory pool and write once per pass"() {
+        given:
+        SwapClaimToken first = swapClaimToken("contractOne", "Apples", "Bananas")
+        SwapClaimToken second = swapClaimToken("contractTwo", "Bananas", "Apples")
+        SwapClaimToken third = swapClaimToken("contractThree", "Apples", "Bananas")
+
+        when:
+        assert poolSequencer.submit(first)
+        assert poolSequencer.submit(second)
+        poolSequencer.settlePending()
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName, true) >> liquidityPool
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, first.getSwapRequest()) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> poolAfterFirstSwap
+
+        then:
+        1 * marketMakerLogic.createSwapEstimate(poolAfterFirstSwap, second.getSwapRequest()) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, poolAfterFirstSwap) >> poolAfterSecondSwap
+
+        then:
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, poolAfterSecondSwap) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            assert transactions*.getTransactionId() == ["contractOne", "contractTwo"]
+        }
+        1 * liquidityPoolCache.put(poolAfterSecondSwap)
+
+        when: "the next pass starts from the pool written, without loading it again"
+        assert poolSequencer.submit(third)
+        poolSequencer.settlePending()
+
+        then:
+        0 * dynamoDBClient.loadLiquidityPool(_, _)
+        1 * marketMakerLogic.createSwapEstimate(poolAfterSecondSwap, third.getSwapRequest()) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, poolAfterSecondSwap) >> liquidityPool
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, liquidityPool)
+    }
+
+    def "given pool updated concurrently should reload pool and settle again"() {
+        given:
+        LiquidityPool reloadedLiquidityPool = LiquidityPool.builder().poolName(somePoolName).version(5L).build()
+        SwapClaimToken first = swapClaimToken("contractOne", "Apples", "Bananas")
+
+        when:
+        poolSequencer.submit(first)
+        poolSequencer.settlePending()
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName, true) >> liquidityPool
+        1 * marketMakerLogic.createSwapEstimate(liquidityPool, _) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, liquidityPool) >> poolAfterFirstSwap
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, poolAfterFirstSwap) >> {
+            throw new ConcurrentUpdateException(new RuntimeException("some conflict"))
+        }
+        1 * liquidityPoolCache.invalidate(somePoolName)
+
+        then:
+        1 * dynamoDBClient.loadLiquidityPool(somePoolName, true) >> reloadedLiquidityPool
+        1 * marketMakerLogic.createSwapEstimate(reloadedLiquidityPool, _) >> swapEstimate
+        1 * marketMakerLogic.applySwapEstimateToPool(swapEstimate, reloadedLiquidityPool) >> poolAfterSecondSwap
+        1 * dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, poolAfterSecondSwap)
+    }
+
+    def "given full shard or routed swap should submit to fallback"() {
+        given:
+        SwapSubmitter fallbackSwapSubmitter = Mock(SwapSubmitter)
+        SequencerSwapSubmitter sequencerSwapSubmitter = new SequencerSwapSubmitter(poolSequencer,
+                fallbackSwapSubmitter)
+        SwapClaimToken routed = swapClaimToken("routed", "Apples", "Lemons")
+        routed.setRoute(["Apples", "Bananas", "Lemons"])
+        List<SwapClaimToken> swapClaimTokens = (1..5).collect { swapClaimToken("contract" + it, "Apples", "Bananas") }
+
+        when:
+        swapClaimTokens.each { sequencerSwapSubmitter.submit(it) }
+        sequencerSwapSubmitter.submit(routed)
+
+        then:
+        1 * fallbackSwapSubmitter.submit(swapClaimTokens.get(4))
+        1 * fallbackSwapSubmitter.submit(routed)
+    }
+
+    def "given started sequencer should settle submitted swaps on shard thread"() {
+        given:
+        dynamoDBClient.loadLiquidityPool(somePoolName, true) >> liquidityPool
+        marketMakerLogic.createSwapEstimate(_, _) >> swapEstimate
+        marketMakerLogic.applySwapEstimateToPool(_, _) >> liquidityPool
+        List<String> written = []
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, _) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            written.addAll(transactions*.getTransactionId())
+        }
+
+        when:
+        poolSequencer.start()
+        poolSequencer.submit(swapClaimToken("contractOne", "Apples", "Bananas"))
+        poolSequencer.submit(swapClaimToken("contractTwo", "Apples", "Bananas"))
+        poolSequencer.stop()
+
+        then:
+        // stop waits for the shard threads to settle what they took
+        assert written == ["contractOne", "contractTwo"]
+        assert !poolSequencer.submit(swapClaimToken("contractThree", "Apples", "Bananas"))
+    }
+
+    def "given many submitting threads should settle every swap once and in order per thread"() {
+        given:
+        int producers = 4
+        int swapsPerProducer = 2000
+        poolSequencer = new PoolSequencer(dynamoDBClient, liquidityPoolCache, marketMakerLogic, 2, 64)
+        dynamoDBClient.loadLiquidityPool(somePoolName, true) >> liquidityPool
+        marketMakerLogic.createSwapEstimate(_, _) >> swapEstimate
+        marketMakerLogic.applySwapEstimateToPool(_, _) >> liquidityPool
+        // only the shard thread of the pool writes, so no synchronization is needed
+        List<String> written = []
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, _) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            written.addAll(transactions*.getTransactionId())
+        }
+
+        when:
+        poolSequencer.start()
+        List<Thread> threads = (0..<producers).collect { int producer ->
+            Thread.start {
+                for (int i = 0; i < swapsPerProducer; i++) {
+                    SwapClaimToken swapClaimToken = swapClaimToken(producer + "-" + i, "Apples", "Bananas")
+                    while (!poolSequencer.submit(swapClaimToken)) {
+                        Thread.yield()
+                    }
+                }
+            }
+        }
+        threads*.join()
+        poolSequencer.stop()
+
+        then:
+        assert written.size() == producers * swapsPerProducer
+        (0..<producers).each { int producer ->
+            assert written.findAll { it.startsWith(producer + "-") } ==
+                    (0..<swapsPerProducer).collect { producer + "-" + it }
+        }
+    }
+
+    def "given swaps submitted while stopping should settle every swap which was accepted"() {
+        given:
+        dynamoDBClient.loadLiquidityPool(somePoolName, true) >> liquidityPool
+        marketMakerLogic.createSwapEstimate(_, _) >> swapEstimate
+        marketMakerLogic.applySwapEstimateToPool(_, _) >> liquidityPool
+        Set<String> written = Collections.synchronizedSet(new HashSet<>())
+        dynamoDBClient.writeTransactionsAndUpdateLiquidityPool(_, _) >> { List<Transaction> transactions, LiquidityPool newLiquidityPool ->
+            written.addAll(transactions*.getTransactionId())
+        }
+        Set<String> accepted = Collections.synchronizedSet(new HashSet<>())
+
+        when:
+        (0..<20).each { int round ->
+            poolSequencer = new PoolSequencer(dynamoDBClient, liquidityPoolCache, marketMakerLogic, 2, 1024)
+            poolSequencer.start()
+            List<Thread> threads = (0..<4).collect { int producer ->
+                Thread.start {
+                    int i = 0
+                    while (true) {
+                        String swapContractId = round + "-" + producer + "-" + i++
+                        if (!poolSequencer.submit(swapClaimToken(swapContractId, "Apples", "Bananas"))) {
+                            break
+                        }
+                        accepted.add(swapContractId)
+                    }
+                }
+            }
+            Thread.sleep(2)
+            poolSequencer.stop()
+            threads*.join()
+        }
+
+        then:
+        assert !accepted.isEmpty()
+        assert written == accepted
+    }
+
+    private static SwapClaimToken swapClaimToken(final String swapContractId, final String inName,
+                                                 final String outName) {
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName(inName)
+        swapRequest.setOutName(outName)
+        swapRequest.setInAmount(100d)
+        SwapClaimToken swapClaimToken = new SwapClaimToken()
+        swapClaimToken.setSwapContractId(swapContractId)
+        swapClaimToken.setSwapRequest(swapRequest)
+        return swapClaimToken
+    }
+}
@@ -0,0 +1,120 @@
+package simulation
+
+import com.logic.MarketMakerLogic
+import com.model.LiquidityPool
+import com.model.PriceAmount
+import com.model.SwapRequest
+import com.simulation.Scenario
+import com.simulation.ScenarioResult
+import com.simulation.SimulationEngine
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class SimulationEngineSpec extends Specification {
+
+    @TempDir
+    Path outputDirectory
+
+    def marketMakerLogic = new MarketMakerLogic()
+
+    @Subject
+    SimulationEngine simulationEngine = new SimulationEngine(marketMakerLogic, 4)
+
+    def cleanup() {
+        simulationEngine.close()
+    }
+
+    def "given generated scenarios should run them in parallel and repeat them for the same seed"() {
+        given:
+        List<Scenario> scenarios = [Scenario.Type.RANDOM_WALK, Scenario.Type.ARBITRAGE, Scenario.Type.WHALE]
+                .collect { scenario(it.getName(), it, 5000) }
+        scenarios.add(scenario("random-walk-again", Scenario.Type.RANDOM_WALK, 5000))
+
+        when:
+        List<ScenarioResult> results = simulationEngine.run(scenarios, outputDirectory)
+
+        then:
+        assert results*.getScenarioName() == scenarios*.getName()
+        results.each {
+            assert it.getAppliedSwapCount() + it.getRejectedSwapCount() == 5000
+            assert it.getPoolResults().size() == 45
+            assert it.getSlippageHistogram().getTotalCount() == it.getAppliedSwapCount()
+        }
+        assert results[0].getPoolResults() == results[3].getPoolResults()
+        List<String> reserves = Files.readAllLines(outputDirectory.resolve("random-walk-reserves.csv"))
+        assert reserves[0] == "swap,poolName,assetOnePrice,assetOneAmount,assetTwoPrice,assetTwoAmount,invariantDrift"
+        // initial state, every 1000 swaps, for every pool
+        assert reserves.size() == 1 + 6 * 45
+        assert reserves[1].startsWith("0,Apples-Bananas,100.0,50000.0,100.0,50000.0,0.0")
+    }
+
+    def "given replay file should apply its swaps through MarketMakerLogic until the end of the file"() {
+        given:
+        Path replayFile = outputDirectory.resolve("swaps.csv")
+        Files.write(replayFile, ["# inName,inAmount,outName", "Apples,1000,Bananas", "", "Apples,2500.5,Bananas"])
+        Scenario replay = Scenario.builder()
+                .name("replay")
+                .type(Scenario.Type.REPLAY)
+                .replayFile(replayFile)
+                .swapCount(100)
+                .build()
+
+        when:
+        ScenarioResult result = simulationEngine.run([replay], null)[0]
+
+        then:
+        LiquidityPool expected = LiquidityPool.builder()
+                .poolName("Apples-Bananas")
+                .assetOne(new PriceAmount(100, 50000))
+                .assetTwo(new PriceAmount(100, 50000))
+                .build()
+        [1000, 2500.5].each {
+            SwapRequest swapRequest = new SwapRequest()
+            swapRequest.setInName("Apples")
+            swapRequest.setInAmount(it)
+            swapRequest.setOutName("Bananas")
+            expected = marketMakerLogic.applySwapEstimateToPool(
+                    marketMakerLogic.createSwapEstimate(expected, swapRequest), expected)
+        }
+        assert result.getAppliedSwapCount() == 2
+        assert result.getRejectedSwapCount() == 0
+        ScenarioResult.PoolResult poolResult = result.getPoolResults().find { it.getPoolName() == "Apples-Bananas" }
+        assert poolResult.getAssetOneAmount() == expected.getAssetOne().getAmount()
+        assert poolResult.getAssetTwoAmount() == expected.getAssetTwo().getAmount()
+        assert Math.abs(poolResult.getMaxAbsoluteInvariantDrift()) < 1e-12
+        assert result.getSlippageBasisPoints()["max"] > 0
+    }
+
+    def "given replay file with an invalid swap should fail with its line"() {
+        given:
+        Path replayFile = outputDirectory.resolve("swaps.csv")
+        Files.write(replayFile, ["Apples,1000,Bananas", "Apples,1000,Kiwis"])
+        Scenario replay = Scenario.builder()
+                .name("replay")
+                .type(Scenario.Type.REPLAY)
+                .replayFile(replayFile)
+                .swapCount(100)
+                .build()
+
+        when:
+        simulationEngine.run([replay], null)
+
+        then:
+        IllegalArgumentException e = thrown()
+        assert e.getMessage().contains("swaps.csv:2")
+    }
+
+    private static Scenario scenario(final String name, final Scenario.Type type, final long swapCount) {
+        return Scenario.builder()
+                .name(name)
+                .type(type)
+                .seed(7)
+                .swapCount(swapCount)
+                .sampleInterval(1000)
+                .build()
+    }
+}
@@ -1,6 +1,8 @@
 package util;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.client.dynamodb.DynamoDBClient;
+import com.client.dynamodb.LiquidityPoolCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.util.ObjectMapperUtil;
@@ -24,6 +26,13 @@ public final class TestUtil {
         return requestEvent;
     }
 
+    /**
+     * A LiquidityPoolCache which caches nothing, so every request loads the pool from the db client.
+     */
+    public static LiquidityPoolCache uncachedLiquidityPoolCache(final DynamoDBClient dynamoDBClient) {
+        return new LiquidityPoolCache(dynamoDBClient, 0, 0);
+    }
+
     public static Map<String, String> getPoolNamePathParams(final String poolName) {
         Map<String, String> pathParameters = new HashMap<>();
         pathParameters.put("poolName", poolName);
@@ -0,0 +1,99 @@
+package util.json
+
+import com.client.kms.token.SwapClaimToken
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.model.PriceAmount
+import com.model.SwapEstimate
+import com.model.SwapRequest
+import com.model.exception.InvalidInputException
+import com.util.ObjectMapperUtil
+import spock.lang.Specification
+
+class SwapModelsModuleSpec extends Specification {
+
+    // bean (de)serializers only, which the hand written codecs must match
+    private final ObjectMapper beanObjectMapper = new ObjectMapper()
+
+    def "given hot models should write same json as bean serializers and read back equal"() {
+        expect:
+        assert beanObjectMapper.readTree(ObjectMapperUtil.toString(model)) ==
+                beanObjectMapper.readTree(beanObjectMapper.writeValueAsString(model))
+        assert ObjectMapperUtil.toClass(ObjectMapperUtil.toBytes(model), model.getClass()) == model
+        assert ObjectMapperUtil.toClass(beanObjectMapper.writeValueAsString(model), model.getClass()) == model
+
+        where:
+        model << [
+                swapRequest(null),
+                swapRequest(3),
+                new SwapRequest(),
+                swapEstimate(null),
+                swapEstimate([swapEstimate(null), swapEstimate(null)]),
+                new SwapEstimate(),
+                swapClaimToken(null),
+                swapClaimToken(["Apples", "Bananas", "Lemons"]),
+                new SwapClaimToken()
+        ]
+    }
+
+    def "given numeric string should coerce as bean deserializer does"() {
+        when:
+        SwapRequest swapRequest = ObjectMapperUtil.toClass(
+                '{"inName":"Apples","inAmount":"7000","outName":"Bananas","maxHops":"2"}', SwapRequest.class)
+
+        then:
+        assert swapRequest.getInAmount() == 7000d
+        assert swapRequest.getMaxHops() == 2
+    }
+
+    def "given invalid json should throw InvalidInputException"() {
+        when:
+        ObjectMapperUtil.toClass(input, type)
+
+        then:
+        thrown(InvalidInputException)
+
+        where:
+        input                                                                   | type
+        '{"inName":"Apples","unknown":1}'                                       | SwapRequest.class
+        '{"inName":"Apples","inPriceAmount":{"price":null,"amount":1.0}}'       | SwapEstimate.class
+        '{"swapContractId":"someContractId","route":"Apples"}'                  | SwapClaimToken.class
+        '["Apples"]'                                                            | SwapRequest.class
+    }
+
+    def "given stream should read and write same as String"() {
+        given:
+        SwapClaimToken swapClaimToken = swapClaimToken(["Apples", "Bananas", "Lemons"])
+        ByteArrayOutputStream output = new ByteArrayOutputStream()
+
+        when:
+        ObjectMapperUtil.writeTo(output, swapClaimToken)
+
+        then:
+        assert output.toString("UTF-8") == ObjectMapperUtil.toString(swapClaimToken)
+        assert ObjectMapperUtil.toClass(new ByteArrayInputStream(output.toByteArray()), SwapClaimToken.class) ==
+                swapClaimToken
+    }
+
+    private static SwapRequest swapRequest(final Integer maxHops) {
+        SwapRequest swapRequest = new SwapRequest()
+        swapRequest.setInName("Apples")
+        swapRequest.setInAmount(7000.5d)
+        swapRequest.setOutName("Bananas")
+        swapRequest.setMaxHops(maxHops)
+        return swapRequest
+    }
+
+    private static SwapEstimate swapEstimate(final List<SwapEstimate> legs) {
+        return new SwapEstimate("Apples", new PriceAmount(1.5d, 7000.5d),
+                "Bananas", new PriceAmount(2.25d, 4000.125d), legs)
+    }
+
+    private static SwapClaimToken swapClaimToken(final List<String> route) {
+        SwapClaimToken swapClaimToken = new SwapClaimToken()
+        swapClaimToken.setSwapContractId("someContractId")
+        swapClaimToken.setExpiresAt(new Date(1634000000123L))
+        swapClaimToken.setSwapRequest(swapRequest(null))
+        swapClaimToken.setRoute(route)
+        return swapClaimToken
+    }
+}